@@ -0,0 +1,147 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+/**
+ * Settings of single diff. Context is created from {@link PgDiffArguments}
+ * when the diff starts and cannot be modified, so it can be shared by threads
+ * comparing different schemas and diffs with different settings can run at
+ * the same time. Counts of the operations of the diff are kept in
+ * {@link DiffResult} of the diff. Cache of quoted names is shared by all diffs,
+ * as quoting does not depend on any setting, see
+ * {@link PgDiffUtils#getQuotedName(String)}.
+ *
+ * @author fordfrog
+ */
+public final class DiffContext {
+
+    /**
+     * Whether DEFAULT ... should be added in case new column has NOT NULL
+     * constraint.
+     */
+    private final boolean addDefaults;
+    /**
+     * Whether to enclose all statements in transaction.
+     */
+    private final boolean addTransaction;
+    /**
+     * Whether to ignore whitespace differences in functions.
+     */
+    private final boolean ignoreFunctionWhitespace;
+    /**
+     * Whether to ignore START WITH on SEQUENCEs.
+     */
+    private final boolean ignoreStartWith;
+    /**
+     * Whether ignored statements should be output in the diff.
+     */
+    private final boolean outputIgnoredStatements;
+    /**
+     * Whether IF EXISTS and IF NOT EXISTS should be used where possible.
+     */
+    private final boolean useIfExists;
+    /**
+     * Number of threads used to create diff of schemas.
+     */
+    private final int diffThreads;
+
+    /**
+     * Creates new instance of DiffContext.
+     *
+     * @param arguments object containing arguments settings
+     */
+    public DiffContext(final PgDiffArguments arguments) {
+        addDefaults = arguments.isAddDefaults();
+        addTransaction = arguments.isAddTransaction();
+        ignoreFunctionWhitespace = arguments.isIgnoreFunctionWhitespace();
+        ignoreStartWith = arguments.isIgnoreStartWith();
+        outputIgnoredStatements = arguments.isOutputIgnoredStatements();
+        useIfExists = arguments.isUseIfExists();
+        diffThreads = arguments.getDiffThreads();
+    }
+
+    /**
+     * Getter for {@link #addDefaults}.
+     *
+     * @return {@link #addDefaults}
+     */
+    public boolean isAddDefaults() {
+        return addDefaults;
+    }
+
+    /**
+     * Getter for {@link #addTransaction}.
+     *
+     * @return {@link #addTransaction}
+     */
+    public boolean isAddTransaction() {
+        return addTransaction;
+    }
+
+    /**
+     * Getter for {@link #ignoreFunctionWhitespace}.
+     *
+     * @return {@link #ignoreFunctionWhitespace}
+     */
+    public boolean isIgnoreFunctionWhitespace() {
+        return ignoreFunctionWhitespace;
+    }
+
+    /**
+     * Getter for {@link #ignoreStartWith}.
+     *
+     * @return {@link #ignoreStartWith}
+     */
+    public boolean isIgnoreStartWith() {
+        return ignoreStartWith;
+    }
+
+    /**
+     * Getter for {@link #outputIgnoredStatements}.
+     *
+     * @return {@link #outputIgnoredStatements}
+     */
+    public boolean isOutputIgnoredStatements() {
+        return outputIgnoredStatements;
+    }
+
+    /**
+     * Getter for {@link #useIfExists}.
+     *
+     * @return {@link #useIfExists}
+     */
+    public boolean isUseIfExists() {
+        return useIfExists;
+    }
+
+    /**
+     * Getter for {@link #diffThreads}.
+     *
+     * @return {@link #diffThreads}
+     */
+    public int getDiffThreads() {
+        return diffThreads;
+    }
+
+    /**
+     * Returns IF EXISTS clause if it should be used, otherwise empty string.
+     *
+     * @return IF EXISTS clause or empty string
+     */
+    public String getDropIfExists() {
+        return PgDiffUtils.getDropIfExists(useIfExists);
+    }
+
+    /**
+     * Returns IF NOT EXISTS clause if it should be used, otherwise empty
+     * string.
+     *
+     * @return IF NOT EXISTS clause or empty string
+     */
+    public String getCreateIfNotExists() {
+        return PgDiffUtils.getCreateIfNotExists(useIfExists);
+    }
+}
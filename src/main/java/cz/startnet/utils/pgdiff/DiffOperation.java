@@ -0,0 +1,237 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Single change found by comparison of two database schemas. Operation knows
+ * what kind of change it is and which object of the new (or for drops the
+ * original) schema it changes. It does not keep the original state of the
+ * changed object, so the kind and the object only classify the change. The
+ * SQL statement performing the change is supplied by the PgDiff* class that
+ * found it, but it is built only when {@link #getSql()} is called, which is
+ * when the plan is rendered or the statements of {@link DiffResult} are
+ * requested. Statement can be split to header and clauses, in which case
+ * {@link DiffRenderer} outputs the header followed by the clauses separated
+ * by commas.
+ *
+ * @author fordfrog
+ */
+public final class DiffOperation {
+
+    /**
+     * Kinds of operations.
+     */
+    public enum Kind {
+
+        /**
+         * Sets search_path to the schema which is updated.
+         */
+        SET_SEARCH_PATH,
+        /**
+         * Starts transaction.
+         */
+        START_TRANSACTION,
+        /**
+         * Commits transaction.
+         */
+        COMMIT_TRANSACTION,
+        /**
+         * Statement ignored during parsing of the dump, output as comment.
+         */
+        IGNORED_STATEMENT,
+        /**
+         * Warning about change that cannot be done automatically.
+         */
+        WARNING,
+        CREATE_SCHEMA,
+        DROP_SCHEMA,
+        CREATE_EXTENSION,
+        DROP_EXTENSION,
+        CREATE_TABLE,
+        DROP_TABLE,
+        ALTER_TABLE,
+        ADD_COLUMN,
+        DROP_COLUMN,
+        ALTER_COLUMN_TYPE,
+        ALTER_COLUMN_DEFAULT,
+        ALTER_COLUMN_NULL,
+        ALTER_COLUMN_STATISTICS,
+        ALTER_COLUMN_STORAGE,
+        ALTER_COLUMN_GENERATED,
+        CREATE_VIEW,
+        DROP_VIEW,
+        CREATE_SEQUENCE,
+        DROP_SEQUENCE,
+        ALTER_SEQUENCE,
+        CREATE_INDEX,
+        DROP_INDEX,
+        CREATE_CONSTRAINT,
+        DROP_CONSTRAINT,
+        CREATE_TRIGGER,
+        DROP_TRIGGER,
+        ALTER_TRIGGER,
+        CREATE_RULE,
+        DROP_RULE,
+        CREATE_FUNCTION,
+        DROP_FUNCTION,
+        CREATE_PROCEDURE,
+        DROP_PROCEDURE,
+        CREATE_TYPE,
+        DROP_TYPE,
+        ALTER_TYPE,
+        CREATE_POLICY,
+        DROP_POLICY,
+        ALTER_POLICY,
+        ALTER_OWNER,
+        GRANT_PRIVILEGE,
+        REVOKE_PRIVILEGE,
+        COMMENT;
+
+        /**
+         * Returns true if operation of this kind changes the database schema.
+         *
+         * @return true if operation of this kind changes the database schema
+         */
+        public boolean isChange() {
+            switch (this) {
+                case SET_SEARCH_PATH:
+                case START_TRANSACTION:
+                case COMMIT_TRANSACTION:
+                case IGNORED_STATEMENT:
+                    return false;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * Kind of the operation.
+     */
+    private final Kind kind;
+    /**
+     * Changed object, like {@link cz.startnet.utils.pgdiff.schema.PgTable} or
+     * {@link cz.startnet.utils.pgdiff.schema.PgColumn}, or null if the
+     * operation does not change any object.
+     */
+    private final Object object;
+    /**
+     * Builds SQL statement, or statement header if the operation has clauses.
+     */
+    private final Supplier<String> sql;
+    /**
+     * Whether the statement is separated from the previous one by an empty
+     * line.
+     */
+    private final boolean separated;
+    /**
+     * Clauses of the statement.
+     */
+    private List<DiffOperation> clauses;
+
+    /**
+     * Creates new instance of DiffOperation.
+     *
+     * @param kind      {@link #kind}
+     * @param object    {@link #object}
+     * @param sql       {@link #sql}
+     * @param separated {@link #separated}
+     */
+    DiffOperation(final Kind kind, final Object object,
+            final Supplier<String> sql, final boolean separated) {
+        this.kind = kind;
+        this.object = object;
+        this.sql = sql;
+        this.separated = separated;
+    }
+
+    /**
+     * Getter for {@link #kind}.
+     *
+     * @return {@link #kind}
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Getter for {@link #object}.
+     *
+     * @return {@link #object}
+     */
+    public Object getObject() {
+        return object;
+    }
+
+    /**
+     * Builds SQL statement of the operation, or statement header if the
+     * operation has clauses. The statement is built on every call from the
+     * current state of the changed objects.
+     *
+     * @return SQL statement
+     */
+    public String getSql() {
+        return sql.get();
+    }
+
+    /**
+     * Getter for {@link #separated}.
+     *
+     * @return {@link #separated}
+     */
+    public boolean isSeparated() {
+        return separated;
+    }
+
+    /**
+     * Adds clause to the statement.
+     *
+     * @param kind   kind of the clause
+     * @param object object changed by the clause
+     * @param sql    builds SQL of the clause without the trailing comma
+     *
+     * @return this operation
+     */
+    DiffOperation addClause(final Kind kind, final Object object,
+            final Supplier<String> sql) {
+        if (clauses == null) {
+            clauses = new ArrayList<DiffOperation>();
+        }
+
+        clauses.add(new DiffOperation(kind, object, sql, false));
+
+        return this;
+    }
+
+    /**
+     * Getter for {@link #clauses}. The list cannot be modified.
+     *
+     * @return {@link #clauses}
+     */
+    public List<DiffOperation> getClauses() {
+        return clauses == null ? Collections.<DiffOperation>emptyList()
+                : Collections.unmodifiableList(clauses);
+    }
+
+    /**
+     * Returns true if the statement has at least one clause.
+     *
+     * @return true if the statement has at least one clause
+     */
+    public boolean hasClauses() {
+        return clauses != null;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + getSql();
+    }
+}
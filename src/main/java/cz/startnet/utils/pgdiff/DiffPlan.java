@@ -0,0 +1,164 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Ordered list of operations that transform the original database schema to
+ * the new one. Plan is filled while the schemas are compared and does not
+ * output anything, it is turned to SQL by {@link DiffRenderer}. SQL
+ * statements of the operations are not built before that.
+ *
+ * @author fordfrog
+ */
+public final class DiffPlan {
+
+    /**
+     * Operations in the order they must be executed.
+     */
+    private final List<DiffOperation> operations =
+            new ArrayList<DiffOperation>();
+    /**
+     * Whether the plan stops comparison at the first change.
+     */
+    private final boolean detecting;
+
+    /**
+     * Creates new instance of DiffPlan.
+     */
+    public DiffPlan() {
+        this(false);
+    }
+
+    /**
+     * Creates new instance of DiffPlan.
+     *
+     * @param detecting {@link #detecting}
+     */
+    private DiffPlan(final boolean detecting) {
+        this.detecting = detecting;
+    }
+
+    /**
+     * Creates plan that only detects whether there is any change. Adding the
+     * first operation that changes the database schema throws
+     * {@link ChangeFoundException}, so the comparison stops there and SQL of
+     * the operation is never built. Other operations are kept as usual.
+     *
+     * @return detecting plan
+     */
+    static DiffPlan detecting() {
+        return new DiffPlan(true);
+    }
+
+    /**
+     * Adds statement separated from the previous one by an empty line.
+     *
+     * @param kind   kind of the operation
+     * @param object changed object
+     * @param sql    builds SQL statement
+     */
+    public void add(final DiffOperation.Kind kind, final Object object,
+            final Supplier<String> sql) {
+        add(kind, object, sql, true);
+    }
+
+    /**
+     * Adds statement.
+     *
+     * @param kind      kind of the operation
+     * @param object    changed object
+     * @param sql       builds SQL statement
+     * @param separated whether the statement is separated from the previous
+     *                  one by an empty line
+     */
+    public void add(final DiffOperation.Kind kind, final Object object,
+            final Supplier<String> sql, final boolean separated) {
+        add(new DiffOperation(kind, object, sql, separated));
+    }
+
+    /**
+     * Adds statement that directly follows the previous one.
+     *
+     * @param kind   kind of the operation
+     * @param object changed object
+     * @param sql    builds SQL statement
+     */
+    public void addLine(final DiffOperation.Kind kind, final Object object,
+            final Supplier<String> sql) {
+        add(kind, object, sql, false);
+    }
+
+    /**
+     * Adds operation.
+     *
+     * @param operation operation
+     */
+    public void add(final DiffOperation operation) {
+        if (detecting && operation.getKind().isChange()) {
+            throw ChangeFoundException.INSTANCE;
+        }
+
+        operations.add(operation);
+    }
+
+    /**
+     * Adds all operations of the plan.
+     *
+     * @param plan plan
+     */
+    public void addAll(final DiffPlan plan) {
+        for (final DiffOperation operation : plan.operations) {
+            add(operation);
+        }
+    }
+
+    /**
+     * Getter for {@link #operations}. The list cannot be modified.
+     *
+     * @return {@link #operations}
+     */
+    public List<DiffOperation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    /**
+     * Returns true if the plan does not contain any operation.
+     *
+     * @return true if the plan does not contain any operation
+     */
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Thrown by detecting plan when the first change is added. The exception
+     * does not carry stack trace, as it only ends the comparison.
+     */
+    static final class ChangeFoundException extends RuntimeException {
+
+        /**
+         * Serial version uid.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * The only instance of the exception.
+         */
+        static final ChangeFoundException INSTANCE =
+                new ChangeFoundException();
+
+        /**
+         * Creates new instance of ChangeFoundException.
+         */
+        private ChangeFoundException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * Outputs SQL of diff plan.
+ *
+ * @author fordfrog
+ */
+public final class DiffRenderer {
+
+    /**
+     * System line separator.
+     */
+    private static final String NEW_LINE =
+            System.getProperty("line.separator");
+
+    /**
+     * Outputs SQL of all operations of the plan.
+     *
+     * @param writer writer the output should be written to
+     * @param plan   diff plan
+     */
+    public static void render(final PrintWriter writer, final DiffPlan plan) {
+        for (final DiffOperation operation : plan.getOperations()) {
+            render(writer, operation);
+        }
+    }
+
+    /**
+     * Outputs SQL of the operation.
+     *
+     * @param writer    writer the output should be written to
+     * @param operation operation
+     */
+    public static void render(final PrintWriter writer,
+            final DiffOperation operation) {
+        if (operation.isSeparated()) {
+            writer.println();
+        }
+
+        writer.println(getStatement(operation));
+    }
+
+    /**
+     * Returns SQL statement of the operation including its clauses, without
+     * empty line separating it from the previous statement.
+     *
+     * @param operation operation
+     *
+     * @return SQL statement
+     */
+    public static String getStatement(final DiffOperation operation) {
+        if (!operation.hasClauses()) {
+            return operation.getSql();
+        }
+
+        final List<DiffOperation> clauses = operation.getClauses();
+        final StringBuilder sbSQL = new StringBuilder(100);
+        sbSQL.append(operation.getSql());
+
+        for (int i = 0; i < clauses.size(); i++) {
+            sbSQL.append(NEW_LINE);
+            sbSQL.append('\t');
+            sbSQL.append(clauses.get(i).getSql());
+            sbSQL.append((i + 1) < clauses.size() ? ',' : ';');
+        }
+
+        return sbSQL.toString();
+    }
+
+    /**
+     * Creates a new instance of DiffRenderer.
+     */
+    private DiffRenderer() {
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of comparison of two database schemas. Result gives access to the
+ * changes found, their counts by kind and SQL statements performing them, so
+ * that the changes can be inspected without parsing the SQL output.
+ *
+ * @author fordfrog
+ */
+public final class DiffResult {
+
+    /**
+     * Plan containing the changes.
+     */
+    private final DiffPlan plan;
+    /**
+     * Number of changes by kind, created when first requested.
+     */
+    private Map<DiffOperation.Kind, Integer> counts;
+
+    /**
+     * Creates new instance of DiffResult.
+     *
+     * @param plan {@link #plan}
+     */
+    DiffResult(final DiffPlan plan) {
+        this.plan = plan;
+    }
+
+    /**
+     * Getter for {@link #plan}.
+     *
+     * @return {@link #plan}
+     */
+    public DiffPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Returns changes in the order they must be executed. Changes done by
+     * clauses of a statement are available through
+     * {@link DiffOperation#getClauses()}.
+     *
+     * @return list of changes
+     */
+    public List<DiffOperation> getOperations() {
+        return plan.getOperations();
+    }
+
+    /**
+     * Returns true if the database schemas differ. Statements that do not
+     * change anything, like search_path settings, transaction statements and
+     * ignored statements, are not taken into account.
+     *
+     * @return true if the database schemas differ
+     */
+    public boolean hasChanges() {
+        for (final DiffOperation operation : plan.getOperations()) {
+            if (operation.getKind().isChange()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns number of changes by kind. Statements and their clauses are
+     * counted separately, so ALTER TABLE that adds two columns counts as one
+     * {@link DiffOperation.Kind#ALTER_TABLE} and two
+     * {@link DiffOperation.Kind#ADD_COLUMN}. Statements that do not change
+     * anything are not counted.
+     *
+     * @return unmodifiable map of number of changes by kind
+     */
+    public Map<DiffOperation.Kind, Integer> getCounts() {
+        if (counts == null) {
+            final Map<DiffOperation.Kind, Integer> kindCounts =
+                    new EnumMap<DiffOperation.Kind, Integer>(
+                    DiffOperation.Kind.class);
+
+            for (final DiffOperation operation : plan.getOperations()) {
+                count(kindCounts, operation);
+
+                for (final DiffOperation clause : operation.getClauses()) {
+                    count(kindCounts, clause);
+                }
+            }
+
+            counts = Collections.unmodifiableMap(kindCounts);
+        }
+
+        return counts;
+    }
+
+    /**
+     * Returns number of changes of the kind.
+     *
+     * @param kind kind of the change
+     *
+     * @return number of changes of the kind
+     */
+    public int getCount(final DiffOperation.Kind kind) {
+        final Integer count = getCounts().get(kind);
+
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Returns SQL statements of all operations in the order they must be
+     * executed.
+     *
+     * @return list of SQL statements
+     */
+    public List<String> getStatements() {
+        final List<String> statements =
+                new ArrayList<String>(plan.getOperations().size());
+
+        for (final DiffOperation operation : plan.getOperations()) {
+            statements.add(DiffRenderer.getStatement(operation));
+        }
+
+        return statements;
+    }
+
+    /**
+     * Outputs SQL of all operations.
+     *
+     * @param writer writer the output should be written to
+     */
+    public void render(final PrintWriter writer) {
+        DiffRenderer.render(writer, plan);
+    }
+
+    /**
+     * Increments count of the operation kind if the operation is a change.
+     *
+     * @param kindCounts number of changes by kind
+     * @param operation  operation
+     */
+    private static void count(final Map<DiffOperation.Kind, Integer> kindCounts,
+            final DiffOperation operation) {
+        if (!operation.getKind().isChange()) {
+            return;
+        }
+
+        final Integer count = kindCounts.get(operation.getKind());
+        kindCounts.put(operation.getKind(), count == null ? 1 : count + 1);
+    }
+}
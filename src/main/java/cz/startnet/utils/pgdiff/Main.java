@@ -18,7 +18,23 @@ import java.io.UnsupportedEncodingException;
 public class Main {
 
     /**
-     * APgDiff main method.
+     * Exit status of check mode if the database schemas are the same.
+     */
+    static final int CHECK_SAME = 0;
+    /**
+     * Exit status of check mode if the database schemas differ.
+     */
+    static final int CHECK_DIFFERENT = 1;
+    /**
+     * Exit status of check mode if the dumps cannot be compared.
+     */
+    static final int CHECK_ERROR = 2;
+
+    /**
+     * APgDiff main method. In check mode the process exits with status
+     * {@link #CHECK_SAME} if the database schemas are the same,
+     * {@link #CHECK_DIFFERENT} if they differ and {@link #CHECK_ERROR} if the
+     * arguments are not valid or the dumps cannot be compared.
      *
      * @param args the command line arguments
      *
@@ -27,6 +43,14 @@ public class Main {
      */
     public static void main(final String[] args)
             throws UnsupportedEncodingException {
+        if (isCheck(args)) {
+            @SuppressWarnings("UseOfSystemOutOrSystemErr")
+            final PrintWriter errorWriter = new PrintWriter(System.err, true);
+            final int status = check(errorWriter, args);
+            errorWriter.close();
+            System.exit(status);
+        }
+
         @SuppressWarnings("UseOfSystemOutOrSystemErr")
         final PrintWriter writer = new PrintWriter(System.out, true);
         final PgDiffArguments arguments = new PgDiffArguments();
@@ -43,6 +67,69 @@ public class Main {
         writer.close();
     }
 
+    /**
+     * Checks whether --check is among the options, which precede the two dump
+     * files. This is decided before the arguments are parsed, so that invalid
+     * arguments in check mode end with {@link #CHECK_ERROR} too.
+     *
+     * @param args the command line arguments
+     *
+     * @return true if check mode is requested, otherwise false
+     */
+    static boolean isCheck(final String[] args) {
+        final int optionsLength =
+                args.length >= 2 ? args.length - 2 : args.length;
+
+        for (int i = 0; i < optionsLength; i++) {
+            if ("--check".equals(args[i])) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Parses the arguments and checks whether the database schemas differ.
+     * Messages about invalid arguments and errors are written to the writer.
+     *
+     * @param writer writer messages should be written to
+     * @param args   the command line arguments
+     *
+     * @return exit status of check mode
+     */
+    static int check(final PrintWriter writer, final String[] args) {
+        final PgDiffArguments arguments = new PgDiffArguments();
+
+        if (!arguments.parse(writer, args)) {
+            return CHECK_ERROR;
+        }
+
+        return check(writer, arguments);
+    }
+
+    /**
+     * Checks whether the database schemas differ. Errors are reported to the
+     * writer instead of being thrown.
+     *
+     * @param writer    writer error messages should be written to
+     * @param arguments object containing arguments settings
+     *
+     * @return exit status of check mode
+     */
+    static int check(final PrintWriter writer,
+            final PgDiffArguments arguments) {
+        try {
+            return PgDiff.checkDiff(arguments) ? CHECK_DIFFERENT : CHECK_SAME;
+        } catch (final RuntimeException ex) {
+            writer.print(Resources.getString("ErrorCheckFailed"));
+            writer.print(": ");
+            writer.println(ex.getMessage());
+
+            return CHECK_ERROR;
+        }
+    }
+
     /**
      * Creates a new Main object.
      */
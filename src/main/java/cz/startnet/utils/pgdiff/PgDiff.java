@@ -5,12 +5,27 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import cz.startnet.utils.pgdiff.loader.DumpFormat;
+import cz.startnet.utils.pgdiff.loader.DumpIndex;
 import cz.startnet.utils.pgdiff.loader.PgDumpLoader;
+import cz.startnet.utils.pgdiff.schema.Fingerprint;
 import cz.startnet.utils.pgdiff.schema.PgDatabase;
 import cz.startnet.utils.pgdiff.schema.PgExtension;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
+import cz.startnet.utils.pgdiff.schema.PgTable;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 /**
  * Creates diff of two database schemas.
@@ -32,18 +47,137 @@ public class PgDiff {
                 && arguments.getNewDumpFile().equals("-"))
             return;
 
-        final PgDatabase oldDatabase = PgDumpLoader.loadDatabaseSchema(
-                arguments.getOldDumpFile(), arguments.getInCharsetName(),
-                arguments.isOutputIgnoredStatements(),
-                arguments.isIgnoreSlonyTriggers(),
-                arguments.isIgnoreSchemaCreation());
-        final PgDatabase newDatabase = PgDumpLoader.loadDatabaseSchema(
-                arguments.getNewDumpFile(), arguments.getInCharsetName(),
+        final Pair<PgDatabase, PgDatabase> databases =
+                loadDatabases(arguments);
+        diffDatabaseSchemas(writer, arguments, databases.getL(),
+                databases.getR());
+    }
+
+    /**
+     * Checks whether the database schemas differ. Diff is not output and no
+     * SQL statement is built, see
+     * {@link #hasDifferences(PgDiffArguments, PgDatabase, PgDatabase)}.
+     *
+     * @param arguments object containing arguments settings
+     *
+     * @return true if the database schemas differ, otherwise false
+     *
+     * @throws IllegalArgumentException Thrown if both dumps should be read
+     *                                  from standard input.
+     */
+    public static boolean checkDiff(final PgDiffArguments arguments) {
+        // Both dumps cannot be read from System.in
+        if (arguments.getOldDumpFile().equals("-")
+                && arguments.getNewDumpFile().equals("-")) {
+            throw new IllegalArgumentException(
+                    Resources.getString("ErrorCheckStandardInput"));
+        }
+
+        final Pair<PgDatabase, PgDatabase> databases =
+                loadDatabases(arguments);
+
+        return hasDifferences(arguments, databases.getL(), databases.getR());
+    }
+
+    /**
+     * Loads database schemas from the dump files.
+     *
+     * @param arguments object containing arguments settings
+     *
+     * @return original database schema and new database schema
+     */
+    private static Pair<PgDatabase, PgDatabase> loadDatabases(
+            final PgDiffArguments arguments) {
+        final PgDumpLoader.Session session = new PgDumpLoader.Session(
+                arguments.getInCharsetName(),
                 arguments.isOutputIgnoredStatements(),
                 arguments.isIgnoreSlonyTriggers(),
-                arguments.isIgnoreSchemaCreation());
+                arguments.isIgnoreSchemaCreation(),
+                arguments.getParseThreads());
+
+        final DumpFormat oldFormat = getDumpFormat(
+                arguments.getOldDumpFile(), arguments.getOldDumpFormat());
+        final DumpFormat newFormat = getDumpFormat(
+                arguments.getNewDumpFile(), arguments.getNewDumpFormat());
+
+        final Set<String> schemas = arguments.getSchemas();
+        final Predicate<DumpIndex.Entry> filter = entry -> schemas.isEmpty()
+                || entry.getSchema() == null
+                || schemas.contains(entry.getSchema());
+
+        if (arguments.isLazyParse() && arguments.isUseIndex()) {
+            return retainSchemas(arguments, session.loadChangedIndexed(
+                    arguments.getOldDumpFile(), arguments.getNewDumpFile(),
+                    filter));
+        } else if (arguments.isLazyParse()) {
+            return retainSchemas(arguments, session.loadChanged(
+                    arguments.getOldDumpFile(), oldFormat,
+                    arguments.getNewDumpFile(), newFormat));
+        }
 
-        diffDatabaseSchemas(writer, arguments, oldDatabase, newDatabase);
+        return retainSchemas(arguments, loadDatabases(
+                () -> loadDatabase(session, arguments.isUseIndex(), filter,
+                        arguments.getOldDumpFile(), oldFormat),
+                () -> loadDatabase(session, arguments.isUseIndex(), filter,
+                        arguments.getNewDumpFile(), newFormat)));
+    }
+
+    /**
+     * Returns format of the dump file.
+     *
+     * @param file   name of file containing the dump
+     * @param format format of the dump, or null if it should be detected
+     *
+     * @return format of the dump
+     */
+    private static DumpFormat getDumpFormat(final String file,
+            final DumpFormat format) {
+        return format == null ? DumpFormat.detect(file) : format;
+    }
+
+    /**
+     * Loads database schema from dump file. Plain dump is loaded using index
+     * stored next to it if {@code useIndex} is set, so that it is split into
+     * chunks parsed in parallel exactly at statement boundaries and only
+     * statements accepted by the filter are read.
+     *
+     * @param session  loader session
+     * @param useIndex whether plain dump should be loaded using index stored
+     *                 next to it
+     * @param filter   filter of index entries that should be loaded
+     * @param file     name of file containing the dump
+     * @param format   format of the dump
+     *
+     * @return database schema
+     */
+    private static PgDatabase loadDatabase(
+            final PgDumpLoader.Session session, final boolean useIndex,
+            final Predicate<DumpIndex.Entry> filter, final String file,
+            final DumpFormat format) {
+        if (useIndex && format == DumpFormat.PLAIN) {
+            return session.loadIndexed(file, filter);
+        }
+
+        return session.load(file, format);
+    }
+
+    /**
+     * Removes schemas that should not be compared from both database schemas.
+     *
+     * @param arguments object containing arguments settings
+     * @param databases original database schema and new database schema
+     *
+     * @return {@code databases}
+     */
+    private static Pair<PgDatabase, PgDatabase> retainSchemas(
+            final PgDiffArguments arguments,
+            final Pair<PgDatabase, PgDatabase> databases) {
+        if (!arguments.getSchemas().isEmpty()) {
+            databases.getL().retainSchemas(arguments.getSchemas());
+            databases.getR().retainSchemas(arguments.getSchemas());
+        }
+
+        return databases;
     }
 
     /**
@@ -59,33 +193,121 @@ public class PgDiff {
     public static void createDiff(final PrintWriter writer,
             final PgDiffArguments arguments, final InputStream oldInputStream,
             final InputStream newInputStream) {
-        final PgDatabase oldDatabase = PgDumpLoader.loadDatabaseSchema(
-                oldInputStream, arguments.getInCharsetName(),
-                arguments.isOutputIgnoredStatements(),
-                arguments.isIgnoreSlonyTriggers(),
-                arguments.isIgnoreSchemaCreation());
-        final PgDatabase newDatabase = PgDumpLoader.loadDatabaseSchema(
-                newInputStream, arguments.getInCharsetName(),
-                arguments.isOutputIgnoredStatements(),
-                arguments.isIgnoreSlonyTriggers(),
-                arguments.isIgnoreSchemaCreation());
+        if (arguments.isLazyParse()) {
+            final Pair<PgDatabase, PgDatabase> databases =
+                    new PgDumpLoader.Session(arguments.getInCharsetName(),
+                    arguments.isOutputIgnoredStatements(),
+                    arguments.isIgnoreSlonyTriggers(),
+                    arguments.isIgnoreSchemaCreation(),
+                    arguments.getParseThreads())
+                    .loadChanged(oldInputStream, newInputStream);
+            retainSchemas(arguments, databases);
+            diffDatabaseSchemas(writer, arguments, databases.getL(),
+                    databases.getR());
+
+            return;
+        }
+
+        final Pair<PgDatabase, PgDatabase> databases = loadDatabases(
+                () -> PgDumpLoader.loadDatabaseSchema(oldInputStream,
+                        arguments.getInCharsetName(),
+                        arguments.isOutputIgnoredStatements(),
+                        arguments.isIgnoreSlonyTriggers(),
+                        arguments.isIgnoreSchemaCreation(),
+                        arguments.getParseThreads()),
+                () -> PgDumpLoader.loadDatabaseSchema(newInputStream,
+                        arguments.getInCharsetName(),
+                        arguments.isOutputIgnoredStatements(),
+                        arguments.isIgnoreSlonyTriggers(),
+                        arguments.isIgnoreSchemaCreation(),
+                        arguments.getParseThreads()));
+        retainSchemas(arguments, databases);
+        diffDatabaseSchemas(writer, arguments, databases.getL(),
+                databases.getR());
+    }
+
+    /**
+     * Loads both database schemas concurrently. The original schema is loaded
+     * on separate thread while the new schema is loaded on the current thread.
+     * If loading of the original schema fails, its exception is thrown even if
+     * loading of the new schema failed too, so the reported error is the same
+     * as if the schemas were loaded one after another.
+     *
+     * @param oldLoader loader of the original schema
+     * @param newLoader loader of the new schema
+     *
+     * @return original database schema and new database schema
+     */
+    private static Pair<PgDatabase, PgDatabase> loadDatabases(
+            final Callable<PgDatabase> oldLoader,
+            final Callable<PgDatabase> newLoader) {
+        final FutureTask<PgDatabase> oldTask =
+                new FutureTask<PgDatabase>(oldLoader);
+        final Thread oldThread = new Thread(oldTask, "apgdiff-old-dump-loader");
+        oldThread.setDaemon(true);
+        oldThread.start();
+
+        final PgDatabase newDatabase;
 
-        diffDatabaseSchemas(writer, arguments, oldDatabase, newDatabase);
+        try {
+            newDatabase = newLoader.call();
+        } catch (final RuntimeException ex) {
+            getResult(oldTask);
+
+            throw ex;
+        } catch (final Exception ex) {
+            getResult(oldTask);
+
+            throw new RuntimeException(ex);
+        }
+
+        return new Pair<PgDatabase, PgDatabase>(getResult(oldTask),
+                newDatabase);
+    }
+
+    /**
+     * Waits till the task is done and returns its result. Exception thrown by
+     * the task is rethrown.
+     *
+     * @param <T>  type of the result
+     * @param task task
+     *
+     * @return result of the task
+     */
+    private static <T> T getResult(final Future<T> task) {
+        try {
+            return task.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException(ex);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            } else if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+
+            throw new RuntimeException(ex.getCause());
+        }
     }
 
     /**
      * Creates new schemas (not the objects inside the schemas).
      *
-     * @param writer      writer the output should be written to
+     * @param plan        diff plan the operations are added to
+     * @param context     diff context
      * @param oldDatabase original database schema
      * @param newDatabase new database schema
      */
-    private static void createNewSchemas(final PrintWriter writer,
-            final PgDatabase oldDatabase, final PgDatabase newDatabase) {
+    private static void createNewSchemas(final DiffPlan plan,
+            final DiffContext context, final PgDatabase oldDatabase,
+            final PgDatabase newDatabase) {
         for (final PgSchema newSchema : newDatabase.getSchemas()) {
             if (oldDatabase.getSchema(newSchema.getName()) == null) {
-                writer.println();
-                writer.println(newSchema.getCreationSQL());
+                plan.add(DiffOperation.Kind.CREATE_SCHEMA, newSchema,
+                        () -> newSchema.getCreationSQL(
+                                context.isUseIfExists()));
             }
         }
     }
@@ -93,16 +315,19 @@ public class PgDiff {
    /**
      * Creates new extensions.
      *
-     * @param writer      writer the output should be written to
+     * @param plan        diff plan the operations are added to
+     * @param context     diff context
      * @param oldDatabase original database schema
      * @param newDatabase new database schema
      */
-    private static void createNewExtensions(final PrintWriter writer,
-            final PgDatabase oldDatabase, final PgDatabase newDatabase) {
+    private static void createNewExtensions(final DiffPlan plan,
+            final DiffContext context, final PgDatabase oldDatabase,
+            final PgDatabase newDatabase) {
         for (final PgExtension newExtension : newDatabase.getExtensions()) {
             if (oldDatabase.getExtension(newExtension.getName()) == null) {
-                writer.println();
-                writer.println(newExtension.getCreationSQL());
+                plan.add(DiffOperation.Kind.CREATE_EXTENSION, newExtension,
+                        () -> newExtension.getCreationSQL(
+                                context.isUseIfExists()));
             }
         }
     }
@@ -118,82 +343,219 @@ public class PgDiff {
     private static void diffDatabaseSchemas(final PrintWriter writer,
             final PgDiffArguments arguments, final PgDatabase oldDatabase,
             final PgDatabase newDatabase) {
-        if (arguments.isAddTransaction()) {
-            writer.println("START TRANSACTION;");
+        diff(arguments, oldDatabase, newDatabase).render(writer);
+    }
+
+    /**
+     * Compares two database schemas and returns the changes that transform
+     * the original schema to the new one. Nothing is output, SQL of the
+     * changes can be obtained from the result.
+     *
+     * @param arguments   object containing arguments settings
+     * @param oldDatabase original database schema
+     * @param newDatabase new database schema
+     *
+     * @return diff result
+     */
+    public static DiffResult diff(final PgDiffArguments arguments,
+            final PgDatabase oldDatabase, final PgDatabase newDatabase) {
+        return new DiffResult(createPlan(arguments, oldDatabase, newDatabase));
+    }
+
+    /**
+     * Compares two database schemas and creates plan of operations that
+     * transform the original schema to the new one. Nothing is output while
+     * the plan is created.
+     *
+     * @param arguments   object containing arguments settings
+     * @param oldDatabase original database schema
+     * @param newDatabase new database schema
+     *
+     * @return diff plan
+     */
+    public static DiffPlan createPlan(final PgDiffArguments arguments,
+            final PgDatabase oldDatabase, final PgDatabase newDatabase) {
+        return createPlan(new DiffContext(arguments), oldDatabase,
+                newDatabase);
+    }
+
+    /**
+     * Compares two database schemas and creates plan of operations that
+     * transform the original schema to the new one. Nothing is output while
+     * the plan is created.
+     *
+     * @param context     diff context
+     * @param oldDatabase original database schema
+     * @param newDatabase new database schema
+     *
+     * @return diff plan
+     */
+    public static DiffPlan createPlan(final DiffContext context,
+            final PgDatabase oldDatabase, final PgDatabase newDatabase) {
+        final DiffPlan plan = new DiffPlan();
+
+        if (context.isAddTransaction()) {
+            plan.addLine(DiffOperation.Kind.START_TRANSACTION, null,
+                    () -> "START TRANSACTION;");
+        }
+
+        updateDatabase(plan, context, oldDatabase, newDatabase);
+        updateSchemas(plan, context, oldDatabase, newDatabase);
+
+        if (context.isAddTransaction()) {
+            plan.add(DiffOperation.Kind.COMMIT_TRANSACTION, null,
+                    () -> "COMMIT TRANSACTION;");
+        }
+
+        if (context.isOutputIgnoredStatements()) {
+            addIgnoredStatements(plan, oldDatabase,
+                    "OriginalDatabaseIgnoredStatements");
+            addIgnoredStatements(plan, newDatabase,
+                    "NewDatabaseIgnoredStatements");
         }
 
+        return plan;
+    }
+
+    /**
+     * Checks whether the database schemas differ. Schemas whose fingerprints
+     * match are not compared at all. In other schemas, added or dropped table
+     * is found by comparing the tables before any object is compared. Other
+     * changes are found by comparison into detecting plan, which stops at the
+     * first change without building its SQL.
+     *
+     * @param arguments   object containing arguments settings
+     * @param oldDatabase original database schema
+     * @param newDatabase new database schema
+     *
+     * @return true if the database schemas differ, otherwise false
+     */
+    public static boolean hasDifferences(final PgDiffArguments arguments,
+            final PgDatabase oldDatabase, final PgDatabase newDatabase) {
+        final DiffContext context = new DiffContext(arguments);
+        final DiffPlan plan = DiffPlan.detecting();
+
+        try {
+            updateDatabase(plan, context, oldDatabase, newDatabase);
+
+            for (final PgSchema newSchema : newDatabase.getSchemas()) {
+                final PgSchema oldSchema =
+                        oldDatabase.getSchema(newSchema.getName());
+
+                if (Fingerprint.matches(oldSchema.getFingerprint(),
+                        newSchema.getFingerprint())) {
+                    continue;
+                }
+
+                if (hasAddedOrDroppedTables(oldSchema, newSchema)) {
+                    return true;
+                }
+
+                updateSchema(plan, context, oldSchema, newSchema, false);
+            }
+        } catch (final DiffPlan.ChangeFoundException ex) {
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether any table was added to or dropped from the schema. Such
+     * table is always created or dropped by the diff.
+     *
+     * @param oldSchema original schema
+     * @param newSchema new schema
+     *
+     * @return true if any table was added or dropped, otherwise false
+     */
+    private static boolean hasAddedOrDroppedTables(final PgSchema oldSchema,
+            final PgSchema newSchema) {
+        if (oldSchema.getTables().size() != newSchema.getTables().size()) {
+            return true;
+        }
+
+        for (final PgTable newTable : newSchema.getTables()) {
+            if (!oldSchema.containsTable(newTable.getName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Updates database comment, schemas and extensions (not the objects inside
+     * the schemas).
+     *
+     * @param plan        diff plan the operations are added to
+     * @param context     diff context
+     * @param oldDatabase original database schema
+     * @param newDatabase new database schema
+     */
+    private static void updateDatabase(final DiffPlan plan,
+            final DiffContext context, final PgDatabase oldDatabase,
+            final PgDatabase newDatabase) {
         if (oldDatabase.getComment() == null
                 && newDatabase.getComment() != null
                 || oldDatabase.getComment() != null
                 && newDatabase.getComment() != null
                 && !oldDatabase.getComment().equals(newDatabase.getComment())) {
-            writer.println();
-            writer.print("COMMENT ON DATABASE current_database() IS ");
-            writer.print(newDatabase.getComment());
-            writer.println(';');
+            plan.add(DiffOperation.Kind.COMMENT, newDatabase,
+                    () -> "COMMENT ON DATABASE current_database() IS "
+                    + newDatabase.getComment() + ';');
         } else if (oldDatabase.getComment() != null
                 && newDatabase.getComment() == null) {
-            writer.println();
-            writer.println("COMMENT ON DATABASE current_database() IS NULL;");
+            plan.add(DiffOperation.Kind.COMMENT, newDatabase,
+                    () -> "COMMENT ON DATABASE current_database() IS NULL;");
         }
 
-        dropOldSchemas(writer, oldDatabase, newDatabase);
-        createNewSchemas(writer, oldDatabase, newDatabase);
-        dropOldExtensions(writer, oldDatabase, newDatabase);
-        createNewExtensions(writer, oldDatabase, newDatabase);
-        updateSchemas(writer, arguments, oldDatabase, newDatabase);
+        dropOldSchemas(plan, context, oldDatabase, newDatabase);
+        createNewSchemas(plan, context, oldDatabase, newDatabase);
+        dropOldExtensions(plan, context, oldDatabase, newDatabase);
+        createNewExtensions(plan, context, oldDatabase, newDatabase);
+    }
 
-        if (arguments.isAddTransaction()) {
-            writer.println();
-            writer.println("COMMIT TRANSACTION;");
+    /**
+     * Adds statements ignored during parsing of the database schema to the
+     * plan. The statements are enclosed in comment.
+     *
+     * @param plan     diff plan the operations are added to
+     * @param database database schema
+     * @param title    resource key of comment title
+     */
+    private static void addIgnoredStatements(final DiffPlan plan,
+            final PgDatabase database, final String title) {
+        if (database.getIgnoredStatements().isEmpty()) {
+            return;
         }
 
-        if (arguments.isOutputIgnoredStatements()) {
-            if (!oldDatabase.getIgnoredStatements().isEmpty()) {
-                writer.println();
-                writer.print("/* ");
-                writer.println(Resources.getString(
-                        "OriginalDatabaseIgnoredStatements"));
-
-                for (final String statement :
-                        oldDatabase.getIgnoredStatements()) {
-                    writer.println();
-                    writer.println(statement);
-                }
-
-                writer.println("*/");
-            }
-
-            if (!newDatabase.getIgnoredStatements().isEmpty()) {
-                writer.println();
-                writer.print("/* ");
-                writer.println(
-                        Resources.getString("NewDatabaseIgnoredStatements"));
-
-                for (final String statement :
-                        newDatabase.getIgnoredStatements()) {
-                    writer.println();
-                    writer.println(statement);
-                }
+        plan.add(DiffOperation.Kind.IGNORED_STATEMENT, null,
+                () -> "/* " + Resources.getString(title));
 
-                writer.println("*/");
-            }
+        for (final String statement : database.getIgnoredStatements()) {
+            plan.add(DiffOperation.Kind.IGNORED_STATEMENT, null,
+                    () -> statement);
         }
+
+        plan.addLine(DiffOperation.Kind.IGNORED_STATEMENT, null, () -> "*/");
     }
 
     /**
      * Drops old schemas that do not exist anymore.
      *
-     * @param writer      writer the output should be written to
+     * @param plan        diff plan the operations are added to
+     * @param context     diff context
      * @param oldDatabase original database schema
      * @param newDatabase new database schema
      */
-    private static void dropOldSchemas(final PrintWriter writer,
-            final PgDatabase oldDatabase, final PgDatabase newDatabase) {
+    private static void dropOldSchemas(final DiffPlan plan,
+            final DiffContext context, final PgDatabase oldDatabase,
+            final PgDatabase newDatabase) {
         for (final PgSchema oldSchema : oldDatabase.getSchemas()) {
             if (newDatabase.getSchema(oldSchema.getName()) == null) {
-                writer.println();
-                writer.println("DROP SCHEMA " +PgDiffUtils.getDropIfExists()
+                plan.add(DiffOperation.Kind.DROP_SCHEMA, oldSchema,
+                        () -> "DROP SCHEMA " + context.getDropIfExists()
                         + PgDiffUtils.getQuotedName(oldSchema.getName())
                         + " CASCADE;");
             }
@@ -203,16 +565,18 @@ public class PgDiff {
     /**
      * Drops old extensions that do not exist anymore.
      *
-     * @param writer      writer the output should be written to
+     * @param plan        diff plan the operations are added to
+     * @param context     diff context
      * @param oldDatabase original database schema
      * @param newDatabase new database schema
      */
-    private static void dropOldExtensions(final PrintWriter writer,
-            final PgDatabase oldDatabase, final PgDatabase newDatabase) {
+    private static void dropOldExtensions(final DiffPlan plan,
+            final DiffContext context, final PgDatabase oldDatabase,
+            final PgDatabase newDatabase) {
         for (final PgExtension oldExtension : oldDatabase.getExtensions()) {
             if (newDatabase.getExtension(oldExtension.getName()) == null) {
-                writer.println();
-                writer.println("DROP EXTENSION " +PgDiffUtils.getDropIfExists()
+                plan.add(DiffOperation.Kind.DROP_EXTENSION, oldExtension,
+                        () -> "DROP EXTENSION " + context.getDropIfExists()
                         + PgDiffUtils.getQuotedName(oldExtension.getName())
                         + " CASCADE;");
             }
@@ -220,132 +584,190 @@ public class PgDiff {
     }
 
     /**
-     * Updates objects in schemas.
+     * Updates objects in schemas. Schemas are compared in parallel if more
+     * diff threads are allowed, each into its own plan, and the plans are
+     * added in order of the schemas.
      *
-     * @param writer      writer the output should be written to
-     * @param arguments   object containing arguments settings
+     * @param plan        diff plan the operations are added to
+     * @param context     diff context
      * @param oldDatabase original database schema
      * @param newDatabase new database schema
      */
-    private static void updateSchemas(final PrintWriter writer,
-            final PgDiffArguments arguments, final PgDatabase oldDatabase,
+    private static void updateSchemas(final DiffPlan plan,
+            final DiffContext context, final PgDatabase oldDatabase,
             final PgDatabase newDatabase) {
-        final boolean setSearchPath = newDatabase.getSchemas().size() > 1
-                || !newDatabase.getSchemas().get(0).getName().equals("public");
+        final List<PgSchema> newSchemas = newDatabase.getSchemas();
+        final boolean setSearchPath = newSchemas.size() > 1
+                || !newSchemas.get(0).getName().equals("public");
 
-        for (final PgSchema newSchema : newDatabase.getSchemas()) {
-            final SearchPathHelper searchPathHelper;
-
-            if (setSearchPath) {
-                searchPathHelper = new SearchPathHelper("SET search_path = "
-                        + PgDiffUtils.getQuotedName(newSchema.getName(), true)
-                        + ", pg_catalog;");
-            } else {
-                searchPathHelper = new SearchPathHelper(null);
+        if (context.getDiffThreads() < 2 || newSchemas.size() < 2) {
+            for (final PgSchema newSchema : newSchemas) {
+                updateSchema(plan, context,
+                        oldDatabase.getSchema(newSchema.getName()), newSchema,
+                        setSearchPath);
             }
 
-            final PgSchema oldSchema =
-                    oldDatabase.getSchema(newSchema.getName());
-
-            if (oldSchema != null) {
-                if (oldSchema.getComment() == null
-                        && newSchema.getComment() != null
-                        || oldSchema.getComment() != null
-                        && newSchema.getComment() != null
-                        && !oldSchema.getComment().equals(
-                        newSchema.getComment())) {
-                    writer.println();
-                    writer.print("COMMENT ON SCHEMA ");
-                    writer.print(
-                            PgDiffUtils.getQuotedName(newSchema.getName()));
-                    writer.print(" IS ");
-                    writer.print(newSchema.getComment());
-                    writer.println(';');
-                } else if (oldSchema.getComment() != null
-                        && newSchema.getComment() == null) {
-                    writer.println();
-                    writer.print("COMMENT ON SCHEMA ");
-                    writer.print(
-                            PgDiffUtils.getQuotedName(newSchema.getName()));
-                    writer.println(" IS NULL;");
-                }
+            return;
+        }
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(context.getDiffThreads(), newSchemas.size()),
+                runnable -> {
+                    final Thread thread = new Thread(runnable,
+                            "apgdiff-diff-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+
+                    return thread;
+                });
+
+        try {
+            final List<Future<DiffPlan>> schemaPlans =
+                    new ArrayList<Future<DiffPlan>>(newSchemas.size());
+
+            for (final PgSchema newSchema : newSchemas) {
+                schemaPlans.add(executor.submit(() -> {
+                    final DiffPlan schemaPlan = new DiffPlan();
+                    updateSchema(schemaPlan, context,
+                            oldDatabase.getSchema(newSchema.getName()),
+                            newSchema, setSearchPath);
+
+                    return schemaPlan;
+                }));
             }
 
-            PgDiffTriggers.dropTriggers(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffRules.dropRules(
-                    writer, oldSchema, newSchema, searchPathHelper);                  
-            PgDiffFunctions.dropFunctions(
-                    writer, arguments, oldSchema, newSchema, searchPathHelper);
-            PgDiffProcedures.dropPocedures(
-                    writer, arguments, oldSchema, newSchema, searchPathHelper);
-            PgDiffViews.dropViews(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffConstraints.dropConstraints(
-                    writer, oldSchema, newSchema, true, searchPathHelper);
-            PgDiffConstraints.dropConstraints(
-                    writer, oldSchema, newSchema, false, searchPathHelper);
-            PgDiffIndexes.dropIndexes(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTables.dropClusters(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTables.dropTables(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffSequences.dropSequences(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffPolicies.dropPolicies(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffSequences.createSequences(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffSequences.alterSequences(
-                    writer, arguments, oldSchema, newSchema, searchPathHelper);
-            PgDiffTypes.alterTypes(writer, arguments, oldSchema, newSchema, searchPathHelper);
-            PgDiffTypes.createTypes(writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTypes.dropTypes(writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTables.createTables(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTables.alterTables(
-                    writer, arguments, oldSchema, newSchema, searchPathHelper);
-            PgDiffSequences.alterCreatedSequences(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffFunctions.createFunctions(
-                    writer, arguments, oldSchema, newSchema, searchPathHelper);
-            PgDiffProcedures.createProducedures(
-                    writer, arguments, oldSchema, newSchema, searchPathHelper);
-            PgDiffConstraints.createConstraints(
-                    writer, oldSchema, newSchema, true, searchPathHelper);
-            PgDiffConstraints.createConstraints(
-                    writer, oldSchema, newSchema, false, searchPathHelper);
-            PgDiffIndexes.createIndexes(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTables.createClusters(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTriggers.createTriggers(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTriggers.disableOrEnableTriggers(
-                       writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffViews.createViews(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffRules.createRules(writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffViews.alterViews(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffPolicies.createPolicies(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffPolicies.alterPolicies(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffFunctions.alterComments(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffProcedures.alterComments(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffConstraints.alterComments(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffIndexes.alterComments(
-                    writer, oldSchema, newSchema, searchPathHelper);
-            PgDiffTriggers.alterComments(
-                    writer, oldSchema, newSchema, searchPathHelper);
+            for (final Future<DiffPlan> schemaPlan : schemaPlans) {
+                plan.addAll(getResult(schemaPlan));
+            }
+        } finally {
+            executor.shutdownNow();
         }
     }
 
+    /**
+     * Updates objects in schema.
+     *
+     * @param plan          diff plan the operations are added to
+     * @param context       diff context
+     * @param oldSchema     original schema or null if the schema is new
+     * @param newSchema     new schema
+     * @param setSearchPath whether search_path should be set before objects
+     *                      of the schema are updated
+     */
+    private static void updateSchema(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
+            final PgSchema newSchema, final boolean setSearchPath) {
+        final SearchPathHelper searchPathHelper;
+
+        if (setSearchPath) {
+            searchPathHelper = new SearchPathHelper("SET search_path = "
+                    + PgDiffUtils.getQuotedName(newSchema.getName(), true)
+                    + ", pg_catalog;");
+        } else {
+            searchPathHelper = new SearchPathHelper(null);
+        }
+
+        // none of the objects in the schema changed
+        if (oldSchema != null && Fingerprint.matches(
+                oldSchema.getFingerprint(), newSchema.getFingerprint())) {
+            return;
+        }
+
+        if (oldSchema != null) {
+            if (oldSchema.getComment() == null
+                    && newSchema.getComment() != null
+                    || oldSchema.getComment() != null
+                    && newSchema.getComment() != null
+                    && !oldSchema.getComment().equals(
+                    newSchema.getComment())) {
+                plan.add(DiffOperation.Kind.COMMENT, newSchema,
+                        () -> "COMMENT ON SCHEMA "
+                        + PgDiffUtils.getQuotedName(newSchema.getName())
+                        + " IS " + newSchema.getComment() + ';');
+            } else if (oldSchema.getComment() != null
+                    && newSchema.getComment() == null) {
+                plan.add(DiffOperation.Kind.COMMENT, newSchema,
+                        () -> "COMMENT ON SCHEMA "
+                        + PgDiffUtils.getQuotedName(newSchema.getName())
+                        + " IS NULL;");
+            }
+        }
+
+        PgDiffTriggers.dropTriggers(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffRules.dropRules(
+                plan, context, oldSchema, newSchema, searchPathHelper);                  
+        PgDiffFunctions.dropFunctions(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffProcedures.dropPocedures(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffViews.dropViews(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffConstraints.dropConstraints(
+                plan, context, oldSchema, newSchema, true, searchPathHelper);
+        PgDiffConstraints.dropConstraints(
+                plan, context, oldSchema, newSchema, false, searchPathHelper);
+        PgDiffIndexes.dropIndexes(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffTables.dropClusters(
+                plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffTables.dropTables(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffSequences.dropSequences(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffPolicies.dropPolicies(
+                plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffSequences.createSequences(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffSequences.alterSequences(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffTypes.alterTypes(plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffTypes.createTypes(plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffTypes.dropTypes(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffTables.createTables(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffTables.alterTables(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffSequences.alterCreatedSequences(
+                plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffFunctions.createFunctions(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffProcedures.createProducedures(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffConstraints.createConstraints(
+                plan, context, oldSchema, newSchema, true, searchPathHelper);
+        PgDiffConstraints.createConstraints(
+                plan, context, oldSchema, newSchema, false, searchPathHelper);
+        PgDiffIndexes.createIndexes(
+                plan, context, oldSchema, newSchema, searchPathHelper);
+        PgDiffTables.createClusters(
+                plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffTriggers.createTriggers(
+                plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffTriggers.disableOrEnableTriggers(
+                   plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffViews.createViews(
+                plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffRules.createRules(plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffViews.alterViews(
+                plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffPolicies.createPolicies(
+                plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffPolicies.alterPolicies(
+                plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffFunctions.alterComments(
+                plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffProcedures.alterComments(
+                plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffConstraints.alterComments(
+                plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffIndexes.alterComments(
+                plan, oldSchema, newSchema, searchPathHelper);
+        PgDiffTriggers.alterComments(
+                plan, oldSchema, newSchema, searchPathHelper);
+    }
+
     /**
      * Creates a new instance of PgDiff.
      */
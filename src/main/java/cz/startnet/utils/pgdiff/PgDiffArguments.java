@@ -5,8 +5,12 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import cz.startnet.utils.pgdiff.loader.DumpFormat;
 import java.io.PrintWriter;
 import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.SortedMap;
 
 /**
@@ -28,6 +32,16 @@ public class PgDiffArguments {
      * Path to the original dump file.
      */
     private String oldDumpFile;
+    /**
+     * Format of the new dump file, or null if it should be detected when the
+     * dump is loaded.
+     */
+    private DumpFormat newDumpFormat;
+    /**
+     * Format of the original dump file, or null if it should be detected when
+     * the dump is loaded.
+     */
+    private DumpFormat oldDumpFormat;
     /**
      * Output file charset name.
      */
@@ -70,9 +84,37 @@ public class PgDiffArguments {
      */
     private boolean ignoreSchemaCreation;
     /**
-     * Drop If Exists and Create If Exists where possible
+     * Whether IF EXISTS and IF NOT EXISTS should be used where possible.
      */
     private boolean useIfExists;
+    /**
+     * Number of threads used to parse each dump file.
+     */
+    private int parseThreads = 1;
+    /**
+     * Number of threads used to create diff of schemas.
+     */
+    private int diffThreads = 1;
+    /**
+     * Names of schemas that should be compared. If empty, all schemas are
+     * compared.
+     */
+    private final Set<String> schemas = new LinkedHashSet<String>();
+    /**
+     * Whether plain dump files should be read using index stored next to
+     * them.
+     */
+    private boolean useIndex;
+    /**
+     * Whether only statements of objects that differ between the dump files
+     * should be parsed.
+     */
+    private boolean lazyParse;
+    /**
+     * Whether it should be only checked whether the dump files differ,
+     * without output of the diff.
+     */
+    private boolean check;
 
     /**
      * Setter for {@link #addDefaults}.
@@ -183,6 +225,42 @@ public class PgDiffArguments {
         return oldDumpFile;
     }
 
+    /**
+     * Setter for {@link #newDumpFormat}.
+     *
+     * @param newDumpFormat {@link #newDumpFormat}
+     */
+    public void setNewDumpFormat(final DumpFormat newDumpFormat) {
+        this.newDumpFormat = newDumpFormat;
+    }
+
+    /**
+     * Getter for {@link #newDumpFormat}.
+     *
+     * @return {@link #newDumpFormat}
+     */
+    public DumpFormat getNewDumpFormat() {
+        return newDumpFormat;
+    }
+
+    /**
+     * Setter for {@link #oldDumpFormat}.
+     *
+     * @param oldDumpFormat {@link #oldDumpFormat}
+     */
+    public void setOldDumpFormat(final DumpFormat oldDumpFormat) {
+        this.oldDumpFormat = oldDumpFormat;
+    }
+
+    /**
+     * Getter for {@link #oldDumpFormat}.
+     *
+     * @return {@link #oldDumpFormat}
+     */
+    public DumpFormat getOldDumpFormat() {
+        return oldDumpFormat;
+    }
+
     /**
      * Getter for {@link #outputIgnoredStatements}.
      *
@@ -266,7 +344,36 @@ public class PgDiffArguments {
             } else if ("--version".equals(args[i])) {
                 setVersion(true);
             } else if ("--drop-if-exists".equals(args[i])) {
-               PgDiffUtils.setUseExists(true);
+                setUseIfExists(true);
+            } else if ("--schema".equals(args[i])) {
+                addSchema(args[i + 1]);
+                i++;
+            } else if ("--use-index".equals(args[i])) {
+                setUseIndex(true);
+            } else if ("--lazy-parse".equals(args[i])) {
+                setLazyParse(true);
+            } else if ("--check".equals(args[i])) {
+                setCheck(true);
+            } else if ("--parse-threads".equals(args[i])) {
+                setParseThreads(parseThreads(writer, args[i], args[i + 1]));
+
+                if (getParseThreads() < 1) {
+                    success = false;
+
+                    break;
+                }
+
+                i++;
+            } else if ("--diff-threads".equals(args[i])) {
+                setDiffThreads(parseThreads(writer, args[i], args[i + 1]));
+
+                if (getDiffThreads() < 1) {
+                    success = false;
+
+                    break;
+                }
+
+                i++;
             } else {
                 writer.print(Resources.getString("ErrorUnknownOption"));
                 writer.print(": ");
@@ -294,6 +401,38 @@ public class PgDiffArguments {
         return success;
     }
 
+    /**
+     * Parses number of threads.
+     *
+     * @param writer writer to be used for info output
+     * @param option name of the option
+     * @param value  value of the option
+     *
+     * @return number of threads, or 0 if the value is not valid
+     */
+    private static int parseThreads(final PrintWriter writer,
+            final String option, final String value) {
+        int threads;
+
+        try {
+            threads = Integer.parseInt(value);
+        } catch (final NumberFormatException ex) {
+            threads = 0;
+        }
+
+        if (threads < 1) {
+            writer.print(Resources.getString("ErrorInvalidNumber"));
+            writer.print(": ");
+            writer.print(option);
+            writer.print(' ');
+            writer.println(value);
+
+            return 0;
+        }
+
+        return threads;
+    }
+
     /**
      * Prints program usage.
      *
@@ -417,4 +556,130 @@ public class PgDiffArguments {
     public void setIgnoreSchemaCreation(final boolean ignoreSchemaCreation) {
         this.ignoreSchemaCreation = ignoreSchemaCreation;
     }
+
+    /**
+     * Getter for {@link #useIfExists}.
+     *
+     * @return {@link #useIfExists}
+     */
+    public boolean isUseIfExists() {
+        return useIfExists;
+    }
+
+    /**
+     * Setter for {@link #useIfExists}.
+     *
+     * @param useIfExists {@link #useIfExists}
+     */
+    public void setUseIfExists(final boolean useIfExists) {
+        this.useIfExists = useIfExists;
+    }
+
+    /**
+     * Getter for {@link #parseThreads}.
+     *
+     * @return {@link #parseThreads}
+     */
+    public int getParseThreads() {
+        return parseThreads;
+    }
+
+    /**
+     * Setter for {@link #parseThreads}.
+     *
+     * @param parseThreads {@link #parseThreads}
+     */
+    public void setParseThreads(final int parseThreads) {
+        this.parseThreads = parseThreads;
+    }
+
+    /**
+     * Getter for {@link #diffThreads}.
+     *
+     * @return {@link #diffThreads}
+     */
+    public int getDiffThreads() {
+        return diffThreads;
+    }
+
+    /**
+     * Setter for {@link #diffThreads}.
+     *
+     * @param diffThreads {@link #diffThreads}
+     */
+    public void setDiffThreads(final int diffThreads) {
+        this.diffThreads = diffThreads;
+    }
+
+    /**
+     * Getter for {@link #schemas}. The set cannot be modified.
+     *
+     * @return {@link #schemas}
+     */
+    public Set<String> getSchemas() {
+        return Collections.unmodifiableSet(schemas);
+    }
+
+    /**
+     * Adds schema to {@link #schemas}.
+     *
+     * @param schema name of the schema
+     */
+    public void addSchema(final String schema) {
+        schemas.add(schema);
+    }
+
+    /**
+     * Getter for {@link #useIndex}.
+     *
+     * @return {@link #useIndex}
+     */
+    public boolean isUseIndex() {
+        return useIndex;
+    }
+
+    /**
+     * Setter for {@link #useIndex}.
+     *
+     * @param useIndex {@link #useIndex}
+     */
+    public void setUseIndex(final boolean useIndex) {
+        this.useIndex = useIndex;
+    }
+
+    /**
+     * Getter for {@link #lazyParse}.
+     *
+     * @return {@link #lazyParse}
+     */
+    public boolean isLazyParse() {
+        return lazyParse;
+    }
+
+    /**
+     * Setter for {@link #lazyParse}.
+     *
+     * @param lazyParse {@link #lazyParse}
+     */
+    public void setLazyParse(final boolean lazyParse) {
+        this.lazyParse = lazyParse;
+    }
+
+    /**
+     * Getter for {@link #check}.
+     *
+     * @return {@link #check}
+     */
+    public boolean isCheck() {
+        return check;
+    }
+
+    /**
+     * Setter for {@link #check}.
+     *
+     * @param check {@link #check}
+     */
+    public void setCheck(final boolean check) {
+        this.check = check;
+    }
 }
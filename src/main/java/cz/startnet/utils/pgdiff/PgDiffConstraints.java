@@ -5,10 +5,10 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import cz.startnet.utils.pgdiff.schema.Fingerprint;
 import cz.startnet.utils.pgdiff.schema.PgConstraint;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgTable;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,7 +22,8 @@ public class PgDiffConstraints {
     /**
      * Outputs statements for creation of new constraints.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param primaryKey       determines whether primary keys should be
@@ -30,8 +31,9 @@ public class PgDiffConstraints {
      *                         processed
      * @param searchPathHelper search path helper
      */
-    public static void createConstraints(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
+    public static void createConstraints(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
+            final PgSchema newSchema,
             final boolean primaryKey, final SearchPathHelper searchPathHelper
             ) {
         for (final PgTable newTable : newSchema.getTables()) {
@@ -43,12 +45,18 @@ public class PgDiffConstraints {
                 oldTable = oldSchema.getTable(newTable.getName());
             }
 
+            if (oldTable != null && Fingerprint.matches(
+                    oldTable.getFingerprint(), newTable.getFingerprint())) {
+                continue;
+            }
+
             // Add new constraints
             for (final PgConstraint constraint :
                     getNewConstraints(oldTable, newTable, primaryKey)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(constraint.getCreationSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.CREATE_CONSTRAINT, constraint,
+                        () -> constraint.getCreationSQL(
+                                context.isUseIfExists()));
             }
         }
     }
@@ -56,7 +64,8 @@ public class PgDiffConstraints {
     /**
      * Outputs statements for dropping non-existent or modified constraints.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param primaryKey       determines whether primary keys should be
@@ -64,8 +73,9 @@ public class PgDiffConstraints {
      *                         processed
      * @param searchPathHelper search path helper
      */
-    public static void dropConstraints(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
+    public static void dropConstraints(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
+            final PgSchema newSchema,
             final boolean primaryKey, final SearchPathHelper searchPathHelper
             ) {
         for (final PgTable newTable : newSchema.getTables()) {
@@ -77,12 +87,17 @@ public class PgDiffConstraints {
                 oldTable = oldSchema.getTable(newTable.getName());
             }
 
+            if (oldTable != null && Fingerprint.matches(
+                    oldTable.getFingerprint(), newTable.getFingerprint())) {
+                continue;
+            }
+
             // Drop constraints that no more exist or are modified
             for (final PgConstraint constraint :
                     getDropConstraints(oldTable, newTable, primaryKey)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(constraint.getDropSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.DROP_CONSTRAINT, constraint,
+                        () -> constraint.getDropSQL(context.isUseIfExists()));
             }
         }
     }
@@ -162,12 +177,12 @@ public class PgDiffConstraints {
     /**
      * Outputs statements for constraint comments that have changed.
      *
-     * @param writer           writer
+     * @param plan             diff plan
      * @param oldSchema        old schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void alterComments(final PrintWriter writer,
+    public static void alterComments(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         if (oldSchema == null) {
@@ -195,51 +210,41 @@ public class PgDiffConstraints {
                         && newConstraint.getComment() != null
                         && !oldConstraint.getComment().equals(
                         newConstraint.getComment())) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("COMMENT ON ");
-
-                    if (newConstraint.isPrimaryKeyConstraint()) {
-                        writer.print("INDEX ");
-                        writer.print(PgDiffUtils.getQuotedName(
-                                newConstraint.getName()));
-                    } else {
-                        writer.print("CONSTRAINT ");
-                        writer.print(PgDiffUtils.getQuotedName(
-                                newConstraint.getName()));
-                        writer.print(" ON ");
-                        writer.print(PgDiffUtils.getQuotedName(
-                                newConstraint.getTableName()));
-                    }
-
-                    writer.print(" IS ");
-                    writer.print(newConstraint.getComment());
-                    writer.println(';');
+                    searchPathHelper.outputSearchPath(plan);
+                    plan.add(DiffOperation.Kind.COMMENT, newConstraint,
+                            () -> "COMMENT ON "
+                            + getCommentedObject(newConstraint)
+                            + " IS " + newConstraint.getComment() + ';');
                 } else if (oldConstraint.getComment() != null
                         && newConstraint.getComment() == null) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("COMMENT ON ");
-
-                    if (newConstraint.isPrimaryKeyConstraint()) {
-                        writer.print("INDEX ");
-                        writer.print(PgDiffUtils.getQuotedName(
-                                newConstraint.getName()));
-                    } else {
-                        writer.print("CONSTRAINT ");
-                        writer.print(PgDiffUtils.getQuotedName(
-                                newConstraint.getName()));
-                        writer.print(" ON ");
-                        writer.print(PgDiffUtils.getQuotedName(
-                                newConstraint.getTableName()));
-                    }
-
-                    writer.println(" IS NULL;");
+                    searchPathHelper.outputSearchPath(plan);
+                    plan.add(DiffOperation.Kind.COMMENT, newConstraint,
+                            () -> "COMMENT ON "
+                            + getCommentedObject(newConstraint)
+                            + " IS NULL;");
                 }
             }
         }
     }
 
+    /**
+     * Returns object the comment of the constraint is set on, as it is
+     * specified in COMMENT ON statement. Comment of primary key is set on its
+     * index.
+     *
+     * @param constraint constraint
+     *
+     * @return commented object
+     */
+    private static String getCommentedObject(final PgConstraint constraint) {
+        if (constraint.isPrimaryKeyConstraint()) {
+            return "INDEX " + PgDiffUtils.getQuotedName(constraint.getName());
+        }
+
+        return "CONSTRAINT " + PgDiffUtils.getQuotedName(constraint.getName())
+                + " ON " + PgDiffUtils.getQuotedName(constraint.getTableName());
+    }
+
     /**
      * Creates a new instance of PgDiffConstraints.
      */
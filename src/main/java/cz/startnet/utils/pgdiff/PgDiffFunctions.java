@@ -7,7 +7,6 @@ package cz.startnet.utils.pgdiff;
 
 import cz.startnet.utils.pgdiff.schema.PgFunction;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
-import java.io.PrintWriter;
 
 /**
  * Diffs functions.
@@ -19,14 +18,14 @@ public class PgDiffFunctions {
     /**
      * Outputs statements for new or modified functions.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void createFunctions(final PrintWriter writer,
-            final PgDiffArguments arguments, final PgSchema oldSchema,
+    public static void createFunctions(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
             final PgSchema newSchema, final SearchPathHelper searchPathHelper) {
         // Add new functions and replace modified functions
         for (final PgFunction newFunction : newSchema.getFunctions()) {
@@ -39,10 +38,10 @@ public class PgDiffFunctions {
             }
 
             if ((oldFunction == null) || !newFunction.equals(
-                    oldFunction, arguments.isIgnoreFunctionWhitespace())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(newFunction.getCreationSQL());
+                    oldFunction, context.isIgnoreFunctionWhitespace())) {
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.CREATE_FUNCTION, newFunction,
+                        () -> newFunction.getCreationSQL());
             }
         }
     }
@@ -50,14 +49,14 @@ public class PgDiffFunctions {
     /**
      * Outputs statements for dropping of functions that exist no more.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void dropFunctions(final PrintWriter writer,
-            final PgDiffArguments arguments, final PgSchema oldSchema,
+    public static void dropFunctions(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
             final PgSchema newSchema, final SearchPathHelper searchPathHelper) {
         if (oldSchema == null) {
             return;
@@ -66,9 +65,9 @@ public class PgDiffFunctions {
         // Drop functions that exist no more
         for (final PgFunction oldFunction : oldSchema.getFunctions()) {
             if (!newSchema.containsFunction(oldFunction.getSignature())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(oldFunction.getDropSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.DROP_FUNCTION, oldFunction,
+                        () -> oldFunction.getDropSQL(context.isUseIfExists()));
             }
         }
     }
@@ -76,12 +75,12 @@ public class PgDiffFunctions {
     /**
      * Outputs statements for function comments that have changed.
      *
-     * @param writer           writer
+     * @param plan             diff plan
      * @param oldSchema        old schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void alterComments(final PrintWriter writer,
+    public static void alterComments(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         if (oldSchema == null) {
@@ -102,54 +101,52 @@ public class PgDiffFunctions {
                     && newFunction.getComment() != null
                     && !oldfunction.getComment().equals(
                     newFunction.getComment())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON FUNCTION ");
-                writer.print(PgDiffUtils.getQuotedName(newFunction.getName()));
-                writer.print('(');
-
-                boolean addComma = false;
-
-                for (final PgFunction.Argument argument :
-                        newFunction.getArguments()) {
-                    if (addComma) {
-                        writer.print(", ");
-                    } else {
-                        addComma = true;
-                    }
-
-                    writer.print(argument.getDeclaration(false));
-                }
-
-                writer.print(") IS ");
-                writer.print(newFunction.getComment());
-                writer.println(';');
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.COMMENT, newFunction,
+                        () -> "COMMENT ON FUNCTION "
+                        + getCommentedSignature(newFunction)
+                        + " IS " + newFunction.getComment() + ';');
             } else if (oldfunction.getComment() != null
                     && newFunction.getComment() == null) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON FUNCTION ");
-                writer.print(PgDiffUtils.getQuotedName(newFunction.getName()));
-                writer.print('(');
-
-                boolean addComma = false;
-
-                for (final PgFunction.Argument argument :
-                        newFunction.getArguments()) {
-                    if (addComma) {
-                        writer.print(", ");
-                    } else {
-                        addComma = true;
-                    }
-
-                    writer.print(argument.getDeclaration(false));
-                }
-
-                writer.println(") IS NULL;");
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.COMMENT, newFunction,
+                        () -> "COMMENT ON FUNCTION "
+                        + getCommentedSignature(newFunction)
+                        + " IS NULL;");
             }
         }
     }
 
+    /**
+     * Returns signature of the function as it is specified in COMMENT ON
+     * statement.
+     *
+     * @param function function
+     *
+     * @return signature of the function
+     */
+    private static String getCommentedSignature(final PgFunction function) {
+        final StringBuilder sbSQL = new StringBuilder(100);
+        sbSQL.append(PgDiffUtils.getQuotedName(function.getName()));
+        sbSQL.append('(');
+
+        boolean addComma = false;
+
+        for (final PgFunction.Argument argument : function.getArguments()) {
+            if (addComma) {
+                sbSQL.append(", ");
+            } else {
+                addComma = true;
+            }
+
+            sbSQL.append(argument.getDeclaration(false));
+        }
+
+        sbSQL.append(')');
+
+        return sbSQL.toString();
+    }
+
     /**
      * Creates a new instance of PgDiffFunctions.
      */
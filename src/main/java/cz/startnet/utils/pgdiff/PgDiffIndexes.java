@@ -5,10 +5,10 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import cz.startnet.utils.pgdiff.schema.Fingerprint;
 import cz.startnet.utils.pgdiff.schema.PgIndex;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgTable;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,13 +22,15 @@ public class PgDiffIndexes {
        /**
      * Outputs statements for creation of new indexes.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void createIndexes(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
+    public static void createIndexes(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
+            final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         for (final PgTable newTable : newSchema.getTables()) {
             final String newTableName = newTable.getName();
@@ -36,16 +38,24 @@ public class PgDiffIndexes {
             // Add new indexes
             if (oldSchema == null) {
                 for (PgIndex index : newTable.getIndexes()) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.println(index.getCreationSQL());
+                    searchPathHelper.outputSearchPath(plan);
+                    plan.add(DiffOperation.Kind.CREATE_INDEX, index,
+                            () -> index.getCreationSQL(
+                                    context.isUseIfExists()));
                 }
             } else {
-                for (PgIndex index : getNewIndexes(
-                        oldSchema.getTable(newTableName), newTable)) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.println(index.getCreationSQL());
+                final PgTable oldTable = oldSchema.getTable(newTableName);
+
+                if (oldTable != null && Fingerprint.matches(
+                        oldTable.getFingerprint(), newTable.getFingerprint())) {
+                    continue;
+                }
+
+                for (PgIndex index : getNewIndexes(oldTable, newTable)) {
+                    searchPathHelper.outputSearchPath(plan);
+                    plan.add(DiffOperation.Kind.CREATE_INDEX, index,
+                            () -> index.getCreationSQL(
+                                    context.isUseIfExists()));
                 }
             }
         }
@@ -54,13 +64,15 @@ public class PgDiffIndexes {
     /**
      * Outputs statements for dropping indexes that exist no more.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void dropIndexes(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
+    public static void dropIndexes(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
+            final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         for (final PgTable newTable : newSchema.getTables()) {
             final String newTableName = newTable.getName();
@@ -72,11 +84,16 @@ public class PgDiffIndexes {
                 oldTable = oldSchema.getTable(newTableName);
             }
 
+            if (oldTable != null && Fingerprint.matches(
+                    oldTable.getFingerprint(), newTable.getFingerprint())) {
+                continue;
+            }
+
             // Drop indexes that do not exist in new schema or are modified
             for (final PgIndex index : getDropIndexes(oldTable, newTable)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(index.getDropSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.DROP_INDEX, index,
+                        () -> index.getDropSQL(context.isUseIfExists()));
             }
         }
     }
@@ -144,12 +161,12 @@ public class PgDiffIndexes {
     /**
      * Outputs statements for index comments that have changed.
      *
-     * @param writer           writer
+     * @param plan             diff plan
      * @param oldSchema        old schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void alterComments(final PrintWriter writer,
+    public static void alterComments(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         if (oldSchema == null) {
@@ -169,22 +186,18 @@ public class PgDiffIndexes {
                     && newIndex.getComment() != null
                     && !oldIndex.getComment().equals(
                     newIndex.getComment())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON INDEX ");
-                writer.print(
-                        PgDiffUtils.getQuotedName(newIndex.getName()));
-                writer.print(" IS ");
-                writer.print(newIndex.getComment());
-                writer.println(';');
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.COMMENT, newIndex,
+                        () -> "COMMENT ON INDEX "
+                        + PgDiffUtils.getQuotedName(newIndex.getName()) + " IS "
+                        + newIndex.getComment() + ';');
             } else if (oldIndex.getComment() != null
                     && newIndex.getComment() == null) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON INDEX ");
-                writer.print(
-                        PgDiffUtils.getQuotedName(newIndex.getName()));
-                writer.println(" IS NULL;");
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.COMMENT, newIndex,
+                        () -> "COMMENT ON INDEX "
+                        + PgDiffUtils.getQuotedName(newIndex.getName())
+                        + " IS NULL;");
             }
         }
     }
@@ -6,7 +6,6 @@
 package cz.startnet.utils.pgdiff;
 
 import cz.startnet.utils.pgdiff.schema.*;
-import java.io.PrintWriter;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -16,7 +15,13 @@ import java.util.Iterator;
 
 public class PgDiffPolicies {
 
-    public static void createPolicies(final PrintWriter writer,
+    /**
+     * New line separator used in policy statements.
+     */
+    private static final String NEW_LINE =
+            System.getProperty("line.separator");
+
+    public static void createPolicies(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         for (final PgTable newTable : newSchema.getTables()) {
@@ -32,14 +37,14 @@ public class PgDiffPolicies {
             for (final PgPolicy policy : newTable.getPolicies()) {
                 PgPolicy oldPolicy = oldTable != null?oldTable.getPolicy(policy.getName()):null;
                 if(oldPolicy == null){
-                    searchPathHelper.outputSearchPath(writer);
-                    createPolicySQL(writer, policy);
+                    searchPathHelper.outputSearchPath(plan);
+                    createPolicySQL(plan, policy);
                 }
             }
         }
     }
 
-    public static void alterPolicies(final PrintWriter writer,
+    public static void alterPolicies(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         for (final PgTable newTable : newSchema.getTables()) {
@@ -57,33 +62,33 @@ public class PgDiffPolicies {
                           String oldCommand = policy.getCommand();
                           if(newCommand != null && oldCommand != null
                              && !newCommand.equals(oldCommand)){
-                              searchPathHelper.outputSearchPath(writer);
-                              dropPolicySQL(writer, newPolicy);
-                              createPolicySQL(writer, newPolicy);
+                              searchPathHelper.outputSearchPath(plan);
+                              dropPolicySQL(plan, newPolicy);
+                              createPolicySQL(plan, newPolicy);
                           } else if (
                               (policy.getUsing() == null && newPolicy.getUsing() != null)
                             ||(policy.getUsing() != null && newPolicy.getUsing() == null)
                             ||(policy.getUsing() != null && newPolicy.getUsing() != null
                                && !policy.getUsing().equals(newPolicy.getUsing()))
                             ){
-                              searchPathHelper.outputSearchPath(writer);
-                              alterPolicySQL(writer, newPolicy);
+                              searchPathHelper.outputSearchPath(plan);
+                              alterPolicySQL(plan, newPolicy);
                           } else if (
                               (policy.getWithCheck() == null && newPolicy.getWithCheck() != null)
                             ||(policy.getWithCheck() != null && newPolicy.getWithCheck() == null)
                             ||(policy.getWithCheck() != null && newPolicy.getWithCheck() != null
                                && !policy.getWithCheck().equals(newPolicy.getWithCheck()))
                             ){
-                              searchPathHelper.outputSearchPath(writer);
-                              alterPolicySQL(writer, newPolicy);
+                              searchPathHelper.outputSearchPath(plan);
+                              alterPolicySQL(plan, newPolicy);
                           } else {
                               List<String> tempOldRoles = new ArrayList<String>(policy.getRoles());
                               boolean equalRoles =
                                   newPolicy.getRoles().containsAll(policy.getRoles()) &&
                                   policy.getRoles().containsAll(newPolicy.getRoles());
                               if(!equalRoles){
-                                  searchPathHelper.outputSearchPath(writer);
-                                  alterPolicySQL(writer, newPolicy);
+                                  searchPathHelper.outputSearchPath(plan);
+                                  alterPolicySQL(plan, newPolicy);
                               }
                           }
                       }
@@ -93,7 +98,7 @@ public class PgDiffPolicies {
         }
     }
 
-    public static void dropPolicies(final PrintWriter writer,
+    public static void dropPolicies(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         for (final PgTable newTable : newSchema.getTables()) {
@@ -104,8 +109,8 @@ public class PgDiffPolicies {
                 if (oldTable != null){
                   for (final PgPolicy policy : oldTable.getPolicies()) {
                       if(newTable.getPolicy(policy.getName()) == null){
-                        searchPathHelper.outputSearchPath(writer);
-                        dropPolicySQL(writer, policy);
+                        searchPathHelper.outputSearchPath(plan);
+                        dropPolicySQL(plan, policy);
                       }
                   }
                 }
@@ -113,63 +118,86 @@ public class PgDiffPolicies {
         }
     }
 
-    private static void createPolicySQL(final PrintWriter writer, final PgPolicy policy){
-        writer.print("CREATE POLICY "
+    private static void createPolicySQL(final DiffPlan plan, final PgPolicy policy){
+        plan.addLine(DiffOperation.Kind.CREATE_POLICY, policy,
+                () -> getCreatePolicySQL(policy));
+    }
+
+    private static String getCreatePolicySQL(final PgPolicy policy){
+        final StringBuilder sbSQL = new StringBuilder(100);
+        sbSQL.append("CREATE POLICY "
                 + PgDiffUtils.getQuotedName(policy.getName())
                 + " ON "
                 + PgDiffUtils.getQuotedName(policy.getTableName()));
-        writer.print(" FOR " + policy.getCommand());
+        sbSQL.append(" FOR " + policy.getCommand());
         String roles = "";
-        writer.print(" TO ");
+        sbSQL.append(" TO ");
         for (Iterator<String> iterator = policy.getRoles().iterator(); iterator.hasNext();)
             roles += iterator.next() + (iterator.hasNext()? ", " : "");
-        writer.print(roles);
+        sbSQL.append(roles);
         if (policy.getUsing() != null){
-          writer.println();
-          writer.println("USING (");
-          writer.print("  ");
-          writer.println(policy.getUsing());
-          writer.print(")");
+          sbSQL.append(NEW_LINE);
+          sbSQL.append("USING (");
+          sbSQL.append(NEW_LINE);
+          sbSQL.append("  ");
+          sbSQL.append(policy.getUsing());
+          sbSQL.append(NEW_LINE);
+          sbSQL.append(")");
         }
         if (policy.getWithCheck() != null){
-          writer.println();
-          writer.println("WITH CHECK (");
-          writer.print("  ");
-          writer.println(policy.getWithCheck());
-          writer.print(")");
+          sbSQL.append(NEW_LINE);
+          sbSQL.append("WITH CHECK (");
+          sbSQL.append(NEW_LINE);
+          sbSQL.append("  ");
+          sbSQL.append(policy.getWithCheck());
+          sbSQL.append(NEW_LINE);
+          sbSQL.append(")");
         }
-        writer.println(";");
+        sbSQL.append(';');
+        return sbSQL.toString();
+    }
+
+    private static void alterPolicySQL(final DiffPlan plan, final PgPolicy policy){
+        plan.addLine(DiffOperation.Kind.ALTER_POLICY, policy,
+                () -> getAlterPolicySQL(policy));
     }
 
-    private static void alterPolicySQL(final PrintWriter writer, final PgPolicy policy){
-        writer.print("ALTER POLICY "
+    private static String getAlterPolicySQL(final PgPolicy policy){
+        final StringBuilder sbSQL = new StringBuilder(100);
+        sbSQL.append("ALTER POLICY "
             + PgDiffUtils.getQuotedName(policy.getName())
             + " ON "
             + PgDiffUtils.getQuotedName(policy.getTableName()));
         String roles = "";
-        writer.print(" TO ");
+        sbSQL.append(" TO ");
         for (Iterator<String> iterator = policy.getRoles().iterator(); iterator.hasNext();)
             roles += iterator.next() + (iterator.hasNext()? ", " : "");
-        writer.print(roles);
+        sbSQL.append(roles);
         if (policy.getUsing() != null){
-          writer.println();
-          writer.println("USING (");
-          writer.print("  ");
-          writer.println(policy.getUsing());
-          writer.print(")");
+          sbSQL.append(NEW_LINE);
+          sbSQL.append("USING (");
+          sbSQL.append(NEW_LINE);
+          sbSQL.append("  ");
+          sbSQL.append(policy.getUsing());
+          sbSQL.append(NEW_LINE);
+          sbSQL.append(")");
         }
         if (policy.getWithCheck() != null){
-          writer.println();
-          writer.println("WITH CHECK (");
-          writer.print("  ");
-          writer.println(policy.getWithCheck());
-          writer.print(")");
+          sbSQL.append(NEW_LINE);
+          sbSQL.append("WITH CHECK (");
+          sbSQL.append(NEW_LINE);
+          sbSQL.append("  ");
+          sbSQL.append(policy.getWithCheck());
+          sbSQL.append(NEW_LINE);
+          sbSQL.append(")");
         }
-        writer.println(";");
+        sbSQL.append(';');
+        return sbSQL.toString();
     }
 
-    private static void dropPolicySQL(final PrintWriter writer, final PgPolicy policy){
-        writer.println("DROP POLICY "
+    private static void dropPolicySQL(final DiffPlan plan, final PgPolicy policy){
+        plan.addLine(DiffOperation.Kind.DROP_POLICY, policy,
+            () -> "DROP POLICY "
             + PgDiffUtils.getQuotedName(policy.getName())
             + " ON "
             + PgDiffUtils.getQuotedName(policy.getTableName())
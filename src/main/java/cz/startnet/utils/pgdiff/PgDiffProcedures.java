@@ -7,7 +7,6 @@ package cz.startnet.utils.pgdiff;
 
 import cz.startnet.utils.pgdiff.schema.PgProcedure;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
-import java.io.PrintWriter;
 
 /**
  * Diffs procedures.
@@ -19,14 +18,14 @@ public class PgDiffProcedures {
     /**
      * Outputs statements for new or modified procedures.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void createProducedures(final PrintWriter writer,
-            final PgDiffArguments arguments, final PgSchema oldSchema,
+    public static void createProducedures(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
             final PgSchema newSchema, final SearchPathHelper searchPathHelper) {
         // Add new procedures and replace modified procedures
         for (final PgProcedure newProcedure : newSchema.getProcedures()) {
@@ -39,10 +38,10 @@ public class PgDiffProcedures {
             }
 
             if ((oldProcedure == null) || !newProcedure.equals(
-                    oldProcedure, arguments.isIgnoreFunctionWhitespace())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(newProcedure.getCreationSQL());
+                    oldProcedure, context.isIgnoreFunctionWhitespace())) {
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.CREATE_PROCEDURE, newProcedure,
+                        () -> newProcedure.getCreationSQL());
             }
         }
     }
@@ -50,14 +49,14 @@ public class PgDiffProcedures {
     /**
      * Outputs statements for dropping of procedures that exist no more.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void dropPocedures(final PrintWriter writer,
-            final PgDiffArguments arguments, final PgSchema oldSchema,
+    public static void dropPocedures(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
             final PgSchema newSchema, final SearchPathHelper searchPathHelper) {
         if (oldSchema == null) {
             return;
@@ -66,9 +65,9 @@ public class PgDiffProcedures {
         // Drop procedures that exist no more
         for (final PgProcedure oldProcedure : oldSchema.getProcedures()) {
             if (!newSchema.containsProcedure(oldProcedure.getSignature())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(oldProcedure.getDropSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.DROP_PROCEDURE, oldProcedure,
+                        () -> oldProcedure.getDropSQL(context.isUseIfExists()));
             }
         }
     }
@@ -76,12 +75,12 @@ public class PgDiffProcedures {
     /**
      * Outputs statements for procedure comments that have changed.
      *
-     * @param writer           writer
+     * @param plan             diff plan
      * @param oldSchema        old schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void alterComments(final PrintWriter writer,
+    public static void alterComments(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         if (oldSchema == null) {
@@ -102,54 +101,52 @@ public class PgDiffProcedures {
                     && newProcedure.getComment() != null
                     && !oldprocedure.getComment().equals(
                     newProcedure.getComment())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON PROCEDURE ");
-                writer.print(PgDiffUtils.getQuotedName(newProcedure.getName()));
-                writer.print('(');
-
-                boolean addComma = false;
-
-                for (final PgProcedure.Argument argument :
-                        newProcedure.getArguments()) {
-                    if (addComma) {
-                        writer.print(", ");
-                    } else {
-                        addComma = true;
-                    }
-
-                    writer.print(argument.getDeclaration(false));
-                }
-
-                writer.print(") IS ");
-                writer.print(newProcedure.getComment());
-                writer.println(';');
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.COMMENT, newProcedure,
+                        () -> "COMMENT ON PROCEDURE "
+                        + getCommentedSignature(newProcedure)
+                        + " IS " + newProcedure.getComment() + ';');
             } else if (oldprocedure.getComment() != null
                     && newProcedure.getComment() == null) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON PROCEDURE ");
-                writer.print(PgDiffUtils.getQuotedName(newProcedure.getName()));
-                writer.print('(');
-
-                boolean addComma = false;
-
-                for (final PgProcedure.Argument argument :
-                        newProcedure.getArguments()) {
-                    if (addComma) {
-                        writer.print(", ");
-                    } else {
-                        addComma = true;
-                    }
-
-                    writer.print(argument.getDeclaration(false));
-                }
-
-                writer.println(") IS NULL;");
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.COMMENT, newProcedure,
+                        () -> "COMMENT ON PROCEDURE "
+                        + getCommentedSignature(newProcedure)
+                        + " IS NULL;");
             }
         }
     }
 
+    /**
+     * Returns signature of the procedure as it is specified in COMMENT ON
+     * statement.
+     *
+     * @param procedure procedure
+     *
+     * @return signature of the procedure
+     */
+    private static String getCommentedSignature(final PgProcedure procedure) {
+        final StringBuilder sbSQL = new StringBuilder(100);
+        sbSQL.append(PgDiffUtils.getQuotedName(procedure.getName()));
+        sbSQL.append('(');
+
+        boolean addComma = false;
+
+        for (final PgProcedure.Argument argument : procedure.getArguments()) {
+            if (addComma) {
+                sbSQL.append(", ");
+            } else {
+                addComma = true;
+            }
+
+            sbSQL.append(argument.getDeclaration(false));
+        }
+
+        sbSQL.append(')');
+
+        return sbSQL.toString();
+    }
+
     /**
      * Creates a new instance of PgDiffProcedures.
      */
@@ -9,7 +9,6 @@ import cz.startnet.utils.pgdiff.schema.PgRelation;
 import cz.startnet.utils.pgdiff.schema.PgRule;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgType;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -23,12 +22,12 @@ public class PgDiffRules {
     /**
      * Outputs statements for creation of new triggers.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void createRules(final PrintWriter writer,
+    public static void createRules(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper
             ) {
@@ -43,9 +42,9 @@ public class PgDiffRules {
 
             // Add new rules
             for (final PgRule rule : getNewRules(oldRelation, newRelation)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(rule.getCreationSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.CREATE_RULE, rule,
+                        () -> rule.getCreationSQL());
             }
         }
     }
@@ -53,13 +52,15 @@ public class PgDiffRules {
     /**
      * Outputs statements for dropping rules.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void dropRules(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
+    public static void dropRules(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
+            final PgSchema newSchema,
             final SearchPathHelper searchPathHelper
             ) {
           for (final PgRelation newRelation : newSchema.getRels()) {
@@ -75,9 +76,9 @@ public class PgDiffRules {
             for (final PgRule rule :
                     
                     dropRules(oldRelation, newRelation)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(rule.getDropSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.DROP_RULE, rule,
+                        () -> rule.getDropSQL(context.isUseIfExists()));
             }
         }
     }
@@ -9,7 +9,6 @@ import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgSequence;
 import cz.startnet.utils.pgdiff.schema.PgSequencePrivilege;
 
-import java.io.PrintWriter;
 
 /**
  * Diffs sequences.
@@ -21,29 +20,33 @@ public class PgDiffSequences {
     /**
      * Outputs statements for creation of new sequences.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void createSequences(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
+    public static void createSequences(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
+            final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         // Add new sequences
         for (final PgSequence sequence : newSchema.getSequences()) {
             if (oldSchema == null
                     || !oldSchema.containsSequence(sequence.getName())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(sequence.getCreationSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.CREATE_SEQUENCE, sequence,
+                        () -> sequence.getCreationSQL(context.isUseIfExists()));
 
                 for (PgSequencePrivilege sequencePrivilege : sequence
                         .getPrivileges()) {
-                    writer.println("REVOKE ALL ON SEQUENCE "
+                    plan.addLine(DiffOperation.Kind.REVOKE_PRIVILEGE, sequence,
+                            () -> "REVOKE ALL ON SEQUENCE "
                             + PgDiffUtils.getQuotedName(sequence.getName())
                             + " FROM " + sequencePrivilege.getRoleName() + ";");
                     if (!"".equals(sequencePrivilege.getPrivilegesSQL(true))) {
-                        writer.println("GRANT "
+                        plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE,
+                                sequence, () -> "GRANT "
                                 + sequencePrivilege.getPrivilegesSQL(true)
                                 + " ON SEQUENCE "
                                 + PgDiffUtils.getQuotedName(sequence.getName())
@@ -51,7 +54,8 @@ public class PgDiffSequences {
                                 + " WITH GRANT OPTION;");
                     }
                     if (!"".equals(sequencePrivilege.getPrivilegesSQL(false))) {
-                        writer.println("GRANT "
+                        plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE,
+                                sequence, () -> "GRANT "
                                 + sequencePrivilege.getPrivilegesSQL(false)
                                 + " ON SEQUENCE "
                                 + PgDiffUtils.getQuotedName(sequence.getName())
@@ -67,12 +71,12 @@ public class PgDiffSequences {
     /**
      * Outputs statements for altering of new sequences.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void alterCreatedSequences(final PrintWriter writer,
+    public static void alterCreatedSequences(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         // Alter created sequences
@@ -81,18 +85,18 @@ public class PgDiffSequences {
                     || !oldSchema.containsSequence(sequence.getName()))
                     && sequence.getOwnedBy() != null
                     && !sequence.getOwnedBy().isEmpty()) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(sequence.getOwnedBySQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.ALTER_SEQUENCE, sequence,
+                        () -> sequence.getOwnedBySQL());
             }
 
             if ((oldSchema == null
                 || !oldSchema.containsSequence(sequence.getName()))
                 && sequence.getOwnerTo() != null
                 && !sequence.getOwnerTo().isEmpty()) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(sequence.getOwnerToSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.ALTER_OWNER, sequence,
+                        () -> sequence.getOwnerToSQL());
             }
         }
     }
@@ -100,13 +104,15 @@ public class PgDiffSequences {
     /**
      * Outputs statements for dropping of sequences that do not exist anymore.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void dropSequences(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
+    public static void dropSequences(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
+            final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         if (oldSchema == null) {
             return;
@@ -115,9 +121,9 @@ public class PgDiffSequences {
         // Drop sequences that do not exist in new schema
         for (final PgSequence sequence : oldSchema.getSequences()) {
             if (!newSchema.containsSequence(sequence.getName())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(sequence.getDropSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.DROP_SEQUENCE, sequence,
+                        () -> sequence.getDropSQL(context.isUseIfExists()));
             }
         }
     }
@@ -125,14 +131,14 @@ public class PgDiffSequences {
     /**
      * Outputs statement for modified sequences.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void alterSequences(final PrintWriter writer,
-            final PgDiffArguments arguments, final PgSchema oldSchema,
+    public static void alterSequences(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
             final PgSchema newSchema, final SearchPathHelper searchPathHelper) {
         if (oldSchema == null) {
             return;
@@ -196,7 +202,7 @@ public class PgDiffSequences {
                 sbSQL.append(newMaxValue);
             }
 
-            if (!arguments.isIgnoreStartWith()) {
+            if (!context.isIgnoreStartWith()) {
                 final String oldStart = oldSequence.getStartWith();
                 final String newStart = newSequence.getStartWith();
 
@@ -245,12 +251,11 @@ public class PgDiffSequences {
             }
 
             if (sbSQL.length() > 0) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("ALTER SEQUENCE "
-                        + PgDiffUtils.getQuotedName(newSequence.getName()));
-                writer.print(sbSQL.toString());
-                writer.println(';');
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.ALTER_SEQUENCE, newSequence,
+                        () -> "ALTER SEQUENCE "
+                        + PgDiffUtils.getQuotedName(newSequence.getName())
+                        + sbSQL.toString() + ';');
             }
 
             if (oldSequence.getComment() == null
@@ -259,27 +264,24 @@ public class PgDiffSequences {
                     && newSequence.getComment() != null
                     && !oldSequence.getComment().equals(
                     newSequence.getComment())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON SEQUENCE ");
-                writer.print(PgDiffUtils.getQuotedName(newSequence.getName()));
-                writer.print(" IS ");
-                writer.print(newSequence.getComment());
-                writer.println(';');
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.COMMENT, newSequence,
+                        () -> "COMMENT ON SEQUENCE "
+                        + PgDiffUtils.getQuotedName(newSequence.getName())
+                        + " IS " + newSequence.getComment() + ';');
             } else if (oldSequence.getComment() != null
                     && newSequence.getComment() == null) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON SEQUENCE ");
-                writer.print(newSequence.getName());
-                writer.println(" IS NULL;");
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.COMMENT, newSequence,
+                        () -> "COMMENT ON SEQUENCE " + newSequence.getName()
+                        + " IS NULL;");
             }
 
-            alterPrivileges(writer, oldSequence, newSequence, searchPathHelper);
+            alterPrivileges(plan, oldSequence, newSequence, searchPathHelper);
         }
     }
 
-    private static void alterPrivileges(final PrintWriter writer,
+    private static void alterPrivileges(final DiffPlan plan,
             final PgSequence oldSequence, final PgSequence newSequence,
             final SearchPathHelper searchPathHelper) {
         boolean emptyLinePrinted = false;
@@ -288,21 +290,20 @@ public class PgDiffSequences {
             PgSequencePrivilege newSequencePrivilege = newSequence
                     .getPrivilege(oldSequencePrivilege.getRoleName());
             if (newSequencePrivilege == null) {
-                if (!emptyLinePrinted) {
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON SEQUENCE "
+                plan.add(DiffOperation.Kind.REVOKE_PRIVILEGE, oldSequence,
+                        () -> "REVOKE ALL ON SEQUENCE "
                         + PgDiffUtils.getQuotedName(oldSequence.getName())
-                        + " FROM " + oldSequencePrivilege.getRoleName() + ";");
+                        + " FROM " + oldSequencePrivilege.getRoleName()
+                        + ";", !emptyLinePrinted);
             } else if (!oldSequencePrivilege.isSimilar(newSequencePrivilege)) {
-                if (!emptyLinePrinted) {
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON SEQUENCE "
+                plan.add(DiffOperation.Kind.REVOKE_PRIVILEGE, newSequence,
+                        () -> "REVOKE ALL ON SEQUENCE "
                         + PgDiffUtils.getQuotedName(newSequence.getName())
-                        + " FROM " + newSequencePrivilege.getRoleName() + ";");
+                        + " FROM " + newSequencePrivilege.getRoleName()
+                        + ";", !emptyLinePrinted);
                 if (!"".equals(newSequencePrivilege.getPrivilegesSQL(true))) {
-                    writer.println("GRANT "
+                    plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE,
+                            newSequence, () -> "GRANT "
                             + newSequencePrivilege.getPrivilegesSQL(true)
                             + " ON SEQUENCE "
                             + PgDiffUtils.getQuotedName(newSequence.getName())
@@ -310,11 +311,13 @@ public class PgDiffSequences {
                             + " WITH GRANT OPTION;");
                 }
                 if (!"".equals(newSequencePrivilege.getPrivilegesSQL(false))) {
-                    writer.println("GRANT "
+                    plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE,
+                            newSequence, () -> "GRANT "
                             + newSequencePrivilege.getPrivilegesSQL(false)
                             + " ON SEQUENCE "
                             + PgDiffUtils.getQuotedName(newSequence.getName())
-                            + " TO " + newSequencePrivilege.getRoleName() + ";");
+                            + " TO " + newSequencePrivilege.getRoleName()
+                            + ";");
                 }
             } // else similar privilege will not be updated
         }
@@ -323,14 +326,14 @@ public class PgDiffSequences {
             PgSequencePrivilege oldSequencePrivilege = oldSequence
                     .getPrivilege(newSequencePrivilege.getRoleName());
             if (oldSequencePrivilege == null) {
-                if (!emptyLinePrinted) {
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON SEQUENCE "
+                plan.add(DiffOperation.Kind.REVOKE_PRIVILEGE, newSequence,
+                        () -> "REVOKE ALL ON SEQUENCE "
                         + PgDiffUtils.getQuotedName(newSequence.getName())
-                        + " FROM " + newSequencePrivilege.getRoleName() + ";");
+                        + " FROM " + newSequencePrivilege.getRoleName()
+                        + ";", !emptyLinePrinted);
                 if (!"".equals(newSequencePrivilege.getPrivilegesSQL(true))) {
-                    writer.println("GRANT "
+                    plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE,
+                            newSequence, () -> "GRANT "
                             + newSequencePrivilege.getPrivilegesSQL(true)
                             + " ON SEQUENCE "
                             + PgDiffUtils.getQuotedName(newSequence.getName())
@@ -338,11 +341,13 @@ public class PgDiffSequences {
                             + " WITH GRANT OPTION;");
                 }
                 if (!"".equals(newSequencePrivilege.getPrivilegesSQL(false))) {
-                    writer.println("GRANT "
+                    plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE,
+                            newSequence, () -> "GRANT "
                             + newSequencePrivilege.getPrivilegesSQL(false)
                             + " ON SEQUENCE "
                             + PgDiffUtils.getQuotedName(newSequence.getName())
-                            + " TO " + newSequencePrivilege.getRoleName() + ";");
+                            + " TO " + newSequencePrivilege.getRoleName()
+                            + ";");
                 }
             }
         }
@@ -5,6 +5,7 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import cz.startnet.utils.pgdiff.schema.Fingerprint;
 import cz.startnet.utils.pgdiff.schema.PgColumn;
 import cz.startnet.utils.pgdiff.schema.PgColumnPrivilege;
 import cz.startnet.utils.pgdiff.schema.PgColumnUtils;
@@ -12,7 +13,6 @@ import cz.startnet.utils.pgdiff.schema.PgInheritedColumn;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgTable;
 import cz.startnet.utils.pgdiff.schema.PgRelationPrivilege;
-import java.io.PrintWriter;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -30,12 +30,12 @@ public class PgDiffTables {
     /**
      * Outputs statements for creation of clusters.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void dropClusters(final PrintWriter writer,
+    public static void dropClusters(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         for (final PgTable newTable : newSchema.getTables()) {
@@ -59,11 +59,11 @@ public class PgDiffTables {
 
             if (oldCluster != null && newCluster == null
                     && newTable.containsIndex(oldCluster)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("ALTER TABLE ");
-                writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-                writer.println(" SET WITHOUT CLUSTER;");
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.ALTER_TABLE, newTable,
+                        () -> "ALTER TABLE "
+                        + PgDiffUtils.getQuotedName(newTable.getName())
+                        + " SET WITHOUT CLUSTER;");
             }
         }
     }
@@ -71,12 +71,12 @@ public class PgDiffTables {
     /**
      * Outputs statements for dropping of clusters.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void createClusters(final PrintWriter writer,
+    public static void createClusters(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         for (final PgTable newTable : newSchema.getTables()) {
@@ -101,13 +101,12 @@ public class PgDiffTables {
             if ((oldCluster == null && newCluster != null)
                     || (oldCluster != null && newCluster != null
                     && newCluster.compareTo(oldCluster) != 0)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("ALTER TABLE ");
-                writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-                writer.print(" CLUSTER ON ");
-                writer.print(PgDiffUtils.getQuotedName(newCluster));
-                writer.println(';');
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.ALTER_TABLE, newTable,
+                        () -> "ALTER TABLE "
+                        + PgDiffUtils.getQuotedName(newTable.getName())
+                        + " CLUSTER ON " + PgDiffUtils.getQuotedName(newCluster)
+                        + ';');
             }
         }
     }
@@ -115,14 +114,14 @@ public class PgDiffTables {
     /**
      * Outputs statements for altering tables.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void alterTables(final PrintWriter writer,
-            final PgDiffArguments arguments, final PgSchema oldSchema,
+    public static void alterTables(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
             final PgSchema newSchema, final SearchPathHelper searchPathHelper) {
         for (final PgTable newTable : newSchema.getTables()) {
             if (oldSchema == null
@@ -131,31 +130,37 @@ public class PgDiffTables {
             }
 
             final PgTable oldTable = oldSchema.getTable(newTable.getName());
+
+            if (Fingerprint.matches(oldTable.getFingerprint(),
+                    newTable.getFingerprint())) {
+                continue;
+            }
+
             updateTableColumns(
-                    writer, arguments, oldTable, newTable, searchPathHelper);
-            checkWithOIDS(writer, oldTable, newTable, searchPathHelper);
-            checkInherits(writer, oldTable, newTable, newSchema, searchPathHelper);
-            addInheritedColumnDefaults(writer, arguments, oldTable, newTable, searchPathHelper);
-            checkTablespace(writer, oldTable, newTable, searchPathHelper);
-            addAlterStatistics(writer, oldTable, newTable, searchPathHelper);
-            addAlterStorage(writer, oldTable, newTable, searchPathHelper);
-            alterComments(writer, oldTable, newTable, searchPathHelper);
-            alterOwnerTo(writer, oldTable, newTable, searchPathHelper);
-            alterPrivileges(writer, oldTable, newTable, searchPathHelper);
-            alterPrivilegesColumns(writer, oldTable, newTable, searchPathHelper);
-            alterRLS(writer, oldTable, newTable, searchPathHelper);
+                    plan, context, oldTable, newTable, searchPathHelper);
+            checkWithOIDS(plan, oldTable, newTable, searchPathHelper);
+            checkInherits(plan, oldTable, newTable, newSchema, searchPathHelper);
+            addInheritedColumnDefaults(plan, context, oldTable, newTable, searchPathHelper);
+            checkTablespace(plan, oldTable, newTable, searchPathHelper);
+            addAlterStatistics(plan, oldTable, newTable, searchPathHelper);
+            addAlterStorage(plan, oldTable, newTable, searchPathHelper);
+            alterComments(plan, oldTable, newTable, searchPathHelper);
+            alterOwnerTo(plan, oldTable, newTable, searchPathHelper);
+            alterPrivileges(plan, oldTable, newTable, searchPathHelper);
+            alterPrivilegesColumns(plan, oldTable, newTable, searchPathHelper);
+            alterRLS(plan, oldTable, newTable, searchPathHelper);
         }
     }
 
     /**
      * Generate the needed alter table xxx set statistics when needed.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
      * @param oldTable         original table
      * @param newTable         new table
      * @param searchPathHelper search path helper
      */
-    private static void addAlterStatistics(final PrintWriter writer,
+    private static void addAlterStatistics(final DiffPlan plan,
             final PgTable oldTable, final PgTable newTable,
             final SearchPathHelper searchPathHelper) {
         @SuppressWarnings("CollectionWithoutInitialCapacity")
@@ -183,27 +188,26 @@ public class PgDiffTables {
         }
 
         for (final Map.Entry<String, Integer> entry : stats.entrySet()) {
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.print("ALTER TABLE ONLY ");
-            writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-            writer.print(" ALTER COLUMN ");
-            writer.print(PgDiffUtils.getQuotedName(entry.getKey()));
-            writer.print(" SET STATISTICS ");
-            writer.print(entry.getValue());
-            writer.println(';');
+            searchPathHelper.outputSearchPath(plan);
+            plan.add(DiffOperation.Kind.ALTER_COLUMN_STATISTICS,
+                    newTable.getColumn(entry.getKey()),
+                    () -> "ALTER TABLE ONLY "
+                    + PgDiffUtils.getQuotedName(newTable.getName())
+                    + " ALTER COLUMN "
+                    + PgDiffUtils.getQuotedName(entry.getKey())
+                    + " SET STATISTICS " + entry.getValue() + ';');
         }
     }
 
     /**
      * Generate the needed alter table xxx set storage when needed.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
      * @param oldTable         original table
      * @param newTable         new table
      * @param searchPathHelper search path helper
      */
-    private static void addAlterStorage(final PrintWriter writer,
+    private static void addAlterStorage(final DiffPlan plan,
             final PgTable oldTable, final PgTable newTable,
             final SearchPathHelper searchPathHelper) {
         for (final PgColumn newColumn : newTable.getColumns()) {
@@ -217,9 +221,9 @@ public class PgDiffTables {
                     : newColumn.getStorage();
 
             if (newStorage == null && oldStorage != null) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(MessageFormat.format(Resources.getString(
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.WARNING, newColumn,
+                        () -> MessageFormat.format(Resources.getString(
                         "WarningUnableToDetermineStorageType"),
                         newTable.getName() + '.' + newColumn.getName()));
 
@@ -230,40 +234,39 @@ public class PgDiffTables {
                 continue;
             }
 
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.print("ALTER TABLE ONLY ");
-            writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-            writer.print(" ALTER COLUMN ");
-            writer.print(PgDiffUtils.getQuotedName(newColumn.getName()));
-            writer.print(" SET STORAGE ");
-            writer.print(newStorage);
-            writer.print(';');
+            searchPathHelper.outputSearchPath(plan);
+            plan.add(DiffOperation.Kind.ALTER_COLUMN_STORAGE, newColumn,
+                    () -> "ALTER TABLE ONLY "
+                    + PgDiffUtils.getQuotedName(newTable.getName())
+                    + " ALTER COLUMN "
+                    + PgDiffUtils.getQuotedName(newColumn.getName())
+                    + " SET STORAGE " + newStorage + ';');
         }
     }
 
     /**
-     * Adds statements for creation of new columns to the list of statements.
+     * Adds clauses for creation of new columns to the statement.
      *
-     * @param statements          list of statements
-     * @param arguments           object containing arguments settings
+     * @param statement           ALTER statement
+     * @param context             diff context
      * @param oldTable            original table
      * @param newTable            new table
      * @param dropDefaultsColumns list for storing columns for which default
      *                            value should be dropped
      * @param generatedColumns list for storing generated columns
      */
-    private static void addCreateTableColumns(final List<String> statements,
-            final PgDiffArguments arguments, final PgTable oldTable,
+    private static void addCreateTableColumns(final DiffOperation statement,
+            final DiffContext context, final PgTable oldTable,
             final PgTable newTable, final List<PgColumn> dropDefaultsColumns,
             final List<PgColumn> generatedColumns
             ) {
         for (final PgColumn column : newTable.getColumns()) {
             if (!oldTable.containsColumn(column.getName())) {
-                statements.add("\tADD COLUMN "+ PgDiffUtils.getCreateIfNotExists()
-                        + column.getFullDefinition(arguments.isAddDefaults()));
+                statement.addClause(DiffOperation.Kind.ADD_COLUMN, column,
+                        () -> "ADD COLUMN " + context.getCreateIfNotExists()
+                        + column.getFullDefinition(context.isAddDefaults()));
                                 
-                if (arguments.isAddDefaults() && !column.getNullValue()
+                if (context.isAddDefaults() && !column.getNullValue()
                         && (column.getDefaultValue() == null
                         || column.getDefaultValue().isEmpty())) {
                     dropDefaultsColumns.add(column);
@@ -278,34 +281,37 @@ public class PgDiffTables {
     }
 
     /**
-     * Adds statements for removal of columns to the list of statements.
+     * Adds clauses for removal of columns to the statement.
      *
-     * @param statements list of statements
-     * @param oldTable   original table
-     * @param newTable   new table
+     * @param statement ALTER statement
+     * @param context   diff context
+     * @param oldTable  original table
+     * @param newTable  new table
      */
-    private static void addDropTableColumns(final List<String> statements,
-            final PgTable oldTable, final PgTable newTable) {
+    private static void addDropTableColumns(final DiffOperation statement,
+            final DiffContext context, final PgTable oldTable,
+            final PgTable newTable) {
         for (final PgColumn column : oldTable.getColumns()) {
             if (!newTable.containsColumn(column.getName())) {
-                statements.add("\tDROP COLUMN " + PgDiffUtils.getDropIfExists() 
+                statement.addClause(DiffOperation.Kind.DROP_COLUMN, column,
+                        () -> "DROP COLUMN " + context.getDropIfExists()
                         + PgDiffUtils.getQuotedName(column.getName()));
             }
         }
     }
 
     /**
-     * Adds statements for modification of columns to the list of statements.
+     * Adds clauses for modification of columns to the statement.
      *
-     * @param statements          list of statements
-     * @param arguments           object containing arguments settings
+     * @param statement           ALTER statement
+     * @param context             diff context
      * @param oldTable            original table
      * @param newTable            new table
      * @param dropDefaultsColumns list for storing columns for which default
      *                            value should be dropped
      */
-    private static void addModifyTableColumns(final List<String> statements,
-            final PgDiffArguments arguments, final PgTable oldTable,
+    private static void addModifyTableColumns(final DiffOperation statement,
+            final DiffContext context, final PgTable oldTable,
             final PgTable newTable, final List<PgColumn> dropDefaultsColumns) {
         for (final PgColumn newColumn : newTable.getColumns()) {
             if (!oldTable.containsColumn(newColumn.getName())) {
@@ -317,7 +323,9 @@ public class PgDiffTables {
                     PgDiffUtils.getQuotedName(newColumn.getName());
 
             if (!oldColumn.getType().equals(newColumn.getType())) {
-                statements.add("\tALTER COLUMN " + newColumnName + " TYPE "
+                statement.addClause(DiffOperation.Kind.ALTER_COLUMN_TYPE,
+                        newColumn, () -> "ALTER COLUMN " + newColumnName
+                        + " TYPE "
                 		+ newColumn.getType() + " USING " + newColumnName  + "::" + newColumn.getType() + " /* "
                         + MessageFormat.format(
                         Resources.getString("TypeParameterChange"),
@@ -332,32 +340,41 @@ public class PgDiffTables {
 
             if (!oldDefault.equals(newDefault)) {
                 if (newDefault.length() == 0) {
-                    statements.add("\tALTER COLUMN " + newColumnName
+                    statement.addClause(
+                            DiffOperation.Kind.ALTER_COLUMN_DEFAULT, newColumn,
+                            () -> "ALTER COLUMN " + newColumnName
                             + " DROP DEFAULT");
                 } else {
-                    statements.add("\tALTER COLUMN " + newColumnName
+                    statement.addClause(
+                            DiffOperation.Kind.ALTER_COLUMN_DEFAULT, newColumn,
+                            () -> "ALTER COLUMN " + newColumnName
                             + " SET DEFAULT " + newDefault);
                 }
             }
 
             if (oldColumn.getNullValue() != newColumn.getNullValue()) {
                 if (newColumn.getNullValue()) {
-                    statements.add("\tALTER COLUMN " + newColumnName
+                    statement.addClause(DiffOperation.Kind.ALTER_COLUMN_NULL,
+                            newColumn, () -> "ALTER COLUMN " + newColumnName
                             + " DROP NOT NULL");
                 } else {
-                    if (arguments.isAddDefaults()) {
+                    if (context.isAddDefaults()) {
                         final String defaultValue =
                                 PgColumnUtils.getDefaultValue(
                                 newColumn.getType());
 
                         if (defaultValue != null) {
-                            statements.add("\tALTER COLUMN " + newColumnName
-                                    + " SET DEFAULT " + defaultValue);
+                            statement.addClause(
+                                    DiffOperation.Kind.ALTER_COLUMN_DEFAULT,
+                                    newColumn, () -> "ALTER COLUMN "
+                                    + newColumnName + " SET DEFAULT "
+                                    + defaultValue);
                             dropDefaultsColumns.add(newColumn);
                         }
                     }
 
-                    statements.add("\tALTER COLUMN " + newColumnName
+                    statement.addClause(DiffOperation.Kind.ALTER_COLUMN_NULL,
+                            newColumn, () -> "ALTER COLUMN " + newColumnName
                             + " SET NOT NULL");
                 }
             }
@@ -368,13 +385,13 @@ public class PgDiffTables {
      * Checks whether there is a discrepancy in INHERITS for original and new
      * table.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
      * @param oldTable         original table
      * @param newTable         new table
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    private static void checkInherits(final PrintWriter writer,
+    private static void checkInherits(final DiffPlan plan,
             final PgTable oldTable, final PgTable newTable,
             final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
@@ -389,18 +406,18 @@ public class PgDiffTables {
               }
             }
             if (!isFound) {
-                String inheritTableName = null;
+                final String inheritTableName;
                 if(newSchema.getName().equals(schemaName)){
                     inheritTableName = PgDiffUtils.getQuotedName(tableName);
                 } else {
                     inheritTableName = String.format("%s.%s",PgDiffUtils.getQuotedName(schemaName),PgDiffUtils.getQuotedName(tableName));
                 }
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println("ALTER TABLE "
-                        + PgDiffUtils.getQuotedName(newTable.getName()));
-                writer.println("\tNO INHERIT "
-                        + inheritTableName + ';');
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(new DiffOperation(DiffOperation.Kind.ALTER_TABLE,
+                        newTable, () -> "ALTER TABLE "
+                        + PgDiffUtils.getQuotedName(newTable.getName()), true)
+                        .addClause(DiffOperation.Kind.ALTER_TABLE, newTable,
+                        () -> "NO INHERIT " + inheritTableName));
             }
         }
 
@@ -415,18 +432,18 @@ public class PgDiffTables {
               }
             }
             if (!isFound) {
-                String inheritTableName = null;
+                final String inheritTableName;
                 if(newSchema.getName().equals(schemaName)){
                     inheritTableName = PgDiffUtils.getQuotedName(tableName);
                 } else {
                     inheritTableName = String.format("%s.%s",PgDiffUtils.getQuotedName(schemaName),PgDiffUtils.getQuotedName(tableName));
                 }
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println("ALTER TABLE "
-                        + PgDiffUtils.getQuotedName(newTable.getName()));
-                writer.println("\tINHERIT "
-                        + inheritTableName + ';');
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(new DiffOperation(DiffOperation.Kind.ALTER_TABLE,
+                        newTable, () -> "ALTER TABLE "
+                        + PgDiffUtils.getQuotedName(newTable.getName()), true)
+                        .addClause(DiffOperation.Kind.ALTER_TABLE, newTable,
+                        () -> "INHERIT " + inheritTableName));
             }
         }
     }
@@ -435,14 +452,14 @@ public class PgDiffTables {
      * Outputs statements for defaults of tables who's column belongs to
      * an inherited table.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldTable         original table
      * @param newTable         new table
      * @param searchPathHelper search path helper
      */
-    private static void addInheritedColumnDefaults(final PrintWriter writer,
-            final PgDiffArguments arguments, final PgTable oldTable,
+    private static void addInheritedColumnDefaults(final DiffPlan plan,
+            final DiffContext context, final PgTable oldTable,
             final PgTable newTable, final SearchPathHelper searchPathHelper) {
         for (final PgInheritedColumn newColumn : newTable.getInheritedColumns()) {
             if (!oldTable.containsInheritedColumn(newColumn.getInheritedColumn().getName())) {
@@ -457,19 +474,13 @@ public class PgDiffTables {
             final String newDefault = (newColumn.getDefaultValue() == null) ? ""
                     : newColumn.getDefaultValue();
             if (!oldDefault.equals(newDefault)) {
-                writer.println();
-                writer.print("ALTER TABLE ONLY ");
-                writer.println(PgDiffUtils.getQuotedName(newTable.getName()));
-                writer.print("\tALTER COLUMN ");
-                writer.print(PgDiffUtils.getQuotedName(newColumn.getInheritedColumn().getName()));
-                if (newDefault.length() == 0) {
-                    writer.print(" DROP DEFAULT");
-                } else
-                {
-                    writer.print(" SET DEFAULT ");
-                    writer.print(newDefault);
-                }
-                writer.println(";");
+                plan.add(new DiffOperation(DiffOperation.Kind.ALTER_TABLE,
+                        newTable, () -> "ALTER TABLE ONLY "
+                        + PgDiffUtils.getQuotedName(newTable.getName()), true)
+                        .addClause(DiffOperation.Kind.ALTER_COLUMN_DEFAULT,
+                        newColumn.getInheritedColumn(), () -> "ALTER COLUMN "
+                        + newColumnName + (newDefault.length() == 0
+                        ? " DROP DEFAULT" : " SET DEFAULT " + newDefault)));
             }
         }
     }
@@ -479,12 +490,12 @@ public class PgDiffTables {
      * add OIDS to existing table so we do not create SQL statement for addition
      * of OIDS but we issue warning.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
      * @param oldTable         original table
      * @param newTable         new table
      * @param searchPathHelper search path helper
      */
-    private static void checkWithOIDS(final PrintWriter writer,
+    private static void checkWithOIDS(final DiffPlan plan,
             final PgTable oldTable, final PgTable newTable,
             final SearchPathHelper searchPathHelper) {
         if (oldTable.getWith() == null && newTable.getWith() == null
@@ -493,31 +504,35 @@ public class PgDiffTables {
             return;
         }
 
-        searchPathHelper.outputSearchPath(writer);
-        writer.println();
-        writer.println("ALTER TABLE "
-                + PgDiffUtils.getQuotedName(newTable.getName()));
+        final String with;
 
         if (newTable.getWith() == null
                 || "OIDS=false".equalsIgnoreCase(newTable.getWith())) {
-            writer.println("\tSET WITHOUT OIDS;");
+            with = "SET WITHOUT OIDS";
         } else if ("OIDS".equalsIgnoreCase(newTable.getWith())
                 || "OIDS=true".equalsIgnoreCase(newTable.getWith())) {
-            writer.println("\tSET WITH OIDS;");
+            with = "SET WITH OIDS";
         } else {
-            writer.println("\tSET " + newTable.getWith() + ";");
+            with = "SET " + newTable.getWith();
         }
+
+        searchPathHelper.outputSearchPath(plan);
+        plan.add(new DiffOperation(DiffOperation.Kind.ALTER_TABLE, newTable,
+                () -> "ALTER TABLE "
+                + PgDiffUtils.getQuotedName(newTable.getName()), true)
+                .addClause(DiffOperation.Kind.ALTER_TABLE, newTable,
+                () -> with));
     }
 
     /**
      * Checks tablespace modification.
      *
-     * @param writer           writer
+     * @param plan             diff plan
      * @param oldTable         old table
      * @param newTable         new table
      * @param searchPathHelper search path helper
      */
-    private static void checkTablespace(final PrintWriter writer,
+    private static void checkTablespace(final DiffPlan plan,
             final PgTable oldTable, final PgTable newTable,
             final SearchPathHelper searchPathHelper) {
         if (oldTable.getTablespace() == null && newTable.getTablespace() == null
@@ -526,42 +541,49 @@ public class PgDiffTables {
             return;
         }
 
-        searchPathHelper.outputSearchPath(writer);
-        writer.println();
-        writer.println("ALTER TABLE "
-                + PgDiffUtils.getQuotedName(newTable.getName()));
-        writer.println("\tTABLESPACE " + newTable.getTablespace() + ';');
+        searchPathHelper.outputSearchPath(plan);
+        plan.add(new DiffOperation(DiffOperation.Kind.ALTER_TABLE, newTable,
+                () -> "ALTER TABLE "
+                + PgDiffUtils.getQuotedName(newTable.getName()), true)
+                .addClause(DiffOperation.Kind.ALTER_TABLE, newTable,
+                () -> "TABLESPACE " + newTable.getTablespace()));
     }
 
     /**
      * Outputs statements for creation of new tables.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void createTables(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
+    public static void createTables(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
+            final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         for (final PgTable table : newSchema.getTables()) {
             if (oldSchema == null
                     || !oldSchema.containsTable(table.getName())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(table.getCreationSQL(newSchema));
-                writer.println();
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.CREATE_TABLE, table,
+                        () -> table.getCreationSQL(newSchema,
+                                context.isUseIfExists())
+                        + System.getProperty("line.separator"));
                 if (table.getOwnerTo() != null) {
-                    writer.println("ALTER TABLE "
+                    plan.addLine(DiffOperation.Kind.ALTER_OWNER, table,
+                            () -> "ALTER TABLE "
                             + PgDiffUtils.getQuotedName(table.getName())
                             + " OWNER TO " + table.getOwnerTo() + ";");
                 }
                 for (PgRelationPrivilege tablePrivilege : table.getPrivileges()) {
-                    writer.println("REVOKE ALL ON TABLE "
+                    plan.addLine(DiffOperation.Kind.REVOKE_PRIVILEGE, table,
+                            () -> "REVOKE ALL ON TABLE "
                             + PgDiffUtils.getQuotedName(table.getName())
                             + " FROM " + tablePrivilege.getRoleName() + ";");
                     if (!"".equals(tablePrivilege.getPrivilegesSQL(true))) {
-                        writer.println("GRANT "
+                        plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE, table,
+                                () -> "GRANT "
                                 + tablePrivilege.getPrivilegesSQL(true)
                                 + " ON TABLE "
                                 + PgDiffUtils.getQuotedName(table.getName())
@@ -569,7 +591,8 @@ public class PgDiffTables {
                                 + " WITH GRANT OPTION;");
                     }
                     if (!"".equals(tablePrivilege.getPrivilegesSQL(false))) {
-                        writer.println("GRANT "
+                        plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE, table,
+                                () -> "GRANT "
                                 + tablePrivilege.getPrivilegesSQL(false)
                                 + " ON TABLE "
                                 + PgDiffUtils.getQuotedName(table.getName())
@@ -577,12 +600,14 @@ public class PgDiffTables {
                     }
                 }
                 if (table.hasRLSEnabled() != null && table.hasRLSEnabled()) {
-                    writer.println("ALTER TABLE "
+                    plan.addLine(DiffOperation.Kind.ALTER_TABLE, table,
+                            () -> "ALTER TABLE "
                             + PgDiffUtils.getQuotedName(table.getName())
                             + "  ENABLE ROW LEVEL SECURITY;");
                 }
                 if (table.hasRLSForced() != null && table.hasRLSForced()) {
-                    writer.println("ALTER TABLE "
+                    plan.addLine(DiffOperation.Kind.ALTER_TABLE, table,
+                            () -> "ALTER TABLE "
                             + PgDiffUtils.getQuotedName(table.getName())
                             + "  FORCE ROW LEVEL SECURITY;");
                 }
@@ -594,13 +619,15 @@ public class PgDiffTables {
     /**
      * Outputs statements for dropping tables.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void dropTables(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
+    public static void dropTables(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
+            final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         if (oldSchema == null) {
             return;
@@ -608,9 +635,9 @@ public class PgDiffTables {
 
         for (final PgTable table : oldSchema.getTables()) {
             if (!newSchema.containsTable(table.getName())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(table.getDropSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.DROP_TABLE, table,
+                        () -> table.getDropSQL(context.isUseIfExists()));
             }
         }
     }
@@ -619,64 +646,63 @@ public class PgDiffTables {
      * Outputs statements for addition, removal and modifications of table
      * columns.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldTable         original table
      * @param newTable         new table
      * @param searchPathHelper search path helper
      */
-    private static void updateTableColumns(final PrintWriter writer,
-            final PgDiffArguments arguments, final PgTable oldTable,
+    private static void updateTableColumns(final DiffPlan plan,
+            final DiffContext context, final PgTable oldTable,
             final PgTable newTable, final SearchPathHelper searchPathHelper) {
-        @SuppressWarnings("CollectionWithoutInitialCapacity")
-        final List<String> statements = new ArrayList<String>();
+        final String alterTable = "ALTER "
+                + ((newTable.isForeign()) ? "FOREIGN " : "") + "TABLE "
+                + PgDiffUtils.getQuotedName(newTable.getName());
+        final DiffOperation statement = new DiffOperation(
+                DiffOperation.Kind.ALTER_TABLE, newTable, () -> alterTable,
+                true);
         @SuppressWarnings("CollectionWithoutInitialCapacity")
         final List<PgColumn> dropDefaultsColumns = new ArrayList<PgColumn>();
         final List<PgColumn> generatedColumns = new ArrayList<PgColumn>();
-        addDropTableColumns(statements, oldTable, newTable);
+        addDropTableColumns(statement, context, oldTable, newTable);
         addCreateTableColumns(
-                statements, arguments, oldTable, newTable, dropDefaultsColumns,generatedColumns);
+                statement, context, oldTable, newTable, dropDefaultsColumns,generatedColumns);
         addModifyTableColumns(
-                statements, arguments, oldTable, newTable, dropDefaultsColumns);
-
-        if (!statements.isEmpty()) {
-            final String quotedTableName =
-                    PgDiffUtils.getQuotedName(newTable.getName());
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.println("ALTER " + ((newTable.isForeign()) ? "FOREIGN ":"") + "TABLE " + quotedTableName);
-
-            for (int i = 0; i < statements.size(); i++) {
-                writer.print(statements.get(i));
-                writer.println((i + 1) < statements.size() ? "," : ";");
-            }
+                statement, context, oldTable, newTable, dropDefaultsColumns);
+
+        if (statement.hasClauses()) {
+            searchPathHelper.outputSearchPath(plan);
+            plan.add(statement);
 
             if (!dropDefaultsColumns.isEmpty()) {
-                writer.println();
-                writer.println("ALTER " + ((newTable.isForeign()) ? "FOREIGN ":"") + "TABLE " + quotedTableName);
-
-                for (int i = 0; i < dropDefaultsColumns.size(); i++) {
-                    writer.print("\tALTER COLUMN ");
-                    writer.print(PgDiffUtils.getQuotedName(
-                            dropDefaultsColumns.get(i).getName()));
-                    writer.print(" DROP DEFAULT");
-                    writer.println(
-                            (i + 1) < dropDefaultsColumns.size() ? "," : ";");
+                final DiffOperation dropDefaults = new DiffOperation(
+                        DiffOperation.Kind.ALTER_TABLE, newTable,
+                        () -> alterTable, true);
+
+                for (final PgColumn column : dropDefaultsColumns) {
+                    dropDefaults.addClause(
+                            DiffOperation.Kind.ALTER_COLUMN_DEFAULT, column,
+                            () -> "ALTER COLUMN "
+                            + PgDiffUtils.getQuotedName(column.getName())
+                            + " DROP DEFAULT");
                 }
+
+                plan.add(dropDefaults);
             }
             
-            for (int i = 0; i < generatedColumns.size(); i++) {
-                writer.println();
-                writer.print("ALTER TABLE ");
-                writer.println(newTable.getName());
-                writer.println("\tALTER COLUMN " + PgDiffUtils.getQuotedName(
-                        generatedColumns.get(i).getName()) + " " + generatedColumns.get(i).getGenerated() +";");
-               
+            for (final PgColumn column : generatedColumns) {
+                plan.add(new DiffOperation(DiffOperation.Kind.ALTER_TABLE,
+                        newTable, () -> "ALTER TABLE " + newTable.getName(),
+                        true)
+                        .addClause(DiffOperation.Kind.ALTER_COLUMN_GENERATED,
+                        column, () -> "ALTER COLUMN "
+                        + PgDiffUtils.getQuotedName(column.getName()) + " "
+                        + column.getGenerated()));
             }
         }
     }
 
-    private static void alterPrivilegesColumns(final PrintWriter writer,
+    private static void alterPrivilegesColumns(final DiffPlan plan,
             final PgTable oldTable, final PgTable newTable,
             final SearchPathHelper searchPathHelper) {
         boolean emptyLinePrinted = false;
@@ -689,16 +715,14 @@ public class PgDiffTables {
                     PgColumnPrivilege newColumnPrivilege = newColumn
                             .getPrivilege(oldColumnPrivilege.getRoleName());
                     if (newColumnPrivilege == null) {
-                        if (!emptyLinePrinted) {
-                            emptyLinePrinted = true;
-                            writer.println();
-                        }
-                        writer.println("REVOKE ALL ("
+                        plan.add(DiffOperation.Kind.REVOKE_PRIVILEGE, newColumn,
+                                () -> "REVOKE ALL ("
                                 + PgDiffUtils.getQuotedName(newColumn.getName())
                                 + ") ON TABLE "
                                 + PgDiffUtils.getQuotedName(newTable.getName())
                                 + " FROM " + oldColumnPrivilege.getRoleName()
-                                + ";");
+                                + ";", !emptyLinePrinted);
+                        emptyLinePrinted = true;
                     }
                 }
             }
@@ -711,41 +735,39 @@ public class PgDiffTables {
                                 .getPrivilege(newColumnPrivilege.getRoleName());
                     }
                     if (!newColumnPrivilege.isSimilar(oldColumnPrivilege)) {
-                        if (!emptyLinePrinted) {
-                            emptyLinePrinted = true;
-                            writer.println();
-                        }
-                        writer.println("REVOKE ALL ("
+                        plan.add(DiffOperation.Kind.REVOKE_PRIVILEGE, newColumn,
+                                () -> "REVOKE ALL ("
                                 + PgDiffUtils.getQuotedName(newColumn.getName())
                                 + ") ON TABLE "
                                 + PgDiffUtils.getQuotedName(newTable.getName())
                                 + " FROM " + newColumnPrivilege.getRoleName()
-                                + ";");
+                                + ";", !emptyLinePrinted);
+                        emptyLinePrinted = true;
                         if (!"".equals(newColumnPrivilege.getPrivilegesSQL(
                                 true,
                                 PgDiffUtils.getQuotedName(newColumn.getName())))) {
-                            writer.println("GRANT "
+                            plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE,
+                                    newColumn, () -> "GRANT "
                                     + newColumnPrivilege.getPrivilegesSQL(true,
-                                            PgDiffUtils.getQuotedName(newColumn
-                                                    .getName()))
+                                            PgDiffUtils.getQuotedName(newColumn.getName()))
                                     + " ON TABLE "
-                                    + PgDiffUtils.getQuotedName(newTable
-                                            .getName()) + " TO "
-                                    + newColumnPrivilege.getRoleName()
+                                    + PgDiffUtils.getQuotedName(
+                                            newTable.getName())
+                                    + " TO " + newColumnPrivilege.getRoleName()
                                     + " WITH GRANT OPTION;");
                         }
                         if (!"".equals(newColumnPrivilege.getPrivilegesSQL(
                                 false,
                                 PgDiffUtils.getQuotedName(newColumn.getName())))) {
-                            writer.println("GRANT "
-                                    + newColumnPrivilege.getPrivilegesSQL(
-                                            false, PgDiffUtils
-                                                    .getQuotedName(newColumn
-                                                            .getName()))
+                            plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE,
+                                    newColumn, () -> "GRANT "
+                                    + newColumnPrivilege.getPrivilegesSQL(false,
+                                            PgDiffUtils.getQuotedName(newColumn.getName()))
                                     + " ON TABLE "
-                                    + PgDiffUtils.getQuotedName(newTable
-                                            .getName()) + " TO "
-                                    + newColumnPrivilege.getRoleName() + ";");
+                                    + PgDiffUtils.getQuotedName(
+                                            newTable.getName())
+                                    + " TO " + newColumnPrivilege.getRoleName()
+                                    + ";");
                         }
 
                     }
@@ -760,12 +782,12 @@ public class PgDiffTables {
      * Outputs statements for tables and columns for which comments have
      * changed.
      *
-     * @param writer           writer
+     * @param plan             diff plan
      * @param oldTable         old table
      * @param newTable         new table
      * @param searchPathHelper search path helper
      */
-    private static void alterComments(final PrintWriter writer,
+    private static void alterComments(final DiffPlan plan,
             final PgTable oldTable, final PgTable newTable,
             final SearchPathHelper searchPathHelper) {
         if (oldTable.getComment() == null
@@ -773,20 +795,18 @@ public class PgDiffTables {
                 || oldTable.getComment() != null
                 && newTable.getComment() != null
                 && !oldTable.getComment().equals(newTable.getComment())) {
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.print("COMMENT ON TABLE ");
-            writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-            writer.print(" IS ");
-            writer.print(newTable.getComment());
-            writer.println(';');
+            searchPathHelper.outputSearchPath(plan);
+            plan.add(DiffOperation.Kind.COMMENT, newTable,
+                    () -> "COMMENT ON TABLE "
+                    + PgDiffUtils.getQuotedName(newTable.getName()) + " IS "
+                    + newTable.getComment() + ';');
         } else if (oldTable.getComment() != null
                 && newTable.getComment() == null) {
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.print("COMMENT ON TABLE ");
-            writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-            writer.println(" IS NULL;");
+            searchPathHelper.outputSearchPath(plan);
+            plan.add(DiffOperation.Kind.COMMENT, newTable,
+                    () -> "COMMENT ON TABLE "
+                    + PgDiffUtils.getQuotedName(newTable.getName())
+                    + " IS NULL;");
         }
 
         for (final PgColumn newColumn : newTable.getColumns()) {
@@ -797,28 +817,24 @@ public class PgDiffTables {
 
             if (newComment != null && (oldComment == null ? newComment != null
                     : !oldComment.equals(newComment))) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON COLUMN ");
-                writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-                writer.print('.');
-                writer.print(PgDiffUtils.getQuotedName(newColumn.getName()));
-                writer.print(" IS ");
-                writer.print(newColumn.getComment());
-                writer.println(';');
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.COMMENT, newColumn,
+                        () -> "COMMENT ON COLUMN "
+                        + PgDiffUtils.getQuotedName(newTable.getName()) + '.'
+                        + PgDiffUtils.getQuotedName(newColumn.getName())
+                        + " IS " + newColumn.getComment() + ';');
             } else if (oldComment != null && newComment == null) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON COLUMN ");
-                writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-                writer.print('.');
-                writer.print(PgDiffUtils.getQuotedName(newColumn.getName()));
-                writer.println(" IS NULL;");
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.COMMENT, newColumn,
+                        () -> "COMMENT ON COLUMN "
+                        + PgDiffUtils.getQuotedName(newTable.getName()) + '.'
+                        + PgDiffUtils.getQuotedName(newColumn.getName())
+                        + " IS NULL;");
             }
         }
     }
 
-    private static void alterPrivileges(final PrintWriter writer,
+    private static void alterPrivileges(final DiffPlan plan,
             final PgTable oldTable, final PgTable newTable,
             final SearchPathHelper searchPathHelper) {
         boolean emptyLinePrinted = false;
@@ -826,23 +842,22 @@ public class PgDiffTables {
             PgRelationPrivilege newTablePrivilege = newTable
                     .getPrivilege(oldTablePrivilege.getRoleName());
             if (newTablePrivilege == null) {
-                if (!emptyLinePrinted) {
-                    emptyLinePrinted = true;
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON TABLE "
+                plan.add(DiffOperation.Kind.REVOKE_PRIVILEGE, oldTable,
+                        () -> "REVOKE ALL ON TABLE "
                         + PgDiffUtils.getQuotedName(oldTable.getName())
-                        + " FROM " + oldTablePrivilege.getRoleName() + ";");
+                        + " FROM " + oldTablePrivilege.getRoleName()
+                        + ";", !emptyLinePrinted);
+                emptyLinePrinted = true;
             } else if (!oldTablePrivilege.isSimilar(newTablePrivilege)) {
-                if (!emptyLinePrinted) {
-                    emptyLinePrinted = true;
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON TABLE "
+                plan.add(DiffOperation.Kind.REVOKE_PRIVILEGE, newTable,
+                        () -> "REVOKE ALL ON TABLE "
                         + PgDiffUtils.getQuotedName(newTable.getName())
-                        + " FROM " + newTablePrivilege.getRoleName() + ";");
+                        + " FROM " + newTablePrivilege.getRoleName()
+                        + ";", !emptyLinePrinted);
+                emptyLinePrinted = true;
                 if (!"".equals(newTablePrivilege.getPrivilegesSQL(true))) {
-                    writer.println("GRANT "
+                    plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE, newTable,
+                            () -> "GRANT "
                             + newTablePrivilege.getPrivilegesSQL(true)
                             + " ON TABLE "
                             + PgDiffUtils.getQuotedName(newTable.getName())
@@ -850,7 +865,8 @@ public class PgDiffTables {
                             + " WITH GRANT OPTION;");
                 }
                 if (!"".equals(newTablePrivilege.getPrivilegesSQL(false))) {
-                    writer.println("GRANT "
+                    plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE, newTable,
+                            () -> "GRANT "
                             + newTablePrivilege.getPrivilegesSQL(false)
                             + " ON TABLE "
                             + PgDiffUtils.getQuotedName(newTable.getName())
@@ -862,14 +878,14 @@ public class PgDiffTables {
             PgRelationPrivilege oldTablePrivilege = oldTable
                     .getPrivilege(newTablePrivilege.getRoleName());
             if (oldTablePrivilege == null) {
-                if (!emptyLinePrinted) {
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON TABLE "
+                plan.add(DiffOperation.Kind.REVOKE_PRIVILEGE, newTable,
+                        () -> "REVOKE ALL ON TABLE "
                         + PgDiffUtils.getQuotedName(newTable.getName())
-                        + " FROM " + newTablePrivilege.getRoleName() + ";");
+                        + " FROM " + newTablePrivilege.getRoleName()
+                        + ";", !emptyLinePrinted);
                 if (!"".equals(newTablePrivilege.getPrivilegesSQL(true))) {
-                    writer.println("GRANT "
+                    plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE, newTable,
+                            () -> "GRANT "
                             + newTablePrivilege.getPrivilegesSQL(true)
                             + " ON TABLE "
                             + PgDiffUtils.getQuotedName(newTable.getName())
@@ -877,7 +893,8 @@ public class PgDiffTables {
                             + " WITH GRANT OPTION;");
                 }
                 if (!"".equals(newTablePrivilege.getPrivilegesSQL(false))) {
-                    writer.println("GRANT "
+                    plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE, newTable,
+                            () -> "GRANT "
                             + newTablePrivilege.getPrivilegesSQL(false)
                             + " ON TABLE "
                             + PgDiffUtils.getQuotedName(newTable.getName())
@@ -887,54 +904,54 @@ public class PgDiffTables {
         }
     }
 
-    private static void alterOwnerTo(final PrintWriter writer,
+    private static void alterOwnerTo(final DiffPlan plan,
             final PgTable oldTable, final PgTable newTable,
             final SearchPathHelper searchPathHelper) {
         final String oldOwnerTo = oldTable.getOwnerTo();
         final String newOwnerTo = newTable.getOwnerTo();
 
         if (newOwnerTo != null && !newOwnerTo.equals(oldOwnerTo)) {
-            writer.println();
-            writer.println("ALTER " + ((newTable.isForeign()) ? "FOREIGN ":"") + "TABLE "
-                    + PgDiffUtils.getQuotedName(newTable.getName())
+            plan.add(DiffOperation.Kind.ALTER_OWNER, newTable,
+                    () -> "ALTER " + ((newTable.isForeign()) ? "FOREIGN ":"")
+                    + "TABLE " + PgDiffUtils.getQuotedName(newTable.getName())
                     + " OWNER TO " + newTable.getOwnerTo() + ";");
         }
     }
 
-    private static void alterRLS(final PrintWriter writer,
+    private static void alterRLS(final DiffPlan plan,
             final PgTable oldTable, final PgTable newTable,
             final SearchPathHelper searchPathHelper) {
         if ((oldTable.hasRLSEnabled() == null || oldTable.hasRLSEnabled() != null && !oldTable.hasRLSEnabled())
             && newTable.hasRLSEnabled() != null && newTable.hasRLSEnabled()) {
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.print("ALTER TABLE ");
-            writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-            writer.println(" ENABLE ROW LEVEL SECURITY;");
+            searchPathHelper.outputSearchPath(plan);
+            plan.add(DiffOperation.Kind.ALTER_TABLE, newTable,
+                    () -> "ALTER TABLE "
+                    + PgDiffUtils.getQuotedName(newTable.getName())
+                    + " ENABLE ROW LEVEL SECURITY;");
         }
         if (oldTable.hasRLSEnabled() != null && oldTable.hasRLSEnabled()
             && (newTable.hasRLSEnabled() == null || newTable.hasRLSEnabled() != null && !newTable.hasRLSEnabled())) {
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.print("ALTER TABLE ");
-            writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-            writer.println(" DISABLE ROW LEVEL SECURITY;");
+            searchPathHelper.outputSearchPath(plan);
+            plan.add(DiffOperation.Kind.ALTER_TABLE, newTable,
+                    () -> "ALTER TABLE "
+                    + PgDiffUtils.getQuotedName(newTable.getName())
+                    + " DISABLE ROW LEVEL SECURITY;");
         }
         if ((oldTable.hasRLSForced() == null || oldTable.hasRLSForced() != null && !oldTable.hasRLSForced())
             && newTable.hasRLSForced() != null && newTable.hasRLSForced()) {
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.print("ALTER TABLE ");
-            writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-            writer.println(" FORCE ROW LEVEL SECURITY;");
+            searchPathHelper.outputSearchPath(plan);
+            plan.add(DiffOperation.Kind.ALTER_TABLE, newTable,
+                    () -> "ALTER TABLE "
+                    + PgDiffUtils.getQuotedName(newTable.getName())
+                    + " FORCE ROW LEVEL SECURITY;");
         }
         if (oldTable.hasRLSForced() != null && oldTable.hasRLSForced()
             && (newTable.hasRLSForced() == null || newTable.hasRLSForced() != null && !newTable.hasRLSForced())) {
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.print("ALTER TABLE ");
-            writer.print(PgDiffUtils.getQuotedName(newTable.getName()));
-            writer.println(" NO FORCE ROW LEVEL SECURITY;");
+            searchPathHelper.outputSearchPath(plan);
+            plan.add(DiffOperation.Kind.ALTER_TABLE, newTable,
+                    () -> "ALTER TABLE "
+                    + PgDiffUtils.getQuotedName(newTable.getName())
+                    + " NO FORCE ROW LEVEL SECURITY;");
         }
     }
 
@@ -5,10 +5,10 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import cz.startnet.utils.pgdiff.schema.Fingerprint;
 import cz.startnet.utils.pgdiff.schema.PgRelation;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgTrigger;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -23,12 +23,12 @@ public class PgDiffTriggers {
     /**
      * Outputs statements for creation of new triggers.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void createTriggers(final PrintWriter writer,
+    public static void createTriggers(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper
             ) {
@@ -41,11 +41,17 @@ public class PgDiffTriggers {
                 oldRelation = oldSchema.getRelation(newRelation.getName());
             }
 
+            if (oldRelation != null && Fingerprint.matches(
+                    oldRelation.getFingerprint(),
+                    newRelation.getFingerprint())) {
+                continue;
+            }
+
             // Add new triggers
             for (final PgTrigger trigger : getNewTriggers(oldRelation, newRelation)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(trigger.getCreationSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.CREATE_TRIGGER, trigger,
+                        () -> trigger.getCreationSQL());
             }
         }
     }
@@ -53,13 +59,15 @@ public class PgDiffTriggers {
     /**
      * Outputs statements for dropping triggers.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper    
      */
-    public static void dropTriggers(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
+    public static void dropTriggers(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
+            final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         for (final PgRelation newRelation : newSchema.getRels()) {
             final PgRelation oldRelation;
@@ -70,12 +78,18 @@ public class PgDiffTriggers {
                 oldRelation = oldSchema.getRelation(newRelation.getName());
             }
 
+            if (oldRelation != null && Fingerprint.matches(
+                    oldRelation.getFingerprint(),
+                    newRelation.getFingerprint())) {
+                continue;
+            }
+
             // Drop triggers that no more exist or are modified
             for (final PgTrigger trigger :
                     getDropTriggers(oldRelation, newRelation)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(trigger.getDropSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.DROP_TRIGGER, trigger,
+                        () -> trigger.getDropSQL(context.isUseIfExists()));
             }
         }
     }
@@ -137,12 +151,12 @@ public class PgDiffTriggers {
     /**
      * Outputs statements for trigger comments that have changed.
      *
-     * @param writer           writer
+     * @param plan             diff plan
      * @param oldSchema        old schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void alterComments(final PrintWriter writer,
+    public static void alterComments(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         if (oldSchema == null) {
@@ -170,28 +184,24 @@ public class PgDiffTriggers {
                         && newTrigger.getComment() != null
                         && !oldTrigger.getComment().equals(
                         newTrigger.getComment())) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("COMMENT ON TRIGGER ");
-                    writer.print(
-                            PgDiffUtils.getQuotedName(newTrigger.getName()));
-                    writer.print(" ON ");
-                    writer.print(PgDiffUtils.getQuotedName(
-                            newTrigger.getRelationName()));
-                    writer.print(" IS ");
-                    writer.print(newTrigger.getComment());
-                    writer.println(';');
+                    searchPathHelper.outputSearchPath(plan);
+                    plan.add(DiffOperation.Kind.COMMENT, newTrigger,
+                            () -> "COMMENT ON TRIGGER "
+                            + PgDiffUtils.getQuotedName(newTrigger.getName())
+                            + " ON "
+                            + PgDiffUtils.getQuotedName(
+                                    newTrigger.getRelationName())
+                            + " IS " + newTrigger.getComment() + ';');
                 } else if (oldTrigger.getComment() != null
                         && newTrigger.getComment() == null) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("COMMENT ON TRIGGER ");
-                    writer.print(
-                            PgDiffUtils.getQuotedName(newTrigger.getName()));
-                    writer.print(" ON ");
-                    writer.print(PgDiffUtils.getQuotedName(
-                            newTrigger.getRelationName()));
-                    writer.println(" IS NULL;");
+                    searchPathHelper.outputSearchPath(plan);
+                    plan.add(DiffOperation.Kind.COMMENT, newTrigger,
+                            () -> "COMMENT ON TRIGGER "
+                            + PgDiffUtils.getQuotedName(newTrigger.getName())
+                            + " ON "
+                            + PgDiffUtils.getQuotedName(
+                                    newTrigger.getRelationName())
+                            + " IS NULL;");
                 }
             }
         }
@@ -237,12 +247,12 @@ public class PgDiffTriggers {
     /**
      * Outputs statements for disable or enable triggers.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void disableOrEnableTriggers(final PrintWriter writer,
+    public static void disableOrEnableTriggers(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper
             ) {
@@ -255,11 +265,17 @@ public class PgDiffTriggers {
                 oldRelation = oldSchema.getRelation(newRelation.getName());
             }
 
+            if (oldRelation != null && Fingerprint.matches(
+                    oldRelation.getFingerprint(),
+                    newRelation.getFingerprint())) {
+                continue;
+            }
+
             // Add new triggers
             for (final PgTrigger trigger : getEnablerOrDisableTriggers(oldRelation, newRelation)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(trigger.getDisableOrEnableSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.ALTER_TRIGGER, trigger,
+                        () -> trigger.getDisableOrEnableSQL());
             }
         }
     }
@@ -9,7 +9,6 @@ import cz.startnet.utils.pgdiff.schema.PgColumn;
 import cz.startnet.utils.pgdiff.schema.PgColumnUtils;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgType;
-import java.io.PrintWriter;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -26,14 +25,14 @@ public class PgDiffTypes {
     /**
      * Outputs statements for altering types.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void alterTypes(final PrintWriter writer,
-            final PgDiffArguments arguments, final PgSchema oldSchema,
+    public static void alterTypes(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
             final PgSchema newSchema, final SearchPathHelper searchPathHelper) {
         for (final PgType newType : newSchema.getTypes()) {
             if (oldSchema == null
@@ -43,31 +42,32 @@ public class PgDiffTypes {
 
             final PgType oldType = oldSchema.getType(newType.getName());
             updateTypeColumns(
-                    writer, arguments, oldType, newType, searchPathHelper);
+                    plan, context, oldType, newType, searchPathHelper);
 
         }
     }
 
 
     /**
-     * Adds statements for creation of new columns to the list of statements.
+     * Adds clauses for creation of new columns to the statement.
      *
-     * @param statements          list of statements
-     * @param arguments           object containing arguments settings
+     * @param statement           ALTER statement
+     * @param context             diff context
      * @param oldType            original type
      * @param newType            new type
      * @param dropDefaultsColumns list for storing columns for which default
      *                            value should be dropped
      */
-    private static void addCreateTypeColumns(final List<String> statements,
-            final PgDiffArguments arguments, final PgType oldType,
+    private static void addCreateTypeColumns(final DiffOperation statement,
+            final DiffContext context, final PgType oldType,
             final PgType newType, final List<PgColumn> dropDefaultsColumns) {
         for (final PgColumn column : newType.getColumns()) {
             if (!oldType.containsColumn(column.getName())) {
-                statements.add("\tADD ATTRIBUTE "
-                        + column.getFullDefinition(arguments.isAddDefaults()));
+                statement.addClause(DiffOperation.Kind.ADD_COLUMN, column,
+                        () -> "ADD ATTRIBUTE " + column.getFullDefinition(
+                        context.isAddDefaults()));
 
-                if (arguments.isAddDefaults() && !column.getNullValue()
+                if (context.isAddDefaults() && !column.getNullValue()
                         && (column.getDefaultValue() == null
                         || column.getDefaultValue().isEmpty())) {
                     dropDefaultsColumns.add(column);
@@ -77,34 +77,35 @@ public class PgDiffTypes {
     }
 
     /**
-     * Adds statements for removal of columns to the list of statements.
+     * Adds clauses for removal of columns to the statement.
      *
-     * @param statements list of statements
+     * @param statement ALTER statement
      * @param oldType   original type
      * @param newType   new type
      */
-    private static void addDropTypeColumns(final List<String> statements,
+    private static void addDropTypeColumns(final DiffOperation statement,
             final PgType oldType, final PgType newType) {
         for (final PgColumn column : oldType.getColumns()) {
             if (!newType.containsColumn(column.getName())) {
-                statements.add("\tDROP ATTRIBUTE "
+                statement.addClause(DiffOperation.Kind.DROP_COLUMN, column,
+                        () -> "DROP ATTRIBUTE "
                         + PgDiffUtils.getQuotedName(column.getName()));
             }
         }
     }
 
     /**
-     * Adds statements for modification of columns to the list of statements.
+     * Adds clauses for modification of columns to the statement.
      *
-     * @param statements          list of statements
-     * @param arguments           object containing arguments settings
+     * @param statement           ALTER statement
+     * @param context             diff context
      * @param oldType            original type
      * @param newType            new type
      * @param dropDefaultsColumns list for storing columns for which default
      *                            value should be dropped
      */
-    private static void addModifyTypeColumns(final List<String> statements,
-            final PgDiffArguments arguments, final PgType oldType,
+    private static void addModifyTypeColumns(final DiffOperation statement,
+            final DiffContext context, final PgType oldType,
             final PgType newType, final List<PgColumn> dropDefaultsColumns) {
         for (final PgColumn newColumn : newType.getColumns()) {
             if (!oldType.containsColumn(newColumn.getName())) {
@@ -116,7 +117,9 @@ public class PgDiffTypes {
                     PgDiffUtils.getQuotedName(newColumn.getName());
 
             if (!oldColumn.getType().equals(newColumn.getType())) {
-                statements.add("\tALTER ATTRIBUTE " + newColumnName + " TYPE "
+                statement.addClause(DiffOperation.Kind.ALTER_COLUMN_TYPE,
+                        newColumn, () -> "ALTER ATTRIBUTE " + newColumnName
+                        + " TYPE "
                         + newColumn.getType() + " /* "
                         + MessageFormat.format(
                         Resources.getString("TypeParameterChange"),
@@ -131,32 +134,41 @@ public class PgDiffTypes {
 
             if (!oldDefault.equals(newDefault)) {
                 if (newDefault.length() == 0) {
-                    statements.add("\tALTER ATTRIBUTE " + newColumnName
+                    statement.addClause(
+                            DiffOperation.Kind.ALTER_COLUMN_DEFAULT, newColumn,
+                            () -> "ALTER ATTRIBUTE " + newColumnName
                             + " DROP DEFAULT");
                 } else {
-                    statements.add("\tALTER ATTRIBUTE " + newColumnName
+                    statement.addClause(
+                            DiffOperation.Kind.ALTER_COLUMN_DEFAULT, newColumn,
+                            () -> "ALTER ATTRIBUTE " + newColumnName
                             + " SET DEFAULT " + newDefault);
                 }
             }
 
             if (oldColumn.getNullValue() != newColumn.getNullValue()) {
                 if (newColumn.getNullValue()) {
-                    statements.add("\tALTER ATTRIBUTE " + newColumnName
+                    statement.addClause(DiffOperation.Kind.ALTER_COLUMN_NULL,
+                            newColumn, () -> "ALTER ATTRIBUTE " + newColumnName
                             + " DROP NOT NULL");
                 } else {
-                    if (arguments.isAddDefaults()) {
+                    if (context.isAddDefaults()) {
                         final String defaultValue =
                                 PgColumnUtils.getDefaultValue(
                                 newColumn.getType());
 
                         if (defaultValue != null) {
-                            statements.add("\tALTER ATTRIBUTE " + newColumnName
-                                    + " SET DEFAULT " + defaultValue);
+                            statement.addClause(
+                                    DiffOperation.Kind.ALTER_COLUMN_DEFAULT,
+                                    newColumn, () -> "ALTER ATTRIBUTE "
+                                    + newColumnName + " SET DEFAULT "
+                                    + defaultValue);
                             dropDefaultsColumns.add(newColumn);
                         }
                     }
 
-                    statements.add("\tALTER ATTRIBUTE " + newColumnName
+                    statement.addClause(DiffOperation.Kind.ALTER_COLUMN_NULL,
+                            newColumn, () -> "ALTER ATTRIBUTE " + newColumnName
                             + " SET NOT NULL");
                 }
             }
@@ -166,21 +178,21 @@ public class PgDiffTypes {
     /**
      * Outputs statements for creation of new types.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void createTypes(final PrintWriter writer,
+    public static void createTypes(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper
             ) {
         for (final PgType type : newSchema.getTypes()) {
             if (oldSchema == null
                     || !oldSchema.containsType(type.getName())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(type.getCreationSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.CREATE_TYPE, type,
+                        () -> type.getCreationSQL());
             }
         }
     }
@@ -188,13 +200,15 @@ public class PgDiffTypes {
     /**
      * Outputs statements for dropping types.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void dropTypes(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
+    public static void dropTypes(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
+            final PgSchema newSchema,
             final SearchPathHelper searchPathHelper
             ) {
         if (oldSchema == null) {
@@ -203,9 +217,9 @@ public class PgDiffTypes {
 
         for (final PgType type : oldSchema.getTypes()) {
             if (!newSchema.containsType(type.getName())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(type.getDropSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.DROP_TYPE, type,
+                        () -> type.getDropSQL(context.isUseIfExists()));
             }
         }
     }
@@ -214,49 +228,46 @@ public class PgDiffTypes {
      * Outputs statements for addition, removal and modifications of type
      * columns.
      *
-     * @param writer           writer the output should be written to
-     * @param arguments        object containing arguments settings
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldType         original type
      * @param newType         new type
      * @param searchPathHelper search path helper
      */
-    private static void updateTypeColumns(final PrintWriter writer,
-            final PgDiffArguments arguments, final PgType oldType,
+    private static void updateTypeColumns(final DiffPlan plan,
+            final DiffContext context, final PgType oldType,
             final PgType newType, final SearchPathHelper searchPathHelper) {
-        @SuppressWarnings("CollectionWithoutInitialCapacity")
-        final List<String> statements = new ArrayList<String>();
+        final String quotedTypeName =
+                PgDiffUtils.getQuotedName(newType.getName());
+        final DiffOperation statement = new DiffOperation(
+                DiffOperation.Kind.ALTER_TYPE, newType,
+                () -> "ALTER TYPE " + quotedTypeName, true);
         @SuppressWarnings("CollectionWithoutInitialCapacity")
         final List<PgColumn> dropDefaultsColumns = new ArrayList<PgColumn>();
-        addDropTypeColumns(statements, oldType, newType);
+        addDropTypeColumns(statement, oldType, newType);
         addCreateTypeColumns(
-                statements, arguments, oldType, newType, dropDefaultsColumns);
+                statement, context, oldType, newType, dropDefaultsColumns);
         addModifyTypeColumns(
-                statements, arguments, oldType, newType, dropDefaultsColumns);
-
-        if (!statements.isEmpty()) {
-            final String quotedTypeName =
-                    PgDiffUtils.getQuotedName(newType.getName());
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.println("ALTER TYPE " + quotedTypeName);
+                statement, context, oldType, newType, dropDefaultsColumns);
 
-            for (int i = 0; i < statements.size(); i++) {
-                writer.print(statements.get(i));
-                writer.println((i + 1) < statements.size() ? "," : ";");
-            }
+        if (statement.hasClauses()) {
+            searchPathHelper.outputSearchPath(plan);
+            plan.add(statement);
 
             if (!dropDefaultsColumns.isEmpty()) {
-                writer.println();
-                writer.println("ALTER TYPE " + quotedTypeName);
+                final DiffOperation dropDefaults = new DiffOperation(
+                        DiffOperation.Kind.ALTER_TYPE, newType,
+                        () -> "ALTER TYPE " + quotedTypeName, true);
 
-                for (int i = 0; i < dropDefaultsColumns.size(); i++) {
-                    writer.print("\tALTER ATTRIBUTE ");
-                    writer.print(PgDiffUtils.getQuotedName(
-                            dropDefaultsColumns.get(i).getName()));
-                    writer.print(" DROP DEFAULT");
-                    writer.println(
-                            (i + 1) < dropDefaultsColumns.size() ? "," : ";");
+                for (final PgColumn column : dropDefaultsColumns) {
+                    dropDefaults.addClause(
+                            DiffOperation.Kind.ALTER_COLUMN_DEFAULT, column,
+                            () -> "ALTER ATTRIBUTE "
+                            + PgDiffUtils.getQuotedName(column.getName())
+                            + " DROP DEFAULT");
                 }
+
+                plan.add(dropDefaults);
             }
         }
     }
@@ -5,7 +5,12 @@
  */
 package cz.startnet.utils.pgdiff;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Utilities for creation of diffs.
@@ -475,11 +480,40 @@ public class PgDiffUtils {
         "XMLVALIDATE",
         "YEAR",
         "ZONE"};
-    
-     /**
-     * Determine if use CREATE IF NOT EXISTS OR DROP IF EXISTS where is possible
+    /**
+     * Set of {@link #KEYWORDS}.
      */
-    private static boolean useIfExists;
+    private static final Set<String> KEYWORD_SET =
+            new HashSet<String>(Arrays.asList(KEYWORDS));
+    /**
+     * Set of {@link #KEYWORDS} in lower case. Keywords contain only ASCII
+     * characters, so name containing only ASCII characters and no upper case
+     * characters is keyword only if it is in this set.
+     */
+    private static final Set<String> LOWER_CASE_KEYWORD_SET =
+            new HashSet<String>(KEYWORDS.length * 2);
+    /**
+     * Maximum number of quoted names that are cached.
+     */
+    private static final int MAX_QUOTED_NAMES = 10000;
+    /**
+     * Cache of quoted names by name. Once the cache is full, new names are
+     * quoted without being cached. The cache is deliberately global rather
+     * than part of {@link DiffContext}: quoted name depends only on the name
+     * and not on any diff setting, so diffs running at the same time with
+     * different settings cannot affect each other's output through it.
+     * Quoting is also needed by the schema classes when they create their SQL,
+     * and those do not get any context. The cache is bounded and thread safe,
+     * so sharing it costs at most {@link #MAX_QUOTED_NAMES} entries.
+     */
+    private static final ConcurrentMap<String, String> QUOTED_NAMES =
+            new ConcurrentHashMap<String, String>();
+
+    static {
+        for (final String keyword : KEYWORDS) {
+            LOWER_CASE_KEYWORD_SET.add(keyword.toLowerCase(Locale.ENGLISH));
+        }
+    }
 
     /**
      * If name contains only lower case characters and digits and is not
@@ -493,31 +527,50 @@ public class PgDiffUtils {
      */
     public static String getQuotedName(final String name,
             final boolean excludeKeywords) {
-        if (name.indexOf('-') != -1 || name.indexOf('.') != -1) {
-            return '"' + name + '"';
-        }
+        boolean ascii = true;
 
         for (int i = 0; i < name.length(); i++) {
             final char chr = name.charAt(i);
 
-            if (Character.isUpperCase(chr)) {
-                return '"' + name + '"';
+            if (chr == '-' || chr == '.' || Character.isUpperCase(chr)) {
+                return quote(name);
             }
+
+            ascii &= chr < 0x80;
         }
 
         if (excludeKeywords) {
             return name;
         }
 
-        final String upperName = name.toUpperCase(Locale.ENGLISH);
+        if (ascii ? LOWER_CASE_KEYWORD_SET.contains(name)
+                : KEYWORD_SET.contains(name.toUpperCase(Locale.ENGLISH))) {
+            return quote(name);
+        }
 
-        for (final String keyword : KEYWORDS) {
-            if (keyword.equals(upperName)) {
-                return '"' + name + '"';
+        return name;
+    }
+
+    /**
+     * Returns quoted name. Quoted names are cached so that names that are
+     * output repeatedly are not concatenated again.
+     *
+     * @param name name
+     *
+     * @return quoted name
+     */
+    private static String quote(final String name) {
+        String quotedName = QUOTED_NAMES.get(name);
+
+        if (quotedName == null) {
+            quotedName = '"' + name + '"';
+
+            if (QUOTED_NAMES.size() < MAX_QUOTED_NAMES) {
+                QUOTED_NAMES.putIfAbsent(name, quotedName);
             }
         }
 
-        return name;
+        return quotedName;
     }
 
     /**
@@ -533,37 +586,133 @@ public class PgDiffUtils {
         return getQuotedName(name, false);
     }
     
-     /**
-     * IF useIfExists is true return DROP IF NOT EXISTS
+    /**
+     * Returns IF EXISTS clause if it should be used, otherwise empty string.
      *
+     * @param useIfExists whether IF EXISTS should be used
      *
-     * @return DROP IF NOT EXISTS STRING
+     * @return IF EXISTS clause or empty string
      */
-    public static String getDropIfExists() {
+    public static String getDropIfExists(final boolean useIfExists) {
+        return useIfExists ? "IF EXISTS " : "";
+    }
 
-        if (useIfExists) {
-            return "IF EXISTS ";
+    /**
+     * Returns IF NOT EXISTS clause if it should be used, otherwise empty
+     * string.
+     *
+     * @param useIfExists whether IF NOT EXISTS should be used
+     *
+     * @return IF NOT EXISTS clause or empty string
+     */
+    public static String getCreateIfNotExists(final boolean useIfExists) {
+        return useIfExists ? "IF NOT EXISTS " : "";
+    }
+
+    /**
+     * Computes hash code of the text with every run of whitespace replaced
+     * with single space. The result is the same as hash code of
+     * {@code text.replaceAll("\\s+", " ")} but the replaced text is not
+     * created.
+     *
+     * @param text text or null
+     *
+     * @return hash code of the text with collapsed whitespace, 0 for null
+     */
+    public static int hashCodeIgnoringWhitespace(final String text) {
+        if (text == null) {
+            return 0;
+        }
+
+        int hash = 0;
+        boolean inWhitespace = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            final char chr = text.charAt(i);
+
+            if (isWhitespace(chr)) {
+                if (!inWhitespace) {
+                    hash = 31 * hash + ' ';
+                    inWhitespace = true;
+                }
+            } else {
+                hash = 31 * hash + chr;
+                inWhitespace = false;
+            }
         }
-        return "";
+
+        return hash;
     }
-    
-     /**
-     * IF useIfExists is true return IF NOT EXISTS
+
+    /**
+     * Compares texts treating every run of whitespace as single space. The
+     * result is the same as comparison of the texts with
+     * {@code replaceAll("\\s+", " ")} applied but the texts are compared in
+     * place.
      *
+     * @param text1 first text or null
+     * @param text2 second text or null
      *
-     * @return IF NOT EXISTS STRING
+     * @return true if the texts are equal when whitespace is collapsed,
+     *         otherwise false
      */
-    public static String getCreateIfNotExists() {
+    public static boolean equalsIgnoringWhitespace(final String text1,
+            final String text2) {
+        if (text1 == null || text2 == null) {
+            return text1 == text2;
+        }
 
-        if (useIfExists) {
-            return "IF NOT EXISTS ";
+        int pos1 = 0;
+        int pos2 = 0;
+
+        while (pos1 < text1.length() && pos2 < text2.length()) {
+            final char chr1 = text1.charAt(pos1);
+            final char chr2 = text2.charAt(pos2);
+
+            if (isWhitespace(chr1) && isWhitespace(chr2)) {
+                pos1 = skipWhitespace(text1, pos1);
+                pos2 = skipWhitespace(text2, pos2);
+            } else if (chr1 == chr2) {
+                pos1++;
+                pos2++;
+            } else {
+                return false;
+            }
         }
-        return "";
+
+        return pos1 == text1.length() && pos2 == text2.length();
     }
 
-    public static void setUseExists(final boolean useExists) {
+    /**
+     * Returns position of first character after run of whitespace.
+     *
+     * @param text     text
+     * @param position position of the first whitespace character
+     *
+     * @return position of first non-whitespace character or length of the
+     *         text
+     */
+    private static int skipWhitespace(final String text, final int position) {
+        int pos = position;
+
+        while (pos < text.length() && isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+
+        return pos;
+    }
 
-        useIfExists = useExists;
+    /**
+     * Checks whether the character is whitespace as matched by {@code \s}
+     * in regular expressions.
+     *
+     * @param chr character
+     *
+     * @return true if the character is whitespace, otherwise false
+     */
+    private static boolean isWhitespace(final char chr) {
+        return chr == ' ' || chr == '\t' || chr == '\n' || chr == '\013'
+                || chr == '\f' || chr == '\r';
     }
 
     /**
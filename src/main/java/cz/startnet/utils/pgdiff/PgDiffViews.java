@@ -10,7 +10,6 @@ import cz.startnet.utils.pgdiff.schema.PgColumnPrivilege;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
 import cz.startnet.utils.pgdiff.schema.PgView;
 import cz.startnet.utils.pgdiff.schema.PgRelationPrivilege;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -25,12 +24,12 @@ public class PgDiffViews {
     /**
      * Outputs statements for creation of views.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void createViews(final PrintWriter writer,
+    public static void createViews(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         for (final PgView newView : newSchema.getViews()) {
@@ -43,21 +42,23 @@ public class PgDiffViews {
             if (oldSchema == null
                     || !oldSchema.containsView(newView.getName())
                     || isViewModified(oldView, newView)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(newView.getCreationSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.CREATE_VIEW, newView,
+                        () -> newView.getCreationSQL());
                 if (newView.getOwnerTo() != null && oldView == null) {
-                    writer.println();
-                    writer.println("ALTER VIEW "
+                    plan.add(DiffOperation.Kind.ALTER_OWNER, newView,
+                            () -> "ALTER VIEW "
                             + PgDiffUtils.getQuotedName(newView.getName())
                             + " OWNER TO " + newView.getOwnerTo() + ";");
                 }
                 for (PgRelationPrivilege viewPrivilege : newView.getPrivileges()) {
-                    writer.println("REVOKE ALL ON TABLE "
+                    plan.addLine(DiffOperation.Kind.REVOKE_PRIVILEGE, newView,
+                            () -> "REVOKE ALL ON TABLE "
                             + PgDiffUtils.getQuotedName(newView.getName())
                             + " FROM " + viewPrivilege.getRoleName() + ";");
                     if (!"".equals(viewPrivilege.getPrivilegesSQL(true))) {
-                        writer.println("GRANT "
+                        plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE,
+                                newView, () -> "GRANT "
                                 + viewPrivilege.getPrivilegesSQL(true)
                                 + " ON TABLE "
                                 + PgDiffUtils.getQuotedName(newView.getName())
@@ -65,7 +66,8 @@ public class PgDiffViews {
                                 + " WITH GRANT OPTION;");
                     }
                     if (!"".equals(viewPrivilege.getPrivilegesSQL(false))) {
-                        writer.println("GRANT "
+                        plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE,
+                                newView, () -> "GRANT "
                                 + viewPrivilege.getPrivilegesSQL(false)
                                 + " ON TABLE "
                                 + PgDiffUtils.getQuotedName(newView.getName())
@@ -80,13 +82,15 @@ public class PgDiffViews {
     /**
      * Outputs statements for dropping views.
      *
-     * @param writer           writer the output should be written to
+     * @param plan             diff plan the operations are added to
+     * @param context          diff context
      * @param oldSchema        original schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper   
      */
-    public static void dropViews(final PrintWriter writer,
-            final PgSchema oldSchema, final PgSchema newSchema,
+    public static void dropViews(final DiffPlan plan,
+            final DiffContext context, final PgSchema oldSchema,
+            final PgSchema newSchema,
             final SearchPathHelper searchPathHelper
             ) {
         if (oldSchema == null) {
@@ -97,9 +101,9 @@ public class PgDiffViews {
             final PgView newView = newSchema.getView(oldView.getName());
 
             if (newView == null || isViewModified(oldView, newView)) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.println(oldView.getDropSQL());
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.DROP_VIEW, oldView,
+                        () -> oldView.getDropSQL(context.isUseIfExists()));
             }
         }
     }
@@ -137,12 +141,12 @@ public class PgDiffViews {
     /**
      * Outputs statements for altering view default values.
      *
-     * @param writer           writer
+     * @param plan             diff plan
      * @param oldSchema        old schema
      * @param newSchema        new schema
      * @param searchPathHelper search path helper
      */
-    public static void alterViews(final PrintWriter writer,
+    public static void alterViews(final DiffPlan plan,
             final PgSchema oldSchema, final PgSchema newSchema,
             final SearchPathHelper searchPathHelper) {
         if (oldSchema == null) {
@@ -156,7 +160,7 @@ public class PgDiffViews {
                 continue;
             }
 
-            diffDefaultValues(writer, oldView, newView, searchPathHelper);
+            diffDefaultValues(plan, oldView, newView, searchPathHelper);
 
             if (oldView.getComment() == null
                     && newView.getComment() != null
@@ -164,21 +168,18 @@ public class PgDiffViews {
                     && newView.getComment() != null
                     && !oldView.getComment().equals(
                     newView.getComment())) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON VIEW ");
-                writer.print(
-                        PgDiffUtils.getQuotedName(newView.getName()));
-                writer.print(" IS ");
-                writer.print(newView.getComment());
-                writer.println(';');
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.COMMENT, newView,
+                        () -> "COMMENT ON VIEW "
+                        + PgDiffUtils.getQuotedName(newView.getName()) + " IS "
+                        + newView.getComment() + ';');
             } else if (oldView.getComment() != null
                     && newView.getComment() == null) {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("COMMENT ON VIEW ");
-                writer.print(PgDiffUtils.getQuotedName(newView.getName()));
-                writer.println(" IS NULL;");
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.COMMENT, newView,
+                        () -> "COMMENT ON VIEW "
+                        + PgDiffUtils.getQuotedName(newView.getName())
+                        + " IS NULL;");
             }
 
             final List<String> columnNames =
@@ -208,46 +209,42 @@ public class PgDiffViews {
                 if (oldComment == null && newComment != null
                         || oldComment != null && newComment != null
                         && !oldComment.equals(newComment)) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("COMMENT ON COLUMN ");
-                    writer.print(PgDiffUtils.getQuotedName(newView.getName()));
-                    writer.print('.');
-                    writer.print(PgDiffUtils.getQuotedName(newCol.getName()));
-                    writer.print(" IS ");
-                    writer.print(newCol.getComment());
-                    writer.println(';');
+                    searchPathHelper.outputSearchPath(plan);
+                    plan.add(DiffOperation.Kind.COMMENT, newCol,
+                            () -> "COMMENT ON COLUMN "
+                            + PgDiffUtils.getQuotedName(newView.getName()) + '.'
+                            + PgDiffUtils.getQuotedName(newCol.getName())
+                            + " IS " + newCol.getComment() + ';');
                 } else if (oldComment != null
                         && newComment == null) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("COMMENT ON COLUMN ");
-                    writer.print(PgDiffUtils.getQuotedName(newView.getName()));
-                    writer.print('.');
-                    writer.print(PgDiffUtils.getQuotedName(oldCol.getName()));
-                    writer.println(" IS NULL;");
+                    searchPathHelper.outputSearchPath(plan);
+                    plan.add(DiffOperation.Kind.COMMENT, oldCol,
+                            () -> "COMMENT ON COLUMN "
+                            + PgDiffUtils.getQuotedName(newView.getName()) + '.'
+                            + PgDiffUtils.getQuotedName(oldCol.getName())
+                            + " IS NULL;");
                 }
             }
             if (oldView.getOwnerTo() != null && !newView.getOwnerTo().equals(oldView.getOwnerTo())) {
-                writer.println();
-                writer.println("ALTER VIEW "
+                plan.add(DiffOperation.Kind.ALTER_OWNER, newView,
+                        () -> "ALTER VIEW "
                         + PgDiffUtils.getQuotedName(newView.getName())
                         + " OWNER TO " + newView.getOwnerTo() + ";");
             }
-            alterPrivileges(writer, oldView, newView, searchPathHelper);
-            alterPrivilegesColumns(writer, oldView, newView, searchPathHelper);
+            alterPrivileges(plan, oldView, newView, searchPathHelper);
+            alterPrivilegesColumns(plan, oldView, newView, searchPathHelper);
         }
     }
 
     /**
      * Diffs default values in views.
      *
-     * @param writer           writer
+     * @param plan             diff plan
      * @param oldView          old view
      * @param newView          new view
      * @param searchPathHelper search path helper
      */
-    private static void diffDefaultValues(final PrintWriter writer,
+    private static void diffDefaultValues(final DiffPlan plan,
             final PgView oldView, final PgView newView,
             final SearchPathHelper searchPathHelper) {
 
@@ -261,25 +258,22 @@ public class PgDiffViews {
             if (newCol != null && newCol.getDefaultValue() != null) {
                 if (!oldCol.getDefaultValue().equals(
                         newCol.getDefaultValue())) {
-                    searchPathHelper.outputSearchPath(writer);
-                    writer.println();
-                    writer.print("ALTER TABLE ");
-                    writer.print(
-                            PgDiffUtils.getQuotedName(newView.getName()));
-                    writer.print(" ALTER COLUMN ");
-                    writer.print(PgDiffUtils.getQuotedName(newCol.getName()));
-                    writer.print(" SET DEFAULT ");
-                    writer.print(newCol.getDefaultValue());
-                    writer.println(';');
+                    searchPathHelper.outputSearchPath(plan);
+                    plan.add(DiffOperation.Kind.ALTER_COLUMN_DEFAULT, newCol,
+                            () -> "ALTER TABLE "
+                            + PgDiffUtils.getQuotedName(newView.getName())
+                            + " ALTER COLUMN "
+                            + PgDiffUtils.getQuotedName(newCol.getName())
+                            + " SET DEFAULT " + newCol.getDefaultValue() + ';');
                 }
             } else {
-                searchPathHelper.outputSearchPath(writer);
-                writer.println();
-                writer.print("ALTER TABLE ");
-                writer.print(PgDiffUtils.getQuotedName(newView.getName()));
-                writer.print(" ALTER COLUMN ");
-                writer.print(PgDiffUtils.getQuotedName(oldCol.getName()));
-                writer.println(" DROP DEFAULT;");
+                searchPathHelper.outputSearchPath(plan);
+                plan.add(DiffOperation.Kind.ALTER_COLUMN_DEFAULT, oldCol,
+                        () -> "ALTER TABLE "
+                        + PgDiffUtils.getQuotedName(newView.getName())
+                        + " ALTER COLUMN "
+                        + PgDiffUtils.getQuotedName(oldCol.getName())
+                        + " DROP DEFAULT;");
             }
         }
 
@@ -292,19 +286,17 @@ public class PgDiffViews {
                 continue;
             }
 
-            searchPathHelper.outputSearchPath(writer);
-            writer.println();
-            writer.print("ALTER TABLE ");
-            writer.print(PgDiffUtils.getQuotedName(newView.getName()));
-            writer.print(" ALTER COLUMN ");
-            writer.print(PgDiffUtils.getQuotedName(newCol.getName()));
-            writer.print(" SET DEFAULT ");
-            writer.print(newCol.getDefaultValue());
-            writer.println(';');
+            searchPathHelper.outputSearchPath(plan);
+            plan.add(DiffOperation.Kind.ALTER_COLUMN_DEFAULT, newCol,
+                    () -> "ALTER TABLE "
+                    + PgDiffUtils.getQuotedName(newView.getName())
+                    + " ALTER COLUMN "
+                    + PgDiffUtils.getQuotedName(newCol.getName())
+                    + " SET DEFAULT " + newCol.getDefaultValue() + ';');
         }
     }
 
-    private static void alterPrivileges(final PrintWriter writer,
+    private static void alterPrivileges(final DiffPlan plan,
             final PgView oldView, final PgView newView,
             final SearchPathHelper searchPathHelper) {
         boolean emptyLinePrinted = false;
@@ -312,21 +304,20 @@ public class PgDiffViews {
             PgRelationPrivilege newViewPrivilege = newView
                     .getPrivilege(oldViewPrivilege.getRoleName());
             if (newViewPrivilege == null) {
-                if (!emptyLinePrinted) {
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON TABLE "
+                plan.add(DiffOperation.Kind.REVOKE_PRIVILEGE, oldView,
+                        () -> "REVOKE ALL ON TABLE "
                         + PgDiffUtils.getQuotedName(oldView.getName())
-                        + " FROM " + oldViewPrivilege.getRoleName() + ";");
+                        + " FROM " + oldViewPrivilege.getRoleName()
+                        + ";", !emptyLinePrinted);
             } else if (!oldViewPrivilege.isSimilar(newViewPrivilege)) {
-                if (!emptyLinePrinted) {
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON TABLE "
+                plan.add(DiffOperation.Kind.REVOKE_PRIVILEGE, newView,
+                        () -> "REVOKE ALL ON TABLE "
                         + PgDiffUtils.getQuotedName(newView.getName())
-                        + " FROM " + newViewPrivilege.getRoleName() + ";");
+                        + " FROM " + newViewPrivilege.getRoleName()
+                        + ";", !emptyLinePrinted);
                 if (!"".equals(newViewPrivilege.getPrivilegesSQL(true))) {
-                    writer.println("GRANT "
+                    plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE, newView,
+                            () -> "GRANT "
                             + newViewPrivilege.getPrivilegesSQL(true)
                             + " ON TABLE "
                             + PgDiffUtils.getQuotedName(newView.getName())
@@ -334,7 +325,8 @@ public class PgDiffViews {
                             + " WITH GRANT OPTION;");
                 }
                 if (!"".equals(newViewPrivilege.getPrivilegesSQL(false))) {
-                    writer.println("GRANT "
+                    plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE, newView,
+                            () -> "GRANT "
                             + newViewPrivilege.getPrivilegesSQL(false)
                             + " ON TABLE "
                             + PgDiffUtils.getQuotedName(newView.getName())
@@ -346,14 +338,14 @@ public class PgDiffViews {
             PgRelationPrivilege oldViewPrivilege = oldView
                     .getPrivilege(newViewPrivilege.getRoleName());
             if (oldViewPrivilege == null) {
-                if (!emptyLinePrinted) {
-                    writer.println();
-                }
-                writer.println("REVOKE ALL ON TABLE "
+                plan.add(DiffOperation.Kind.REVOKE_PRIVILEGE, newView,
+                        () -> "REVOKE ALL ON TABLE "
                         + PgDiffUtils.getQuotedName(newView.getName())
-                        + " FROM " + newViewPrivilege.getRoleName() + ";");
+                        + " FROM " + newViewPrivilege.getRoleName()
+                        + ";", !emptyLinePrinted);
                 if (!"".equals(newViewPrivilege.getPrivilegesSQL(true))) {
-                    writer.println("GRANT "
+                    plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE, newView,
+                            () -> "GRANT "
                             + newViewPrivilege.getPrivilegesSQL(true)
                             + " ON TABLE "
                             + PgDiffUtils.getQuotedName(newView.getName())
@@ -361,7 +353,8 @@ public class PgDiffViews {
                             + " WITH GRANT OPTION;");
                 }
                 if (!"".equals(newViewPrivilege.getPrivilegesSQL(false))) {
-                    writer.println("GRANT "
+                    plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE, newView,
+                            () -> "GRANT "
                             + newViewPrivilege.getPrivilegesSQL(false)
                             + " ON TABLE "
                             + PgDiffUtils.getQuotedName(newView.getName())
@@ -371,7 +364,7 @@ public class PgDiffViews {
         }
     }
 
-    private static void alterPrivilegesColumns(final PrintWriter writer,
+    private static void alterPrivilegesColumns(final DiffPlan plan,
             final PgView oldView, final PgView newView,
             final SearchPathHelper searchPathHelper) {
         boolean emptyLinePrinted = false;
@@ -384,16 +377,14 @@ public class PgDiffViews {
                     PgColumnPrivilege newColumnPrivilege = newColumn
                             .getPrivilege(oldColumnPrivilege.getRoleName());
                     if (newColumnPrivilege == null) {
-                        if (!emptyLinePrinted) {
-                            emptyLinePrinted = true;
-                            writer.println();
-                        }
-                        writer.println("REVOKE ALL ("
+                        plan.add(DiffOperation.Kind.REVOKE_PRIVILEGE, newColumn,
+                                () -> "REVOKE ALL ("
                                 + PgDiffUtils.getQuotedName(newColumn.getName())
                                 + ") ON TABLE "
                                 + PgDiffUtils.getQuotedName(newView.getName())
                                 + " FROM " + oldColumnPrivilege.getRoleName()
-                                + ";");
+                                + ";", !emptyLinePrinted);
+                        emptyLinePrinted = true;
                     }
                 }
             }
@@ -406,41 +397,39 @@ public class PgDiffViews {
                                 .getPrivilege(newColumnPrivilege.getRoleName());
                     }
                     if (!newColumnPrivilege.isSimilar(oldColumnPrivilege)) {
-                        if (!emptyLinePrinted) {
-                            emptyLinePrinted = true;
-                            writer.println();
-                        }
-                        writer.println("REVOKE ALL ("
+                        plan.add(DiffOperation.Kind.REVOKE_PRIVILEGE, newColumn,
+                                () -> "REVOKE ALL ("
                                 + PgDiffUtils.getQuotedName(newColumn.getName())
                                 + ") ON TABLE "
                                 + PgDiffUtils.getQuotedName(newView.getName())
                                 + " FROM " + newColumnPrivilege.getRoleName()
-                                + ";");
+                                + ";", !emptyLinePrinted);
+                        emptyLinePrinted = true;
                         if (!"".equals(newColumnPrivilege.getPrivilegesSQL(
                                 true,
                                 PgDiffUtils.getQuotedName(newColumn.getName())))) {
-                            writer.println("GRANT "
+                            plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE,
+                                    newColumn, () -> "GRANT "
                                     + newColumnPrivilege.getPrivilegesSQL(true,
-                                            PgDiffUtils.getQuotedName(newColumn
-                                                    .getName()))
+                                            PgDiffUtils.getQuotedName(newColumn.getName()))
                                     + " ON TABLE "
-                                    + PgDiffUtils.getQuotedName(newView
-                                            .getName()) + " TO "
-                                    + newColumnPrivilege.getRoleName()
+                                    + PgDiffUtils.getQuotedName(
+                                            newView.getName())
+                                    + " TO " + newColumnPrivilege.getRoleName()
                                     + " WITH GRANT OPTION;");
                         }
                         if (!"".equals(newColumnPrivilege.getPrivilegesSQL(
                                 false,
                                 PgDiffUtils.getQuotedName(newColumn.getName())))) {
-                            writer.println("GRANT "
-                                    + newColumnPrivilege.getPrivilegesSQL(
-                                            false, PgDiffUtils
-                                                    .getQuotedName(newColumn
-                                                            .getName()))
+                            plan.addLine(DiffOperation.Kind.GRANT_PRIVILEGE,
+                                    newColumn, () -> "GRANT "
+                                    + newColumnPrivilege.getPrivilegesSQL(false,
+                                            PgDiffUtils.getQuotedName(newColumn.getName()))
                                     + " ON TABLE "
-                                    + PgDiffUtils.getQuotedName(newView
-                                            .getName()) + " TO "
-                                    + newColumnPrivilege.getRoleName() + ";");
+                                    + PgDiffUtils.getQuotedName(
+                                            newView.getName())
+                                    + " TO " + newColumnPrivilege.getRoleName()
+                                    + ";");
                         }
 
                     }
@@ -3,8 +3,6 @@
  */
 package cz.startnet.utils.pgdiff;
 
-import java.io.PrintWriter;
-
 /**
  * Helps to output search path only if it was not output yet.
  *
@@ -31,14 +29,14 @@ public class SearchPathHelper {
     }
 
     /**
-     * Outputs search path if it was not output yet.
+     * Adds search path to the plan if it was not added yet.
      *
-     * @param writer writer
+     * @param plan diff plan
      */
-    public void outputSearchPath(final PrintWriter writer) {
+    public void outputSearchPath(final DiffPlan plan) {
         if (!wasOutput && searchPath != null && !searchPath.isEmpty()) {
-            writer.println();
-            writer.println(searchPath);
+            plan.add(DiffOperation.Kind.SET_SEARCH_PATH, null,
+                    () -> searchPath);
             wasOutput = true;
         }
     }
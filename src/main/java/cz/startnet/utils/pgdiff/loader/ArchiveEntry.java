@@ -0,0 +1,151 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+/**
+ * Entry of table of contents of pg_dump archive.
+ *
+ * @author fordfrog
+ */
+class ArchiveEntry {
+
+    /**
+     * Section containing table data.
+     */
+    static final int SECTION_DATA = 3;
+    /**
+     * Section is not known, archives older than 1.11.
+     */
+    static final int SECTION_UNKNOWN = 0;
+    /**
+     * Description of the entry, i.e. type of the object.
+     */
+    private final String desc;
+    /**
+     * Section of the entry.
+     */
+    private final int section;
+    /**
+     * Name of the object.
+     */
+    private final String tag;
+    /**
+     * Schema of the object.
+     */
+    private final String namespace;
+    /**
+     * Owner of the object.
+     */
+    private final String owner;
+    /**
+     * SQL creating the object.
+     */
+    private final String defn;
+    /**
+     * SQL dropping the object.
+     */
+    private final String dropStmt;
+
+    /**
+     * Creates new instance of ArchiveEntry.
+     *
+     * @param desc      {@link #desc}
+     * @param section   {@link #section}
+     * @param tag       {@link #tag}
+     * @param namespace {@link #namespace}
+     * @param owner     {@link #owner}
+     * @param defn      {@link #defn}
+     * @param dropStmt  {@link #dropStmt}
+     */
+    ArchiveEntry(final String desc, final int section, final String tag,
+            final String namespace, final String owner, final String defn,
+            final String dropStmt) {
+        this.desc = desc;
+        this.section = section;
+        this.tag = tag;
+        this.namespace = namespace;
+        this.owner = owner;
+        this.defn = defn;
+        this.dropStmt = dropStmt;
+    }
+
+    /**
+     * Getter for {@link #desc}.
+     *
+     * @return {@link #desc}
+     */
+    String getDesc() {
+        return desc;
+    }
+
+    /**
+     * Getter for {@link #section}.
+     *
+     * @return {@link #section}
+     */
+    int getSection() {
+        return section;
+    }
+
+    /**
+     * Getter for {@link #tag}.
+     *
+     * @return {@link #tag}
+     */
+    String getTag() {
+        return tag;
+    }
+
+    /**
+     * Getter for {@link #namespace}.
+     *
+     * @return {@link #namespace}
+     */
+    String getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * Getter for {@link #owner}.
+     *
+     * @return {@link #owner}
+     */
+    String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Getter for {@link #defn}.
+     *
+     * @return {@link #defn}
+     */
+    String getDefn() {
+        return defn;
+    }
+
+    /**
+     * Getter for {@link #dropStmt}.
+     *
+     * @return {@link #dropStmt}
+     */
+    String getDropStmt() {
+        return dropStmt;
+    }
+
+    /**
+     * Checks whether the entry contains table data rather than schema.
+     *
+     * @return true if the entry contains data, otherwise false
+     */
+    boolean isData() {
+        if (section != SECTION_UNKNOWN) {
+            return section == SECTION_DATA;
+        }
+
+        return "TABLE DATA".equals(desc) || "BLOBS".equals(desc)
+                || "SEQUENCE SET".equals(desc);
+    }
+}
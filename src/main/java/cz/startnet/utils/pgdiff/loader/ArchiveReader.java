@@ -0,0 +1,482 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import cz.startnet.utils.pgdiff.PgDiffUtils;
+import cz.startnet.utils.pgdiff.Resources;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Reads header and table of contents of pg_dump archive, either custom format
+ * archive or toc.dat file of directory format archive. Only the table of
+ * contents is read, table data blocks or files are never touched. The
+ * schema is then rendered as SQL in the same way as pg_restore --schema-only
+ * does it.
+ *
+ * @author fordfrog
+ */
+final class ArchiveReader {
+
+    /**
+     * Oldest supported archive version, 1.7.
+     */
+    private static final int VERSION_1_7 = makeVersion(1, 7, 0);
+    /**
+     * Archive version 1.8, catalog ids are stored with table oid.
+     */
+    private static final int VERSION_1_8 = makeVersion(1, 8, 0);
+    /**
+     * Archive version 1.9, entries contain WITH OIDS flag.
+     */
+    private static final int VERSION_1_9 = makeVersion(1, 9, 0);
+    /**
+     * Archive version 1.10, entries contain tablespace and header contains
+     * server and pg_dump versions.
+     */
+    private static final int VERSION_1_10 = makeVersion(1, 10, 0);
+    /**
+     * Archive version 1.11, entries contain section.
+     */
+    private static final int VERSION_1_11 = makeVersion(1, 11, 0);
+    /**
+     * Archive version 1.14, entries contain table access method.
+     */
+    private static final int VERSION_1_14 = makeVersion(1, 14, 0);
+    /**
+     * Archive version 1.15, header contains compression algorithm.
+     */
+    private static final int VERSION_1_15 = makeVersion(1, 15, 0);
+    /**
+     * Newest supported archive version, 1.16, entries contain relkind.
+     */
+    private static final int VERSION_1_16 = makeVersion(1, 16, 0);
+    /**
+     * Custom archive format, pg_dump -Fc.
+     */
+    private static final int FORMAT_CUSTOM = 1;
+    /**
+     * Directory archive format, pg_dump -Fd.
+     */
+    private static final int FORMAT_DIRECTORY = 5;
+    /**
+     * Object types that pg_restore changes owner of using schema qualified
+     * name.
+     */
+    private static final List<String> QUALIFIED_OWNER_TYPES = Arrays.asList(
+            "COLLATION", "CONVERSION", "DOMAIN", "FOREIGN TABLE",
+            "MATERIALIZED VIEW", "SEQUENCE", "STATISTICS", "TABLE",
+            "TEXT SEARCH DICTIONARY", "TEXT SEARCH CONFIGURATION", "TYPE",
+            "VIEW");
+    /**
+     * Object types that pg_restore changes owner of using name with
+     * arguments.
+     */
+    private static final List<String> FUNCTION_OWNER_TYPES =
+            Arrays.asList("AGGREGATE", "FUNCTION", "PROCEDURE");
+    /**
+     * Pattern of identifiers that do not need to be quoted unless they are
+     * keywords.
+     */
+    private static final Pattern PATTERN_SIMPLE_IDENTIFIER =
+            Pattern.compile("[a-z_][a-z0-9_$]*");
+    /**
+     * Archive input.
+     */
+    private final DataInputStream input;
+    /**
+     * Charset of strings in the archive.
+     */
+    private final Charset charset;
+    /**
+     * Archive version.
+     */
+    private int version;
+    /**
+     * Size of integers in the archive.
+     */
+    private int intSize;
+    /**
+     * Size of file offsets in the archive.
+     */
+    private int offSize;
+    /**
+     * Archive format.
+     */
+    private int format;
+
+    /**
+     * Creates new instance of ArchiveReader.
+     *
+     * @param inputStream input stream positioned at the beginning of the
+     *                    archive
+     * @param charset     {@link #charset}
+     */
+    ArchiveReader(final InputStream inputStream, final Charset charset) {
+        this.input = new DataInputStream(inputStream);
+        this.charset = charset;
+    }
+
+    /**
+     * Reads archive header and table of contents.
+     *
+     * @return entries of table of contents
+     */
+    List<ArchiveEntry> readToc() {
+        try {
+            readHeader();
+
+            final int count = readInt();
+            final List<ArchiveEntry> entries =
+                    new ArrayList<ArchiveEntry>(Math.max(count, 0));
+
+            for (int i = 0; i < count; i++) {
+                entries.add(readEntry());
+            }
+
+            return entries;
+        } catch (final EOFException ex) {
+            throw new FileException(
+                    Resources.getString("InvalidArchive"), ex);
+        } catch (final IOException ex) {
+            throw new FileException(
+                    Resources.getString("CannotReadFile"), ex);
+        }
+    }
+
+    /**
+     * Renders schema entries of table of contents as SQL. Each entry is
+     * rendered as separate chunk of SQL so the chunks can be parsed
+     * independently. Data entries are skipped.
+     *
+     * @param entries entries of table of contents
+     *
+     * @return SQL chunks in the order of the entries
+     */
+    static List<String> toSqlChunks(final List<ArchiveEntry> entries) {
+        final List<String> chunks = new ArrayList<String>(entries.size());
+        boolean hasSearchPath = false;
+
+        for (final ArchiveEntry entry : entries) {
+            if ("SEARCHPATH".equals(entry.getDesc())) {
+                hasSearchPath = true;
+
+                break;
+            }
+        }
+
+        String currentNamespace = null;
+
+        for (final ArchiveEntry entry : entries) {
+            if (entry.isData() || isEmpty(entry.getDefn())) {
+                continue;
+            }
+
+            final StringBuilder sbSQL = new StringBuilder(
+                    entry.getDefn().length() + 100);
+
+            // archives without search path entry expect search path to be
+            // set to schema of the object
+            if (!hasSearchPath && !isEmpty(entry.getNamespace())
+                    && !entry.getNamespace().equals(currentNamespace)) {
+                currentNamespace = entry.getNamespace();
+                sbSQL.append("SET search_path = ");
+                sbSQL.append(quoteIdentifier(currentNamespace));
+                sbSQL.append(", pg_catalog;\n\n");
+            }
+
+            sbSQL.append(entry.getDefn());
+            sbSQL.append("\n\n");
+
+            final String owner = getOwnerSQL(entry);
+
+            if (owner != null) {
+                sbSQL.append(owner);
+                sbSQL.append("\n\n");
+            }
+
+            chunks.add(sbSQL.toString());
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Returns ALTER ... OWNER TO statement that pg_restore outputs for the
+     * entry.
+     *
+     * @param entry archive entry
+     *
+     * @return ALTER ... OWNER TO statement or null if the entry has no owner
+     */
+    private static String getOwnerSQL(final ArchiveEntry entry) {
+        if (isEmpty(entry.getOwner()) || isEmpty(entry.getDropStmt())) {
+            return null;
+        }
+
+        final String name;
+
+        if (QUALIFIED_OWNER_TYPES.contains(entry.getDesc())) {
+            name = isEmpty(entry.getNamespace())
+                    ? quoteIdentifier(entry.getTag())
+                    : quoteIdentifier(entry.getNamespace()) + '.'
+                    + quoteIdentifier(entry.getTag());
+        } else if (FUNCTION_OWNER_TYPES.contains(entry.getDesc())) {
+            name = isEmpty(entry.getNamespace()) ? entry.getTag()
+                    : quoteIdentifier(entry.getNamespace()) + '.'
+                    + entry.getTag();
+        } else if ("SCHEMA".equals(entry.getDesc())) {
+            name = quoteIdentifier(entry.getTag());
+        } else {
+            return null;
+        }
+
+        return "ALTER " + entry.getDesc() + ' ' + name + " OWNER TO "
+                + quoteIdentifier(entry.getOwner()) + ';';
+    }
+
+    /**
+     * Reads archive header.
+     *
+     * @throws IOException Thrown if problem occurred while reading the
+     *                     archive.
+     */
+    private void readHeader() throws IOException {
+        final byte[] magic = new byte[DumpFormat.MAGIC.length];
+        input.readFully(magic);
+
+        if (!Arrays.equals(magic, DumpFormat.MAGIC)) {
+            throw new FileException(Resources.getString("InvalidArchive"));
+        }
+
+        final int major = input.readUnsignedByte();
+        final int minor = input.readUnsignedByte();
+        final int revision = input.readUnsignedByte();
+        version = makeVersion(major, minor, revision);
+
+        if (version < VERSION_1_7 || version >= makeVersion(1, 17, 0)) {
+            throw new FileException(MessageFormat.format(
+                    Resources.getString("UnsupportedArchiveVersion"),
+                    major + "." + minor + "." + revision));
+        }
+
+        intSize = input.readUnsignedByte();
+        offSize = input.readUnsignedByte();
+        format = input.readUnsignedByte();
+
+        if (format != FORMAT_CUSTOM && format != FORMAT_DIRECTORY) {
+            throw new FileException(MessageFormat.format(
+                    Resources.getString("UnsupportedArchiveFormat"),
+                    format));
+        }
+
+        if (version >= VERSION_1_15) {
+            input.readUnsignedByte();
+        } else {
+            readInt();
+        }
+
+        // creation date
+        for (int i = 0; i < 7; i++) {
+            readInt();
+        }
+
+        // database name
+        readString();
+
+        if (version >= VERSION_1_10) {
+            // server version and pg_dump version
+            readString();
+            readString();
+        }
+    }
+
+    /**
+     * Reads single entry of table of contents.
+     *
+     * @return archive entry
+     *
+     * @throws IOException Thrown if problem occurred while reading the
+     *                     archive.
+     */
+    private ArchiveEntry readEntry() throws IOException {
+        // dump id and whether the entry has data
+        readInt();
+        readInt();
+
+        if (version >= VERSION_1_8) {
+            // table oid
+            readString();
+        }
+
+        // oid
+        readString();
+
+        final String tag = readString();
+        final String desc = readString();
+        final int section = version >= VERSION_1_11
+                ? readInt() : ArchiveEntry.SECTION_UNKNOWN;
+        final String defn = readString();
+        final String dropStmt = readString();
+        // copy statement
+        readString();
+
+        final String namespace = readString();
+
+        if (version >= VERSION_1_10) {
+            // tablespace
+            readString();
+        }
+
+        if (version >= VERSION_1_14) {
+            // table access method
+            readString();
+        }
+
+        if (version >= VERSION_1_16) {
+            // relkind
+            readInt();
+        }
+
+        final String owner = readString();
+
+        if (version >= VERSION_1_9) {
+            // WITH OIDS
+            readString();
+        }
+
+        // dependencies are terminated by null
+        while (readString() != null) {
+        }
+
+        readExtraToc();
+
+        return new ArchiveEntry(desc, section, tag, namespace, owner, defn,
+                dropStmt);
+    }
+
+    /**
+     * Reads format specific part of table of contents entry.
+     *
+     * @throws IOException Thrown if problem occurred while reading the
+     *                     archive.
+     */
+    private void readExtraToc() throws IOException {
+        switch (format) {
+            case FORMAT_CUSTOM:
+                // offset flag and offset of data block
+                input.readUnsignedByte();
+
+                for (int i = 0; i < offSize; i++) {
+                    input.readUnsignedByte();
+                }
+
+                break;
+            case FORMAT_DIRECTORY:
+                // name of data file
+                readString();
+
+                break;
+            default:
+                throw new FileException(MessageFormat.format(
+                        Resources.getString("UnsupportedArchiveFormat"),
+                        format));
+        }
+    }
+
+    /**
+     * Reads integer stored as sign byte followed by {@link #intSize} bytes in
+     * little endian order.
+     *
+     * @return integer
+     *
+     * @throws IOException Thrown if problem occurred while reading the
+     *                     archive.
+     */
+    private int readInt() throws IOException {
+        final boolean negative = input.readUnsignedByte() != 0;
+        int result = 0;
+
+        for (int i = 0; i < intSize; i++) {
+            final int b = input.readUnsignedByte();
+
+            if (i < 4) {
+                result |= b << (i * 8);
+            }
+        }
+
+        return negative ? -result : result;
+    }
+
+    /**
+     * Reads string stored as its length followed by its bytes.
+     *
+     * @return string or null if null string was stored
+     *
+     * @throws IOException Thrown if problem occurred while reading the
+     *                     archive.
+     */
+    private String readString() throws IOException {
+        final int length = readInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Quotes identifier the same way as pg_dump does.
+     *
+     * @param name identifier
+     *
+     * @return quoted identifier if needed, otherwise the identifier
+     */
+    private static String quoteIdentifier(final String name) {
+        if (PATTERN_SIMPLE_IDENTIFIER.matcher(name).matches()) {
+            return PgDiffUtils.getQuotedName(name);
+        }
+
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Checks whether the string is null or empty.
+     *
+     * @param string string
+     *
+     * @return true if the string is null or empty, otherwise false
+     */
+    private static boolean isEmpty(final String string) {
+        return string == null || string.isEmpty();
+    }
+
+    /**
+     * Creates archive version number.
+     *
+     * @param major    major version
+     * @param minor    minor version
+     * @param revision revision
+     *
+     * @return version number
+     */
+    private static int makeVersion(final int major, final int minor,
+            final int revision) {
+        return (major * 256 + minor) * 256 + revision;
+    }
+}
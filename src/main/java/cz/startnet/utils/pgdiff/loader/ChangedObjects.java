@@ -0,0 +1,601 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import cz.startnet.utils.pgdiff.Pair;
+import cz.startnet.utils.pgdiff.parsers.Parser;
+import cz.startnet.utils.pgdiff.parsers.ParserUtils;
+import cz.startnet.utils.pgdiff.parsers.TokenizedStatement;
+import cz.startnet.utils.pgdiff.schema.Fingerprint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Selects statements of two dumps that have to be parsed to create diff of the
+ * dumps. Using only the leading tokens, every statement is assigned to group of
+ * the relation or function it belongs to. Groups whose statements are the same
+ * in both dumps cannot produce any difference, so their statements are not
+ * selected from either dump. Relations that are needed while other relation is
+ * parsed, like inherited tables, are put into the same group. Statements that
+ * do not belong to any relation or function are always selected.
+ *
+ * @author fordfrog
+ */
+final class ChangedObjects {
+
+    /**
+     * Pattern for finding list of inherited tables.
+     */
+    private static final Pattern PATTERN_INHERITS = Pattern.compile(
+            "\\)\\s*INHERITS\\s*\\(", Pattern.CASE_INSENSITIVE);
+    /**
+     * Keyword id of ON keyword.
+     */
+    private static final int ON = TokenizedStatement.getKeywordId("ON");
+    /**
+     * Keyword id of TO keyword.
+     */
+    private static final int TO = TokenizedStatement.getKeywordId("TO");
+    /**
+     * Statements of the dump.
+     */
+    private final List<String> statements;
+    /**
+     * Types of the statements.
+     */
+    private final StatementType[] types;
+    /**
+     * Groups of the statements, null for statements that do not belong to
+     * any group.
+     */
+    private final String[] groups;
+    /**
+     * Default schemas at the statements.
+     */
+    private final String[] defaultSchemas;
+    /**
+     * Groups of relations mapped by qualified names of indexes and constraints
+     * of the relations.
+     */
+    private final Map<String, String> relationMembers =
+            new HashMap<String, String>();
+    /**
+     * Pairs of groups that must be selected together.
+     */
+    private final List<String[]> links = new ArrayList<String[]>();
+    /**
+     * Current default schema.
+     */
+    private String defaultSchema = "public";
+    /**
+     * Whether all statements were assigned to groups. If some statement
+     * refers to an object that cannot be determined, no statement can be
+     * skipped.
+     */
+    private boolean known = true;
+
+    /**
+     * Creates a new instance of ChangedObjects.
+     *
+     * @param statements {@link #statements}
+     */
+    private ChangedObjects(final List<String> statements) {
+        this.statements = statements;
+        types = new StatementType[statements.size()];
+        groups = new String[statements.size()];
+        defaultSchemas = new String[statements.size()];
+    }
+
+    /**
+     * Selects statements that have to be parsed to create diff of the dumps.
+     * If some statement of either dump cannot be assigned to group, all
+     * statements are selected.
+     *
+     * @param oldStatements statements of the original dump
+     * @param newStatements statements of the new dump
+     *
+     * @return selected statements of the original and of the new dump, in the
+     *         original order
+     */
+    static Pair<List<String>, List<String>> select(
+            final List<String> oldStatements, final List<String> newStatements) {
+        final ChangedObjects oldObjects = new ChangedObjects(oldStatements);
+        final ChangedObjects newObjects = new ChangedObjects(newStatements);
+
+        if (!oldObjects.assignGroups() || !newObjects.assignGroups()) {
+            return new Pair<List<String>, List<String>>(
+                    oldStatements, newStatements);
+        }
+
+        final Map<String, String> roots = new HashMap<String, String>();
+        oldObjects.link(roots);
+        newObjects.link(roots);
+
+        final Map<String, Fingerprint> oldFingerprints =
+                oldObjects.getFingerprints(roots);
+        final Map<String, Fingerprint> newFingerprints =
+                newObjects.getFingerprints(roots);
+        final Set<String> unchanged = new HashSet<String>();
+
+        for (final Map.Entry<String, Fingerprint> entry
+                : oldFingerprints.entrySet()) {
+            if (Fingerprint.matches(entry.getValue(),
+                    newFingerprints.get(entry.getKey()))) {
+                unchanged.add(entry.getKey());
+            }
+        }
+
+        return new Pair<List<String>, List<String>>(
+                oldObjects.getStatements(roots, unchanged),
+                newObjects.getStatements(roots, unchanged));
+    }
+
+    /**
+     * Assigns groups to all statements.
+     *
+     * @return true if all statements were assigned, otherwise false
+     */
+    private boolean assignGroups() {
+        for (int i = 0; i < statements.size() && known; i++) {
+            final String statement = statements.get(i);
+            types[i] = StatementClassifier.classify(statement);
+
+            try {
+                groups[i] = getGroup(types[i], statement);
+            } catch (final RuntimeException ex) {
+                known = false;
+            }
+
+            defaultSchemas[i] = defaultSchema;
+        }
+
+        return known;
+    }
+
+    /**
+     * Returns group of the statement.
+     *
+     * @param type      type of the statement
+     * @param statement statement
+     *
+     * @return group of the statement or null if the statement does not belong
+     *         to any group
+     */
+    private String getGroup(final StatementType type, final String statement) {
+        final TokenizedStatement tokens = new TokenizedStatement(statement);
+        final Parser parser = new Parser(tokens);
+
+        switch (type) {
+            case SET_SEARCH_PATH:
+                final Matcher matcher = StatementClassifier
+                        .PATTERN_DEFAULT_SCHEMA.matcher(statement);
+                matcher.matches();
+                defaultSchema = matcher.group(1);
+
+                return null;
+            case CREATE_TABLE:
+                parser.expect("CREATE");
+                parser.expectOptional("UNLOGGED");
+                parser.expectOptional("FOREIGN");
+                parser.expect("TABLE");
+                parser.expectOptional("IF", "NOT", "EXISTS");
+
+                return getTableGroup(parser);
+            case CREATE_VIEW:
+                parser.expect("CREATE");
+                parser.expectOptional("OR", "REPLACE");
+                parser.expectOptional("MATERIALIZED");
+                parser.expect("VIEW");
+                parser.expectOptional("IF", "NOT", "EXISTS");
+
+                return getRelationGroup(parser.parseIdentifier());
+            case CREATE_SEQUENCE:
+                parser.expect("CREATE", "SEQUENCE");
+                parser.expectOptional("IF", "NOT", "EXISTS");
+
+                return getRelationGroup(parser.parseIdentifier());
+            case ALTER_TABLE:
+            case ALTER_VIEW:
+            case ALTER_SEQUENCE:
+            case DISABLE_TRIGGER:
+                return getAlterGroup(parser);
+            case CREATE_INDEX:
+                return getIndexGroup(parser);
+            case CREATE_TRIGGER:
+            case CREATE_POLICY:
+                return getRelationGroup(parseIdentifierAfter(parser, tokens, ON));
+            case CREATE_RULE:
+                return getRelationGroup(parseIdentifierAfter(parser, tokens, TO));
+            case CREATE_FUNCTION:
+            case CREATE_PROCEDURE:
+                parser.expect("CREATE");
+                parser.expectOptional("OR", "REPLACE");
+                parser.expectOptionalOneOf("FUNCTION", "PROCEDURE");
+
+                return getFunctionGroup(parser.parseIdentifier());
+            case COMMENT:
+                return getCommentGroup(parser);
+            case GRANT:
+            case REVOKE:
+                return getPrivilegeGroup(tokens, parser);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns group of CREATE TABLE statement and links the group with groups
+     * of inherited tables.
+     *
+     * @param parser parser positioned at the name of the table
+     *
+     * @return group of the table
+     */
+    private String getTableGroup(final Parser parser) {
+        final String group = getRelationGroup(parser.parseIdentifier());
+        final Matcher matcher = PATTERN_INHERITS.matcher(parser.getString());
+
+        while (matcher.find()) {
+            parser.setPosition(matcher.end());
+            parser.skipWhitespace();
+
+            do {
+                links.add(new String[]{group,
+                    getRelationGroup(parser.parseIdentifier())});
+            } while (parser.expectOptional(","));
+        }
+
+        return group;
+    }
+
+    /**
+     * Returns group of ALTER TABLE, ALTER VIEW and ALTER SEQUENCE statement.
+     * Name of added constraint is remembered, so that comment on the
+     * constraint can be assigned to the group of the relation.
+     *
+     * @param parser parser
+     *
+     * @return group of the relation
+     */
+    private String getAlterGroup(final Parser parser) {
+        parser.expect("ALTER");
+        parser.expectOptional("MATERIALIZED");
+        parser.expectOptionalOneOf("TABLE", "VIEW", "SEQUENCE");
+        parser.expectOptional("IF", "EXISTS");
+        parser.expectOptional("ONLY");
+
+        final String relationName = parser.parseIdentifier();
+        final String group = getRelationGroup(relationName);
+
+        if (parser.expectOptional("ADD", "CONSTRAINT")) {
+            relationMembers.put(qualify(getSchemaName(relationName),
+                    parser.parseObjectName()), group);
+        }
+
+        return group;
+    }
+
+    /**
+     * Returns group of CREATE INDEX statement. Name of the index is
+     * remembered, so that comment on the index can be assigned to the group
+     * of the relation.
+     *
+     * @param parser parser
+     *
+     * @return group of the indexed relation
+     */
+    private String getIndexGroup(final Parser parser) {
+        parser.expect("CREATE");
+        parser.expectOptional("UNIQUE");
+        parser.expect("INDEX");
+        parser.expectOptional("CONCURRENTLY");
+        parser.expectOptional("IF", "NOT", "EXISTS");
+
+        final String indexName = parser.parseObjectName();
+        parser.expect("ON");
+        parser.expectOptional("ONLY");
+
+        final String relationName = parser.parseIdentifier();
+        final String group = getRelationGroup(relationName);
+        relationMembers.put(
+                qualify(getSchemaName(relationName), indexName), group);
+
+        return group;
+    }
+
+    /**
+     * Returns group of COMMENT statement.
+     *
+     * @param parser parser
+     *
+     * @return group of the commented object or null if the object does not
+     *         belong to any group
+     */
+    private String getCommentGroup(final Parser parser) {
+        parser.expect("COMMENT", "ON");
+
+        if (parser.expectOptional("MATERIALIZED", "VIEW")
+                || parser.expectOptionalOneOf("TABLE", "VIEW", "SEQUENCE")
+                != null) {
+            return getRelationGroup(parser.parseIdentifier());
+        } else if (parser.expectOptional("COLUMN")) {
+            final String columnName = parser.parseIdentifier();
+            final String schemaName =
+                    ParserUtils.getThirdObjectName(columnName);
+
+            return "TABLE " + qualify(
+                    schemaName == null ? defaultSchema : schemaName,
+                    ParserUtils.getSecondObjectName(columnName));
+        } else if (parser.expectOptionalOneOf("CONSTRAINT", "TRIGGER")
+                != null) {
+            parser.skipIdentifier();
+            parser.expect("ON");
+
+            return getRelationGroup(parser.parseIdentifier());
+        } else if (parser.expectOptional("FUNCTION")) {
+            return getFunctionGroup(parser.parseIdentifier());
+        } else if (parser.expectOptional("INDEX")) {
+            final String indexName = parser.parseIdentifier();
+            final String group = relationMembers.get(qualify(
+                    getSchemaName(indexName),
+                    ParserUtils.getObjectName(indexName)));
+            known &= group != null;
+
+            return group;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns group of GRANT or REVOKE statement. Only privileges on tables
+     * and sequences are loaded, other privileges do not belong to any group.
+     * All relations of the statement are linked together.
+     *
+     * @param tokens tokens of the statement
+     * @param parser parser
+     *
+     * @return group of the first relation of the statement or null if the
+     *         statement does not belong to any group
+     */
+    private String getPrivilegeGroup(final TokenizedStatement tokens,
+            final Parser parser) {
+        final int on = findKeyword(tokens, ON);
+
+        if (on == -1) {
+            return null;
+        }
+
+        parser.setPosition(on);
+        parser.skipWhitespace();
+
+        final String objectType = parser.expectOptionalOneOf("TABLE",
+                "ALL TABLES IN SCHEMA", "SEQUENCE", "ALL SEQUENCES IN SCHEMA",
+                "DATABASE", "DOMAIN", "FOREIGN DATA WRAPPER", "FOREIGN SERVER",
+                "FUNCTION", "ALL FUNCTIONS IN SCHEMA", "LANGUAGE",
+                "LARGE OBJECT", "SCHEMA", "TABLESPACE", "TYPE");
+
+        if (objectType != null && !"TABLE".equalsIgnoreCase(objectType)
+                && !"SEQUENCE".equalsIgnoreCase(objectType)) {
+            return null;
+        }
+
+        final String group = getRelationGroup(parser.parseIdentifier());
+
+        while (parser.expectOptional(",")) {
+            links.add(new String[]{group,
+                getRelationGroup(parser.parseIdentifier())});
+        }
+
+        return group;
+    }
+
+    /**
+     * Parses identifier following the first occurrence of the keyword.
+     *
+     * @param parser    parser
+     * @param tokens    tokens of the statement
+     * @param keywordId id of the keyword
+     *
+     * @return parsed identifier
+     */
+    private static String parseIdentifierAfter(final Parser parser,
+            final TokenizedStatement tokens, final int keywordId) {
+        final int position = findKeyword(tokens, keywordId);
+
+        if (position == -1) {
+            parser.throwUnsupportedCommand();
+        }
+
+        parser.setPosition(position);
+        parser.skipWhitespace();
+
+        return parser.parseIdentifier();
+    }
+
+    /**
+     * Finds the first occurrence of the keyword in the statement.
+     *
+     * @param tokens    tokens of the statement
+     * @param keywordId id of the keyword
+     *
+     * @return position following the keyword or -1 if the keyword was not
+     *         found
+     */
+    private static int findKeyword(final TokenizedStatement tokens,
+            final int keywordId) {
+        for (int token = tokens.findToken(0); token != -1;
+                token = tokens.nextToken(token)) {
+            if (tokens.getKeywordId(token) == keywordId) {
+                return tokens.getEnd(token);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns group of relation.
+     *
+     * @param name optionally schema qualified name of the relation
+     *
+     * @return group of the relation
+     */
+    private String getRelationGroup(final String name) {
+        return "TABLE " + qualify(getSchemaName(name),
+                ParserUtils.getObjectName(name));
+    }
+
+    /**
+     * Returns group of function or procedure. All overloaded functions belong
+     * to the same group.
+     *
+     * @param name optionally schema qualified name of the function
+     *
+     * @return group of the function
+     */
+    private String getFunctionGroup(final String name) {
+        return "FUNCTION " + qualify(getSchemaName(name),
+                ParserUtils.getObjectName(name));
+    }
+
+    /**
+     * Returns schema name from optionally schema qualified name.
+     *
+     * @param name optionally schema qualified name
+     *
+     * @return name of the schema
+     */
+    private String getSchemaName(final String name) {
+        return name.indexOf('.') == -1
+                ? defaultSchema : ParserUtils.getSecondObjectName(name);
+    }
+
+    /**
+     * Returns qualified name.
+     *
+     * @param schemaName schema name
+     * @param objectName object name
+     *
+     * @return qualified name
+     */
+    private static String qualify(final String schemaName,
+            final String objectName) {
+        return schemaName + '.' + objectName;
+    }
+
+    /**
+     * Merges linked groups. Groups are merged using union find, every group
+     * is mapped to its root group.
+     *
+     * @param roots root groups mapped by groups
+     */
+    private void link(final Map<String, String> roots) {
+        for (final String[] link : links) {
+            final String first = getRoot(roots, link[0]);
+            final String second = getRoot(roots, link[1]);
+
+            if (!first.equals(second)) {
+                roots.put(second, first);
+            }
+        }
+    }
+
+    /**
+     * Returns root group of the group.
+     *
+     * @param roots root groups mapped by groups
+     * @param group group
+     *
+     * @return root group
+     */
+    private static String getRoot(final Map<String, String> roots,
+            final String group) {
+        String root = group;
+        String parent = roots.get(root);
+
+        while (parent != null) {
+            root = parent;
+            parent = roots.get(root);
+        }
+
+        if (!root.equals(group)) {
+            roots.put(group, root);
+        }
+
+        return root;
+    }
+
+    /**
+     * Computes fingerprints of the statements of every root group.
+     *
+     * @param roots root groups mapped by groups
+     *
+     * @return fingerprints mapped by root groups
+     */
+    private Map<String, Fingerprint> getFingerprints(
+            final Map<String, String> roots) {
+        final Map<String, Fingerprint.Builder> builders =
+                new HashMap<String, Fingerprint.Builder>();
+
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] == null) {
+                continue;
+            }
+
+            final String root = getRoot(roots, groups[i]);
+            Fingerprint.Builder builder = builders.get(root);
+
+            if (builder == null) {
+                builder = new Fingerprint.Builder();
+                builders.put(root, builder);
+            }
+
+            builder.add(types[i].ordinal()).add(defaultSchemas[i])
+                    .add(statements.get(i));
+        }
+
+        final Map<String, Fingerprint> fingerprints =
+                new HashMap<String, Fingerprint>(builders.size());
+
+        for (final Map.Entry<String, Fingerprint.Builder> entry
+                : builders.entrySet()) {
+            fingerprints.put(entry.getKey(), entry.getValue().build());
+        }
+
+        return fingerprints;
+    }
+
+    /**
+     * Returns statements that do not belong to any group or that belong to
+     * changed group.
+     *
+     * @param roots     root groups mapped by groups
+     * @param unchanged root groups whose statements are the same in both
+     *                  dumps
+     *
+     * @return selected statements
+     */
+    private List<String> getStatements(final Map<String, String> roots,
+            final Set<String> unchanged) {
+        final List<String> selected = new ArrayList<String>();
+
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] == null
+                    || !unchanged.contains(getRoot(roots, groups[i]))) {
+                selected.add(statements.get(i));
+            }
+        }
+
+        return selected;
+    }
+}
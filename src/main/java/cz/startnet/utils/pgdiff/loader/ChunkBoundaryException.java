@@ -0,0 +1,32 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+/**
+ * Exception thrown if input of statement lexer ends inside statement or COPY
+ * data. If the input is chunk of split dump, the dump was split at wrong place
+ * and it should be loaded again without splitting. Otherwise the dump is
+ * truncated.
+ *
+ * @author fordfrog
+ */
+public class ChunkBoundaryException extends RuntimeException {
+
+    /**
+     * Serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an instance of {@code ChunkBoundaryException} with the
+     * specified detail message.
+     *
+     * @param msg the detail message
+     */
+    public ChunkBoundaryException(final String msg) {
+        super(msg);
+    }
+}
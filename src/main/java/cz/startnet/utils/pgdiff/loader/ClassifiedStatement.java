@@ -0,0 +1,70 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+/**
+ * Statement read from dump together with its type and, for statements that
+ * can be parsed without accessing the database, the parsed object.
+ *
+ * @author fordfrog
+ */
+class ClassifiedStatement {
+
+    /**
+     * Statement type.
+     */
+    private final StatementType type;
+    /**
+     * Whole trimmed statement.
+     */
+    private final String statement;
+    /**
+     * Object parsed from the statement or null if the statement must be
+     * parsed against the database.
+     */
+    private final Object parsed;
+
+    /**
+     * Creates new instance of ClassifiedStatement.
+     *
+     * @param type      {@link #type}
+     * @param statement {@link #statement}
+     * @param parsed    {@link #parsed}
+     */
+    ClassifiedStatement(final StatementType type, final String statement,
+            final Object parsed) {
+        this.type = type;
+        this.statement = statement;
+        this.parsed = parsed;
+    }
+
+    /**
+     * Getter for {@link #type}.
+     *
+     * @return {@link #type}
+     */
+    StatementType getType() {
+        return type;
+    }
+
+    /**
+     * Getter for {@link #statement}.
+     *
+     * @return {@link #statement}
+     */
+    String getStatement() {
+        return statement;
+    }
+
+    /**
+     * Getter for {@link #parsed}.
+     *
+     * @return {@link #parsed}
+     */
+    Object getParsed() {
+        return parsed;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Formats of dumps that can be loaded.
+ *
+ * @author fordfrog
+ */
+public enum DumpFormat {
+
+    /**
+     * Plain SQL dump.
+     */
+    PLAIN,
+    /**
+     * Custom format archive created by pg_dump -Fc.
+     */
+    CUSTOM,
+    /**
+     * Directory format archive created by pg_dump -Fd.
+     */
+    DIRECTORY;
+
+    /**
+     * Magic bytes at the beginning of pg_dump archives.
+     */
+    static final byte[] MAGIC = {'P', 'G', 'D', 'M', 'P'};
+    /**
+     * Name of table of contents file of directory format archive.
+     */
+    static final String TOC_FILE = "toc.dat";
+
+    /**
+     * Detects format of the dump file from its first bytes.
+     *
+     * @param file name of file containing the dump, name of directory
+     *             containing directory format archive, or "-" for standard
+     *             input
+     *
+     * @return detected format, {@link #PLAIN} for standard input or if the
+     *         file cannot be read
+     */
+    public static DumpFormat detect(final String file) {
+        if (file.equals("-")) {
+            return PLAIN;
+        } else if (new File(file).isDirectory()) {
+            return new File(file, TOC_FILE).isFile() ? DIRECTORY : PLAIN;
+        }
+
+        try (final InputStream inputStream = new FileInputStream(file)) {
+            return detect(inputStream);
+        } catch (final IOException ex) {
+            return PLAIN;
+        }
+    }
+
+    /**
+     * Detects format of the dump from its first bytes. Both custom format
+     * archive and toc.dat file of directory format archive are reported as
+     * {@link #CUSTOM}. If the stream supports mark, it is reset to its
+     * original position.
+     *
+     * @param inputStream input stream containing the dump
+     *
+     * @return detected format
+     *
+     * @throws IOException Thrown if problem occurred while reading the stream.
+     */
+    static DumpFormat detect(final InputStream inputStream)
+            throws IOException {
+        final byte[] magic = new byte[MAGIC.length];
+        int length = 0;
+
+        if (inputStream.markSupported()) {
+            inputStream.mark(MAGIC.length);
+        }
+
+        while (length < magic.length) {
+            final int count =
+                    inputStream.read(magic, length, magic.length - length);
+
+            if (count == -1) {
+                break;
+            }
+
+            length += count;
+        }
+
+        if (inputStream.markSupported()) {
+            inputStream.reset();
+        }
+
+        return Arrays.equals(magic, MAGIC) ? CUSTOM : PLAIN;
+    }
+}
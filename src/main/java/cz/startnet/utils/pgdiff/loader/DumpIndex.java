@@ -0,0 +1,751 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Index of statements of plain dump. For every statement the index contains
+ * its byte range in the dump, its type and the object it belongs to as stated
+ * in pg_dump object header comment. The index is stored in sidecar file next to
+ * the dump and it is rebuilt whenever size, modification time or checksum of
+ * the dump changes. The checksum is computed only from sampled blocks of the
+ * dump, so that opening valid index does not read whole dump. Changes outside
+ * of the sampled blocks are detected by checking that every indexed statement
+ * still ends with semicolon or with end of COPY data.
+ *
+ * @author fordfrog
+ */
+public final class DumpIndex {
+
+    /**
+     * Suffix of sidecar file name.
+     */
+    static final String SUFFIX = ".apgdiff-index";
+    /**
+     * Magic number and version of sidecar file.
+     */
+    private static final long MAGIC = 0x4150474449445833L;
+    /**
+     * Size of sampled block at the start and at the end of the dump.
+     */
+    private static final int EDGE_SAMPLE_SIZE = 65536;
+    /**
+     * Size of sampled block in the middle of the dump.
+     */
+    private static final int SAMPLE_SIZE = 4096;
+    /**
+     * Number of sampled blocks in the middle of the dump.
+     */
+    private static final int SAMPLES = 16;
+    /**
+     * Prefix of object header line.
+     */
+    private static final String NAME = "-- Name: ";
+    /**
+     * Prefix of table data header line.
+     */
+    private static final String DATA_NAME = "-- Data for Name: ";
+    /**
+     * Size of the dump.
+     */
+    private final long size;
+    /**
+     * Modification time of the dump in milliseconds.
+     */
+    private final long modified;
+    /**
+     * Checksum of sampled blocks of the dump.
+     */
+    private final long checksum;
+    /**
+     * Index entries in the order of statements in the dump.
+     */
+    private final List<Entry> entries;
+
+    /**
+     * Creates new instance of DumpIndex.
+     *
+     * @param size     {@link #size}
+     * @param modified {@link #modified}
+     * @param checksum {@link #checksum}
+     * @param entries  {@link #entries}
+     */
+    private DumpIndex(final long size, final long modified,
+            final long checksum, final List<Entry> entries) {
+        this.size = size;
+        this.modified = modified;
+        this.checksum = checksum;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Getter for {@link #entries}.
+     *
+     * @return {@link #entries}
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Creates lexers reading only the statements accepted by the filter.
+     * Statements setting search_path are always read as they affect the
+     * statements that follow them. Adjacent statements are read by the same
+     * lexer, up to the size of chunk that gives the requested number of
+     * chunks.
+     *
+     * @param buffer    bytes of the dump
+     * @param charset   charset of the dump
+     * @param filter    filter of entries that should be read
+     * @param maxChunks maximum number of chunks
+     *
+     * @return lexers reading the accepted statements
+     */
+    List<StatementLexer> split(final ByteBuffer buffer, final Charset charset,
+            final Predicate<Entry> filter, final int maxChunks) {
+        final List<Entry> selected = new ArrayList<Entry>(entries.size());
+        long selectedSize = 0;
+
+        for (final Entry entry : entries) {
+            if (entry.getStatementType() == StatementType.SET_SEARCH_PATH
+                    || filter.test(entry)) {
+                selected.add(entry);
+                selectedSize += entry.getLength();
+            }
+        }
+
+        final long chunkSize = Math.max(PlainDumpSplitter.MIN_CHUNK_SIZE,
+                selectedSize / Math.max(1, maxChunks));
+        final List<StatementLexer> chunks = new ArrayList<StatementLexer>();
+        int start = -1;
+        int end = -1;
+
+        for (final Entry entry : selected) {
+            if (start != -1 && (entry.getOffset() != end
+                    || end - start >= chunkSize)) {
+                chunks.add(new MappedStatementLexer(buffer, start, end,
+                        charset));
+                start = -1;
+            }
+
+            if (start == -1) {
+                start = entry.getOffset();
+            }
+
+            end = entry.getOffset() + entry.getLength();
+        }
+
+        if (start != -1) {
+            chunks.add(new MappedStatementLexer(buffer, start, end, charset));
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Reads statements accepted by the filter using the byte ranges of the
+     * index. Statements setting search_path are always read. Statement text is
+     * decoded directly from its range after the leading comments, without
+     * lexing it again. Data of COPY statements are not read at all, so COPY
+     * statements are returned without the count of skipped rows. Only
+     * statements that contain comments or carriage returns, and so might
+     * differ from what the lexer returns, are read by lexer.
+     *
+     * @param buffer  bytes of the dump
+     * @param charset charset of the dump
+     * @param filter  filter of entries that should be read
+     *
+     * @return statements in the order of the dump
+     */
+    List<String> readStatements(final ByteBuffer buffer, final Charset charset,
+            final Predicate<Entry> filter) {
+        final List<String> statements = new ArrayList<String>(entries.size());
+
+        for (final Entry entry : entries) {
+            if (entry.getStatementType() == StatementType.SET_SEARCH_PATH
+                    || filter.test(entry)) {
+                statements.add(readStatement(buffer, charset, entry));
+            }
+        }
+
+        return statements;
+    }
+
+    /**
+     * Reads statement of the entry.
+     *
+     * @param buffer  bytes of the dump
+     * @param charset charset of the dump
+     * @param entry   index entry
+     *
+     * @return statement
+     */
+    private static String readStatement(final ByteBuffer buffer,
+            final Charset charset, final Entry entry) {
+        final int entryEnd = entry.getOffset() + entry.getLength();
+        int start = entry.getOffset();
+
+        while (start < entryEnd) {
+            final byte b = buffer.get(start);
+
+            if (b == '-' && start + 1 < entryEnd
+                    && buffer.get(start + 1) == '-') {
+                while (start < entryEnd && buffer.get(start) != '\n') {
+                    start++;
+                }
+            } else if ((b & 0xFF) <= ' ') {
+                start++;
+            } else {
+                break;
+            }
+        }
+
+        int end = entryEnd;
+
+        if (entry.getStatementType() == StatementType.COPY) {
+            end = start;
+
+            while (end < entryEnd && buffer.get(end) != '\n') {
+                end++;
+            }
+
+            while (end > start && buffer.get(end - 1) != ';') {
+                end--;
+            }
+        }
+
+        final byte[] bytes = new byte[end - start];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+
+        if (!isVerbatim(bytes)) {
+            return new MappedStatementLexer(buffer, entry.getOffset(),
+                    entryEnd, charset).nextStatement();
+        }
+
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Checks whether the lexer would return the statement bytes unchanged.
+     * That is true if the statement is not empty and contains no comment
+     * start and no carriage return, and if lines are joined using line feed.
+     *
+     * @param bytes bytes of the statement without leading comments
+     *
+     * @return true if the bytes can be decoded directly, otherwise false
+     */
+    private static boolean isVerbatim(final byte[] bytes) {
+        if (bytes.length == 0
+                || !"\n".equals(StatementLexer.LINE_SEPARATOR)) {
+            return false;
+        }
+
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\r' || i > 0 && (bytes[i - 1] == '-'
+                    && bytes[i] == '-' || bytes[i - 1] == '/'
+                    && bytes[i] == '*')) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns index of the dump. Index is read from sidecar file if it is
+     * valid for the dump, otherwise it is built and stored in sidecar file. If
+     * the sidecar file cannot be written, the index is still returned.
+     *
+     * @param file    dump file
+     * @param buffer  bytes of the dump
+     * @param charset charset of the dump
+     *
+     * @return index of the dump
+     *
+     * @throws IOException Thrown if problem occurred while reading the dump.
+     */
+    static DumpIndex open(final Path file, final ByteBuffer buffer,
+            final Charset charset) throws IOException {
+        final long modified = Files.getLastModifiedTime(file).toMillis();
+        final long checksum = computeChecksum(buffer);
+
+        final Path sidecar = getSidecar(file);
+        final DumpIndex stored = read(sidecar);
+
+        if (stored != null && stored.size == buffer.limit()
+                && stored.modified == modified && stored.checksum == checksum
+                && stored.matchesBoundaries(buffer)) {
+            return stored;
+        }
+
+        final DumpIndex index = new DumpIndex(buffer.limit(), modified,
+                checksum, build(buffer, charset));
+
+        try {
+            index.write(sidecar);
+        } catch (final IOException ex) {
+            // index is only cache, dump can be loaded without it
+        }
+
+        return index;
+    }
+
+    /**
+     * Computes checksum of the first and the last block of the dump and of
+     * blocks sampled at regular intervals between them.
+     *
+     * @param buffer bytes of the dump
+     *
+     * @return checksum of the sampled blocks
+     */
+    private static long computeChecksum(final ByteBuffer buffer) {
+        final CRC32 crc = new CRC32();
+        final int limit = buffer.limit();
+        update(crc, buffer, 0, EDGE_SAMPLE_SIZE);
+
+        for (int i = 1; i <= SAMPLES; i++) {
+            update(crc, buffer, (int) ((long) limit * i / (SAMPLES + 1)),
+                    SAMPLE_SIZE);
+        }
+
+        update(crc, buffer, limit - EDGE_SAMPLE_SIZE, EDGE_SAMPLE_SIZE);
+
+        return crc.getValue();
+    }
+
+    /**
+     * Updates checksum with block of the dump. Part of the block that is
+     * outside of the dump is ignored.
+     *
+     * @param crc    checksum
+     * @param buffer bytes of the dump
+     * @param start  position of the block
+     * @param length length of the block
+     */
+    private static void update(final CRC32 crc, final ByteBuffer buffer,
+            final int start, final int length) {
+        final int from = Math.max(0, start);
+        final int to = Math.min(buffer.limit(), start + length);
+
+        for (int i = from; i < to; i++) {
+            crc.update(buffer.get(i));
+        }
+    }
+
+    /**
+     * Checks that entries follow each other and that every entry ends with
+     * semicolon, or with end of data if it is COPY statement.
+     *
+     * @param buffer bytes of the dump
+     *
+     * @return true if all entries end at statement boundary, otherwise false
+     */
+    private boolean matchesBoundaries(final ByteBuffer buffer) {
+        int end = 0;
+
+        for (final Entry entry : entries) {
+            if (entry.getOffset() != end || entry.getLength() <= 0) {
+                return false;
+            }
+
+            end = entry.getOffset() + entry.getLength();
+
+            if (end > buffer.limit()) {
+                return false;
+            }
+
+            final byte last = buffer.get(end - 1);
+
+            if (last != ';' && (entry.getStatementType() != StatementType.COPY
+                    || last != '\n' && last != '.')) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns path of sidecar file of the dump.
+     *
+     * @param file dump file
+     *
+     * @return path of sidecar file
+     */
+    static Path getSidecar(final Path file) {
+        return file.resolveSibling(file.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Builds index entries by reading all statements of the dump.
+     *
+     * @param buffer  bytes of the dump
+     * @param charset charset of the dump
+     *
+     * @return index entries
+     */
+    private static List<Entry> build(final ByteBuffer buffer,
+            final Charset charset) {
+        final List<Entry> entries = new ArrayList<Entry>();
+        final MappedStatementLexer lexer =
+                new MappedStatementLexer(buffer, charset);
+        String[] header = new String[3];
+        int start = 0;
+        String statement = lexer.nextStatement();
+
+        while (statement != null) {
+            final int end = lexer.getPosition();
+            final String[] statementHeader =
+                    readHeader(buffer, start, end, charset);
+
+            // statements without header belong to the previous object
+            if (statementHeader != null) {
+                header = statementHeader;
+            }
+
+            entries.add(new Entry(start, end - start,
+                    StatementClassifier.classify(statement), header[0],
+                    header[1], header[2]));
+            start = end;
+            statement = lexer.nextStatement();
+        }
+
+        return entries;
+    }
+
+    /**
+     * Reads pg_dump object header from comment lines preceding statement.
+     *
+     * @param buffer  bytes of the dump
+     * @param start   start of the statement including preceding comments
+     * @param end     end of the statement
+     * @param charset charset of the dump
+     *
+     * @return object type, schema and name, or null if no header was found
+     */
+    private static String[] readHeader(final ByteBuffer buffer,
+            final int start, final int end, final Charset charset) {
+        int pos = start;
+
+        while (pos < end) {
+            int lineEnd = pos;
+
+            while (lineEnd < end && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+
+            final byte[] bytes = new byte[lineEnd - pos];
+
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(pos + i);
+            }
+
+            final String line = new String(bytes, charset).trim();
+
+            if (line.startsWith(NAME)) {
+                return parseHeader(line.substring(NAME.length()));
+            } else if (line.startsWith(DATA_NAME)) {
+                return parseHeader(line.substring(DATA_NAME.length()));
+            } else if (!line.isEmpty() && !line.startsWith("--")) {
+                return null;
+            }
+
+            pos = lineEnd + 1;
+        }
+
+        return null;
+    }
+
+    /**
+     * Parses object header line.
+     *
+     * @param header header line without prefix, like
+     *               {@code t; Type: TABLE; Schema: s; Owner: o}
+     *
+     * @return object type, schema and name, or null if the header is not
+     *         valid
+     */
+    private static String[] parseHeader(final String header) {
+        final int typePos = header.indexOf("; Type: ");
+        final int schemaPos = header.indexOf("; Schema: ", typePos + 1);
+
+        if (typePos == -1 || schemaPos == -1) {
+            return null;
+        }
+
+        int schemaEnd = header.indexOf("; ", schemaPos + 2);
+
+        if (schemaEnd == -1) {
+            schemaEnd = header.length();
+        }
+
+        final String schema = header.substring(schemaPos + 10, schemaEnd);
+
+        return new String[]{header.substring(typePos + 8, schemaPos),
+                    "-".equals(schema) ? null : schema,
+                    header.substring(0, typePos)};
+    }
+
+    /**
+     * Reads index from sidecar file.
+     *
+     * @param sidecar sidecar file
+     *
+     * @return index or null if the sidecar file does not exist or cannot be
+     *         read
+     */
+    private static DumpIndex read(final Path sidecar) {
+        if (!Files.isRegularFile(sidecar)) {
+            return null;
+        }
+
+        try (final DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(sidecar)))) {
+            if (input.readLong() != MAGIC) {
+                return null;
+            }
+
+            final long size = input.readLong();
+            final long modified = input.readLong();
+            final long checksum = input.readLong();
+            final String[] strings = new String[input.readInt()];
+
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = input.readUTF();
+            }
+
+            final int count = input.readInt();
+            final List<Entry> entries = new ArrayList<Entry>(count);
+
+            for (int i = 0; i < count; i++) {
+                final int offset = input.readInt();
+                final int length = input.readInt();
+                final StatementType statementType =
+                        StatementType.valueOf(strings[input.readInt()]);
+                final int objectType = input.readInt();
+                final int schema = input.readInt();
+                final int name = input.readInt();
+                entries.add(new Entry(offset, length, statementType,
+                        objectType == -1 ? null : strings[objectType],
+                        schema == -1 ? null : strings[schema],
+                        name == -1 ? null : strings[name]));
+            }
+
+            return new DumpIndex(size, modified, checksum, entries);
+        } catch (final IOException | IllegalArgumentException
+                | IndexOutOfBoundsException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes index to sidecar file. The index is written to temporary file
+     * first which then replaces the sidecar file.
+     *
+     * @param sidecar sidecar file
+     *
+     * @throws IOException Thrown if problem occurred while writing the file.
+     */
+    private void write(final Path sidecar) throws IOException {
+        final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+        final List<String> strings = new ArrayList<String>();
+
+        for (final Entry entry : entries) {
+            addString(stringIds, strings, entry.getStatementType().name());
+            addString(stringIds, strings, entry.getObjectType());
+            addString(stringIds, strings, entry.getSchema());
+            addString(stringIds, strings, entry.getName());
+        }
+
+        final Path temp = sidecar.resolveSibling(
+                sidecar.getFileName() + ".tmp");
+
+        try (final DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            output.writeLong(MAGIC);
+            output.writeLong(size);
+            output.writeLong(modified);
+            output.writeLong(checksum);
+            output.writeInt(strings.size());
+
+            for (final String string : strings) {
+                output.writeUTF(string);
+            }
+
+            output.writeInt(entries.size());
+
+            for (final Entry entry : entries) {
+                output.writeInt(entry.getOffset());
+                output.writeInt(entry.getLength());
+                output.writeInt(stringIds.get(
+                        entry.getStatementType().name()));
+                output.writeInt(getStringId(stringIds,
+                        entry.getObjectType()));
+                output.writeInt(getStringId(stringIds, entry.getSchema()));
+                output.writeInt(getStringId(stringIds, entry.getName()));
+            }
+        }
+
+        Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Adds string to string table if it is not there yet.
+     *
+     * @param stringIds map of strings to their position in the table
+     * @param strings   string table
+     * @param string    string, can be null
+     */
+    private static void addString(final Map<String, Integer> stringIds,
+            final List<String> strings, final String string) {
+        if (string != null && !stringIds.containsKey(string)) {
+            stringIds.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+
+    /**
+     * Returns position of string in string table.
+     *
+     * @param stringIds map of strings to their position in the table
+     * @param string    string, can be null
+     *
+     * @return position of the string or -1 for null
+     */
+    private static int getStringId(final Map<String, Integer> stringIds,
+            final String string) {
+        return string == null ? -1 : stringIds.get(string);
+    }
+
+    /**
+     * Index entry describing single statement.
+     */
+    public static class Entry {
+
+        /**
+         * Byte offset of the statement, including preceding comments.
+         */
+        private final int offset;
+        /**
+         * Length of the statement in bytes.
+         */
+        private final int length;
+        /**
+         * Type of the statement.
+         */
+        private final StatementType statementType;
+        /**
+         * Type of the object from pg_dump header, like TABLE or FUNCTION.
+         */
+        private final String objectType;
+        /**
+         * Schema of the object from pg_dump header.
+         */
+        private final String schema;
+        /**
+         * Name of the object from pg_dump header, including signature for
+         * functions.
+         */
+        private final String name;
+
+        /**
+         * Creates new instance of Entry.
+         *
+         * @param offset        {@link #offset}
+         * @param length        {@link #length}
+         * @param statementType {@link #statementType}
+         * @param objectType    {@link #objectType}
+         * @param schema        {@link #schema}
+         * @param name          {@link #name}
+         */
+        Entry(final int offset, final int length,
+                final StatementType statementType, final String objectType,
+                final String schema, final String name) {
+            this.offset = offset;
+            this.length = length;
+            this.statementType = statementType;
+            this.objectType = objectType;
+            this.schema = schema;
+            this.name = name;
+        }
+
+        /**
+         * Getter for {@link #offset}.
+         *
+         * @return {@link #offset}
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        /**
+         * Getter for {@link #length}.
+         *
+         * @return {@link #length}
+         */
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * Getter for {@link #statementType}.
+         *
+         * @return {@link #statementType}
+         */
+        public StatementType getStatementType() {
+            return statementType;
+        }
+
+        /**
+         * Getter for {@link #objectType}.
+         *
+         * @return {@link #objectType} or null if the statement has no pg_dump
+         *         header
+         */
+        public String getObjectType() {
+            return objectType;
+        }
+
+        /**
+         * Getter for {@link #schema}.
+         *
+         * @return {@link #schema} or null if the statement has no pg_dump
+         *         header or the object is not in schema
+         */
+        public String getSchema() {
+            return schema;
+        }
+
+        /**
+         * Getter for {@link #name}.
+         *
+         * @return {@link #name} or null if the statement has no pg_dump header
+         */
+        public String getName() {
+            return name;
+        }
+    }
+}
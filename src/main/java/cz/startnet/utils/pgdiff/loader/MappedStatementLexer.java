@@ -0,0 +1,150 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Statement lexer reading the dump directly from bytes of memory mapped file.
+ * Statement boundaries are found on the raw bytes and only bytes of the
+ * statements, without comments, are decoded to strings. This works only for
+ * charsets in which every byte lower than 0x80 is ASCII character and never
+ * part of multibyte sequence, see {@link #isSupported(Charset)}.
+ *
+ * @author fordfrog
+ */
+class MappedStatementLexer extends StatementLexer {
+
+    /**
+     * Bytes of the dump.
+     */
+    private final ByteBuffer buffer;
+    /**
+     * Position of next byte in {@link #buffer}.
+     */
+    private int position;
+    /**
+     * Position following the last byte that should be read from
+     * {@link #buffer}.
+     */
+    private final int end;
+    /**
+     * Charset of the dump.
+     */
+    private final Charset charset;
+    /**
+     * Bytes of {@link StatementLexer#LINE_SEPARATOR}.
+     */
+    private final byte[] lineSeparator;
+    /**
+     * Bytes of statement that is currently being read.
+     */
+    private byte[] statement = new byte[1024];
+    /**
+     * Number of valid bytes in {@link #statement}.
+     */
+    private int statementLength;
+
+    /**
+     * Creates new instance of MappedStatementLexer reading whole buffer.
+     *
+     * @param buffer  {@link #buffer}
+     * @param charset {@link #charset}
+     */
+    MappedStatementLexer(final ByteBuffer buffer, final Charset charset) {
+        this(buffer, 0, buffer.limit(), charset);
+    }
+
+    /**
+     * Creates new instance of MappedStatementLexer reading part of the
+     * buffer. Buffer is accessed only using absolute positions so multiple
+     * lexers can read parts of the same buffer concurrently.
+     *
+     * @param buffer  {@link #buffer}
+     * @param start   position of first byte that should be read
+     * @param end     {@link #end}
+     * @param charset {@link #charset}
+     */
+    MappedStatementLexer(final ByteBuffer buffer, final int start,
+            final int end, final Charset charset) {
+        this.buffer = buffer;
+        this.position = start;
+        this.end = end;
+        this.charset = charset;
+        lineSeparator = LINE_SEPARATOR.getBytes(charset);
+    }
+
+    /**
+     * Checks whether dump in given charset can be read by this lexer.
+     *
+     * @param charset charset of the dump
+     *
+     * @return true if the charset is ASCII compatible single byte charset or
+     *         UTF-8, otherwise false
+     */
+    static boolean isSupported(final Charset charset) {
+        final String name = charset.name().toUpperCase(Locale.ENGLISH);
+
+        return "UTF-8".equals(name) || "US-ASCII".equals(name)
+                || name.startsWith("ISO-8859-")
+                || name.startsWith("WINDOWS-125");
+    }
+
+    /**
+     * Getter for {@link #position}. After statement was read, it is position
+     * following the statement, including data of COPY FROM stdin statement.
+     *
+     * @return {@link #position}
+     */
+    int getPosition() {
+        return position;
+    }
+
+    @Override
+    void append(final char chr) {
+        if (chr == '\n') {
+            for (final byte b : lineSeparator) {
+                appendByte(b);
+            }
+        } else {
+            appendByte((byte) chr);
+        }
+    }
+
+    @Override
+    String takeStatement() {
+        final String result = new String(statement, 0, statementLength, charset);
+        statementLength = 0;
+
+        return result;
+    }
+
+    @Override
+    int getByteLength(final char chr) {
+        return 1;
+    }
+
+    @Override
+    int readNext() {
+        return position < end ? buffer.get(position++) & 0xFF : -1;
+    }
+
+    /**
+     * Appends byte to the statement.
+     *
+     * @param b byte
+     */
+    private void appendByte(final byte b) {
+        if (statementLength == statement.length) {
+            statement = Arrays.copyOf(statement, statement.length * 2);
+        }
+
+        statement[statementLength++] = b;
+    }
+}
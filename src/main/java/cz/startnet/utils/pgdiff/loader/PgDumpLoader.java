@@ -5,6 +5,7 @@
  */
 package cz.startnet.utils.pgdiff.loader;
 
+import cz.startnet.utils.pgdiff.Pair;
 import cz.startnet.utils.pgdiff.Resources;
 import cz.startnet.utils.pgdiff.parsers.AlterSequenceParser;
 import cz.startnet.utils.pgdiff.parsers.AlterRelationParser;
@@ -19,20 +20,37 @@ import cz.startnet.utils.pgdiff.parsers.CreateTableParser;
 import cz.startnet.utils.pgdiff.parsers.CreateTriggerParser;
 import cz.startnet.utils.pgdiff.parsers.CreateViewParser;
 import cz.startnet.utils.pgdiff.parsers.GrantRevokeParser;
+import cz.startnet.utils.pgdiff.parsers.ObjectNotFoundException;
 import cz.startnet.utils.pgdiff.parsers.CreatePolicyParser;
 import cz.startnet.utils.pgdiff.parsers.CreateProcedureParser;
 import cz.startnet.utils.pgdiff.parsers.CreateRuleParser;
 import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import cz.startnet.utils.pgdiff.schema.PgFunction;
+import cz.startnet.utils.pgdiff.schema.PgProcedure;
+import cz.startnet.utils.pgdiff.schema.PgView;
+import cz.startnet.utils.pgdiff.schema.StringPool;
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Loads PostgreSQL dump into classes.
@@ -41,164 +59,6 @@ import java.util.regex.Pattern;
  */
 public class PgDumpLoader { //NOPMD
 
-    /**
-     * Pattern for testing whether it is CREATE SCHEMA statement.
-     */
-    private static final Pattern PATTERN_CREATE_SCHEMA = Pattern.compile(
-            "^CREATE[\\s]+SCHEMA[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for parsing default schema (search_path).
-     */
-    private static final Pattern PATTERN_DEFAULT_SCHEMA = Pattern.compile(
-            "^SET[\\s]+search_path[\\s]*=[\\s]*\"?([^,\\s\"]+)\"?"
-            + "(?:,[\\s]+.*)?;$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is CREATE TABLE statement.
-     */
-    private static final Pattern PATTERN_CREATE_TABLE = Pattern.compile(
-            "^CREATE[\\s]+(UNLOGGED\\s|FOREIGN\\s)*TABLE[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is CREATE VIEW or CREATE MATERIALIZED
-     * VIEW statement.
-     */
-    private static final Pattern PATTERN_CREATE_VIEW = Pattern.compile(
-            "^CREATE[\\s]+(?:OR[\\s]+REPLACE[\\s]+)?(?:MATERIALIZED[\\s]+)?VIEW[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is ALTER TABLE statement.
-     */
-    private static final Pattern PATTERN_ALTER_TABLE =
-            Pattern.compile("^ALTER[\\s](FOREIGN)*TABLE[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is CREATE SEQUENCE statement.
-     */
-    private static final Pattern PATTERN_CREATE_SEQUENCE = Pattern.compile(
-            "^CREATE[\\s]+SEQUENCE[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is ALTER SEQUENCE statement.
-     */
-    private static final Pattern PATTERN_ALTER_SEQUENCE =
-            Pattern.compile("^ALTER[\\s]+SEQUENCE[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is CREATE INDEX statement.
-     */
-    private static final Pattern PATTERN_CREATE_INDEX = Pattern.compile(
-            "^CREATE[\\s]+(?:UNIQUE[\\s]+)?INDEX[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is SELECT statement.
-     */
-    private static final Pattern PATTERN_SELECT = Pattern.compile(
-            "^SELECT[\\s]+.*$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is INSERT INTO statement.
-     */
-    private static final Pattern PATTERN_INSERT_INTO = Pattern.compile(
-            "^INSERT[\\s]+INTO[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is UPDATE statement.
-     */
-    private static final Pattern PATTERN_UPDATE = Pattern.compile(
-            "^UPDATE[\\s].*$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is DELETE FROM statement.
-     */
-    private static final Pattern PATTERN_DELETE_FROM = Pattern.compile(
-            "^DELETE[\\s]+FROM[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is CREATE TRIGGER statement.
-     */
-    private static final Pattern PATTERN_CREATE_TRIGGER = Pattern.compile(
-            "^CREATE[\\s]+TRIGGER[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is CREATE FUNCTION or CREATE OR REPLACE
-     * FUNCTION statement.
-     */
-    private static final Pattern PATTERN_CREATE_FUNCTION = Pattern.compile(
-            "^CREATE[\\s]+(?:OR[\\s]+REPLACE[\\s]+)?FUNCTION[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);    
-    /**
-     * Pattern for testing whether it is CREATE PROCEDURE or CREATE OR REPLACE
-     * PROCEDURE statement.
-     */
-    private static final Pattern PATTERN_CREATE_PROCEDURE = Pattern.compile(
-            "^CREATE[\\s]+(?:OR[\\s]+REPLACE[\\s]+)?PROCEDURE[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    
-    /**
-     * Pattern for testing whether it is ALTER VIEW statement.
-     */
-    private static final Pattern PATTERN_ALTER_VIEW = Pattern.compile(
-            "^ALTER[\\s]+(?:MATERIALIZED[\\s]+)?VIEW[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is COMMENT statement.
-     */
-    private static final Pattern PATTERN_COMMENT = Pattern.compile(
-            "^COMMENT[\\s]+ON[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is CREATE TYPE statement.
-     */
-    private static final Pattern PATTERN_CREATE_TYPE = Pattern.compile(
-            "^CREATE[\\s]+TYPE[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is GRANT statement.
-     */
-    private static final Pattern PATTERN_GRANT = Pattern.compile(
-            "^GRANT[\\s]+.*$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is REVOKE statement.
-     */
-    private static final Pattern PATTERN_REVOKE = Pattern.compile(
-            "^REVOKE[\\s]+.*$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing a dollar quoting tag.
-     */
-    private static final Pattern PATTERN_DOLLAR_TAG= Pattern.compile(
-            "[\"\\s]",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is CREATE EXTENSION statement.
-     */
-    private static final Pattern PATTERN_CREATE_EXTENSION = Pattern.compile(
-            "^CREATE[\\s]+EXTENSION[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is CREATE POLICY statement.
-     */
-    private static final Pattern PATTERN_CREATE_POLICY = Pattern.compile(
-            "^CREATE[\\s]+POLICY[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    
-    /**
-     * Pattern for testing whether it is CREATE POLICY statement.
-     */
-    private static final Pattern PATTERN_DISABLE_TRIGGER = Pattern.compile(
-           "ALTER\\s+TABLE+\\s+\"?\\w+\"?.+\"?\\w+\"?\\s+DISABLE+\\s+TRIGGER+\\s+\\w+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    /**
-     * Pattern for testing whether it is CREATE RULE  statement.
-     */
-    private static final Pattern PATTERN_CREATE_RULE = Pattern.compile(
-            "^CREATE[\\s]+RULE[\\s]+.*$",
-            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-    
-    /**
-    /**
-     * Storage of unprocessed line part.
-     */
-    private static String lineBuffer;
-
     /**
      * Loads database schema from dump file.
      *
@@ -215,86 +75,35 @@ public class PgDumpLoader { //NOPMD
     public static PgDatabase loadDatabaseSchema(final InputStream inputStream,
             final String charsetName, final boolean outputIgnoredStatements,
             final boolean ignoreSlonyTriggers, final boolean ignoreSchemaCreation) {
+        return loadDatabaseSchema(inputStream, charsetName,
+                outputIgnoredStatements, ignoreSlonyTriggers,
+                ignoreSchemaCreation, 1);
+    }
 
-        final PgDatabase database = new PgDatabase();
-        BufferedReader reader = null;
-
-        try {
-            reader = new BufferedReader(
-                    new InputStreamReader(inputStream, charsetName));
-        } catch (final UnsupportedEncodingException ex) {
-            throw new UnsupportedOperationException(
-                    Resources.getString("UnsupportedEncoding") + ": "
-                    + charsetName, ex);
-        }
-
-        String statement = getWholeStatement(reader);
-
-        while (statement != null) {
-            if (PATTERN_CREATE_SCHEMA.matcher(statement).matches()) {
-                CreateSchemaParser.parse(database, statement);
-            } else if (PATTERN_CREATE_EXTENSION.matcher(statement).matches()) {
-                CreateExtensionParser.parse(database, statement);
-            } else if (PATTERN_DEFAULT_SCHEMA.matcher(statement).matches()) {
-                final Matcher matcher =
-                        PATTERN_DEFAULT_SCHEMA.matcher(statement);
-                matcher.matches();
-                database.setDefaultSchema(matcher.group(1));
-            } else if (PATTERN_CREATE_TABLE.matcher(statement).matches()) {
-                CreateTableParser.parse(database, statement, ignoreSchemaCreation);
-            } else if ((PATTERN_ALTER_TABLE.matcher(statement).matches()
-                    || PATTERN_ALTER_VIEW.matcher(statement).matches())
-                    && !PATTERN_DISABLE_TRIGGER.matcher(statement).matches()) {
-                    AlterRelationParser.parse(
-                        database, statement, outputIgnoredStatements); 
-            } else if (PATTERN_CREATE_SEQUENCE.matcher(statement).matches()) {
-                CreateSequenceParser.parse(database, statement);
-            } else if (PATTERN_ALTER_SEQUENCE.matcher(statement).matches()) {
-                AlterSequenceParser.parse(
-                        database, statement, outputIgnoredStatements);
-            } else if (PATTERN_CREATE_INDEX.matcher(statement).matches()) {
-                CreateIndexParser.parse(database, statement);
-            } else if (PATTERN_CREATE_VIEW.matcher(statement).matches()) {
-                CreateViewParser.parse(database, statement);
-            } else if (PATTERN_CREATE_TRIGGER.matcher(statement).matches()) {
-                CreateTriggerParser.parse(
-                        database, statement, ignoreSlonyTriggers);
-            } else if ( PATTERN_DISABLE_TRIGGER.matcher(statement).matches()) {
-                CreateTriggerParser.parseDisable(database, statement);
-            } else if (PATTERN_CREATE_FUNCTION.matcher(statement).matches()) {
-                CreateFunctionParser.parse(database, statement);
-            } else if (PATTERN_CREATE_PROCEDURE.matcher(statement).matches()) {
-                CreateProcedureParser.parse(database, statement);
-            } else if (PATTERN_CREATE_TYPE.matcher(statement).matches()) {
-                CreateTypeParser.parse(database, statement);
-            } else if (PATTERN_COMMENT.matcher(statement).matches()) {
-                CommentParser.parse(
-                        database, statement, outputIgnoredStatements);
-            } else if (PATTERN_SELECT.matcher(statement).matches()
-                    || PATTERN_INSERT_INTO.matcher(statement).matches()
-                    || PATTERN_UPDATE.matcher(statement).matches()
-                    || PATTERN_DELETE_FROM.matcher(statement).matches()) {
-            } else if (PATTERN_GRANT.matcher(statement).matches()) {
-                GrantRevokeParser.parse(database, statement,
-                        outputIgnoredStatements);
-            } else if (PATTERN_REVOKE.matcher(statement).matches()) {
-                GrantRevokeParser.parse(database, statement,
-                        outputIgnoredStatements);
-            } else if (PATTERN_CREATE_POLICY.matcher(statement).matches()) {
-                CreatePolicyParser.parse(database, statement);               
-            } else if (PATTERN_CREATE_RULE.matcher(statement).matches()) {
-                CreateRuleParser.parse(database, statement);
-            }  else if (outputIgnoredStatements) {
-                database.addIgnoredStatement(statement);
-            } else {
-                // these statements are ignored if outputIgnoredStatements
-                // is false
-            }
-
-            statement = getWholeStatement(reader);
-        }
-
-        return database;
+    /**
+     * Loads database schema from dump file. If more than one parse thread is
+     * requested, statements are split on separate thread and parsed by pool of
+     * parse threads, while the results are still applied to the database in
+     * the order of statements in the dump.
+     *
+     * @param inputStream             input stream that should be read
+     * @param charsetName             charset that should be used to read the
+     *                                file
+     * @param outputIgnoredStatements whether ignored statements should be
+     *                                included in the output
+     * @param ignoreSlonyTriggers     whether Slony triggers should be ignored
+     * @param ignoreSchemaCreation    whether schema creation should be ignored
+     * @param parseThreads            number of parse threads
+     *
+     * @return database schema from dump file
+     */
+    public static PgDatabase loadDatabaseSchema(final InputStream inputStream,
+            final String charsetName, final boolean outputIgnoredStatements,
+            final boolean ignoreSlonyTriggers, final boolean ignoreSchemaCreation,
+            final int parseThreads) {
+        return new Session(charsetName, outputIgnoredStatements,
+                ignoreSlonyTriggers, ignoreSchemaCreation, parseThreads)
+                .load(inputStream);
     }
 
     /**
@@ -313,197 +122,849 @@ public class PgDumpLoader { //NOPMD
     public static PgDatabase loadDatabaseSchema(final String file,
             final String charsetName, final boolean outputIgnoredStatements,
             final boolean ignoreSlonyTriggers, final boolean ignoreSchemaCreation) {
-        if (file.equals("-"))
-            return loadDatabaseSchema(System.in, charsetName,
-                    outputIgnoredStatements, ignoreSlonyTriggers, ignoreSchemaCreation);
-        FileInputStream fis = null;
-        try {
-            fis = new FileInputStream(file);
-            return loadDatabaseSchema(fis, charsetName,
-                    outputIgnoredStatements, ignoreSlonyTriggers, ignoreSchemaCreation);
-        } catch (final FileNotFoundException ex) {
-            throw new FileException(MessageFormat.format(
-                    Resources.getString("FileNotFound"), file), ex);
-        } finally {
-            if (fis != null) {
-                try {
-                    fis.close();
-                } catch (IOException ex){}
-            }
+        return loadDatabaseSchema(file, charsetName, outputIgnoredStatements,
+                ignoreSlonyTriggers, ignoreSchemaCreation, 1);
+    }
+
+    /**
+     * Loads database schema from dump file.
+     *
+     * @param file                    name of file containing the dump
+     * @param charsetName             charset that should be used to read the
+     *                                file
+     * @param outputIgnoredStatements whether ignored statements should be
+     *                                included in the output
+     * @param ignoreSlonyTriggers     whether Slony triggers should be ignored
+     * @param ignoreSchemaCreation    whether Schema creation should be ignored
+     * @param parseThreads            number of parse threads
+     *
+     * @return database schema from dump file
+     */
+    public static PgDatabase loadDatabaseSchema(final String file,
+            final String charsetName, final boolean outputIgnoredStatements,
+            final boolean ignoreSlonyTriggers, final boolean ignoreSchemaCreation,
+            final int parseThreads) {
+        return new Session(charsetName, outputIgnoredStatements,
+                ignoreSlonyTriggers, ignoreSchemaCreation, parseThreads)
+                .load(file);
+    }
+
+    /**
+     * Determines type of the statement. Statements that do not depend on
+     * previously loaded objects are also parsed, so this method can be called
+     * concurrently.
+     *
+     * @param statement whole trimmed statement
+     *
+     * @return classified statement
+     */
+    static ClassifiedStatement classifyStatement(final String statement) {
+        final StatementType type = StatementClassifier.classify(statement);
+        final Object parsed;
+
+        switch (type) {
+            case CREATE_VIEW:
+                parsed = CreateViewParser.parse(statement);
+                break;
+            case CREATE_FUNCTION:
+                parsed = CreateFunctionParser.parse(statement);
+                break;
+            case CREATE_PROCEDURE:
+                parsed = CreateProcedureParser.parse(statement);
+                break;
+            default:
+                parsed = null;
         }
+
+        return new ClassifiedStatement(type, statement, parsed);
     }
 
     /**
-     * Reads whole statement from the reader into single-line string.
+     * Reads all statements of chunk of the dump and classifies them. The
+     * chunk must not end inside string constant, quoted identifier or
+     * comment.
+     *
+     * @param chunk lexer reading chunk of the dump containing only whole
+     *              statements
      *
-     * @param reader reader to be read
+     * @return classified statements in the order they appear in the chunk
      *
-     * @return whole statement from the reader into single-line string
+     * @throws ChunkBoundaryException Thrown if the chunk ends inside statement
+     *                                or COPY data.
      */
-    private static String getWholeStatement(final BufferedReader reader) {
-        final StringBuilder sbStatement = new StringBuilder(1024);
+    static List<ClassifiedStatement> classifyChunk(final StatementLexer chunk) {
+        final List<ClassifiedStatement> statements =
+                new ArrayList<ClassifiedStatement>();
+        String statement = chunk.nextStatement();
 
-        if (lineBuffer != null) {
-            sbStatement.append(lineBuffer);
-            lineBuffer = null;
-            stripComment(sbStatement);
+        while (statement != null) {
+            statements.add(classifyStatement(statement));
+            statement = chunk.nextStatement();
         }
 
-        int pos = sbStatement.indexOf(";");
+        if (!chunk.isAtStatementStart()) {
+            throw new ChunkBoundaryException(MessageFormat.format(
+                    Resources.getString("EndOfStatementNotFound"), ""));
+        }
 
-        while (true) {
-            if (pos == -1) {
-                final String newLine;
+        return statements;
+    }
 
-                try {
-                    newLine = reader.readLine();
-                } catch (IOException ex) {
-                    throw new FileException(
-                            Resources.getString("CannotReadFile"), ex);
+    /**
+     * Loading session holding loader settings. All state used while loading
+     * single dump is local to the load, so one session can be used to load
+     * any number of dumps, also concurrently from multiple threads.
+     */
+    public static class Session {
+
+        /**
+         * Number of chunks per parse thread plain dump is split into.
+         */
+        private static final int CHUNKS_PER_THREAD = 4;
+
+        /**
+         * Charset that should be used to read the dump.
+         */
+        private final String charsetName;
+        /**
+         * Whether ignored statements should be included in the output.
+         */
+        private final boolean outputIgnoredStatements;
+        /**
+         * Whether Slony triggers should be ignored.
+         */
+        private final boolean ignoreSlonyTriggers;
+        /**
+         * Whether schema creation should be ignored.
+         */
+        private final boolean ignoreSchemaCreation;
+        /**
+         * Number of parse threads used for single load.
+         */
+        private final int parseThreads;
+
+        /**
+         * Creates new instance of Session.
+         *
+         * @param charsetName             {@link #charsetName}
+         * @param outputIgnoredStatements {@link #outputIgnoredStatements}
+         * @param ignoreSlonyTriggers     {@link #ignoreSlonyTriggers}
+         * @param ignoreSchemaCreation    {@link #ignoreSchemaCreation}
+         * @param parseThreads            {@link #parseThreads}
+         */
+        public Session(final String charsetName,
+                final boolean outputIgnoredStatements,
+                final boolean ignoreSlonyTriggers,
+                final boolean ignoreSchemaCreation, final int parseThreads) {
+            this.charsetName = charsetName;
+            this.outputIgnoredStatements = outputIgnoredStatements;
+            this.ignoreSlonyTriggers = ignoreSlonyTriggers;
+            this.ignoreSchemaCreation = ignoreSchemaCreation;
+            this.parseThreads = parseThreads;
+        }
+
+        /**
+         * Getter for {@link #charsetName}.
+         *
+         * @return {@link #charsetName}
+         */
+        public String getCharsetName() {
+            return charsetName;
+        }
+
+        /**
+         * Getter for {@link #outputIgnoredStatements}.
+         *
+         * @return {@link #outputIgnoredStatements}
+         */
+        public boolean isOutputIgnoredStatements() {
+            return outputIgnoredStatements;
+        }
+
+        /**
+         * Getter for {@link #ignoreSlonyTriggers}.
+         *
+         * @return {@link #ignoreSlonyTriggers}
+         */
+        public boolean isIgnoreSlonyTriggers() {
+            return ignoreSlonyTriggers;
+        }
+
+        /**
+         * Getter for {@link #ignoreSchemaCreation}.
+         *
+         * @return {@link #ignoreSchemaCreation}
+         */
+        public boolean isIgnoreSchemaCreation() {
+            return ignoreSchemaCreation;
+        }
+
+        /**
+         * Getter for {@link #parseThreads}.
+         *
+         * @return {@link #parseThreads}
+         */
+        public int getParseThreads() {
+            return parseThreads;
+        }
+
+        /**
+         * Loads database schemas from two dump files, parsing only the
+         * statements of objects that differ between the dumps, like
+         * {@link #loadChanged(String, DumpFormat, String, DumpFormat)}.
+         * Statements of plain dumps are read using index of the dumps, see
+         * {@link #loadIndexed(String, Predicate)}, so that valid index saves
+         * lexing of the dumps and reading of COPY data. Only statements of
+         * the objects accepted by the filter are read, together with
+         * statements setting search_path. Dumps in other formats, and all
+         * dumps if ignored statements should be output, are read whole.
+         *
+         * @param oldFile name of file containing the original dump
+         * @param newFile name of file containing the new dump
+         * @param filter  filter of index entries that should be loaded
+         *
+         * @return original and new database schema
+         *
+         * @see ChangedObjects
+         */
+        public Pair<PgDatabase, PgDatabase> loadChangedIndexed(
+                final String oldFile, final String newFile,
+                final Predicate<DumpIndex.Entry> filter) {
+            return loadChanged(readIndexedStatements(oldFile, filter),
+                    readIndexedStatements(newFile, filter));
+        }
+
+        /**
+         * Loads database schema from dump file. Format of the dump is
+         * detected from its first bytes.
+         *
+         * @param inputStream input stream that should be read
+         *
+         * @return database schema from dump file
+         */
+        public PgDatabase load(final InputStream inputStream) {
+            final List<StatementLexer> chunks = openChunks(inputStream);
+
+            return chunks.size() == 1
+                    ? load(chunks.get(0)) : loadChunks(chunks);
+        }
+
+        /**
+         * Loads database schemas from two dumps, parsing only the statements
+         * of objects that differ between the dumps. Objects whose statements
+         * are the same in both dumps are missing in both returned schemas, so
+         * the schemas are good only for creating diff of the dumps. Format of
+         * the dumps is detected from their first bytes.
+         *
+         * @param oldInputStream input stream of the original dump
+         * @param newInputStream input stream of the new dump
+         *
+         * @return original and new database schema
+         *
+         * @see ChangedObjects
+         */
+        public Pair<PgDatabase, PgDatabase> loadChanged(
+                final InputStream oldInputStream,
+                final InputStream newInputStream) {
+            return loadChanged(readStatements(openChunks(oldInputStream)),
+                    readStatements(openChunks(newInputStream)));
+        }
+
+        /**
+         * Loads database schemas from two dump files, parsing only the
+         * statements of objects that differ between the dumps. Objects whose
+         * statements are the same in both dumps are missing in both returned
+         * schemas, so the schemas are good only for creating diff of the
+         * dumps.
+         *
+         * @param oldFile   name of file containing the original dump
+         * @param oldFormat format of the original dump
+         * @param newFile   name of file containing the new dump
+         * @param newFormat format of the new dump
+         *
+         * @return original and new database schema
+         *
+         * @see ChangedObjects
+         */
+        public Pair<PgDatabase, PgDatabase> loadChanged(final String oldFile,
+                final DumpFormat oldFormat, final String newFile,
+                final DumpFormat newFormat) {
+            return loadChanged(readStatements(oldFile, oldFormat),
+                    readStatements(newFile, newFormat));
+        }
+
+        /**
+         * Loads database schema from dump file. Format of the dump is
+         * detected from its first bytes.
+         *
+         * @param file name of file containing the dump, or "-" for standard
+         *             input
+         *
+         * @return database schema from dump file
+         */
+        public PgDatabase load(final String file) {
+            return load(file, DumpFormat.detect(file));
+        }
+
+        /**
+         * Loads database schema from dump file. Plain dumps in UTF-8 and
+         * ASCII compatible single byte charsets are read from memory mapped
+         * file and only bytes of the statements are decoded. If more than one
+         * parse thread is requested, such dumps created by pg_dump are split
+         * at object header comments into chunks that are parsed concurrently.
+         * Only table of contents is read from archives, table data is skipped.
+         * Only toc.dat file is read from directory format archives.
+         *
+         * @param file   name of file containing the dump, name of directory
+         *               containing directory format archive, or "-" for
+         *               standard input
+         * @param format format of the dump
+         *
+         * @return database schema from dump file
+         */
+        public PgDatabase load(final String file, final DumpFormat format) {
+            if (file.equals("-")) {
+                return load(System.in);
+            } else if (format == DumpFormat.DIRECTORY) {
+                return loadStream(
+                        new File(file, DumpFormat.TOC_FILE).getPath());
+            } else if (format != DumpFormat.PLAIN) {
+                return loadStream(file);
+            }
+
+            return loadMapped(file, null);
+        }
+
+        /**
+         * Loads database schema from plain dump file using index of the dump.
+         * The index is stored in sidecar file next to the dump and it is
+         * rebuilt automatically when the dump changes. Only statements of the
+         * objects accepted by the filter are read from the dump, together
+         * with statements setting search_path. If the dump cannot be read
+         * from memory mapped file, or it is not plain dump, whole dump is
+         * loaded without index.
+         *
+         * @param file   name of file containing the dump, or "-" for standard
+         *               input
+         * @param filter filter of index entries that should be loaded
+         *
+         * @return database schema from dump file
+         */
+        public PgDatabase loadIndexed(final String file,
+                final Predicate<DumpIndex.Entry> filter) {
+            final DumpFormat format = DumpFormat.detect(file);
+
+            if (file.equals("-") || format != DumpFormat.PLAIN) {
+                return load(file, format);
+            }
+
+            return loadMapped(file, filter);
+        }
+
+        /**
+         * Loads database schema from plain dump file using memory mapped
+         * file, if the charset of the dump and the size of the file allow
+         * that.
+         *
+         * @param file   name of file containing the dump
+         * @param filter filter of index entries that should be loaded, or null
+         *               if the dump should be loaded without index
+         *
+         * @return database schema from dump file
+         */
+        private PgDatabase loadMapped(final String file,
+                final Predicate<DumpIndex.Entry> filter) {
+            final Charset charset = getMappableCharset();
+
+            if (charset == null) {
+                return loadStream(file);
+            }
+
+            FileChannel channel = null;
+
+            try {
+                channel = FileChannel.open(Paths.get(file));
+
+                if (channel.size() > Integer.MAX_VALUE) {
+                    return loadStream(file);
                 }
 
-                if (newLine == null) {
-                    if (sbStatement.toString().trim().length() == 0) {
-                        return null;
-                    } else {
-                        throw new RuntimeException(MessageFormat.format(
-                                Resources.getString("EndOfStatementNotFound"),
-                                sbStatement.toString()));
-                    }
+                final ByteBuffer buffer = channel.map(
+                        FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+                if (filter != null) {
+                    return loadChunks(DumpIndex.open(Paths.get(file), buffer,
+                            charset).split(buffer, charset, filter,
+                            parseThreads * CHUNKS_PER_THREAD));
                 }
 
-                if (sbStatement.length() > 0) {
-                    sbStatement.append(System.getProperty("line.separator"));
+                if (parseThreads > 1) {
+                    final List<StatementLexer> chunks = PlainDumpSplitter
+                            .split(buffer, charset,
+                            parseThreads * CHUNKS_PER_THREAD);
+
+                    if (chunks.size() > 1) {
+                        try {
+                            return loadChunks(chunks);
+                        } catch (final ChunkBoundaryException ex) {
+                            // the dump was cut inside statement or COPY data,
+                            // load it again without splitting so that the
+                            // error, if any, is reported for whole statement
+                        }
+                    }
                 }
 
-                pos = sbStatement.length();
-                sbStatement.append(newLine);
-                stripComment(sbStatement);
+                return load(new MappedStatementLexer(buffer, charset));
+            } catch (final NoSuchFileException ex) {
+                throw new FileException(MessageFormat.format(
+                        Resources.getString("FileNotFound"), file), ex);
+            } catch (final IOException ex) {
+                throw new FileException(
+                        Resources.getString("CannotReadFile"), ex);
+            } finally {
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException ex) {
+                    }
+                }
+            }
+        }
 
-                pos = sbStatement.indexOf(";", pos);
-            } else {
-                if (!isQuoted(sbStatement, pos)) {
-                    if (pos == sbStatement.length() - 1) {
-                        lineBuffer = null;
-                    } else {
-                        lineBuffer = sbStatement.substring(pos + 1);
-                        sbStatement.setLength(pos + 1);
+        /**
+         * Returns lexers reading statements of the dump. Custom format
+         * archives are split into chunks by the objects of the archive, plain
+         * dump is read by single lexer.
+         *
+         * @param inputStream input stream that should be read
+         *
+         * @return lexers reading statements of the dump
+         */
+        private List<StatementLexer> openChunks(
+                final InputStream inputStream) {
+            final Charset charset = getCharset();
+            final InputStream input = inputStream.markSupported()
+                    ? inputStream : new BufferedInputStream(inputStream);
+            final List<StatementLexer> chunks =
+                    new ArrayList<StatementLexer>();
+
+            try {
+                if (DumpFormat.detect(input) == DumpFormat.CUSTOM) {
+                    for (final String chunk : ArchiveReader.toSqlChunks(
+                            new ArchiveReader(input, charset).readToc())) {
+                        chunks.add(new ReaderStatementLexer(
+                                new StringReader(chunk)));
                     }
 
-                    return sbStatement.toString().trim();
+                    return chunks;
+                }
+            } catch (final IOException ex) {
+                throw new FileException(
+                        Resources.getString("CannotReadFile"), ex);
+            }
+
+            chunks.add(new ReaderStatementLexer(new BufferedReader(
+                    new InputStreamReader(input, charset)), charset));
+
+            return chunks;
+        }
+
+        /**
+         * Reads all statements of the dump file. Plain dumps are read from
+         * memory mapped file if the charset of the dump and the size of the
+         * file allow that.
+         *
+         * @param file   name of file containing the dump, name of directory
+         *               containing directory format archive, or "-" for
+         *               standard input
+         * @param format format of the dump
+         *
+         * @return statements of the dump
+         */
+        private List<String> readStatements(final String file,
+                final DumpFormat format) {
+            if (file.equals("-")) {
+                return readStatements(openChunks(System.in));
+            }
+
+            final String path = format == DumpFormat.DIRECTORY
+                    ? new File(file, DumpFormat.TOC_FILE).getPath() : file;
+            final Charset charset = getMappableCharset();
+
+            try (final FileChannel channel =
+                    FileChannel.open(Paths.get(path))) {
+                if (format == DumpFormat.PLAIN && charset != null
+                        && channel.size() <= Integer.MAX_VALUE) {
+                    return readStatements(Collections.<StatementLexer>
+                            singletonList(new MappedStatementLexer(
+                            channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                            channel.size()), charset)));
                 }
 
-                pos = sbStatement.indexOf(";", pos + 1);
+                return readStatements(openChunks(
+                        Channels.newInputStream(channel)));
+            } catch (final NoSuchFileException ex) {
+                throw new FileException(MessageFormat.format(
+                        Resources.getString("FileNotFound"), path), ex);
+            } catch (final IOException ex) {
+                throw new FileException(
+                        Resources.getString("CannotReadFile"), ex);
             }
         }
-    }
 
-    /**
-     * Strips comment from statement line.
-     *
-     * @param sbStatement string builder containing statement
-     */
-    private static void stripComment(final StringBuilder sbStatement) {
-        int pos = sbStatement.indexOf("--");
+        /**
+         * Reads statements of the dump file accepted by the filter using index
+         * of the dump. If the dump is not plain dump that can be read from
+         * memory mapped file, or if ignored statements should be output, all
+         * statements are read without index.
+         *
+         * @param file   name of file containing the dump, or "-" for standard
+         *               input
+         * @param filter filter of index entries that should be read
+         *
+         * @return statements of the dump
+         */
+        private List<String> readIndexedStatements(final String file,
+                final Predicate<DumpIndex.Entry> filter) {
+            final DumpFormat format = DumpFormat.detect(file);
+            final Charset charset = getMappableCharset();
+
+            if (file.equals("-") || format != DumpFormat.PLAIN
+                    || charset == null || outputIgnoredStatements) {
+                return readStatements(file, format);
+            }
 
-        while (pos >= 0) {
-            if (pos == 0) {
-                sbStatement.setLength(0);
+            final Path path = Paths.get(file);
 
-                return;
-            } else {
-                if (!isQuoted(sbStatement, pos)) {
-                    sbStatement.setLength(pos);
+            try (final FileChannel channel = FileChannel.open(path)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    return readStatements(file, format);
+                }
+
+                final ByteBuffer buffer = channel.map(
+                        FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+                return DumpIndex.open(path, buffer, charset)
+                        .readStatements(buffer, charset, filter);
+            } catch (final NoSuchFileException ex) {
+                throw new FileException(MessageFormat.format(
+                        Resources.getString("FileNotFound"), file), ex);
+            } catch (final IOException ex) {
+                throw new FileException(
+                        Resources.getString("CannotReadFile"), ex);
+            }
+        }
 
-                    return;
+        /**
+         * Reads all statements returned by the lexers.
+         *
+         * @param chunks lexers returning statements of the dump
+         *
+         * @return statements of the dump
+         */
+        private static List<String> readStatements(
+                final List<StatementLexer> chunks) {
+            final List<String> statements = new ArrayList<String>();
+
+            for (final StatementLexer chunk : chunks) {
+                String statement = chunk.nextStatement();
+
+                while (statement != null) {
+                    statements.add(statement);
+                    statement = chunk.nextStatement();
                 }
             }
 
-            pos = sbStatement.indexOf("--", pos + 1);
+            return statements;
         }
 
-        int endPos = sbStatement.indexOf("*/");
-        while (endPos >= 0) {
-            if (!isQuoted(sbStatement, endPos)) {
-                int startPos = sbStatement.lastIndexOf("/*", endPos);
-                if (startPos < endPos && !isQuoted(sbStatement, startPos)) {
-                    sbStatement.replace(startPos, endPos + 2, "");
+        /**
+         * Loads database schemas from statements of changed objects of two
+         * dumps. If some of the selected statements refers to an object that
+         * was not selected, all statements are parsed, so that the schemas,
+         * or the reported error, are the same as if the dumps were loaded
+         * whole. Other errors are thrown. All statements are parsed also
+         * when ignored statements should be included in the output, as these
+         * are output for both dumps whole.
+         *
+         * @param oldStatements statements of the original dump
+         * @param newStatements statements of the new dump
+         *
+         * @return original and new database schema
+         */
+        private Pair<PgDatabase, PgDatabase> loadChanged(
+                final List<String> oldStatements,
+                final List<String> newStatements) {
+            if (!outputIgnoredStatements) {
+                final Pair<List<String>, List<String>> changed =
+                        ChangedObjects.select(oldStatements, newStatements);
+
+                try {
+                    return loadStatements(changed.getL(), changed.getR());
+                } catch (final ObjectNotFoundException ex) {
+                    // fall through to parse all statements
                 }
             }
-            endPos = sbStatement.indexOf("*/", endPos+2);
+
+            return loadStatements(oldStatements, newStatements);
         }
-    }
 
-    /**
-     * Checks whether specified position in the string builder is quoted. It
-     * might be quoted either by single quote or by dollar sign quoting.
-     *
-     * @param sbString string builder
-     * @param pos      position to be checked
-     *
-     * @return true if the specified position is quoted, otherwise false
-     */
-    @SuppressWarnings("AssignmentToForLoopParameter")
-    private static boolean isQuoted(final StringBuilder sbString,
-            final int pos) {
-        boolean isQuoted = false;
-        boolean insideDoubleQuotes = false;
-        boolean insideSingeQuote = false; // Determine if double quote is inside of a single quote.
-        
-        for (int curPos = 0; curPos < pos; curPos++) {
-            // Check if the quote is inside of a double quotes
-            if (sbString.charAt(curPos) == '\"' && !insideSingeQuote ){
-                insideDoubleQuotes = !insideDoubleQuotes;
-            }
-            if (sbString.charAt(curPos) == '\'' && !insideDoubleQuotes ){
-                insideSingeQuote = !insideSingeQuote;
+        /**
+         * Loads database schemas from statements of two dumps. The schemas
+         * share string pool, which is released together with them.
+         *
+         * @param oldStatements statements of the original dump
+         * @param newStatements statements of the new dump
+         *
+         * @return original and new database schema
+         */
+        private Pair<PgDatabase, PgDatabase> loadStatements(
+                final List<String> oldStatements,
+                final List<String> newStatements) {
+            final StringPool stringPool = new StringPool();
+
+            return new Pair<PgDatabase, PgDatabase>(
+                    loadStatements(oldStatements, stringPool),
+                    loadStatements(newStatements, stringPool));
+        }
+
+        /**
+         * Loads database schema from the statements.
+         *
+         * @param statements statements of the dump
+         * @param stringPool pool of strings used by the database
+         *
+         * @return database schema
+         */
+        private PgDatabase loadStatements(final List<String> statements,
+                final StringPool stringPool) {
+            final PgDatabase database = new PgDatabase(stringPool);
+
+            for (final String statement : statements) {
+                parseStatement(database, classifyStatement(statement));
             }
-            if(!insideDoubleQuotes){
-                if (sbString.charAt(curPos) == '\'') {
-                    isQuoted = !isQuoted;
 
-                    // if quote was escaped by backslash, it's like double quote
-                    if (pos > 0 && sbString.charAt(pos - 1) == '\\') {
-                        isQuoted = !isQuoted;
-                    }
-                } else if (sbString.charAt(curPos) == '$' && !isQuoted) {
-                    final int endPos = sbString.indexOf("$", curPos + 1);
+            database.updateFingerprints();
+
+            return database;
+        }
 
-                    if (endPos == -1) {
-                        return false;
+        /**
+         * Loads database schema from dump file using input stream.
+         *
+         * @param file name of file containing the dump
+         *
+         * @return database schema from dump file
+         */
+        private PgDatabase loadStream(final String file) {
+            FileInputStream fis = null;
+
+            try {
+                fis = new FileInputStream(file);
+
+                return load(fis);
+            } catch (final FileNotFoundException ex) {
+                throw new FileException(MessageFormat.format(
+                        Resources.getString("FileNotFound"), file), ex);
+            } finally {
+                if (fis != null) {
+                    try {
+                        fis.close();
+                    } catch (IOException ex) {
                     }
+                }
+            }
+        }
 
-                    final String tag = sbString.substring(curPos, endPos + 1);
+        /**
+         * Returns charset of the dump.
+         *
+         * @return charset
+         */
+        private Charset getCharset() {
+            try {
+                return Charset.forName(charsetName);
+            } catch (final IllegalArgumentException ex) {
+                throw new UnsupportedOperationException(
+                        Resources.getString("UnsupportedEncoding") + ": "
+                        + charsetName, ex);
+            }
+        }
 
-                    if (!isCorrectTag(tag)) {
-                        return false;
-                    }
+        /**
+         * Returns charset of the dump if the dump can be read from memory
+         * mapped file.
+         *
+         * @return charset or null if the dump must be read using reader
+         */
+        private Charset getMappableCharset() {
+            final Charset charset;
+
+            try {
+                charset = Charset.forName(charsetName);
+            } catch (final IllegalArgumentException ex) {
+                return null;
+            }
 
-                    final int endTagPos = sbString.indexOf(tag, endPos + 1);
+            return MappedStatementLexer.isSupported(charset) ? charset : null;
+        }
 
-                    // if end tag was not found or it was found after the checked
-                    // position, it's quoted
-                    if (endTagPos == -1 || endTagPos > pos) {
-                        return true;
-                    }
+        /**
+         * Loads database schema from statements returned by the lexer. If
+         * more than one parse thread is requested, statements are split on
+         * separate thread and parsed by pool of parse threads, while the
+         * results are still applied to the database in the order of
+         * statements in the dump. Fingerprints of the loaded objects are
+         * computed once all statements are parsed.
+         *
+         * @param lexer lexer returning statements of the dump
+         *
+         * @return database schema from dump file
+         */
+        private PgDatabase load(final StatementLexer lexer) {
+            final PgDatabase database = new PgDatabase();
+
+            if (parseThreads > 1) {
+                StatementPipeline.run(lexer, parseThreads,
+                        statement -> parseStatement(database, statement));
+            } else {
+                String statement = lexer.nextStatement();
 
-                    curPos = endTagPos + tag.length() - 1;
+                while (statement != null) {
+                    parseStatement(database, classifyStatement(statement));
+                    statement = lexer.nextStatement();
                 }
             }
+
+            database.updateFingerprints();
+
+            return database;
         }
 
-        return isQuoted;
-    }
+        /**
+         * Loads database schema from chunks of the dump. If more than one
+         * parse thread is requested, the chunks are split into statements and
+         * classified on pool of parse threads, while the statements are still
+         * applied to the database in the original order.
+         *
+         * @param chunks lexers reading chunks of the dump, each containing
+         *               only whole statements
+         *
+         * @return database schema
+         */
+        private PgDatabase loadChunks(final List<StatementLexer> chunks) {
+            final PgDatabase database = new PgDatabase();
+
+            if (parseThreads > 1) {
+                StatementPipeline.run(chunks, parseThreads,
+                        statement -> parseStatement(database, statement));
+            } else {
+                for (final StatementLexer chunk : chunks) {
+                    for (final ClassifiedStatement statement :
+                            classifyChunk(chunk)) {
+                        parseStatement(database, statement);
+                    }
+                }
+            }
 
-    /**
-     * Checks whether dollar quoting tag is correct.
-     *
-     * @param tag tag to be checked
-     *
-     * @return true if the tag is correct, otherwise false
-     */
-    private static boolean isCorrectTag(final String tag) {
-        return !PATTERN_DOLLAR_TAG.matcher(tag).find();
+            database.updateFingerprints();
+
+            return database;
+        }
+
+        /**
+         * Parses single statement into the database schema.
+         *
+         * @param database            database schema
+         * @param classifiedStatement classified statement
+         */
+        @SuppressWarnings("unchecked")
+        private void parseStatement(final PgDatabase database,
+                final ClassifiedStatement classifiedStatement) {
+            final String statement = classifiedStatement.getStatement();
+            database.countStatement(classifiedStatement.getType());
+
+            switch (classifiedStatement.getType()) {
+                case CREATE_SCHEMA:
+                    CreateSchemaParser.parse(database, statement);
+                    break;
+                case CREATE_EXTENSION:
+                    CreateExtensionParser.parse(database, statement);
+                    break;
+                case SET_SEARCH_PATH:
+                    final Matcher matcher = StatementClassifier
+                            .PATTERN_DEFAULT_SCHEMA.matcher(statement);
+                    matcher.matches();
+                    database.setDefaultSchema(matcher.group(1));
+                    break;
+                case CREATE_TABLE:
+                    CreateTableParser.parse(
+                            database, statement, ignoreSchemaCreation);
+                    break;
+                case ALTER_TABLE:
+                case ALTER_VIEW:
+                    AlterRelationParser.parse(
+                            database, statement, outputIgnoredStatements);
+                    break;
+                case CREATE_SEQUENCE:
+                    CreateSequenceParser.parse(database, statement);
+                    break;
+                case ALTER_SEQUENCE:
+                    AlterSequenceParser.parse(
+                            database, statement, outputIgnoredStatements);
+                    break;
+                case CREATE_INDEX:
+                    CreateIndexParser.parse(database, statement);
+                    break;
+                case CREATE_VIEW:
+                    CreateViewParser.add(database, (Pair<String, PgView>)
+                            classifiedStatement.getParsed(), statement);
+                    break;
+                case CREATE_TRIGGER:
+                    CreateTriggerParser.parse(
+                            database, statement, ignoreSlonyTriggers);
+                    break;
+                case DISABLE_TRIGGER:
+                    CreateTriggerParser.parseDisable(database, statement);
+                    break;
+                case CREATE_FUNCTION:
+                    CreateFunctionParser.add(database, (Pair<String, PgFunction>)
+                            classifiedStatement.getParsed(), statement);
+                    break;
+                case CREATE_PROCEDURE:
+                    CreateProcedureParser.add(database, (Pair<String, PgProcedure>)
+                            classifiedStatement.getParsed(), statement);
+                    break;
+                case CREATE_TYPE:
+                    CreateTypeParser.parse(database, statement);
+                    break;
+                case COMMENT:
+                    CommentParser.parse(
+                            database, statement, outputIgnoredStatements);
+                    break;
+                case SELECT:
+                case INSERT:
+                case UPDATE:
+                case DELETE:
+                    break;
+                case GRANT:
+                case REVOKE:
+                    GrantRevokeParser.parse(database, statement,
+                            outputIgnoredStatements);
+                    break;
+                case CREATE_POLICY:
+                    CreatePolicyParser.parse(database, statement);
+                    break;
+                case CREATE_RULE:
+                    CreateRuleParser.parse(database, statement);
+                    break;
+                case COPY:
+                default:
+                    if (outputIgnoredStatements) {
+                        database.addIgnoredStatement(statement);
+                    }
+            }
+        }
     }
 
     /**
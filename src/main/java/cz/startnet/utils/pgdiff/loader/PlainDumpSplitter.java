@@ -0,0 +1,338 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits plain dump created by pg_dump into chunks that can be parsed
+ * independently. The dump is cut only at object header comments that pg_dump
+ * writes between statements, preceded by empty line, like:
+ * <pre>
+ * --
+ * -- Name: t; Type: TABLE; Schema: public; Owner: postgres
+ * --
+ * </pre>
+ * Data of COPY FROM stdin statements are skipped while headers are searched.
+ * Header comment can also appear inside string constant or block comment, in
+ * that case chunk ending inside the string or comment fails to load with
+ * {@link ChunkBoundaryException}.
+ *
+ * @author fordfrog
+ */
+final class PlainDumpSplitter {
+
+    /**
+     * Minimum size of chunk in bytes.
+     */
+    static final int MIN_CHUNK_SIZE = 64 * 1024;
+    /**
+     * Prefix of object header line.
+     */
+    private static final byte[] NAME = bytes("-- Name: ");
+    /**
+     * Prefix of table data header line.
+     */
+    private static final byte[] DATA_NAME = bytes("-- Data for Name: ");
+    /**
+     * Prefix of header line containing TOC entry written in verbose mode.
+     */
+    private static final byte[] TOC_ENTRY = bytes("-- TOC entry ");
+    /**
+     * Part of header line preceding object type.
+     */
+    private static final byte[] TYPE = bytes("; Type: ");
+    /**
+     * Start of COPY statement line.
+     */
+    private static final byte[] COPY = bytes("COPY ");
+    /**
+     * End of COPY statement line that is followed by data.
+     */
+    private static final byte[] FROM_STDIN = bytes(" FROM stdin;");
+    /**
+     * Line ending data of COPY statement.
+     */
+    private static final byte[] END_OF_COPY = bytes("\\.");
+    /**
+     * Empty line.
+     */
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * Splits the dump into at most given number of chunks of similar size.
+     *
+     * @param buffer    bytes of the dump
+     * @param charset   charset of the dump
+     * @param maxChunks maximum number of chunks
+     *
+     * @return lexers reading the chunks, single lexer reading whole dump if
+     *         the dump contains no headers or is too small
+     */
+    static List<StatementLexer> split(final ByteBuffer buffer,
+            final Charset charset, final int maxChunks) {
+        final int size = buffer.limit();
+        final int chunks = Math.min(maxChunks, size / MIN_CHUNK_SIZE);
+        final List<StatementLexer> lexers = new ArrayList<StatementLexer>();
+        int start = 0;
+
+        for (int i = 1; i < chunks; i++) {
+            final int target = (int) ((long) size * i / chunks);
+
+            if (target <= start) {
+                continue;
+            }
+
+            final int cut = findHeader(buffer, start, target);
+
+            if (cut == -1) {
+                break;
+            }
+
+            lexers.add(new MappedStatementLexer(buffer, start, cut, charset));
+            start = cut;
+        }
+
+        lexers.add(new MappedStatementLexer(buffer, start, size, charset));
+
+        return lexers;
+    }
+
+    /**
+     * Finds first object header starting at or after given position. The
+     * dump is scanned line by line from the start of the chunk, so that data
+     * of COPY FROM stdin statements, which can contain lines looking like
+     * object header, are skipped.
+     *
+     * @param buffer bytes of the dump
+     * @param start  start of the chunk, which must be start of line outside
+     *               of COPY data
+     * @param from   position the search starts at
+     *
+     * @return position of the first line of the header or -1 if no header
+     *         was found
+     */
+    private static int findHeader(final ByteBuffer buffer, final int start,
+            final int from) {
+        final int size = buffer.limit();
+        boolean copyData = false;
+        // pg_dump separates header from previous statement by empty line
+        boolean afterEmptyLine = false;
+        int line = start;
+
+        while (line < size) {
+            final int next = skipLine(buffer, line, false);
+            final int end = next == -1 ? size : next;
+
+            if (copyData) {
+                copyData = !isLine(buffer, line, end, END_OF_COPY);
+            } else if (afterEmptyLine && line >= from
+                    && isHeader(buffer, line)) {
+                return line;
+            } else {
+                copyData = startsWith(buffer, line, COPY)
+                        && endsWith(buffer, line, end, FROM_STDIN);
+            }
+
+            afterEmptyLine = !copyData && isLine(buffer, line, end, EMPTY);
+
+            if (next == -1) {
+                break;
+            }
+
+            line = next;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Checks whether object header starts at given position.
+     *
+     * @param buffer bytes of the dump
+     * @param pos    position of line start
+     *
+     * @return true if object header starts at the position, otherwise false
+     */
+    private static boolean isHeader(final ByteBuffer buffer, final int pos) {
+        int line = skipLine(buffer, pos, true);
+
+        if (line == -1) {
+            return false;
+        }
+
+        if (startsWith(buffer, line, TOC_ENTRY)) {
+            line = skipLine(buffer, line, false);
+
+            if (line == -1) {
+                return false;
+            }
+        }
+
+        final int nameEnd;
+
+        if (startsWith(buffer, line, NAME)) {
+            nameEnd = line + NAME.length;
+        } else if (startsWith(buffer, line, DATA_NAME)) {
+            nameEnd = line + DATA_NAME.length;
+        } else {
+            return false;
+        }
+
+        for (int i = nameEnd; i < buffer.limit() && buffer.get(i) != '\n';
+                i++) {
+            if (startsWith(buffer, i, TYPE)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Skips line starting at given position.
+     *
+     * @param buffer bytes of the dump
+     * @param pos    position of line start
+     * @param empty  whether the line must be empty comment "--"
+     *
+     * @return position of next line or -1 if the line is not empty comment
+     *         although it should be or if there is no next line
+     */
+    private static int skipLine(final ByteBuffer buffer, final int pos,
+            final boolean empty) {
+        final int size = buffer.limit();
+
+        if (empty) {
+            int end = pos + 2;
+
+            if (end >= size || buffer.get(pos) != '-'
+                    || buffer.get(pos + 1) != '-') {
+                return -1;
+            }
+
+            if (buffer.get(end) == '\r') {
+                end++;
+            }
+
+            return end < size && buffer.get(end) == '\n' ? end + 1 : -1;
+        }
+
+        for (int i = pos; i < size; i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Checks whether bytes at given position start with given prefix.
+     *
+     * @param buffer bytes of the dump
+     * @param pos    position
+     * @param prefix prefix
+     *
+     * @return true if the bytes start with the prefix, otherwise false
+     */
+    private static boolean startsWith(final ByteBuffer buffer, final int pos,
+            final byte[] prefix) {
+        if (pos + prefix.length > buffer.limit()) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(pos + i) != prefix[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether the line contains only given text.
+     *
+     * @param buffer bytes of the dump
+     * @param pos    position of line start
+     * @param end    position following the line feed ending the line, or end
+     *               of the dump
+     * @param text   text
+     *
+     * @return true if the line contains only the text, otherwise false
+     */
+    private static boolean isLine(final ByteBuffer buffer, final int pos,
+            final int end, final byte[] text) {
+        return getLineEnd(buffer, pos, end) - pos == text.length
+                && startsWith(buffer, pos, text);
+    }
+
+    /**
+     * Checks whether the line ends with given text.
+     *
+     * @param buffer bytes of the dump
+     * @param pos    position of line start
+     * @param end    position following the line feed ending the line, or end
+     *               of the dump
+     * @param suffix text
+     *
+     * @return true if the line ends with the text, otherwise false
+     */
+    private static boolean endsWith(final ByteBuffer buffer, final int pos,
+            final int end, final byte[] suffix) {
+        final int lineEnd = getLineEnd(buffer, pos, end);
+
+        return lineEnd - pos >= suffix.length
+                && startsWith(buffer, lineEnd - suffix.length, suffix);
+    }
+
+    /**
+     * Returns end of line content without line terminator.
+     *
+     * @param buffer bytes of the dump
+     * @param pos    position of line start
+     * @param end    position following the line feed ending the line, or end
+     *               of the dump
+     *
+     * @return position of line terminator, or end of the dump
+     */
+    private static int getLineEnd(final ByteBuffer buffer, final int pos,
+            final int end) {
+        int lineEnd = end;
+
+        if (lineEnd > pos && buffer.get(lineEnd - 1) == '\n') {
+            lineEnd--;
+        }
+
+        if (lineEnd > pos && buffer.get(lineEnd - 1) == '\r') {
+            lineEnd--;
+        }
+
+        return lineEnd;
+    }
+
+    /**
+     * Returns ASCII bytes of the string.
+     *
+     * @param string string
+     *
+     * @return bytes of the string
+     */
+    private static byte[] bytes(final String string) {
+        return string.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Creates a new instance of PlainDumpSplitter.
+     */
+    private PlainDumpSplitter() {
+    }
+}
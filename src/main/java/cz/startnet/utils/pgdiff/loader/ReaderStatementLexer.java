@@ -0,0 +1,125 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import cz.startnet.utils.pgdiff.Resources;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Statement lexer reading the dump from reader.
+ *
+ * @author fordfrog
+ */
+class ReaderStatementLexer extends StatementLexer {
+
+    /**
+     * Reader the dump is read from.
+     */
+    private final Reader reader;
+    /**
+     * Buffer of characters read from {@link #reader}.
+     */
+    private final char[] buffer = new char[8192];
+    /**
+     * Number of valid characters in {@link #buffer}.
+     */
+    private int bufferLength;
+    /**
+     * Position of next character in {@link #buffer}.
+     */
+    private int bufferPos;
+    /**
+     * Statement that is currently being read.
+     */
+    private final StringBuilder sbStatement = new StringBuilder(1024);
+    /**
+     * Whether the dump is in UTF-8.
+     */
+    private final boolean utf8;
+    /**
+     * Number of bytes per character if the dump is not in UTF-8.
+     */
+    private final int bytesPerChar;
+
+    /**
+     * Creates new instance of ReaderStatementLexer for reader that does not
+     * decode bytes, like reader of SQL that was already decoded. Sizes are
+     * computed as if the SQL was encoded in UTF-8.
+     *
+     * @param reader {@link #reader}
+     */
+    ReaderStatementLexer(final Reader reader) {
+        this(reader, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates new instance of ReaderStatementLexer.
+     *
+     * @param reader  {@link #reader}
+     * @param charset charset the reader decodes the dump from
+     */
+    ReaderStatementLexer(final Reader reader, final Charset charset) {
+        this.reader = reader;
+        utf8 = StandardCharsets.UTF_8.equals(charset);
+        bytesPerChar = charset.canEncode()
+                ? Math.round(charset.newEncoder().averageBytesPerChar()) : 1;
+    }
+
+    @Override
+    void append(final char chr) {
+        if (chr == '\n') {
+            sbStatement.append(LINE_SEPARATOR);
+        } else {
+            sbStatement.append(chr);
+        }
+    }
+
+    @Override
+    String takeStatement() {
+        final String statement = sbStatement.toString();
+        sbStatement.setLength(0);
+
+        return statement;
+    }
+
+    @Override
+    int getByteLength(final char chr) {
+        if (!utf8) {
+            return bytesPerChar;
+        } else if (chr < 0x80) {
+            return 1;
+        } else if (chr < 0x800 || Character.isSurrogate(chr)) {
+            return 2;
+        }
+
+        return 3;
+    }
+
+    @Override
+    int readNext() {
+        if (bufferPos == bufferLength) {
+            try {
+                bufferLength = reader.read(buffer);
+            } catch (final IOException ex) {
+                throw new FileException(
+                        Resources.getString("CannotReadFile"), ex);
+            }
+
+            bufferPos = 0;
+
+            if (bufferLength <= 0) {
+                bufferLength = 0;
+
+                return -1;
+            }
+        }
+
+        return buffer[bufferPos++];
+    }
+}
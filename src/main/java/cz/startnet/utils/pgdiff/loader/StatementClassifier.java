@@ -0,0 +1,220 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import cz.startnet.utils.pgdiff.parsers.TokenizedStatement;
+import java.util.regex.Pattern;
+
+/**
+ * Determines type of statement from its leading keywords. Only the first few
+ * tokens of the statement are read so classification cost does not depend on
+ * the length of the statement.
+ *
+ * @author fordfrog
+ */
+final class StatementClassifier {
+
+    /**
+     * Pattern for parsing default schema (search_path).
+     */
+    static final Pattern PATTERN_DEFAULT_SCHEMA = Pattern.compile(
+            "^SET[\\s]+search_path[\\s]*=[\\s]*\"?([^,\\s\"]+)\"?"
+            + "(?:,[\\s]+.*)?;$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    /**
+     * Pattern for testing whether ALTER TABLE statement disables trigger.
+     */
+    private static final Pattern PATTERN_DISABLE_TRIGGER = Pattern.compile(
+            "ALTER\\s+TABLE+\\s+\"?\\w+\"?.+\"?\\w+\"?\\s+DISABLE+\\s+TRIGGER+"
+            + "\\s+\\w+.*$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    /**
+     * Returns type of the statement.
+     *
+     * @param statement trimmed statement
+     *
+     * @return type of the statement
+     */
+    static StatementType classify(final String statement) {
+        if (statement.isEmpty()) {
+            return StatementType.OTHER;
+        }
+
+        final TokenizedStatement tokens = new TokenizedStatement(statement);
+        final int first = tokens.findToken(0);
+        final int second = tokens.nextToken(first);
+
+        if (isKeyword(tokens, first, "ALTER")) {
+            return classifyAlter(tokens, second);
+        } else if (isKeyword(tokens, first, "CREATE")) {
+            return classifyCreate(tokens, second);
+        } else if (isKeyword(tokens, first, "COPY")) {
+            return StatementType.COPY;
+        } else if (isKeyword(tokens, first, "COMMENT")) {
+            return isKeyword(tokens, second, "ON")
+                    ? StatementType.COMMENT : StatementType.OTHER;
+        } else if (isKeyword(tokens, first, "DELETE")) {
+            return isKeyword(tokens, second, "FROM")
+                    ? StatementType.DELETE : StatementType.OTHER;
+        } else if (isKeyword(tokens, first, "GRANT")) {
+            return StatementType.GRANT;
+        } else if (isKeyword(tokens, first, "INSERT")) {
+            return isKeyword(tokens, second, "INTO")
+                    ? StatementType.INSERT : StatementType.OTHER;
+        } else if (isKeyword(tokens, first, "REVOKE")) {
+            return StatementType.REVOKE;
+        } else if (isKeyword(tokens, first, "SELECT")) {
+            return StatementType.SELECT;
+        } else if (isKeyword(tokens, first, "SET")) {
+            return PATTERN_DEFAULT_SCHEMA.matcher(statement).matches()
+                    ? StatementType.SET_SEARCH_PATH : StatementType.OTHER;
+        } else if (isKeyword(tokens, first, "UPDATE")) {
+            return StatementType.UPDATE;
+        }
+
+        return StatementType.OTHER;
+    }
+
+    /**
+     * Returns type of CREATE statement.
+     *
+     * @param tokens tokens of the statement
+     * @param start  index of token following the CREATE keyword
+     *
+     * @return type of the statement
+     */
+    private static StatementType classifyCreate(
+            final TokenizedStatement tokens, final int start) {
+        if (isKeyword(tokens, start, "OR")
+                && isKeyword(tokens, next(tokens, start), "REPLACE")) {
+            final int token = next(tokens, next(tokens, start));
+
+            if (isKeyword(tokens, token, "MATERIALIZED")) {
+                return isKeyword(tokens, next(tokens, token), "VIEW")
+                        ? StatementType.CREATE_VIEW : StatementType.OTHER;
+            } else if (isKeyword(tokens, token, "VIEW")) {
+                return StatementType.CREATE_VIEW;
+            } else if (isKeyword(tokens, token, "FUNCTION")) {
+                return StatementType.CREATE_FUNCTION;
+            } else if (isKeyword(tokens, token, "PROCEDURE")) {
+                return StatementType.CREATE_PROCEDURE;
+            }
+
+            return StatementType.OTHER;
+        }
+
+        if (isKeyword(tokens, start, "UNIQUE")) {
+            return isKeyword(tokens, next(tokens, start), "INDEX")
+                    ? StatementType.CREATE_INDEX : StatementType.OTHER;
+        } else if (isKeyword(tokens, start, "MATERIALIZED")) {
+            return isKeyword(tokens, next(tokens, start), "VIEW")
+                    ? StatementType.CREATE_VIEW : StatementType.OTHER;
+        }
+
+        int token = start;
+
+        while (isKeyword(tokens, token, "UNLOGGED")
+                || isKeyword(tokens, token, "FOREIGN")) {
+            token = next(tokens, token);
+        }
+
+        if (isKeyword(tokens, token, "TABLE")) {
+            return StatementType.CREATE_TABLE;
+        } else if (token != start) {
+            return StatementType.OTHER;
+        } else if (isKeyword(tokens, token, "EXTENSION")) {
+            return StatementType.CREATE_EXTENSION;
+        } else if (isKeyword(tokens, token, "FUNCTION")) {
+            return StatementType.CREATE_FUNCTION;
+        } else if (isKeyword(tokens, token, "INDEX")) {
+            return StatementType.CREATE_INDEX;
+        } else if (isKeyword(tokens, token, "POLICY")) {
+            return StatementType.CREATE_POLICY;
+        } else if (isKeyword(tokens, token, "PROCEDURE")) {
+            return StatementType.CREATE_PROCEDURE;
+        } else if (isKeyword(tokens, token, "RULE")) {
+            return StatementType.CREATE_RULE;
+        } else if (isKeyword(tokens, token, "SCHEMA")) {
+            return StatementType.CREATE_SCHEMA;
+        } else if (isKeyword(tokens, token, "SEQUENCE")) {
+            return StatementType.CREATE_SEQUENCE;
+        } else if (isKeyword(tokens, token, "TRIGGER")) {
+            return StatementType.CREATE_TRIGGER;
+        } else if (isKeyword(tokens, token, "TYPE")) {
+            return StatementType.CREATE_TYPE;
+        } else if (isKeyword(tokens, token, "VIEW")) {
+            return StatementType.CREATE_VIEW;
+        }
+
+        return StatementType.OTHER;
+    }
+
+    /**
+     * Returns type of ALTER statement.
+     *
+     * @param tokens tokens of the statement
+     * @param start  index of token following the ALTER keyword
+     *
+     * @return type of the statement
+     */
+    private static StatementType classifyAlter(
+            final TokenizedStatement tokens, final int start) {
+        if (isKeyword(tokens, start, "TABLE")) {
+            return PATTERN_DISABLE_TRIGGER.matcher(tokens.getStatement())
+                    .matches()
+                    ? StatementType.DISABLE_TRIGGER : StatementType.ALTER_TABLE;
+        } else if (isKeyword(tokens, start, "SEQUENCE")) {
+            return StatementType.ALTER_SEQUENCE;
+        } else if (isKeyword(tokens, start, "VIEW")) {
+            return StatementType.ALTER_VIEW;
+        }
+
+        return isKeyword(tokens, start, "MATERIALIZED")
+                && isKeyword(tokens, next(tokens, start), "VIEW")
+                ? StatementType.ALTER_VIEW : StatementType.OTHER;
+    }
+
+    /**
+     * Checks whether the token is given keyword followed by whitespace.
+     *
+     * @param tokens  tokens of the statement
+     * @param index   index of the token or -1 if there is no token
+     * @param keyword upper case keyword
+     *
+     * @return true if the token is the keyword, otherwise false
+     */
+    private static boolean isKeyword(final TokenizedStatement tokens,
+            final int index, final String keyword) {
+        if (index == -1) {
+            return false;
+        }
+
+        final int end = tokens.getEnd(index);
+
+        return end < tokens.getStatement().length()
+                && Character.isWhitespace(tokens.getStatement().charAt(end))
+                && tokens.getKeywordId(index)
+                == TokenizedStatement.getKeywordId(keyword);
+    }
+
+    /**
+     * Returns index of token following given token.
+     *
+     * @param tokens tokens of the statement
+     * @param index  index of the token or -1 if there is no token
+     *
+     * @return index of following token or -1 if there is no more token
+     */
+    private static int next(final TokenizedStatement tokens,
+            final int index) {
+        return index == -1 ? -1 : tokens.nextToken(index);
+    }
+
+    /**
+     * Creates a new instance of StatementClassifier.
+     */
+    private StatementClassifier() {
+    }
+}
@@ -0,0 +1,510 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import cz.startnet.utils.pgdiff.Resources;
+import java.text.MessageFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Splits SQL dump into statements in single pass. Quoting, dollar quoting and
+ * comment state is kept across lines so every character of the dump is visited
+ * only once. Comments are removed from the statements and line terminators are
+ * replaced with platform line separator. Subclasses provide the characters of
+ * the dump and collect the characters of statements.
+ *
+ * @author fordfrog
+ */
+abstract class StatementLexer {
+
+    /**
+     * Line separator that is used to join lines of statement.
+     */
+    static final String LINE_SEPARATOR = System.getProperty("line.separator");
+    /**
+     * Pattern for testing whether statement is COPY FROM stdin statement.
+     */
+    private static final Pattern PATTERN_COPY_FROM_STDIN = Pattern.compile(
+            "^COPY\\s.+\\sFROM\\s+STDIN(?:\\s.*)?;$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    /**
+     * Lexer states.
+     */
+    private enum State {
+
+        /**
+         * Plain SQL code.
+         */
+        CODE,
+        /**
+         * Quoted identifier.
+         */
+        DOUBLE_QUOTE,
+        /**
+         * String constant.
+         */
+        SINGLE_QUOTE,
+        /**
+         * String constant with C-style escapes.
+         */
+        ESCAPE_STRING,
+        /**
+         * Character following backslash in string constant with C-style
+         * escapes.
+         */
+        ESCAPED_CHAR,
+        /**
+         * Opening tag of dollar quoted string.
+         */
+        DOLLAR_TAG,
+        /**
+         * Dollar quoted string.
+         */
+        DOLLAR_QUOTE,
+        /**
+         * Comment till end of line.
+         */
+        LINE_COMMENT,
+        /**
+         * Block comment.
+         */
+        BLOCK_COMMENT
+    }
+    /**
+     * Whether line feed should be skipped because it follows carriage return.
+     */
+    private boolean skipLineFeed;
+    /**
+     * Current lexer state.
+     */
+    private State state = State.CODE;
+    /**
+     * Opening tag of dollar quoted string.
+     */
+    private final StringBuilder sbDollarTag = new StringBuilder(16);
+    /**
+     * Number of characters of closing dollar tag that were already matched.
+     */
+    private int dollarTagMatched;
+    /**
+     * Nesting level of block comments.
+     */
+    private int commentDepth;
+    /**
+     * Whether dash was read and it is not known yet whether it starts line
+     * comment.
+     */
+    private boolean pendingDash;
+    /**
+     * Whether slash was read and it is not known yet whether it starts block
+     * comment.
+     */
+    private boolean pendingSlash;
+    /**
+     * Whether star was read in block comment and it is not known yet whether
+     * it ends the block comment.
+     */
+    private boolean pendingStar;
+    /**
+     * Last character of SQL code.
+     */
+    private char lastChar;
+    /**
+     * Last but one character of SQL code.
+     */
+    private char lastButOneChar;
+    /**
+     * Whether last string constant used C-style escapes.
+     */
+    private boolean lastStringEscaped;
+
+    /**
+     * Reads whole statement from the dump. Comments are stripped from the
+     * statement and the statement is trimmed. Data following COPY FROM stdin
+     * statement are skipped without buffering and the number of skipped rows
+     * and bytes is appended to the statement as comment.
+     *
+     * @return whole statement or null if end of input was reached
+     *
+     * @throws ChunkBoundaryException Thrown if input ends inside statement or
+     *                                COPY data.
+     */
+    String nextStatement() {
+        int chr = read();
+
+        while (chr != -1) {
+            if (process((char) chr)) {
+                final String statement = takeStatement().trim();
+
+                if (statement.regionMatches(true, 0, "COPY", 0, 4)
+                        && PATTERN_COPY_FROM_STDIN.matcher(statement)
+                        .matches()) {
+                    return skipCopyData(statement);
+                }
+
+                return statement;
+            }
+
+            chr = read();
+        }
+
+        if (pendingDash) {
+            append('-');
+            pendingDash = false;
+        } else if (pendingSlash) {
+            append('/');
+            pendingSlash = false;
+        }
+
+        final String statement = takeStatement();
+
+        if (statement.trim().isEmpty()) {
+            return null;
+        }
+
+        throw new ChunkBoundaryException(MessageFormat.format(
+                Resources.getString("EndOfStatementNotFound"), statement));
+    }
+
+    /**
+     * Checks whether the lexer is outside of any string constant, quoted
+     * identifier or block comment and no statement was started.
+     *
+     * @return true if the lexer is at the start of statement, otherwise false
+     */
+    boolean isAtStatementStart() {
+        return (state == State.CODE || state == State.LINE_COMMENT)
+                && !pendingDash && !pendingSlash;
+    }
+
+    /**
+     * Skips data of COPY FROM stdin statement till the end of data marker.
+     * Data are read line by line without being stored. If the input ends
+     * before the end of data marker, {@link ChunkBoundaryException} is thrown.
+     *
+     * @param statement COPY FROM stdin statement
+     *
+     * @return the statement followed by comment with number of skipped rows
+     *         and bytes
+     */
+    private String skipCopyData(final String statement) {
+        long rows = 0;
+        long bytes = 0;
+        long lineBytes = 0;
+        // number of characters of the end of data marker matched on the line,
+        // or -1 if the line is not the marker
+        int markerMatched = -1;
+        int chr = readNext();
+
+        // the rest of the line with the statement is not data
+        while (chr != -1 && chr != '\n') {
+            chr = readNext();
+        }
+
+        if (chr != -1) {
+            markerMatched = 0;
+            chr = readNext();
+        }
+
+        while (chr != -1) {
+            lineBytes += getByteLength((char) chr);
+
+            if (chr == '\n') {
+                if (markerMatched == 2) {
+                    break;
+                }
+
+                rows++;
+                bytes += lineBytes;
+                lineBytes = 0;
+                markerMatched = 0;
+            } else if (markerMatched == 0 && chr == '\\'
+                    || markerMatched == 1 && chr == '.') {
+                markerMatched++;
+            } else if (markerMatched != 2 || chr != '\r') {
+                markerMatched = -1;
+            }
+
+            chr = readNext();
+        }
+
+        if (chr == -1 && markerMatched != 2) {
+            throw new ChunkBoundaryException(MessageFormat.format(
+                    Resources.getString("EndOfCopyDataNotFound"), statement));
+        }
+
+        return statement + LINE_SEPARATOR + MessageFormat.format(
+                Resources.getString("CopyDataSkipped"), rows, bytes);
+    }
+
+    /**
+     * Processes single character.
+     *
+     * @param chr character
+     *
+     * @return true if the character ended statement, otherwise false
+     */
+    private boolean process(final char chr) {
+        switch (state) {
+            case CODE:
+                return processCode(chr);
+            case DOUBLE_QUOTE:
+                append(chr);
+
+                if (chr == '"') {
+                    state = State.CODE;
+                }
+
+                return false;
+            case SINGLE_QUOTE:
+            case ESCAPE_STRING:
+                append(chr);
+
+                if (chr == '\'') {
+                    lastStringEscaped = state == State.ESCAPE_STRING;
+                    state = State.CODE;
+                } else if (chr == '\\' && state == State.ESCAPE_STRING) {
+                    state = State.ESCAPED_CHAR;
+                }
+
+                return false;
+            case ESCAPED_CHAR:
+                append(chr);
+                state = State.ESCAPE_STRING;
+
+                return false;
+            case DOLLAR_TAG:
+                if (chr == '$') {
+                    append(chr);
+                    sbDollarTag.append(chr);
+                    dollarTagMatched = 0;
+                    state = State.DOLLAR_QUOTE;
+
+                    return false;
+                } else if (isIdentifierChar(chr)
+                        && (sbDollarTag.length() > 1
+                        || !Character.isDigit(chr))) {
+                    append(chr);
+                    sbDollarTag.append(chr);
+
+                    return false;
+                }
+
+                state = State.CODE;
+
+                return processCode(chr);
+            case DOLLAR_QUOTE:
+                append(chr);
+
+                if (chr == sbDollarTag.charAt(dollarTagMatched)) {
+                    dollarTagMatched++;
+
+                    if (dollarTagMatched == sbDollarTag.length()) {
+                        state = State.CODE;
+                    }
+                } else {
+                    dollarTagMatched = chr == '$' ? 1 : 0;
+                }
+
+                return false;
+            case LINE_COMMENT:
+                if (chr == '\n') {
+                    append(chr);
+                    state = State.CODE;
+                }
+
+                return false;
+            case BLOCK_COMMENT:
+                processBlockComment(chr);
+
+                return false;
+            default:
+                throw new IllegalStateException("Unsupported state " + state);
+        }
+    }
+
+    /**
+     * Processes single character of SQL code.
+     *
+     * @param chr character
+     *
+     * @return true if the character ended statement, otherwise false
+     */
+    private boolean processCode(final char chr) {
+        if (pendingDash) {
+            pendingDash = false;
+
+            if (chr == '-') {
+                state = State.LINE_COMMENT;
+
+                return false;
+            }
+
+            appendCode('-');
+        } else if (pendingSlash) {
+            pendingSlash = false;
+
+            if (chr == '*') {
+                commentDepth = 1;
+                pendingStar = false;
+                state = State.BLOCK_COMMENT;
+
+                return false;
+            }
+
+            appendCode('/');
+        }
+
+        switch (chr) {
+            case '-':
+                pendingDash = true;
+
+                return false;
+            case '/':
+                pendingSlash = true;
+
+                return false;
+            case '"':
+                state = State.DOUBLE_QUOTE;
+                break;
+            case '\'':
+                if (lastChar == '\'' && lastStringEscaped
+                        || (lastChar == 'E' || lastChar == 'e')
+                        && !isIdentifierChar(lastButOneChar)) {
+                    state = State.ESCAPE_STRING;
+                } else {
+                    state = State.SINGLE_QUOTE;
+                }
+
+                break;
+            case '$':
+                if (!isIdentifierChar(lastChar)) {
+                    sbDollarTag.setLength(0);
+                    sbDollarTag.append(chr);
+                    state = State.DOLLAR_TAG;
+                }
+
+                break;
+            default:
+        }
+
+        appendCode(chr);
+
+        return chr == ';';
+    }
+
+    /**
+     * Processes single character of block comment.
+     *
+     * @param chr character
+     */
+    private void processBlockComment(final char chr) {
+        if (chr == '*') {
+            if (pendingSlash) {
+                pendingSlash = false;
+                commentDepth++;
+            } else {
+                pendingStar = true;
+            }
+        } else if (chr == '/') {
+            if (pendingStar) {
+                pendingStar = false;
+                commentDepth--;
+
+                if (commentDepth == 0) {
+                    state = State.CODE;
+                }
+            } else {
+                pendingSlash = true;
+            }
+        } else {
+            pendingStar = false;
+            pendingSlash = false;
+        }
+    }
+
+    /**
+     * Appends character of SQL code to the statement and remembers it as last
+     * character of SQL code.
+     *
+     * @param chr character
+     */
+    private void appendCode(final char chr) {
+        append(chr);
+        lastButOneChar = lastChar;
+        lastChar = chr;
+    }
+
+    /**
+     * Appends character to the statement. Line feed must be replaced with
+     * {@link #LINE_SEPARATOR}.
+     *
+     * @param chr character
+     */
+    abstract void append(char chr);
+
+    /**
+     * Returns statement that was read so far and starts new statement.
+     *
+     * @return statement that was read so far
+     */
+    abstract String takeStatement();
+
+    /**
+     * Returns number of bytes the character occupies in the dump.
+     *
+     * @param chr character returned by {@link #readNext()}
+     *
+     * @return number of bytes
+     */
+    abstract int getByteLength(char chr);
+
+    /**
+     * Reads next character of the dump.
+     *
+     * @return next character or -1 if end of input was reached
+     */
+    abstract int readNext();
+
+    /**
+     * Checks whether the character can be part of identifier.
+     *
+     * @param chr character
+     *
+     * @return true if the character can be part of identifier, otherwise false
+     */
+    private static boolean isIdentifierChar(final char chr) {
+        return chr == '_' || chr == '$' || Character.isLetterOrDigit(chr)
+                || chr >= 0x80;
+    }
+
+    /**
+     * Reads next character from the dump. All kinds of line terminators are
+     * returned as single line feed.
+     *
+     * @return next character or -1 if end of input was reached
+     */
+    private int read() {
+        final int chr = readNext();
+
+        if (skipLineFeed) {
+            skipLineFeed = false;
+
+            if (chr == '\n') {
+                return read();
+            }
+        }
+
+        if (chr == '\r') {
+            skipLineFeed = true;
+
+            return '\n';
+        }
+
+        return chr;
+    }
+}
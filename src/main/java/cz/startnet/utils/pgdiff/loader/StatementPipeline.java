@@ -0,0 +1,217 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Loads statements using producer/consumer pipeline. Statements, or chunks of
+ * statements, are submitted to pool of parse threads. Parsed statements are
+ * handed over to the consumer on the calling thread in the same order as they
+ * appear in the dump, so the resulting database is the same as if the
+ * statements were loaded sequentially.
+ *
+ * @author fordfrog
+ */
+final class StatementPipeline {
+
+    /**
+     * Number of statements per parse thread that can wait in the queue.
+     */
+    private static final int QUEUE_SIZE_PER_THREAD = 64;
+
+    /**
+     * Reads all statements from the lexer, classifies them on pool of parse
+     * threads and passes them to the consumer in original order.
+     *
+     * @param lexer    lexer the statements are read from
+     * @param threads  number of parse threads
+     * @param consumer consumer of classified statements
+     */
+    static void run(final StatementLexer lexer, final int threads,
+            final Consumer<ClassifiedStatement> consumer) {
+        final ExecutorService executor = createExecutor(threads);
+        final BlockingQueue<Future<ClassifiedStatement>> queue =
+                new ArrayBlockingQueue<Future<ClassifiedStatement>>(
+                threads * QUEUE_SIZE_PER_THREAD);
+        final Thread splitter = new Thread(
+                () -> split(lexer, executor, queue), "apgdiff-splitter");
+        splitter.setDaemon(true);
+        splitter.start();
+
+        try {
+            ClassifiedStatement statement = take(queue);
+
+            while (statement != null) {
+                consumer.accept(statement);
+                statement = take(queue);
+            }
+        } finally {
+            splitter.interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads statements of chunks of the dump and classifies them on pool of
+     * parse threads. Statements are passed to the consumer in the order of the
+     * chunks and in the order they appear in each chunk. Every chunk must
+     * contain only whole statements.
+     *
+     * @param chunks   lexers reading chunks of the dump
+     * @param threads  number of parse threads
+     * @param consumer consumer of classified statements
+     */
+    static void run(final List<StatementLexer> chunks, final int threads,
+            final Consumer<ClassifiedStatement> consumer) {
+        final ExecutorService executor = createExecutor(threads);
+        final Deque<Future<List<ClassifiedStatement>>> pending =
+                new ArrayDeque<Future<List<ClassifiedStatement>>>();
+        final Iterator<StatementLexer> iterator = chunks.iterator();
+
+        try {
+            while (true) {
+                while (pending.size() < threads * QUEUE_SIZE_PER_THREAD
+                        && iterator.hasNext()) {
+                    final StatementLexer chunk = iterator.next();
+                    pending.add(executor.submit(
+                            () -> PgDumpLoader.classifyChunk(chunk)));
+                }
+
+                if (pending.isEmpty()) {
+                    break;
+                }
+
+                for (final ClassifiedStatement statement :
+                        get(pending.poll())) {
+                    consumer.accept(statement);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates pool of parse threads.
+     *
+     * @param threads number of parse threads
+     *
+     * @return pool of parse threads
+     */
+    private static ExecutorService createExecutor(final int threads) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable,
+                    "apgdiff-parser-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * Reads statements from the lexer and submits them for classification.
+     * End of input is marked with null statement, failure of the lexer is
+     * passed to the consumer as failed statement.
+     *
+     * @param lexer    lexer the statements are read from
+     * @param executor pool of parse threads
+     * @param queue    queue of submitted statements
+     */
+    @SuppressWarnings("UseSpecificCatch")
+    private static void split(final StatementLexer lexer,
+            final ExecutorService executor,
+            final BlockingQueue<Future<ClassifiedStatement>> queue) {
+        try {
+            try {
+                String statement = lexer.nextStatement();
+
+                while (statement != null) {
+                    final String current = statement;
+                    queue.put(executor.submit(
+                            () -> PgDumpLoader.classifyStatement(current)));
+                    statement = lexer.nextStatement();
+                }
+
+                queue.put(CompletableFuture.completedFuture(null));
+            } catch (final InterruptedException ex) {
+                throw ex;
+            } catch (final Throwable ex) {
+                final CompletableFuture<ClassifiedStatement> failure =
+                        new CompletableFuture<ClassifiedStatement>();
+                failure.completeExceptionally(ex);
+                queue.put(failure);
+            }
+        } catch (final InterruptedException ex) {
+            // consumer stopped reading, there is nobody to report to
+        }
+    }
+
+    /**
+     * Takes next classified statement from the queue.
+     *
+     * @param queue queue of submitted statements
+     *
+     * @return classified statement or null if end of input was reached
+     */
+    private static ClassifiedStatement take(
+            final BlockingQueue<Future<ClassifiedStatement>> queue) {
+        try {
+            return get(queue.take());
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Waits for the result of the future and returns it. Failure of the task
+     * is rethrown.
+     *
+     * @param <T>    type of the result
+     * @param future future
+     *
+     * @return result of the future
+     */
+    private static <T> T get(final Future<T> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException(ex);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            } else if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    /**
+     * Creates a new instance of StatementPipeline.
+     */
+    private StatementPipeline() {
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+/**
+ * Kinds of statements recognized by the loader.
+ *
+ * @author fordfrog
+ */
+public enum StatementType {
+
+    /**
+     * CREATE SCHEMA statement.
+     */
+    CREATE_SCHEMA,
+    /**
+     * CREATE EXTENSION statement.
+     */
+    CREATE_EXTENSION,
+    /**
+     * SET search_path statement.
+     */
+    SET_SEARCH_PATH,
+    /**
+     * CREATE TABLE statement.
+     */
+    CREATE_TABLE,
+    /**
+     * ALTER TABLE statement.
+     */
+    ALTER_TABLE,
+    /**
+     * ALTER VIEW or ALTER MATERIALIZED VIEW statement.
+     */
+    ALTER_VIEW,
+    /**
+     * ALTER TABLE ... DISABLE TRIGGER statement.
+     */
+    DISABLE_TRIGGER,
+    /**
+     * CREATE SEQUENCE statement.
+     */
+    CREATE_SEQUENCE,
+    /**
+     * ALTER SEQUENCE statement.
+     */
+    ALTER_SEQUENCE,
+    /**
+     * CREATE INDEX statement.
+     */
+    CREATE_INDEX,
+    /**
+     * CREATE VIEW or CREATE MATERIALIZED VIEW statement.
+     */
+    CREATE_VIEW,
+    /**
+     * CREATE TRIGGER statement.
+     */
+    CREATE_TRIGGER,
+    /**
+     * CREATE FUNCTION statement.
+     */
+    CREATE_FUNCTION,
+    /**
+     * CREATE PROCEDURE statement.
+     */
+    CREATE_PROCEDURE,
+    /**
+     * CREATE TYPE statement.
+     */
+    CREATE_TYPE,
+    /**
+     * CREATE POLICY statement.
+     */
+    CREATE_POLICY,
+    /**
+     * CREATE RULE statement.
+     */
+    CREATE_RULE,
+    /**
+     * COMMENT ON statement.
+     */
+    COMMENT,
+    /**
+     * GRANT statement.
+     */
+    GRANT,
+    /**
+     * REVOKE statement.
+     */
+    REVOKE,
+    /**
+     * SELECT statement.
+     */
+    SELECT,
+    /**
+     * INSERT INTO statement.
+     */
+    INSERT,
+    /**
+     * UPDATE statement.
+     */
+    UPDATE,
+    /**
+     * DELETE FROM statement.
+     */
+    DELETE,
+    /**
+     * COPY statement.
+     */
+    COPY,
+    /**
+     * Statement that is not supported by the loader.
+     */
+    OTHER
+}
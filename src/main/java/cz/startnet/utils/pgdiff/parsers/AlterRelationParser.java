@@ -54,7 +54,7 @@ public class AlterRelationParser {
         final PgSchema schema = database.getSchema(schemaName);
 
         if (schema == null) {
-            throw new RuntimeException(MessageFormat.format(
+            throw new ObjectNotFoundException(MessageFormat.format(
                     Resources.getString("CannotFindSchema"), schemaName,
                     statement));
         }
@@ -71,7 +71,7 @@ public class AlterRelationParser {
                 return;
             }
 
-            throw new RuntimeException(MessageFormat.format(
+            throw new ObjectNotFoundException(MessageFormat.format(
                     Resources.getString("CannotFindObject"), relName,
                     statement));
         }
@@ -85,10 +85,9 @@ public class AlterRelationParser {
             if (parser.expectOptional("ALTER")) {
                 parseAlterColumn(parser, rel);
             } else if (parser.expectOptional("CLUSTER", "ON")) {
-                rel.setClusterIndexName(
-                        ParserUtils.getObjectName(parser.parseIdentifier()));
+                rel.setClusterIndexName(parser.parseObjectName());
             } else if (parser.expectOptional("OWNER", "TO")) {
-                rel.setOwnerTo(parser.parseIdentifier());
+                rel.setOwnerTo(database.intern(parser.parseIdentifier()));
             } else if (table != null && parser.expectOptional("ADD")) {
                 if (parser.expectOptional("FOREIGN", "KEY")) {
                     parseAddForeignKey(parser, table);
@@ -148,7 +147,7 @@ public class AlterRelationParser {
                             + " ENABLE REPLICA TRIGGER "
                             + parser.parseIdentifier() + ';');
                 } else {
-                    parser.parseIdentifier();
+                    parser.skipIdentifier();
                 }
             } else if (parser.expectOptional("RULE")) {
                 if (outputIgnoredStatements) {
@@ -156,7 +155,7 @@ public class AlterRelationParser {
                             + " ENABLE REPLICA RULE "
                             + parser.parseIdentifier() + ';');
                 } else {
-                    parser.parseIdentifier();
+                    parser.skipIdentifier();
                 }
             } else {
                 parser.throwUnsupportedCommand();
@@ -168,14 +167,14 @@ public class AlterRelationParser {
                             + " ENABLE ALWAYS TRIGGER "
                             + parser.parseIdentifier() + ';');
                 } else {
-                    parser.parseIdentifier();
+                    parser.skipIdentifier();
                 }
             } else if (parser.expectOptional("RULE")) {
                 if (outputIgnoredStatements) {
                     database.addIgnoredStatement("ALTER TABLE " + tableName
                             + " ENABLE RULE " + parser.parseIdentifier() + ';');
                 } else {
-                    parser.parseIdentifier();
+                    parser.skipIdentifier();
                 }
             } else {
                 parser.throwUnsupportedCommand();
@@ -202,14 +201,14 @@ public class AlterRelationParser {
                 database.addIgnoredStatement("ALTER TABLE " + tableName
                         + " DISABLE TRIGGER " + parser.parseIdentifier() + ';');
             } else {
-                parser.parseIdentifier();
+                parser.skipIdentifier();
             }
         } else if (parser.expectOptional("RULE")) {
             if (outputIgnoredStatements) {
                 database.addIgnoredStatement("ALTER TABLE " + tableName
                         + " DISABLE RULE " + parser.parseIdentifier() + ';');
             } else {
-                parser.parseIdentifier();
+                parser.skipIdentifier();
             }
         } else {
             parser.throwUnsupportedCommand();
@@ -225,8 +224,7 @@ public class AlterRelationParser {
      */
     private static void parseAddConstraint(final Parser parser,
             final PgTable table, final PgSchema schema) {
-        final String constraintName =
-                ParserUtils.getObjectName(parser.parseIdentifier());
+        final String constraintName = parser.parseObjectName();
         final PgConstraint constraint = new PgConstraint(constraintName);
         constraint.setTableName(table.getName());
         table.addConstraint(constraint);
@@ -249,15 +247,14 @@ public class AlterRelationParser {
             final PgRelation rel) {
         parser.expectOptional("COLUMN");
 
-        final String columnName =
-                ParserUtils.getObjectName(parser.parseIdentifier());
+        final String columnName = parser.parseObjectName();
 
         if (parser.expectOptional("SET")) {
             if (parser.expectOptional("STATISTICS")) {
                 final PgColumn column = rel.getColumn(columnName);
 
                 if (column == null) {
-                    throw new RuntimeException(MessageFormat.format(
+                    throw new ObjectNotFoundException(MessageFormat.format(
                             Resources.getString("CannotFindTableColumn"),
                             columnName, rel.getName(), parser.getString()));
                 }
@@ -267,7 +264,7 @@ public class AlterRelationParser {
                 if (rel.containsColumn(columnName)) {
                     final PgColumn column = rel.getColumn(columnName);
                     if (column == null) {
-                        throw new RuntimeException(MessageFormat.format(
+                        throw new ObjectNotFoundException(MessageFormat.format(
                                 Resources.getString("CannotFindTableColumn"),
                                 columnName, rel.getName(), parser.getString()));
                     }
@@ -275,7 +272,7 @@ public class AlterRelationParser {
                 } else if (rel.containsInheritedColumn(columnName)) {
                     final PgInheritedColumn inheritedColumn = rel.getInheritedColumn(columnName);
                     if (inheritedColumn == null) {
-                        throw new RuntimeException(MessageFormat.format(
+                        throw new ObjectNotFoundException(MessageFormat.format(
                                 Resources.getString("CannotFindTableColumn"),
                                 columnName, rel.getName(), parser.getString()));
                     }
@@ -293,7 +290,7 @@ public class AlterRelationParser {
                     final PgColumn column = rel.getColumn(columnName);
 
                 if (column == null) {
-                    throw new RuntimeException(MessageFormat.format(
+                    throw new ObjectNotFoundException(MessageFormat.format(
                             Resources.getString("CannotFindTableColumn"),
                             columnName, rel.getName(),
                             parser.getString()));
@@ -304,7 +301,7 @@ public class AlterRelationParser {
                     final PgInheritedColumn column = rel.getInheritedColumn(columnName);
 
                     if (column == null) {
-                        throw new RuntimeException(MessageFormat.format(
+                        throw new ObjectNotFoundException(MessageFormat.format(
                                 Resources.getString("CannotFindTableColumn"),
                                 columnName, rel.getName(),
                                 parser.getString()));
@@ -320,7 +317,7 @@ public class AlterRelationParser {
                 final PgColumn column = rel.getColumn(columnName);
 
                 if (column == null) {
-                    throw new RuntimeException(MessageFormat.format(
+                    throw new ObjectNotFoundException(MessageFormat.format(
                             Resources.getString("CannotFindTableColumn"),
                             columnName, rel.getName(), parser.getString()));
                 }
@@ -359,8 +356,7 @@ public class AlterRelationParser {
         parser.expect("(");
 
         while (!parser.expectOptional(")")) {
-            columnNames.add(
-                    ParserUtils.getObjectName(parser.parseIdentifier()));
+            columnNames.add(parser.parseObjectName());
 
             if (parser.expectOptional(")")) {
                 break;
@@ -399,7 +395,7 @@ public class AlterRelationParser {
                     database.addIgnoredStatement("ALTER TABLE " + sequenceName
                             + " OWNER TO " + parser.parseIdentifier() + ';');
                 } else {
-                    parser.parseIdentifier();
+                    parser.skipIdentifier();
                 }
             } else {
                 parser.throwUnsupportedCommand();
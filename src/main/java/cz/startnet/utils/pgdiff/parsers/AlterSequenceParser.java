@@ -38,7 +38,7 @@ public class AlterSequenceParser {
         final PgSchema schema = database.getSchema(schemaName);
 
         if (schema == null) {
-            throw new RuntimeException(MessageFormat.format(
+            throw new ObjectNotFoundException(MessageFormat.format(
                 Resources.getString("CannotFindSchema"), schemaName,
                 statement));
         }
@@ -47,7 +47,7 @@ public class AlterSequenceParser {
         final PgSequence sequence = schema.getSequence(objectName);
 
         if (sequence == null) {
-            throw new RuntimeException(MessageFormat.format(
+            throw new ObjectNotFoundException(MessageFormat.format(
                 Resources.getString("CannotFindSequence"), sequenceName,
                 statement));
         }
@@ -57,7 +57,8 @@ public class AlterSequenceParser {
                 if (parser.expectOptional("NONE")) {
                     sequence.setOwnerTo(null);
                 } else {
-                    sequence.setOwnerTo(parser.getExpression());
+                    sequence.setOwnerTo(
+                            database.intern(parser.getExpression()));
                 }
             } else if (parser.expectOptional("OWNED", "BY")) {
                 if (parser.expectOptional("NONE")) {
@@ -82,8 +82,7 @@ public class CommentParser {
      */
     private static void parseConstraint(final Parser parser,
             final PgDatabase database) {
-        final String constraintName =
-                ParserUtils.getObjectName(parser.parseIdentifier());
+        final String constraintName = parser.parseObjectName();
 
         parser.expect("ON");
 
@@ -108,7 +107,7 @@ public class CommentParser {
      */
     private static void parseDatabase(final Parser parser,
             final PgDatabase database) {
-        parser.parseIdentifier();
+        parser.skipIdentifier();
         parser.expect("IS");
         database.setComment(getComment(parser));
         parser.expect(";");
@@ -150,8 +149,7 @@ public class CommentParser {
      */
     private static void parseSchema(final Parser parser,
             final PgDatabase database) {
-        final String schemaName =
-                ParserUtils.getObjectName(parser.parseIdentifier());
+        final String schemaName = parser.parseObjectName();
         final PgSchema schema = database.getSchema(schemaName);
 
         parser.expect("IS");
@@ -188,8 +186,7 @@ public class CommentParser {
      */
     private static void parseTrigger(final Parser parser,
             final PgDatabase database) {
-        final String triggerName =
-                ParserUtils.getObjectName(parser.parseIdentifier());
+        final String triggerName = parser.parseObjectName();
 
         parser.expect("ON");
 
@@ -296,8 +293,7 @@ public class CommentParser {
 
             if (!parser.expectOptional(")") && !parser.expectOptional(",")) {
                 parser.setPosition(position);
-                argumentName =
-                        ParserUtils.getObjectName(parser.parseIdentifier());
+                argumentName = parser.parseObjectName();
                 dataType = parser.parseDataType();
             } else {
                 parser.setPosition(position2);
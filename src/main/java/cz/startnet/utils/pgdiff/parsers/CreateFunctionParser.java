@@ -5,6 +5,7 @@
  */
 package cz.startnet.utils.pgdiff.parsers;
 
+import cz.startnet.utils.pgdiff.Pair;
 import cz.startnet.utils.pgdiff.Resources;
 import cz.startnet.utils.pgdiff.schema.PgDatabase;
 import cz.startnet.utils.pgdiff.schema.PgFunction;
@@ -26,25 +27,28 @@ public class CreateFunctionParser {
      */
     public static void parse(final PgDatabase database,
             final String statement) {
+        add(database, parse(statement), statement);
+    }
+
+    /**
+     * Parses CREATE FUNCTION and CREATE OR REPLACE FUNCTION statement without
+     * accessing the database, so it can be called concurrently. The function is
+     * not added to any schema yet, see {@link #add(PgDatabase, Pair, String)}.
+     *
+     * @param statement CREATE FUNCTION statement
+     *
+     * @return pair of optionally schema qualified function name and parsed
+     *         function
+     */
+    public static Pair<String, PgFunction> parse(final String statement) {
         final Parser parser = new Parser(statement);
         parser.expect("CREATE");
         parser.expectOptional("OR", "REPLACE");
         parser.expect("FUNCTION");
 
         final String functionName = parser.parseIdentifier();
-        final String schemaName =
-                ParserUtils.getSchemaName(functionName, database);
-        final PgSchema schema = database.getSchema(schemaName);
-
-        if (schema == null) {
-            throw new RuntimeException(MessageFormat.format(
-                    Resources.getString("CannotFindSchema"), schemaName,
-                    statement));
-        }
-
         final PgFunction function = new PgFunction();
         function.setName(ParserUtils.getObjectName(functionName));
-        schema.addFunction(function);
 
         parser.expect("(");
 
@@ -73,8 +77,7 @@ public class CreateFunctionParser {
                     && !parser.expectOptional("=")
                     && !parser.expectOptional("DEFAULT")) {
                 parser.setPosition(position);
-                argumentName =
-                        ParserUtils.getObjectName(parser.parseIdentifier());
+                argumentName = parser.parseObjectName();
                 dataType = parser.parseDataType();
             } else {
                 parser.setPosition(position2);
@@ -104,6 +107,31 @@ public class CreateFunctionParser {
         }
 
         function.setBody(parser.getRest());
+
+        return new Pair<String, PgFunction>(functionName, function);
+    }
+
+    /**
+     * Adds function parsed by {@link #parse(String)} to its schema.
+     *
+     * @param database  database
+     * @param function  pair of optionally schema qualified function name and
+     *                  parsed function
+     * @param statement CREATE FUNCTION statement
+     */
+    public static void add(final PgDatabase database,
+            final Pair<String, PgFunction> function, final String statement) {
+        final String schemaName =
+                ParserUtils.getSchemaName(function.getL(), database);
+        final PgSchema schema = database.getSchema(schemaName);
+
+        if (schema == null) {
+            throw new ObjectNotFoundException(MessageFormat.format(
+                    Resources.getString("CannotFindSchema"), schemaName,
+                    statement));
+        }
+
+        schema.addFunction(function.getR());
     }
 
     /**
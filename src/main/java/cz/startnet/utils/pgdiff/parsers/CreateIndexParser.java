@@ -34,8 +34,7 @@ public class CreateIndexParser {
         parser.expectOptional("CONCURRENTLY");
         parser.expectOptional("IF", "NOT", "EXISTS");
         
-        final String indexName =
-                ParserUtils.getObjectName(parser.parseIdentifier());
+        final String indexName = parser.parseObjectName();
 
         parser.expect("ON");
 
@@ -46,7 +45,7 @@ public class CreateIndexParser {
         final PgSchema schema = database.getSchema(schemaName);
 
         if (schema == null) {
-            throw new RuntimeException(MessageFormat.format(
+            throw new ObjectNotFoundException(MessageFormat.format(
                     Resources.getString("CannotFindSchema"), schemaName,
                     statement));
         }
@@ -63,7 +62,7 @@ public class CreateIndexParser {
             view.addIndex(index);
         }
         else {
-            throw new RuntimeException(MessageFormat.format(
+            throw new ObjectNotFoundException(MessageFormat.format(
                     Resources.getString("CannotFindObject"), tableName,
                     statement));
         }
@@ -29,14 +29,14 @@ public class CreatePolicyParser {
 
         final PgSchema schema = database.getSchema(schemaName);
         if (schema == null) {
-            throw new RuntimeException(MessageFormat.format(
+            throw new ObjectNotFoundException(MessageFormat.format(
                     Resources.getString("CannotFindSchema"), schemaName,
                     statement));
         }
 
         final PgTable table = schema.getTable(ParserUtils.getObjectName(qualifiedTableName));
         if (table == null) {
-            throw new RuntimeException(MessageFormat.format(
+            throw new ObjectNotFoundException(MessageFormat.format(
                     Resources.getString("CannotFindTable"), qualifiedTableName,
                     statement));
         }
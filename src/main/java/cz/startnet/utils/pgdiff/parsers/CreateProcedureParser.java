@@ -5,6 +5,7 @@
  */
 package cz.startnet.utils.pgdiff.parsers;
 
+import cz.startnet.utils.pgdiff.Pair;
 import cz.startnet.utils.pgdiff.Resources;
 import cz.startnet.utils.pgdiff.schema.PgDatabase;
 import cz.startnet.utils.pgdiff.schema.PgProcedure;
@@ -26,25 +27,29 @@ public class CreateProcedureParser {
      */
     public static void parse(final PgDatabase database,
             final String statement) {
+        add(database, parse(statement), statement);
+    }
+
+    /**
+     * Parses CREATE PROCEDURE and CREATE OR REPLACE PROCEDURE statement
+     * without accessing the database, so it can be called concurrently. The
+     * procedure is not added to any schema yet, see
+     * {@link #add(PgDatabase, Pair, String)}.
+     *
+     * @param statement CREATE PROCEDURE statement
+     *
+     * @return pair of optionally schema qualified procedure name and parsed
+     *         procedure
+     */
+    public static Pair<String, PgProcedure> parse(final String statement) {
         final Parser parser = new Parser(statement);
         parser.expect("CREATE");
         parser.expectOptional("OR", "REPLACE");
         parser.expect("PROCEDURE");
 
         final String procedureName = parser.parseIdentifier();
-        final String schemaName =
-                ParserUtils.getSchemaName(procedureName, database);
-        final PgSchema schema = database.getSchema(schemaName);
-
-        if (schema == null) {
-            throw new RuntimeException(MessageFormat.format(
-                    Resources.getString("CannotFindSchema"), schemaName,
-                    statement));
-        }
-
         final PgProcedure procedure = new PgProcedure();
         procedure.setName(ParserUtils.getObjectName(procedureName));
-        schema.addProcedure(procedure);
 
         parser.expect("(");
 
@@ -73,8 +78,7 @@ public class CreateProcedureParser {
                     && !parser.expectOptional("=")
                     && !parser.expectOptional("DEFAULT")) {
                 parser.setPosition(position);
-                argumentName =
-                        ParserUtils.getObjectName(parser.parseIdentifier());
+                argumentName = parser.parseObjectName();
                 dataType = parser.parseDataType();
             } else {
                 parser.setPosition(position2);
@@ -104,6 +108,31 @@ public class CreateProcedureParser {
         }
 
         procedure.setBody(parser.getRest());
+
+        return new Pair<String, PgProcedure>(procedureName, procedure);
+    }
+
+    /**
+     * Adds procedure parsed by {@link #parse(String)} to its schema.
+     *
+     * @param database  database
+     * @param procedure  pair of optionally schema qualified procedure name and
+     *                  parsed procedure
+     * @param statement CREATE PROCEDURE statement
+     */
+    public static void add(final PgDatabase database,
+            final Pair<String, PgProcedure> procedure, final String statement) {
+        final String schemaName =
+                ParserUtils.getSchemaName(procedure.getL(), database);
+        final PgSchema schema = database.getSchema(schemaName);
+
+        if (schema == null) {
+            throw new ObjectNotFoundException(MessageFormat.format(
+                    Resources.getString("CannotFindSchema"), schemaName,
+                    statement));
+        }
+
+        schema.addProcedure(procedure.getR());
     }
 
     /**
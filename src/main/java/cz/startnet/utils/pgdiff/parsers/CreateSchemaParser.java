@@ -27,8 +27,7 @@ public class CreateSchemaParser {
         parser.expect("CREATE", "SCHEMA");
 
         if (parser.expectOptional("AUTHORIZATION")) {
-            final PgSchema schema = new PgSchema(
-                    ParserUtils.getObjectName(parser.parseIdentifier()));
+            final PgSchema schema = new PgSchema(parser.parseObjectName());
             database.addSchema(schema);
             schema.setAuthorization(schema.getName());
 
@@ -38,13 +37,11 @@ public class CreateSchemaParser {
                 schema.setDefinition(definition);
             }
         } else {
-            final PgSchema schema = new PgSchema(
-                    ParserUtils.getObjectName(parser.parseIdentifier()));
+            final PgSchema schema = new PgSchema(parser.parseObjectName());
             database.addSchema(schema);
 
             if (parser.expectOptional("AUTHORIZATION")) {
-                schema.setAuthorization(
-                        ParserUtils.getObjectName(parser.parseIdentifier()));
+                schema.setAuthorization(parser.parseObjectName());
             }
 
             final String definition = parser.getRest();
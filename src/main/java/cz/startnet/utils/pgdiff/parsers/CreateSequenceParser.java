@@ -38,7 +38,7 @@ public class CreateSequenceParser {
         final PgSchema schema = database.getSchema(schemaName);
 
         if (schema == null) {
-            throw new RuntimeException(MessageFormat.format(
+            throw new ObjectNotFoundException(MessageFormat.format(
                     Resources.getString("CannotFindSchema"), schemaName,
                     statement));
         }
@@ -66,8 +66,7 @@ public class CreateSequenceParser {
                 if (parser.expectOptional("NONE")) {
                     sequence.setOwnedBy(null);
                 } else {
-                    sequence.setOwnedBy(ParserUtils.getObjectName(
-                            parser.parseIdentifier()));
+                    sequence.setOwnedBy(parser.parseObjectName());
                 }
             } else if (parser.expectOptional("NO")) {
                 if (parser.expectOptional("MINVALUE")) {
@@ -48,7 +48,7 @@ public class CreateTableParser {
                 schema = new PgSchema(schemaName);
                 database.addSchema(schema);
             } else {
-                throw new RuntimeException(MessageFormat.format(
+                throw new ObjectNotFoundException(MessageFormat.format(
                     Resources.getString("CannotFindSchema"), schemaName,
                     statement));
             }
@@ -71,7 +71,7 @@ public class CreateTableParser {
                 throw new ParserException(
                         Resources.getString("CreateTableUniqueNotSupported"));
             } else {
-                parseColumn(parser, table);
+                parseColumn(database, parser, table);
             }
 
             if (parser.expectOptional(")")) {
@@ -120,9 +120,10 @@ public class CreateTableParser {
 
         while (!parser.expectOptional(")")) {
          final String parsedString = parser.parseIdentifier();
-         final String tableName = ParserUtils.getObjectName(parsedString);
+         final String tableName =
+                 database.intern(ParserUtils.getObjectName(parsedString));
          final String schemaName = parsedString.contains(".") ?
-             ParserUtils.getSecondObjectName(parsedString) :
+             database.intern(ParserUtils.getSecondObjectName(parsedString)) :
              database.getDefaultSchema().getName();
             table.addInherits(schemaName, tableName);
             if (parser.expectOptional(")")) {
@@ -142,23 +143,27 @@ public class CreateTableParser {
     private static void parseConstraint(final Parser parser,
             final PgTable table) {
         final PgConstraint constraint = new PgConstraint(
-                ParserUtils.getObjectName(parser.parseIdentifier()));
+                parser.parseObjectName());
         table.addConstraint(constraint);
         constraint.setDefinition(parser.getExpression());
         constraint.setTableName(table.getName());
     }
 
     /**
-     * Parses column definition.
+     * Parses column definition. Name and data type of the column are taken
+     * from string pool of the database.
      *
-     * @param parser parser
-     * @param table  table
+     * @param database database
+     * @param parser   parser
+     * @param table    table
      */
-    private static void parseColumn(final Parser parser, final PgTable table) {
-        final PgColumn column = new PgColumn(
-                ParserUtils.getObjectName(parser.parseIdentifier()));
+    private static void parseColumn(final PgDatabase database,
+            final Parser parser, final PgTable table) {
+        final PgColumn column = new PgColumn(database.intern(
+                parser.parseObjectName()));
         table.addColumn(column);
         column.parseDefinition(parser.getExpression());
+        column.setType(database.intern(column.getType()));
     }
 
     /**
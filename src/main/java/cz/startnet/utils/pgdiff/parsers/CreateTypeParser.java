@@ -40,7 +40,7 @@ public class CreateTypeParser {
         final PgSchema schema = database.getSchema(schemaName);
 
         if (schema == null) {
-            throw new RuntimeException(MessageFormat.format(
+            throw new ObjectNotFoundException(MessageFormat.format(
                     Resources.getString("CannotFindSchema"), schemaName,
                     statement));
         }
@@ -86,8 +86,7 @@ public class CreateTypeParser {
      * @param type type
      */
     private static void parseColumn(final Parser parser, final PgType type) {
-        final PgColumn column = new PgColumn(
-                ParserUtils.getObjectName(parser.parseIdentifier()));
+        final PgColumn column = new PgColumn(parser.parseObjectName());
         type.addColumn(column);
         column.parseDefinition(parser.getExpression());
     }
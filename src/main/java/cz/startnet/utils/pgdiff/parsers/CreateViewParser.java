@@ -5,6 +5,7 @@
  */
 package cz.startnet.utils.pgdiff.parsers;
 
+import cz.startnet.utils.pgdiff.Pair;
 import cz.startnet.utils.pgdiff.Resources;
 import cz.startnet.utils.pgdiff.schema.PgDatabase;
 import cz.startnet.utils.pgdiff.schema.PgSchema;
@@ -28,6 +29,19 @@ public class CreateViewParser {
      */
     public static void parse(final PgDatabase database,
             final String statement) {
+        add(database, parse(statement), statement);
+    }
+
+    /**
+     * Parses CREATE VIEW statement without accessing the database, so it can
+     * be called concurrently. The view is not added to any schema yet, see
+     * {@link #add(PgDatabase, Pair, String)}.
+     *
+     * @param statement CREATE VIEW statement
+     *
+     * @return pair of optionally schema qualified view name and parsed view
+     */
+    public static Pair<String, PgView> parse(final String statement) {
         final Parser parser = new Parser(statement);
 
         parser.expect("CREATE");
@@ -54,8 +68,7 @@ public class CreateViewParser {
 
         if (columnsExist) {
             while (!parser.expectOptional(")")) {
-                columnNames.add(
-                        ParserUtils.getObjectName(parser.parseIdentifier()));
+                columnNames.add(parser.parseObjectName());
                 parser.expectOptional(",");
             }
         }
@@ -72,16 +85,30 @@ public class CreateViewParser {
         view.setDeclaredColumnNames(columnNames);
         view.setQuery(query);
 
-        final String schemaName = ParserUtils.getSchemaName(viewName, database);
+        return new Pair<String, PgView>(viewName, view);
+    }
+
+    /**
+     * Adds view parsed by {@link #parse(String)} to its schema.
+     *
+     * @param database  database
+     * @param view      pair of optionally schema qualified view name and
+     *                  parsed view
+     * @param statement CREATE VIEW statement
+     */
+    public static void add(final PgDatabase database,
+            final Pair<String, PgView> view, final String statement) {
+        final String schemaName =
+                ParserUtils.getSchemaName(view.getL(), database);
         final PgSchema schema = database.getSchema(schemaName);
 
         if (schema == null) {
-            throw new RuntimeException(MessageFormat.format(
+            throw new ObjectNotFoundException(MessageFormat.format(
                     Resources.getString("CannotFindSchema"), schemaName,
                     statement));
         }
 
-        schema.addRelation(view);
+        schema.addRelation(view.getR());
     }
 
     /**
@@ -159,12 +159,12 @@ public class GrantRevokeParser {
 
         parser.expectOptional("GROUP");
         String role = parser.parseIdentifier();
-        roles.add(role);
+        roles.add(database.intern(role));
         while (role != null) {
             if (parser.expectOptional(",")) {
                 parser.expectOptional("GROUP");
                 role = parser.parseIdentifier();
-                roles.add(role);
+                roles.add(database.intern(role));
             } else {
                 role = null;
             }
@@ -189,7 +189,7 @@ public class GrantRevokeParser {
                 final PgSchema schema = database.getSchema(schemaName);
 
                 if (schema == null) {
-                    throw new RuntimeException(MessageFormat.format(
+                    throw new ObjectNotFoundException(MessageFormat.format(
                             Resources.getString("CannotFindSchema"),
                             schemaName, statement));
                 }
@@ -198,7 +198,7 @@ public class GrantRevokeParser {
                 final PgView view = schema.getView(objectName);
 
                 if (table == null && view == null)
-                  throw new RuntimeException(MessageFormat.format(
+                  throw new ObjectNotFoundException(MessageFormat.format(
                           Resources.getString("CannotFindObject"), name,
                           statement));
 
@@ -213,7 +213,7 @@ public class GrantRevokeParser {
                                 final PgColumn column = rel
                                         .getColumn(columnName);
                                 if (column == null) {
-                                    throw new RuntimeException(
+                                    throw new ObjectNotFoundException(
                                             MessageFormat.format(
                                                     Resources
                                                             .getString("CannotFindTableColumn"),
@@ -263,7 +263,7 @@ public class GrantRevokeParser {
                 final PgSchema schema = database.getSchema(schemaName);
 
                 if (schema == null) {
-                    throw new RuntimeException(MessageFormat.format(
+                    throw new ObjectNotFoundException(MessageFormat.format(
                             Resources.getString("CannotFindSchema"),
                             schemaName, statement));
                 }
@@ -272,7 +272,7 @@ public class GrantRevokeParser {
                 final PgSequence sequence = schema.getSequence(objectName);
 
                 if (sequence == null) {
-                    throw new RuntimeException(MessageFormat.format(
+                    throw new ObjectNotFoundException(MessageFormat.format(
                             Resources.getString("CannotFindSequence"), name,
                             statement));
                 }
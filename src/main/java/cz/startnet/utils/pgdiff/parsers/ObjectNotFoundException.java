@@ -0,0 +1,30 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.parsers;
+
+/**
+ * Thrown if statement refers to schema, relation or column that has not been
+ * loaded.
+ *
+ * @author fordfrog
+ */
+public class ObjectNotFoundException extends RuntimeException {
+
+    /**
+     * Serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an instance of {@code ObjectNotFoundException} with the
+     * specified detail message.
+     *
+     * @param msg the detail message
+     */
+    public ObjectNotFoundException(final String msg) {
+        super(msg);
+    }
+}
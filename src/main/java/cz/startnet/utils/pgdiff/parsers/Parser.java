@@ -21,6 +21,10 @@ public final class Parser {
      * String to be parsed.
      */
     private String string;
+    /**
+     * Tokens of the string.
+     */
+    private final TokenizedStatement tokens;
     /**
      * Current position.
      */
@@ -32,7 +36,17 @@ public final class Parser {
      * @param string {@link #string}
      */
     public Parser(final String string) {
-        this.string = string;
+        this(new TokenizedStatement(string));
+    }
+
+    /**
+     * Creates new instance of Parser for already tokenized statement.
+     *
+     * @param tokens {@link #tokens}
+     */
+    public Parser(final TokenizedStatement tokens) {
+        this.tokens = tokens;
+        this.string = tokens.getStatement();
         skipWhitespace();
     }
 
@@ -61,19 +75,9 @@ public final class Parser {
      * @return true if word was found, otherwise false
      */
     public boolean expect(final String word, final boolean optional) {
-        final int wordEnd = position + word.length();
+        final int wordEnd = findWordEnd(word);
 
-        if (wordEnd <= string.length()
-                && string.substring(position, wordEnd).equalsIgnoreCase(word)
-                && (wordEnd == string.length()
-                || Character.isWhitespace(string.charAt(wordEnd))
-                || string.charAt(wordEnd) == '('
-                || string.charAt(wordEnd) == ')'
-                || string.charAt(wordEnd) == ';'
-                || string.charAt(wordEnd) == ','
-                || string.charAt(wordEnd) == '['
-                || "(".equals(word) || ",".equals(word) || "[".equals(word)
-                || "]".equals(word))) {
+        if (wordEnd != -1) {
             position = wordEnd;
             skipWhitespace();
 
@@ -94,6 +98,85 @@ public final class Parser {
                 word, position + 1, string.substring(position, dumpEndPosition)));
     }
 
+    /**
+     * Checks whether the string contains given word on current position.
+     * Keywords are compared with token starting at current position using
+     * their keyword ids, other words and positions inside tokens are compared
+     * by characters, without allocating.
+     *
+     * @param word word to check
+     *
+     * @return position following the word or -1 if the word was not found
+     */
+    private int findWordEnd(final String word) {
+        if (word.length() == 1) {
+            return findCharEnd(word.charAt(0));
+        }
+
+        final int keywordId = TokenizedStatement.getKeywordId(word);
+
+        if (keywordId >= 0) {
+            final int token = tokens.findToken(position);
+
+            if (token != -1 && tokens.getKeywordId(token)
+                    != TokenizedStatement.UNKNOWN_KEYWORD) {
+                return tokens.getKeywordId(token) == keywordId
+                        ? tokens.getEnd(token) : -1;
+            }
+        }
+
+        final int wordEnd = position + word.length();
+
+        if (wordEnd <= string.length()
+                && string.regionMatches(true, position, word, 0, word.length())
+                && (wordEnd == string.length()
+                || TokenizedStatement.isWordEnd(string.charAt(wordEnd))
+                || "(".equals(word) || ",".equals(word) || "[".equals(word)
+                || "]".equals(word))) {
+            return wordEnd;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Checks whether the string contains given single character word on
+     * current position.
+     *
+     * @param chr single character word
+     *
+     * @return position following the word or -1 if the word was not found
+     */
+    private int findCharEnd(final char chr) {
+        if (position == string.length()
+                || Character.toUpperCase(string.charAt(position))
+                != Character.toUpperCase(chr)
+                && Character.toLowerCase(string.charAt(position))
+                != Character.toLowerCase(chr)) {
+            return -1;
+        }
+
+        final int wordEnd = position + 1;
+
+        return wordEnd == string.length()
+                || TokenizedStatement.isWordEnd(string.charAt(wordEnd))
+                || chr == '(' || chr == ',' || chr == '[' || chr == ']'
+                ? wordEnd : -1;
+    }
+
+    /**
+     * Checks whether string contains at current position the word. If the
+     * word is found, position is moved at first non-whitespace character
+     * following the word.
+     *
+     * @param word word
+     *
+     * @return true if the word was found, otherwise false
+     */
+    public boolean expectOptional(final String word) {
+        return expect(word, true);
+    }
+
     /**
      * Checks whether string contains at current position sequence of the words.
      *
@@ -141,52 +224,152 @@ public final class Parser {
      * @return parsed identifier
      */
     public String parseIdentifier() {
-        String identifier = parseIdentifierInternal();
+        final int startPos = position;
+        boolean lowerCase = skipIdentifierPart();
 
         while (string.charAt(position) == '.') {
             position++;
-            identifier += '.' + parseIdentifierInternal();
+            lowerCase &= skipIdentifierPart();
         }
 
+        // the identifier is copied from the string only once, unless some of
+        // its unquoted parts have to be converted to lowercase
+        final String identifier = lowerCase
+                ? string.substring(startPos, position)
+                : toLowerCaseIdentifier(startPos, position);
+
         skipWhitespace();
 
         return identifier;
     }
 
     /**
-     * Parses single part of the identifier.
+     * Skips identifier at current position without copying it from the
+     * string. Position is placed at next first non-whitespace character.
+     */
+    public void skipIdentifier() {
+        skipIdentifierPart();
+
+        while (string.charAt(position) == '.') {
+            position++;
+            skipIdentifierPart();
+        }
+
+        skipWhitespace();
+    }
+
+    /**
+     * Parses optionally qualified identifier from current position and returns
+     * only its last part, without quotes if it is quoted or converted to
+     * lowercase if it is not quoted. Only the returned part is copied from the
+     * string. Position is placed at next first non-whitespace character.
      *
-     * @return parsed identifier
+     * @return name of the object, same as
+     *         {@code ParserUtils.getObjectName(parseIdentifier())} would return
      */
-    private String parseIdentifierInternal() {
-        final boolean quoted = string.charAt(position) == '"';
+    public String parseObjectName() {
+        int partPos = position;
+        boolean lowerCase = skipIdentifierPart();
 
-        if (quoted) {
+        while (string.charAt(position) == '.') {
+            position++;
+            partPos = position;
+            lowerCase = skipIdentifierPart();
+        }
+
+        final String objectName;
+
+        if (string.charAt(partPos) == '"') {
+            objectName = string.substring(partPos + 1, position - 1);
+        } else if (lowerCase) {
+            objectName = string.substring(partPos, position);
+        } else {
+            objectName = string.substring(partPos, position)
+                    .toLowerCase(Locale.ENGLISH);
+        }
+
+        skipWhitespace();
+
+        return objectName;
+    }
+
+    /**
+     * Skips single part of the identifier.
+     *
+     * @return true if the part is quoted or it does not contain characters
+     *         that could be converted to lowercase, otherwise false
+     */
+    private boolean skipIdentifierPart() {
+        if (string.charAt(position) == '"') {
             final int endPos = string.indexOf('"', position + 1);
-            final String result = string.substring(position, endPos + 1);
+
+            if (endPos == -1) {
+                throw new ParserException(MessageFormat.format(
+                        Resources.getString("CannotParseStringExpectedWord"),
+                        string, "\"", position + 1,
+                        string.substring(position)));
+            }
+
             position = endPos + 1;
 
-            return result;
-        } else {
-            int endPos = position;
+            return true;
+        }
 
-            for (; endPos < string.length(); endPos++) {
-                final char chr = string.charAt(endPos);
+        boolean lowerCase = true;
 
-                if (Character.isWhitespace(chr) || chr == ',' || chr == ')'
-                        || chr == '(' || chr == ';' || chr == '.') {
-                    break;
-                }
+        for (; position < string.length(); position++) {
+            final char chr = string.charAt(position);
+
+            if (Character.isWhitespace(chr) || chr == ',' || chr == ')'
+                    || chr == '(' || chr == ';' || chr == '.') {
+                break;
+            } else if (chr >= 'A' && chr <= 'Z' || chr >= 0x80) {
+                lowerCase = false;
             }
+        }
 
-            final String result =
-                    string.substring(position, endPos).toLowerCase(
-                    Locale.ENGLISH);
+        return lowerCase;
+    }
 
-            position = endPos;
+    /**
+     * Returns identifier with unquoted parts converted to lowercase.
+     *
+     * @param startPos start position of the identifier
+     * @param endPos   end position of the identifier, exclusive
+     *
+     * @return identifier
+     */
+    private String toLowerCaseIdentifier(final int startPos,
+            final int endPos) {
+        final StringBuilder sbIdentifier = new StringBuilder(endPos - startPos);
+        int partPos = startPos;
 
-            return result;
+        while (partPos < endPos) {
+            int partEnd;
+
+            if (string.charAt(partPos) == '"') {
+                partEnd = string.indexOf('"', partPos + 1) + 1;
+                sbIdentifier.append(string, partPos, partEnd);
+            } else {
+                partEnd = string.indexOf('.', partPos);
+
+                if (partEnd == -1 || partEnd > endPos) {
+                    partEnd = endPos;
+                }
+
+                sbIdentifier.append(string.substring(partPos, partEnd)
+                        .toLowerCase(Locale.ENGLISH));
+            }
+
+            if (partEnd < endPos) {
+                sbIdentifier.append('.');
+                partEnd++;
+            }
+
+            partPos = partEnd;
         }
+
+        return sbIdentifier.toString();
     }
 
     /**
@@ -338,11 +521,21 @@ public final class Parser {
                     string.substring(position, position + 20)));
         }
 
-        final String result = string.substring(position, endPos).trim();
+        // trimmed in place, same as String.trim() would do
+        int startPos = position;
+        int trimmedEnd = endPos;
+
+        while (startPos < trimmedEnd && string.charAt(startPos) <= ' ') {
+            startPos++;
+        }
+
+        while (trimmedEnd > startPos && string.charAt(trimmedEnd - 1) <= ' ') {
+            trimmedEnd--;
+        }
 
         position = endPos;
 
-        return result;
+        return string.substring(startPos, trimmedEnd);
     }
 
     /**
@@ -482,40 +675,77 @@ public final class Parser {
                     string.substring(position, position + 20)));
         }
 
-        String dataType = string.substring(position, endPos);
+        final int startPos = position;
+        final String dataType;
 
         position = endPos;
         skipWhitespace();
 
-        if ("character".equalsIgnoreCase(dataType)
+        if (isWord(startPos, endPos, "character")
                 && expectOptional("varying")) {
             dataType = "character varying";
-        } else if ("double".equalsIgnoreCase(dataType)
+        } else if (isWord(startPos, endPos, "double")
                 && expectOptional("precision")) {
             dataType = "double precision";
+        } else {
+            dataType = string.substring(startPos, endPos);
         }
 
-        final boolean timestamp = "timestamp".equalsIgnoreCase(dataType)
-                || "time".equalsIgnoreCase(dataType);
+        final boolean timestamp = isWord(startPos, endPos, "timestamp")
+                || isWord(startPos, endPos, "time");
+        // builder is created only for data types with modifiers
+        StringBuilder sbDataType = null;
 
         if (string.charAt(position) == '(') {
-            dataType += getExpression();
+            sbDataType = new StringBuilder(dataType);
+            sbDataType.append(getExpression());
         }
 
         if (timestamp) {
             if (expectOptional("with", "time", "zone")) {
-                dataType += " with time zone";
+                sbDataType = append(sbDataType, dataType, " with time zone");
             } else if (expectOptional("without", "time", "zone")) {
-                dataType += " without time zone";
+                sbDataType =
+                        append(sbDataType, dataType, " without time zone");
             }
         }
 
         if (expectOptional("[")) {
             expect("]");
-            dataType += "[]";
+            sbDataType = append(sbDataType, dataType, "[]");
         }
 
-        return dataType;
+        return sbDataType == null ? dataType : sbDataType.toString();
+    }
+
+    /**
+     * Checks whether the part of the string equals to the word, ignoring case.
+     *
+     * @param startPos start position of the part
+     * @param endPos   end position of the part, exclusive
+     * @param word     word
+     *
+     * @return true if the part equals to the word, otherwise false
+     */
+    private boolean isWord(final int startPos, final int endPos,
+            final String word) {
+        return endPos - startPos == word.length()
+                && string.regionMatches(true, startPos, word, 0, word.length());
+    }
+
+    /**
+     * Appends suffix to the data type.
+     *
+     * @param sbDataType data type builder or null if it was not created yet
+     * @param dataType   data type the builder should be created with
+     * @param suffix     suffix
+     *
+     * @return data type builder
+     */
+    private static StringBuilder append(final StringBuilder sbDataType,
+            final String dataType, final String suffix) {
+        return (sbDataType == null ? new StringBuilder(dataType) : sbDataType)
+                .append(suffix);
     }
 
     /**
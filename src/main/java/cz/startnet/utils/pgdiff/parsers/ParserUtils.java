@@ -72,7 +72,7 @@ public class ParserUtils {
         if (names.length < 2) {
             return database.getDefaultSchema().getName();
         } else {
-            return names[0];
+            return database.intern(names[0]);
         }
     }
 
@@ -0,0 +1,404 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.parsers;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Statement split into tokens. Token is either single punctuation character
+ * '(', ')', ';', ',' or '[', or sequence of characters up to the next
+ * whitespace or punctuation character. Tokens are stored in single array as
+ * type, start, end and keyword id, so checking whether the token is given
+ * keyword is only integer comparison. Tokens are read lazily, only at the
+ * positions that were requested, so expressions and long statement bodies that
+ * the parser skips are not tokenized. Keyword id of token is
+ * looked up when it is requested for the first time.
+ *
+ * @author fordfrog
+ */
+public final class TokenizedStatement {
+
+    /**
+     * Token type of word.
+     */
+    public static final int WORD = 0;
+    /**
+     * Token type of punctuation character.
+     */
+    public static final int PUNCTUATION = 1;
+    /**
+     * Keyword id of token that is not keyword.
+     */
+    public static final int NO_KEYWORD = -1;
+    /**
+     * Keyword id of token that contains non-ASCII characters. Such token
+     * might still equal to some keyword when compared ignoring case, so it
+     * must be compared by characters.
+     */
+    public static final int UNKNOWN_KEYWORD = -2;
+    /**
+     * Keyword id of word token that was not looked up yet.
+     */
+    private static final int NOT_LOOKED_UP = -3;
+    /**
+     * Keywords that get keyword id. Keyword id is index in this array.
+     */
+    private static final String[] KEYWORDS = {"ADD", "AFTER", "ALL", "ALTER",
+        "ALWAYS", "AS", "AUTHORIZATION", "BEFORE", "BY", "CACHE", "CASCADE",
+        "CHECK", "CLUSTER", "COLUMN", "COMMENT", "CONCURRENTLY", "CONSTRAINT",
+        "COPY", "CREATE", "CYCLE", "DATABASE", "DEFAULT", "DELETE", "DISABLE",
+        "EACH", "ENABLE", "ENUM", "EXECUTE", "EXISTS", "EXTENDED", "EXTENSION",
+        "EXTERNAL", "FOR", "FORCE", "FOREIGN", "FROM", "FUNCTION", "GRANT",
+        "GROUP", "IF", "IN", "INCREMENT", "INDEX", "INHERITS", "INOUT",
+        "INSERT", "INTO", "IS", "KEY", "LEVEL", "MAIN", "MATERIALIZED",
+        "MAXVALUE", "MINVALUE", "NEW", "NO", "NONE", "NOT", "NULL", "OF",
+        "OIDS", "OLD", "ON", "ONLY", "OR", "OUT", "OWNED", "OWNER",
+        "PARTITION", "PLAIN", "POLICY", "PRECISION", "PRIMARY", "PRIVILEGES",
+        "PROCEDURE", "PUBLIC", "RECURSIVE", "REPLACE", "REPLICA", "RESTRICT",
+        "REVOKE", "ROW", "RULE", "SCHEMA", "SECURITY", "SELECT", "SEQUENCE",
+        "SERVER", "SET", "START", "STATEMENT", "STATISTICS", "STORAGE",
+        "TABLE", "TABLESPACE", "TEMPORARY", "TIME", "TO", "TRIGGER",
+        "TRUNCATE", "TYPE", "UNIQUE", "UNLOGGED", "UPDATE", "USING",
+        "VARIADIC", "VARYING", "VERSION", "VIEW", "WHEN", "WITH", "WITHOUT",
+        "ZONE"};
+    /**
+     * Keyword ids of keywords in upper case and lower case, so that the words
+     * used by parsers are looked up without converting their case.
+     */
+    private static final Map<String, Integer> KEYWORD_IDS =
+            new HashMap<String, Integer>(KEYWORDS.length * 4);
+    /**
+     * Length of the longest keyword.
+     */
+    private static final int MAX_KEYWORD_LENGTH;
+    /**
+     * Initial number of tokens the token array can hold.
+     */
+    private static final int INITIAL_TOKENS = 16;
+    /**
+     * Number of ints used by single token.
+     */
+    private static final int TOKEN_SIZE = 4;
+    /**
+     * Offset of token type.
+     */
+    private static final int TYPE = 0;
+    /**
+     * Offset of token start.
+     */
+    private static final int START = 1;
+    /**
+     * Offset of token end.
+     */
+    private static final int END = 2;
+    /**
+     * Offset of token keyword id.
+     */
+    private static final int KEYWORD = 3;
+    /**
+     * Tokenized statement.
+     */
+    private final String statement;
+    /**
+     * Tokens, {@link #TOKEN_SIZE} ints per token.
+     */
+    private int[] tokens;
+    /**
+     * Number of tokens.
+     */
+    private int count;
+    /**
+     * Index of last token that was found by position.
+     */
+    private int lastFound;
+
+    static {
+        int maxLength = 0;
+
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            final String keyword = KEYWORDS[i];
+            KEYWORD_IDS.put(keyword, i);
+            KEYWORD_IDS.put(keyword.toLowerCase(Locale.ENGLISH), i);
+            maxLength = Math.max(maxLength, keyword.length());
+        }
+
+        MAX_KEYWORD_LENGTH = maxLength;
+    }
+
+    /**
+     * Creates new instance of TokenizedStatement.
+     *
+     * @param statement {@link #statement}
+     */
+    public TokenizedStatement(final String statement) {
+        this.statement = statement;
+        tokens = new int[INITIAL_TOKENS * TOKEN_SIZE];
+    }
+
+    /**
+     * Getter for {@link #statement}.
+     *
+     * @return {@link #statement}
+     */
+    public String getStatement() {
+        return statement;
+    }
+
+    /**
+     * Returns keyword id of the word.
+     *
+     * @param word word
+     *
+     * @return keyword id or {@link #NO_KEYWORD} if the word is not keyword
+     */
+    public static int getKeywordId(final String word) {
+        final Integer keywordId = KEYWORD_IDS.get(word);
+
+        if (keywordId != null) {
+            return keywordId;
+        }
+
+        final int result = getKeywordId(word, 0, word.length());
+
+        return result == UNKNOWN_KEYWORD ? NO_KEYWORD : result;
+    }
+
+    /**
+     * Returns index of token starting at given position. The token is read
+     * from the statement if it was not read yet.
+     *
+     * @param position position in the statement
+     *
+     * @return index of the token or -1 if no token starts at the position
+     */
+    public int findToken(final int position) {
+        if (lastFound < count && getStart(lastFound) == position) {
+            return lastFound;
+        } else if (lastFound + 1 < count
+                && getStart(lastFound + 1) == position) {
+            return ++lastFound;
+        }
+
+        int low = 0;
+        int high = count - 1;
+
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int start = getStart(middle);
+
+            if (start < position) {
+                low = middle + 1;
+            } else if (start > position) {
+                high = middle - 1;
+            } else {
+                lastFound = middle;
+
+                return middle;
+            }
+        }
+
+        // parts of the statement the parser skipped are not tokenized
+        if (!isTokenStart(position)) {
+            return -1;
+        }
+
+        readToken(low, position);
+        lastFound = low;
+
+        return low;
+    }
+
+    /**
+     * Returns index of token following given token.
+     *
+     * @param index index of token
+     *
+     * @return index of following token or -1 if there is no more token
+     */
+    public int nextToken(final int index) {
+        int position = getEnd(index);
+
+        while (position < statement.length()
+                && Character.isWhitespace(statement.charAt(position))) {
+            position++;
+        }
+
+        return position < statement.length() ? findToken(position) : -1;
+    }
+
+    /**
+     * Returns type of the token.
+     *
+     * @param index index of the token
+     *
+     * @return {@link #WORD} or {@link #PUNCTUATION}
+     */
+    public int getType(final int index) {
+        return tokens[index * TOKEN_SIZE + TYPE];
+    }
+
+    /**
+     * Returns start position of the token.
+     *
+     * @param index index of the token
+     *
+     * @return start position of the token
+     */
+    public int getStart(final int index) {
+        return tokens[index * TOKEN_SIZE + START];
+    }
+
+    /**
+     * Returns end position of the token.
+     *
+     * @param index index of the token
+     *
+     * @return end position of the token, exclusive
+     */
+    public int getEnd(final int index) {
+        return tokens[index * TOKEN_SIZE + END];
+    }
+
+    /**
+     * Returns keyword id of the token.
+     *
+     * @param index index of the token
+     *
+     * @return keyword id, {@link #NO_KEYWORD} or {@link #UNKNOWN_KEYWORD}
+     */
+    public int getKeywordId(final int index) {
+        final int offset = index * TOKEN_SIZE;
+
+        if (tokens[offset + KEYWORD] == NOT_LOOKED_UP) {
+            tokens[offset + KEYWORD] = getKeywordId(statement,
+                    tokens[offset + START], tokens[offset + END]);
+        }
+
+        return tokens[offset + KEYWORD];
+    }
+
+    /**
+     * Checks whether token starts at the position.
+     *
+     * @param position position in the statement
+     *
+     * @return true if token starts at the position, otherwise false
+     */
+    private boolean isTokenStart(final int position) {
+        if (position >= statement.length()) {
+            return false;
+        }
+
+        final char chr = statement.charAt(position);
+
+        return !Character.isWhitespace(chr) && (position == 0
+                || isPunctuation(chr)
+                || isWordEnd(statement.charAt(position - 1)));
+    }
+
+    /**
+     * Checks whether the character ends word token.
+     *
+     * @param chr character
+     *
+     * @return true if the character is whitespace or punctuation character,
+     *         otherwise false
+     */
+    static boolean isWordEnd(final char chr) {
+        return Character.isWhitespace(chr) || isPunctuation(chr);
+    }
+
+    /**
+     * Checks whether the character is punctuation token.
+     *
+     * @param chr character
+     *
+     * @return true if the character is punctuation token, otherwise false
+     */
+    private static boolean isPunctuation(final char chr) {
+        return chr == '(' || chr == ')' || chr == ';' || chr == ','
+                || chr == '[';
+    }
+
+    /**
+     * Reads token starting at the position and inserts it to the tokens.
+     *
+     * @param index    index the token is inserted at
+     * @param position start position of the token
+     */
+    private void readToken(final int index, final int position) {
+        int end = position + 1;
+        final int type;
+
+        if (isPunctuation(statement.charAt(position))) {
+            type = PUNCTUATION;
+        } else {
+            while (end < statement.length()
+                    && !isWordEnd(statement.charAt(end))) {
+                end++;
+            }
+
+            type = WORD;
+        }
+
+        if (count * TOKEN_SIZE == tokens.length) {
+            tokens = Arrays.copyOf(tokens, tokens.length * 2);
+        }
+
+        final int offset = index * TOKEN_SIZE;
+
+        if (index < count) {
+            System.arraycopy(tokens, offset, tokens, offset + TOKEN_SIZE,
+                    (count - index) * TOKEN_SIZE);
+        }
+
+        tokens[offset + TYPE] = type;
+        tokens[offset + START] = position;
+        tokens[offset + END] = end;
+        tokens[offset + KEYWORD] =
+                type == WORD ? NOT_LOOKED_UP : NO_KEYWORD;
+        count++;
+    }
+
+    /**
+     * Returns keyword id of part of the string.
+     *
+     * @param string string
+     * @param start  start position of the part
+     * @param end    end position of the part, exclusive
+     *
+     * @return keyword id, {@link #NO_KEYWORD} or {@link #UNKNOWN_KEYWORD}
+     */
+    private static int getKeywordId(final String string, final int start,
+            final int end) {
+        final char[] upperCase = new char[Math.min(end - start,
+                MAX_KEYWORD_LENGTH)];
+
+        for (int i = start; i < end; i++) {
+            final char chr = string.charAt(i);
+
+            if (chr >= 0x80) {
+                return UNKNOWN_KEYWORD;
+            } else if (isWordEnd(chr)) {
+                return NO_KEYWORD;
+            } else if (i - start < upperCase.length) {
+                upperCase[i - start] =
+                        chr >= 'a' && chr <= 'z' ? (char) (chr - 32) : chr;
+            }
+        }
+
+        if (end - start > MAX_KEYWORD_LENGTH) {
+            return NO_KEYWORD;
+        }
+
+        final Integer keywordId = KEYWORD_IDS.get(new String(upperCase));
+
+        return keywordId == null ? NO_KEYWORD : keywordId;
+    }
+}
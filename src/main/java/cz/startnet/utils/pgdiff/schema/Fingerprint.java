@@ -0,0 +1,218 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+/**
+ * 128-bit hash of the content of schema object. Fingerprint of object
+ * containing other objects is computed from fingerprints of the contained
+ * objects, so two objects with the same fingerprint can be treated as equal
+ * without comparing the objects they contain. Fingerprints are stable, they
+ * depend only on the content of the objects.
+ *
+ * @author fordfrog
+ */
+public final class Fingerprint {
+
+    /**
+     * High 64 bits of the hash.
+     */
+    private final long high;
+    /**
+     * Low 64 bits of the hash.
+     */
+    private final long low;
+
+    /**
+     * Creates a new instance of Fingerprint.
+     *
+     * @param high {@link #high}
+     * @param low  {@link #low}
+     */
+    private Fingerprint(final long high, final long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Checks whether both fingerprints are known and equal.
+     *
+     * @param first  first fingerprint or null
+     * @param second second fingerprint or null
+     *
+     * @return true if the fingerprints are not null and equal, otherwise false
+     */
+    public static boolean matches(final Fingerprint first,
+            final Fingerprint second) {
+        return first != null && first.equals(second);
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (this == object) {
+            return true;
+        } else if (!(object instanceof Fingerprint)) {
+            return false;
+        }
+
+        final Fingerprint fingerprint = (Fingerprint) object;
+
+        return high == fingerprint.high && low == fingerprint.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (low ^ low >>> 32);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+
+    /**
+     * Computes fingerprint from sequence of values. Each value is added
+     * together with its length or kind, so different sequences of values
+     * cannot produce the same input of the hash.
+     */
+    public static final class Builder {
+
+        /**
+         * Multiplier of the first lane, FNV-1a 64-bit prime.
+         */
+        private static final long PRIME_1 = 0x100000001b3L;
+        /**
+         * Multiplier of the second lane, golden ratio.
+         */
+        private static final long PRIME_2 = 0x9e3779b97f4a7c15L;
+        /**
+         * Marker of null value.
+         */
+        private static final long NULL = 0x6a09e667f3bcc909L;
+        /**
+         * First lane of the hash.
+         */
+        private long lane1 = 0xcbf29ce484222325L;
+        /**
+         * Second lane of the hash.
+         */
+        private long lane2 = 0x3c6ef372fe94f82bL;
+
+        /**
+         * Adds string value.
+         *
+         * @param value value or null
+         *
+         * @return this builder
+         */
+        public Builder add(final String value) {
+            if (value == null) {
+                return add(NULL);
+            }
+
+            add(value.length());
+
+            for (int i = 0; i < value.length(); i++) {
+                final char chr = value.charAt(i);
+                lane1 = (lane1 ^ chr) * PRIME_1;
+                lane2 = Long.rotateLeft(lane2 + chr * PRIME_2, 31);
+            }
+
+            return this;
+        }
+
+        /**
+         * Adds boolean value.
+         *
+         * @param value value
+         *
+         * @return this builder
+         */
+        public Builder add(final boolean value) {
+            return add(value ? 1L : 0L);
+        }
+
+        /**
+         * Adds boolean value that might be unknown.
+         *
+         * @param value value or null
+         *
+         * @return this builder
+         */
+        public Builder add(final Boolean value) {
+            return value == null ? add(NULL) : add(value.booleanValue());
+        }
+
+        /**
+         * Adds integer value that might be unknown.
+         *
+         * @param value value or null
+         *
+         * @return this builder
+         */
+        public Builder add(final Integer value) {
+            return value == null ? add(NULL) : add(value.longValue());
+        }
+
+        /**
+         * Adds fingerprint of contained object.
+         *
+         * @param fingerprint fingerprint or null
+         *
+         * @return this builder
+         */
+        public Builder add(final Fingerprint fingerprint) {
+            if (fingerprint == null) {
+                return add(NULL);
+            }
+
+            return add(fingerprint.high).add(fingerprint.low);
+        }
+
+        /**
+         * Adds long value.
+         *
+         * @param value value
+         *
+         * @return this builder
+         */
+        public Builder add(final long value) {
+            lane1 = (lane1 ^ value) * PRIME_1;
+            lane1 ^= lane1 >>> 32;
+            lane2 = Long.rotateLeft(lane2 ^ value * PRIME_2, 27) * 5
+                    + 0x52dce729L;
+
+            return this;
+        }
+
+        /**
+         * Creates fingerprint from the values added so far.
+         *
+         * @return fingerprint
+         */
+        public Fingerprint build() {
+            return new Fingerprint(mix(lane1 ^ Long.rotateLeft(lane2, 17)),
+                    mix(lane2 + lane1));
+        }
+
+        /**
+         * Mixes bits of the value, finalizer of MurmurHash3.
+         *
+         * @param value value
+         *
+         * @return mixed value
+         */
+        private static long mix(final long value) {
+            long result = value;
+            result ^= result >>> 33;
+            result *= 0xff51afd7ed558ccdL;
+            result ^= result >>> 33;
+            result *= 0xc4ceb93fe53e94d3L;
+            result ^= result >>> 33;
+
+            return result;
+        }
+    }
+}
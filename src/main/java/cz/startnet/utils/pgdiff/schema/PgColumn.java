@@ -72,6 +72,10 @@ public class PgColumn {
      * Generated.
      */
     private String generated;
+    /**
+     * Fingerprint of the column, null until it is computed.
+     */
+    private Fingerprint fingerprint;
 
     /**
      * Creates a new PgColumn object.
@@ -307,4 +311,32 @@ public class PgColumn {
     public void setGenerated(final String generated) {
         this.generated = generated;
     }
+
+    /**
+     * Getter for {@link #fingerprint}.
+     *
+     * @return {@link #fingerprint}
+     */
+    public Fingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Computes {@link #fingerprint} from the content of the column.
+     *
+     * @return {@link #fingerprint}
+     */
+    Fingerprint updateFingerprint() {
+        final Fingerprint.Builder builder = new Fingerprint.Builder();
+        builder.add(name).add(type).add(defaultValue).add(nullValue)
+                .add(statistics).add(storage).add(comment).add(generated);
+
+        for (final PgColumnPrivilege privilege : privileges) {
+            privilege.addFingerprint(builder);
+        }
+
+        fingerprint = builder.build();
+
+        return fingerprint;
+    }
 }
@@ -205,4 +205,15 @@ public class PgColumnPrivilege {
         }
     }
 
+    /**
+     * Adds content of the privilege to the fingerprint.
+     *
+     * @param builder fingerprint builder
+     */
+    void addFingerprint(final Fingerprint.Builder builder) {
+        builder.add(roleName).add(select).add(insert).add(update)
+                .add(references).add(selectWithGrantOption)
+                .add(insertWithGrantOption).add(updateWithGrantOption)
+                .add(referencesWithGrantOption);
+    }
 }
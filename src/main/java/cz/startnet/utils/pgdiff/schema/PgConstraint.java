@@ -36,6 +36,10 @@ public class PgConstraint {
      * Comment.
      */
     private String comment;
+    /**
+     * Fingerprint of the constraint, null until it is computed.
+     */
+    private Fingerprint fingerprint;
 
     /**
      * Creates a new PgConstraint object.
@@ -48,16 +52,19 @@ public class PgConstraint {
 
     /**
      * Creates and returns SQL for creation of the constraint.
+     *
+     * @param useIfExists whether IF EXISTS and IF NOT EXISTS should be used
+     *
      * @return created SQL
      */
-    public String getCreationSQL() {
+    public String getCreationSQL(final boolean useIfExists) {
         final StringBuilder sbSQL = new StringBuilder(100);
         sbSQL.append("ALTER TABLE ");
-        sbSQL.append(PgDiffUtils.getDropIfExists());
+        sbSQL.append(PgDiffUtils.getDropIfExists(useIfExists));
         sbSQL.append(PgDiffUtils.getQuotedName(getTableName()));
         sbSQL.append(System.getProperty("line.separator"));
         sbSQL.append("\tADD CONSTRAINT ");
-        sbSQL.append(PgDiffUtils.getCreateIfNotExists());
+        sbSQL.append(PgDiffUtils.getCreateIfNotExists(useIfExists));
         sbSQL.append(PgDiffUtils.getQuotedName(getName()));
         sbSQL.append(' ');
         sbSQL.append(getDefinition());
@@ -116,16 +123,19 @@ public class PgConstraint {
 
     /**
      * Creates and returns SQL for dropping the constraint.
+     *
+     * @param useIfExists whether IF EXISTS should be used
+     *
      * @return created SQL
      */
-    public String getDropSQL() {
+    public String getDropSQL(final boolean useIfExists) {
         final StringBuilder sbSQL = new StringBuilder(100);
         sbSQL.append("ALTER TABLE ");
-        sbSQL.append(PgDiffUtils.getDropIfExists());
+        sbSQL.append(PgDiffUtils.getDropIfExists(useIfExists));
         sbSQL.append(PgDiffUtils.getQuotedName(getTableName()));
         sbSQL.append(System.getProperty("line.separator"));
         sbSQL.append("\tDROP CONSTRAINT ");
-        sbSQL.append(PgDiffUtils.getDropIfExists());
+        sbSQL.append(PgDiffUtils.getDropIfExists(useIfExists));
         sbSQL.append(PgDiffUtils.getQuotedName(getName()));
         sbSQL.append(';');
 
@@ -210,4 +220,26 @@ public class PgConstraint {
         return (getClass().getName() + "|" + definition + "|" + name + "|"
                 + tableName).hashCode();
     }
+
+    /**
+     * Getter for {@link #fingerprint}.
+     *
+     * @return {@link #fingerprint}
+     */
+    public Fingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Computes {@link #fingerprint} from the content of the constraint.
+     *
+     * @return {@link #fingerprint}
+     */
+    Fingerprint updateFingerprint() {
+        final Fingerprint.Builder builder = new Fingerprint.Builder();
+        builder.add(name).add(tableName).add(definition).add(comment);
+        fingerprint = builder.build();
+
+        return fingerprint;
+    }
 }
@@ -5,10 +5,14 @@
  */
 package cz.startnet.utils.pgdiff.schema;
 
+import cz.startnet.utils.pgdiff.loader.StatementType;
 import cz.startnet.utils.pgdiff.parsers.ParserException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -39,15 +43,47 @@ public class PgDatabase {
      * List of extensions.
      */
     private final List<PgExtension> extensions = new ArrayList<PgExtension>();
+    /**
+     * Number of loaded statements per statement type.
+     */
+    private final Map<StatementType, Integer> statementCounts =
+            new EnumMap<StatementType, Integer>(StatementType.class);
+    /**
+     * Pool of strings repeating in the schema.
+     */
+    private final StringPool stringPool;
 
     /**
-     * Creates a new PgDatabase object.
+     * Creates a new PgDatabase object with its own string pool.
      */
     public PgDatabase() {
-        schemas.add(new PgSchema("public"));
+        this(new StringPool());
+    }
+
+    /**
+     * Creates a new PgDatabase object using given string pool. The pool can
+     * be shared with other databases, so that equal strings in the databases
+     * are the same instances.
+     *
+     * @param stringPool {@link #stringPool}
+     */
+    public PgDatabase(final StringPool stringPool) {
+        this.stringPool = stringPool;
+        schemas.add(new PgSchema(stringPool.intern("public")));
         defaultSchema = schemas.get(0);
     }
 
+    /**
+     * Returns instance of the string from {@link #stringPool}.
+     *
+     * @param string string or null
+     *
+     * @return pooled string equal to {@code string}, or null
+     */
+    public String intern(final String string) {
+        return stringPool.intern(string);
+    }
+
     /**
      * Getter for {@link #comment}.
      *
@@ -102,6 +138,25 @@ public class PgDatabase {
         ignoredStatements.add(ignoredStatement);
     }
 
+    /**
+     * Getter for {@link #statementCounts}. The map cannot be modified.
+     *
+     * @return {@link #statementCounts}
+     */
+    public Map<StatementType, Integer> getStatementCounts() {
+        return Collections.unmodifiableMap(statementCounts);
+    }
+
+    /**
+     * Increments number of loaded statements of given type.
+     *
+     * @param type statement type
+     */
+    public void countStatement(final StatementType type) {
+        final Integer count = statementCounts.get(type);
+        statementCounts.put(type, count == null ? 1 : count + 1);
+    }
+
     /**
      * Returns schema of given name or null if the schema has not been found. If
      * schema name is null then default schema is returned.
@@ -133,6 +188,26 @@ public class PgDatabase {
         return Collections.unmodifiableList(schemas);
     }
 
+    /**
+     * Removes all schemas whose names are not in {@code names}.
+     *
+     * @param names names of schemas that should be kept
+     */
+    public void retainSchemas(final Collection<String> names) {
+        schemas.removeIf(schema -> !names.contains(schema.getName()));
+    }
+
+    /**
+     * Computes fingerprints of all schemas and the objects in them. The
+     * fingerprints are not updated when the objects are modified later, so
+     * this method should be called once the database is loaded completely.
+     */
+    public void updateFingerprints() {
+        for (final PgSchema schema : schemas) {
+            schema.updateFingerprint();
+        }
+    }
+
     /**
      * Adds {@code schema} to the lists of schemas.
      *
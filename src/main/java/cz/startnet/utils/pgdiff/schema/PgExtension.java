@@ -99,12 +99,14 @@ public class PgExtension {
     /**
      * Returns creation SQL of the function.
      *
+     * @param useIfExists whether IF NOT EXISTS should be used
+     *
      * @return creation SQL
      */
-    public String getCreationSQL() {
+    public String getCreationSQL(final boolean useIfExists) {
         final StringBuilder sbSQL = new StringBuilder();
         sbSQL.append("CREATE EXTENSION ");
-        sbSQL.append(PgDiffUtils.getCreateIfNotExists());
+        sbSQL.append(PgDiffUtils.getCreateIfNotExists(useIfExists));
         sbSQL.append(PgDiffUtils.getQuotedName(name));
         if (schema != null) {
             sbSQL.append(" SCHEMA ");
@@ -34,6 +34,10 @@ public class PgIndex {
      * Comment.
      */
     private String comment;
+    /**
+     * Fingerprint of the index, null until it is computed.
+     */
+    private Fingerprint fingerprint;
 
     /**
      * Creates a new PgIndex object.
@@ -65,9 +69,11 @@ public class PgIndex {
     /**
      * Creates and returns SQL for creation of the index.
      *
+     * @param useIfExists whether IF NOT EXISTS should be used
+     *
      * @return created SQL
      */
-    public String getCreationSQL() {
+    public String getCreationSQL(final boolean useIfExists) {
         final StringBuilder sbSQL = new StringBuilder(100);
         sbSQL.append("CREATE ");
 
@@ -76,7 +82,7 @@ public class PgIndex {
         }
 
         sbSQL.append("INDEX ");
-        sbSQL.append(PgDiffUtils.getCreateIfNotExists());        
+        sbSQL.append(PgDiffUtils.getCreateIfNotExists(useIfExists));        
         sbSQL.append(PgDiffUtils.getQuotedName(getName()));
         sbSQL.append(" ON ");
         sbSQL.append(PgDiffUtils.getQuotedName(getTableName()));
@@ -118,10 +124,13 @@ public class PgIndex {
     /**
      * Creates and returns SQL statement for dropping the index.
      *
+     * @param useIfExists whether IF EXISTS should be used
+     *
      * @return created SQL statement
      */
-    public String getDropSQL() {
-        return "DROP INDEX " + PgDiffUtils.getDropIfExists() + PgDiffUtils.getQuotedName(getName()) + ";";
+    public String getDropSQL(final boolean useIfExists) {
+        return "DROP INDEX " + PgDiffUtils.getDropIfExists(useIfExists)
+                + PgDiffUtils.getQuotedName(getName()) + ";";
     }
 
     /**
@@ -212,4 +221,27 @@ public class PgIndex {
     public void setUnique(final boolean unique) {
         this.unique = unique;
     }
+
+    /**
+     * Getter for {@link #fingerprint}.
+     *
+     * @return {@link #fingerprint}
+     */
+    public Fingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Computes {@link #fingerprint} from the content of the index.
+     *
+     * @return {@link #fingerprint}
+     */
+    Fingerprint updateFingerprint() {
+        final Fingerprint.Builder builder = new Fingerprint.Builder();
+        builder.add(name).add(tableName).add(definition).add(unique)
+                .add(comment);
+        fingerprint = builder.build();
+
+        return fingerprint;
+    }
 }
@@ -74,4 +74,14 @@ package cz.startnet.utils.pgdiff.schema;
     public boolean getNullValue() {
         return nullValue;
     }
+
+    /**
+     * Adds content of the inherited column to the fingerprint.
+     *
+     * @param builder fingerprint builder
+     */
+    void addFingerprint(final Fingerprint.Builder builder) {
+        builder.add(inheritedColumn.getName()).add(defaultValue)
+                .add(nullValue);
+    }
  }
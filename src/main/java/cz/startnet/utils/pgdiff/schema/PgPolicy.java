@@ -74,4 +74,18 @@ public class PgPolicy {
     public String getWithCheck() {
         return withCheck;
     }
+
+    /**
+     * Adds content of the policy to the fingerprint.
+     *
+     * @param builder fingerprint builder
+     */
+    void addFingerprint(final Fingerprint.Builder builder) {
+        builder.add(name).add(tableName).add(command).add(using)
+                .add(withCheck).add(roles.size());
+
+        for (final String role : roles) {
+            builder.add(role);
+        }
+    }
 }
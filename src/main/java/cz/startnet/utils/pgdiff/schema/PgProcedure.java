@@ -36,6 +36,19 @@ public class PgProcedure {
      * Comment.
      */
     private String comment;
+    /**
+     * Hash code of {@link #body} with whitespace runs collapsed, computed
+     * when it is needed for the first time.
+     */
+    private int normalizedBodyHash;
+    /**
+     * Whether {@link #normalizedBodyHash} was computed.
+     */
+    private boolean normalizedBodyHashed;
+    /**
+     * Fingerprint of the procedure, null until it is computed.
+     */
+    private Fingerprint fingerprint;
 
     /**
      * Getter for {@link #comment}.
@@ -116,6 +129,7 @@ public class PgProcedure {
      */
     public void setBody(final String body) {
         this.body = body;
+        normalizedBodyHashed = false;
     }
 
     /**
@@ -130,12 +144,14 @@ public class PgProcedure {
     /**
      * Creates and returns SQL for dropping the procedure.
      *
+     * @param useIfExists whether IF EXISTS should be used
+     *
      * @return created SQL
      */
-    public String getDropSQL() {
+    public String getDropSQL(final boolean useIfExists) {
         final StringBuilder sbString = new StringBuilder(100);
         sbString.append("DROP PROCEDURE ");
-        sbString.append(PgDiffUtils.getDropIfExists());
+        sbString.append(PgDiffUtils.getDropIfExists(useIfExists));
         sbString.append(name);
         sbString.append('(');
 
@@ -266,20 +282,15 @@ public class PgProcedure {
                 return false;
             }
 
-            final String thisBody;
-            final String thatBody;
-
             if (ignoreProcedureWhitespace) {
-                thisBody = body.replaceAll("\\s+", " ");
-                thatBody =
-                        procedure.getBody().replaceAll("\\s+", " ");
-            } else {
-                thisBody = body;
-                thatBody = procedure.getBody();
-            }
-
-            if (thisBody == null && thatBody != null
-                    || thisBody != null && !thisBody.equals(thatBody)) {
+                if (getNormalizedBodyHash()
+                        != procedure.getNormalizedBodyHash()
+                        || !PgDiffUtils.equalsIgnoringWhitespace(
+                        body, procedure.getBody())) {
+                    return false;
+                }
+            } else if (body == null && procedure.getBody() != null
+                    || body != null && !body.equals(procedure.getBody())) {
                 return false;
             }
 
@@ -301,17 +312,56 @@ public class PgProcedure {
 
     @Override
     public int hashCode() {
-        final StringBuilder sbString = new StringBuilder(500);
-        sbString.append(body);
-        sbString.append('|');
-        sbString.append(name);
+        int result = body == null ? 0 : body.hashCode();
+        result = 31 * result + (name == null ? 0 : name.hashCode());
 
         for (final Argument argument : arguments) {
-            sbString.append('|');
-            sbString.append(argument.getDeclaration(true));
+            result = 31 * result + argument.hashCode();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns hash code of {@link #body} with whitespace runs collapsed. The
+     * hash code is computed only once.
+     *
+     * @return {@link #normalizedBodyHash}
+     */
+    private int getNormalizedBodyHash() {
+        if (!normalizedBodyHashed) {
+            normalizedBodyHash = PgDiffUtils.hashCodeIgnoringWhitespace(body);
+            normalizedBodyHashed = true;
         }
 
-        return sbString.toString().hashCode();
+        return normalizedBodyHash;
+    }
+
+    /**
+     * Getter for {@link #fingerprint}.
+     *
+     * @return {@link #fingerprint}
+     */
+    public Fingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Computes {@link #fingerprint} from the content of the procedure.
+     *
+     * @return {@link #fingerprint}
+     */
+    Fingerprint updateFingerprint() {
+        final Fingerprint.Builder builder = new Fingerprint.Builder();
+        builder.add(name).add(body).add(comment).add(arguments.size());
+
+        for (final Argument argument : arguments) {
+            argument.addFingerprint(builder);
+        }
+
+        fingerprint = builder.build();
+
+        return fingerprint;
     }
 
     /**
@@ -476,5 +526,14 @@ public class PgProcedure {
 
             return sbString.toString().hashCode();
         }
+
+        /**
+         * Adds content of the argument to the fingerprint.
+         *
+         * @param builder fingerprint builder
+         */
+        void addFingerprint(final Fingerprint.Builder builder) {
+            builder.add(mode).add(name).add(dataType).add(defaultExpression);
+        }
     }
 }
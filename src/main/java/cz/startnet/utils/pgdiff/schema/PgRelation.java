@@ -9,7 +9,9 @@ import cz.startnet.utils.pgdiff.PgDiffUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Base class for tables and views.
@@ -38,6 +40,23 @@ public abstract class PgRelation {
      */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
     private final List<PgRule> rules = new ArrayList<PgRule>();    
+    /**
+     * Columns by their name. Lists keep the order of the objects, maps are
+     * used for lookups. Objects are indexed when they are added, so their
+     * names must not change afterwards.
+     */
+    private final Map<String, PgColumn> columnsByName =
+            new HashMap<String, PgColumn>();
+    /**
+     * Indexes by their name.
+     */
+    private final Map<String, PgIndex> indexesByName =
+            new HashMap<String, PgIndex>();
+    /**
+     * Triggers by their name.
+     */
+    private final Map<String, PgTrigger> triggersByName =
+            new HashMap<String, PgTrigger>();
     /**
      * Name of the index on which the table/matview is clustered
      */
@@ -60,10 +79,20 @@ public abstract class PgRelation {
      */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
     private final List<PgRelationPrivilege> privileges = new ArrayList<PgRelationPrivilege>();
+    /**
+     * Privileges by their role name.
+     */
+    private final Map<String, PgRelationPrivilege> privilegesByRoleName =
+            new HashMap<String, PgRelationPrivilege>();
     /**
      * Column the table is owner to.
      */
     private String ownerTo;
+    /**
+     * Fingerprint of the relation and all objects defined on it, null until
+     * it is computed.
+     */
+    private Fingerprint fingerprint;
 
     /**
      * Setter for {@link #clusterIndexName}.
@@ -91,13 +120,7 @@ public abstract class PgRelation {
      * @return found column or null if no such column has been found
      */
     public PgColumn getColumn(final String name) {
-        for (PgColumn column : columns) {
-            if (column.getName().equals(name)) {
-                return column;
-            }
-        }
-
-        return null;
+        return columnsByName.get(name);
     }
 
     /**
@@ -172,13 +195,7 @@ public abstract class PgRelation {
      * @return found index or null if no such index has been found
      */
     public PgIndex getIndex(final String name) {
-        for (PgIndex index : indexes) {
-            if (index.getName().equals(name)) {
-                return index;
-            }
-        }
-
-        return null;
+        return indexesByName.get(name);
     }
 
     /**
@@ -189,13 +206,7 @@ public abstract class PgRelation {
      * @return found trigger or null if no such trigger has been found
      */
     public PgTrigger getTrigger(final String name) {
-        for (PgTrigger trigger : triggers) {
-            if (trigger.getName().equals(name)) {
-                return trigger;
-            }
-        }
-
-        return null;
+        return triggersByName.get(name);
     }
 
     /**
@@ -268,6 +279,7 @@ public abstract class PgRelation {
      */
     public void addColumn(final PgColumn column) {
         columns.add(column);
+        columnsByName.putIfAbsent(column.getName(), column);
     }
 
     /**
@@ -277,6 +289,7 @@ public abstract class PgRelation {
      */
     public void addIndex(final PgIndex index) {
         indexes.add(index);
+        indexesByName.putIfAbsent(index.getName(), index);
     }
 
     /**
@@ -286,6 +299,7 @@ public abstract class PgRelation {
      */
     public void addTrigger(final PgTrigger trigger) {
         triggers.add(trigger);
+        triggersByName.putIfAbsent(trigger.getName(), trigger);
     }
     
     /**
@@ -307,10 +321,12 @@ public abstract class PgRelation {
     /**
      * Creates and returns SQL statement for dropping the relation.
      *
+     * @param useIfExists whether IF EXISTS should be used
+     *
      * @return created SQL statement
      */
-    public String getDropSQL() {
-        return "DROP " + getRelationKind() + " " + PgDiffUtils.getDropIfExists()+
+    public String getDropSQL(final boolean useIfExists) {
+        return "DROP " + getRelationKind() + " " + PgDiffUtils.getDropIfExists(useIfExists)+
                 PgDiffUtils.getQuotedName(getName()) + ";";
 }
 
@@ -323,13 +339,7 @@ public abstract class PgRelation {
      * @return true if table contains given column {@code name}, otherwise false
      */
     public boolean containsColumn(final String name) {
-        for (PgColumn column : columns) {
-            if (column.getName().equals(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return columnsByName.containsKey(name);
     }
 
     /**
@@ -365,13 +375,7 @@ public abstract class PgRelation {
      * @return true if table/matview contains given index {@code name}, otherwise false
      */
     public boolean containsIndex(final String name) {
-        for (PgIndex index : indexes) {
-            if (index.getName().equals(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return indexesByName.containsKey(name);
     }
 
     public List<PgRelationPrivilege> getPrivileges() {
@@ -400,15 +404,74 @@ public abstract class PgRelation {
 
     public void addPrivilege(final PgRelationPrivilege privilege) {
         privileges.add(privilege);
+        privilegesByRoleName.putIfAbsent(privilege.getRoleName(), privilege);
     }
 
 
     public PgRelationPrivilege getPrivilege(final String roleName) {
-        for (PgRelationPrivilege privilege : privileges) {
-            if (privilege.getRoleName().equals(roleName)) {
-                return privilege;
-            }
+        return privilegesByRoleName.get(roleName);
+    }
+
+    /**
+     * Getter for {@link #fingerprint}.
+     *
+     * @return {@link #fingerprint}
+     */
+    public Fingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Computes {@link #fingerprint} from the content of the relation and
+     * fingerprints of the objects defined on it.
+     *
+     * @return {@link #fingerprint}
+     */
+    Fingerprint updateFingerprint() {
+        final Fingerprint.Builder builder = new Fingerprint.Builder();
+        addFingerprint(builder);
+        fingerprint = builder.build();
+
+        return fingerprint;
+    }
+
+    /**
+     * Adds content of the relation to the fingerprint. Subclasses add their
+     * own attributes.
+     *
+     * @param builder fingerprint builder
+     */
+    protected void addFingerprint(final Fingerprint.Builder builder) {
+        builder.add(getClass().getName()).add(name).add(tablespace)
+                .add(comment).add(clusterIndexName).add(ownerTo)
+                .add(columns.size());
+
+        for (final PgColumn column : columns) {
+            builder.add(column.updateFingerprint());
+        }
+
+        builder.add(indexes.size());
+
+        for (final PgIndex index : indexes) {
+            builder.add(index.updateFingerprint());
+        }
+
+        builder.add(triggers.size());
+
+        for (final PgTrigger trigger : triggers) {
+            builder.add(trigger.updateFingerprint());
+        }
+
+        builder.add(rules.size());
+
+        for (final PgRule rule : rules) {
+            builder.add(rule.updateFingerprint());
+        }
+
+        builder.add(privileges.size());
+
+        for (final PgRelationPrivilege privilege : privileges) {
+            privilege.addFingerprint(builder);
         }
-        return null;
     }
 }
@@ -310,4 +310,17 @@ public class PgRelationPrivilege {
 		}
 	}
 
+	/**
+	 * Adds content of the privilege to the fingerprint.
+	 *
+	 * @param builder fingerprint builder
+	 */
+	void addFingerprint(final Fingerprint.Builder builder) {
+		builder.add(roleName).add(select).add(insert).add(update).add(delete)
+				.add(truncate).add(references).add(trigger)
+				.add(selectWithGrantOption).add(insertWithGrantOption)
+				.add(updateWithGrantOption).add(deleteWithGrantOption)
+				.add(truncateWithGrantOption).add(referencesWithGrantOption)
+				.add(triggerWithGrantOption);
+	}
 }
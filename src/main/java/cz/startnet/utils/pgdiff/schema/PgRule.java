@@ -126,10 +126,13 @@ public class PgRule extends PgRelation {
     /**
      * Creates and returns SQL for dropping the rule.
      *
+     * @param useIfExists whether IF EXISTS should be used
+     *
      * @return created SQL
      */
-    public String getDropSQL() {
-        return "DROP RULE " + PgDiffUtils.getDropIfExists() + PgDiffUtils.getQuotedName(getName()) + " ON "
+    public String getDropSQL(final boolean useIfExists) {
+        return "DROP RULE " + PgDiffUtils.getDropIfExists(useIfExists)
+                + PgDiffUtils.getQuotedName(getName()) + " ON "
                 + PgDiffUtils.getQuotedName(getRelationName()) + ";";
     }
 
@@ -151,4 +154,10 @@ public class PgRule extends PgRelation {
         return equals;
     }
 
+    @Override
+    protected void addFingerprint(final Fingerprint.Builder builder) {
+        super.addFingerprint(builder);
+        builder.add(relationName).add(event).add(query);
+    }
+
 }
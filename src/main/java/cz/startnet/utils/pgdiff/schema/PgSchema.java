@@ -8,7 +8,9 @@ package cz.startnet.utils.pgdiff.schema;
 import cz.startnet.utils.pgdiff.PgDiffUtils;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Stores schema information.
@@ -53,11 +55,58 @@ public class PgSchema {
     @SuppressWarnings("CollectionWithoutInitialCapacity")
     private final List<PgConstraint> primaryKeys =
             new ArrayList<PgConstraint>();
+    /**
+     * List of tables defined in the schema, subset of {@link #rels}.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final List<PgTable> tables = new ArrayList<PgTable>();
+    /**
+     * List of views defined in the schema, subset of {@link #rels}.
+     */
+    @SuppressWarnings("CollectionWithoutInitialCapacity")
+    private final List<PgView> views = new ArrayList<PgView>();
    /**
-     * List of rules defined in the schema.
+     * List of rules defined in the schema, subset of {@link #rels}.
      */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
     private final List<PgRule> rules = new ArrayList<PgRule>();
+    /**
+     * Functions by their signature. Lists keep the order of the objects,
+     * maps are used for lookups. Objects are indexed when they are added, so
+     * their names must not change afterwards.
+     */
+    private final Map<String, PgFunction> functionsBySignature =
+            new HashMap<String, PgFunction>();
+    /**
+     * Procedures by their signature.
+     */
+    private final Map<String, PgProcedure> proceduresBySignature =
+            new HashMap<String, PgProcedure>();
+    /**
+     * Sequences by their name.
+     */
+    private final Map<String, PgSequence> sequencesByName =
+            new HashMap<String, PgSequence>();
+    /**
+     * Relations by their name.
+     */
+    private final Map<String, PgRelation> relsByName =
+            new HashMap<String, PgRelation>();
+    /**
+     * Types by their name.
+     */
+    private final Map<String, PgType> typesByName =
+            new HashMap<String, PgType>();
+    /**
+     * Indexes by their name.
+     */
+    private final Map<String, PgIndex> indexesByName =
+            new HashMap<String, PgIndex>();
+    /**
+     * Primary keys by their name.
+     */
+    private final Map<String, PgConstraint> primaryKeysByName =
+            new HashMap<String, PgConstraint>();
     
     /**
      * Name of the schema.
@@ -75,6 +124,11 @@ public class PgSchema {
      * Comment.
      */
     private String comment;
+    /**
+     * Fingerprint of the schema and all objects in it, null until it is
+     * computed.
+     */
+    private Fingerprint fingerprint;
 
     /**
      * Creates a new PgSchema object.
@@ -142,12 +196,14 @@ public class PgSchema {
     /**
      * Creates and returns SQL for creation of the schema.
      *
+     * @param useIfExists whether IF NOT EXISTS should be used
+     *
      * @return created SQL
      */
-    public String getCreationSQL() {
+    public String getCreationSQL(final boolean useIfExists) {
         final StringBuilder sbSQL = new StringBuilder(50);
         sbSQL.append("CREATE SCHEMA ");
-        sbSQL.append(PgDiffUtils.getCreateIfNotExists());
+        sbSQL.append(PgDiffUtils.getCreateIfNotExists(useIfExists));
         sbSQL.append(PgDiffUtils.getQuotedName(getName()));
 
         if (getAuthorization() != null) {
@@ -178,13 +234,7 @@ public class PgSchema {
      * @return found function or null if no such function has been found
      */
     public PgFunction getFunction(final String signature) {
-        for (PgFunction function : functions) {
-            if (function.getSignature().equals(signature)) {
-                return function;
-            }
-        }
-
-        return null;
+        return functionsBySignature.get(signature);
     }
 
     /**
@@ -204,13 +254,7 @@ public class PgSchema {
      * @return found procedure or null if no such procedure has been found
      */
     public PgProcedure getProcedure(final String signature) {
-        for (PgProcedure procedure : procedures) {
-            if (procedure.getSignature().equals(signature)) {
-                return procedure;
-            }
-        }
-
-        return null;
+        return proceduresBySignature.get(signature);
     }
 
     /**
@@ -239,13 +283,7 @@ public class PgSchema {
      * @return found index or null if no such index has been found
      */
     public PgIndex getIndex(final String name) {
-        for (PgIndex index : indexes) {
-            if (index.getName().equals(name)) {
-                return index;
-            }
-        }
-
-        return null;
+        return indexesByName.get(name);
     }
 
     /**
@@ -256,13 +294,7 @@ public class PgSchema {
      * @return found primary key or null if no such primary key has been found
      */
     public PgConstraint getPrimaryKey(final String name) {
-        for (PgConstraint constraint : primaryKeys) {
-            if (constraint.getName().equals(name)) {
-                return constraint;
-            }
-        }
-
-        return null;
+        return primaryKeysByName.get(name);
     }
 
     /**
@@ -273,13 +305,7 @@ public class PgSchema {
      * @return found sequence or null if no such sequence has been found
      */
     public PgSequence getSequence(final String name) {
-        for (PgSequence sequence : sequences) {
-            if (sequence.getName().equals(name)) {
-                return sequence;
-            }
-        }
-
-        return null;
+        return sequencesByName.get(name);
     }
 
     /**
@@ -317,13 +343,7 @@ public class PgSchema {
      * @return found table or null if no such table has been found
      */
     public PgRelation getRelation(final String name) {
-        for (PgRelation rel : rels) {
-            if (rel.getName().equals(name)) {
-                return rel;
-            }
-        }
-
-        return null;
+        return relsByName.get(name);
     }
 
     /**
@@ -341,21 +361,12 @@ public class PgSchema {
     }
 
     /**
-     * Get a list of tables from {@link #rels}.
+     * Getter for {@link #tables}. The list cannot be modified.
      *
      * @return list of tables
      */
     public List<PgTable> getTables() {
-        @SuppressWarnings("CollectionWithoutInitialCapacity")
-        final List<PgTable> list = new ArrayList<PgTable>();
-
-        for (PgRelation rel : rels) {
-            if (rel instanceof PgTable) {
-                list.add((PgTable) rel);
-            }
-        }
-
-        return list;
+        return Collections.unmodifiableList(tables);
     }
 
     /**
@@ -382,21 +393,12 @@ public class PgSchema {
     }
 
     /**
-     * Get a list of views from {@link #rels}.
+     * Getter for {@link #views}. The list cannot be modified.
      *
      * @return list of views
      */
     public List<PgView> getViews() {
-        @SuppressWarnings("CollectionWithoutInitialCapacity")
-        final List<PgView> list = new ArrayList<PgView>();
-
-        for (PgRelation rel : rels) {
-            if (rel instanceof PgView) {
-                list.add((PgView) rel);
-            }
-        }
-
-        return list;
+        return Collections.unmodifiableList(views);
     }
 
     /**
@@ -406,6 +408,7 @@ public class PgSchema {
      */
     public void addIndex(final PgIndex index) {
         indexes.add(index);
+        indexesByName.putIfAbsent(index.getName(), index);
     }
 
     /**
@@ -415,6 +418,7 @@ public class PgSchema {
      */
     public void addPrimaryKey(final PgConstraint primaryKey) {
         primaryKeys.add(primaryKey);
+        primaryKeysByName.putIfAbsent(primaryKey.getName(), primaryKey);
     }
 
     /**
@@ -424,6 +428,7 @@ public class PgSchema {
      */
     public void addFunction(final PgFunction function) {
         functions.add(function);
+        functionsBySignature.putIfAbsent(function.getSignature(), function);
     }
     
     /**
@@ -433,6 +438,7 @@ public class PgSchema {
      */
     public void addProcedure(final PgProcedure procedure) {
         procedures.add(procedure);
+        proceduresBySignature.putIfAbsent(procedure.getSignature(), procedure);
     }
 
     /**
@@ -442,6 +448,7 @@ public class PgSchema {
      */
     public void addSequence(final PgSequence sequence) {
         sequences.add(sequence);
+        sequencesByName.putIfAbsent(sequence.getName(), sequence);
     }
 
     /**
@@ -451,6 +458,15 @@ public class PgSchema {
      */
     public void addRelation(final PgRelation rel) {
         rels.add(rel);
+        relsByName.putIfAbsent(rel.getName(), rel);
+
+        if (rel instanceof PgTable) {
+            tables.add((PgTable) rel);
+        } else if (rel instanceof PgView) {
+            views.add((PgView) rel);
+        } else if (rel instanceof PgRule) {
+            rules.add((PgRule) rel);
+        }
     }
 
     /**
@@ -460,15 +476,16 @@ public class PgSchema {
      */
     public void addType(final PgType type) {
         types.add(type);
+        typesByName.putIfAbsent(type.getName(), type);
     }
 
     /**
-     * Returns a list of types
+     * Returns a list of types. The list cannot be modified.
      *
      * @return types List of PgType
      */
     public List<PgType> getTypes() {
-        return types;
+        return Collections.unmodifiableList(types);
     }
 
     /**
@@ -479,31 +496,16 @@ public class PgSchema {
      * @return found type or null if no such table has been found
      */
     public PgType getType(final String name) {
-        for (PgType type : types) {
-            if (type.getName().equals(name)) {
-                return type;
-            }
-        }
-
-        return null;
+        return typesByName.get(name);
     }
     
     /**
-     * Get a list of rules from {@link #rels}.
+     * Getter for {@link #rules}. The list cannot be modified.
      *
      * @return list of rules
      */
     public List<PgRule> getRules() {
-        @SuppressWarnings("CollectionWithoutInitialCapacity")
-        final List<PgRule> list = new ArrayList<PgRule>();
-
-        for (PgRelation rel : rels) {
-            if (rel instanceof PgRule) {
-                list.add((PgRule) rel);
-            }
-        }
-
-        return list;
+        return Collections.unmodifiableList(rules);
     }
     
     /**
@@ -535,13 +537,7 @@ public class PgSchema {
      * false.
      */
     public boolean containsType(final String name) {
-        for (PgType type : types) {
-            if (type.getName().equals(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return typesByName.containsKey(name);
     }
 
     /**
@@ -554,13 +550,7 @@ public class PgSchema {
      *         otherwise false
      */
     public boolean containsFunction(final String signature) {
-        for (PgFunction function : functions) {
-            if (function.getSignature().equals(signature)) {
-                return true;
-            }
-        }
-
-        return false;
+        return functionsBySignature.containsKey(signature);
     }
     
     /**
@@ -573,13 +563,7 @@ public class PgSchema {
      *         otherwise false
      */
     public boolean containsProcedure(final String signature) {
-        for (PgProcedure procedure : procedures) {
-            if (procedure.getSignature().equals(signature)) {
-                return true;
-            }
-        }
-
-        return false;
+        return proceduresBySignature.containsKey(signature);
     }
 
     /**
@@ -592,13 +576,7 @@ public class PgSchema {
      *         otherwise false
      */
     public boolean containsSequence(final String name) {
-        for (PgSequence sequence : sequences) {
-            if (sequence.getName().equals(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return sequencesByName.containsKey(name);
     }
 
     /**
@@ -626,4 +604,70 @@ public class PgSchema {
     public boolean containsView(final String name) {
         return getView(name) != null;
     }
+
+    /**
+     * Getter for {@link #fingerprint}.
+     *
+     * @return {@link #fingerprint}
+     */
+    public Fingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Computes fingerprints of all objects in the schema and then
+     * {@link #fingerprint} from the content of the schema and the
+     * fingerprints of its objects.
+     *
+     * @return {@link #fingerprint}
+     */
+    Fingerprint updateFingerprint() {
+        final Fingerprint.Builder builder = new Fingerprint.Builder();
+        builder.add(name).add(authorization).add(definition).add(comment)
+                .add(rels.size());
+
+        for (final PgRelation rel : rels) {
+            builder.add(rel.updateFingerprint());
+        }
+
+        builder.add(functions.size());
+
+        for (final PgFunction function : functions) {
+            builder.add(function.updateFingerprint());
+        }
+
+        builder.add(procedures.size());
+
+        for (final PgProcedure procedure : procedures) {
+            builder.add(procedure.updateFingerprint());
+        }
+
+        builder.add(sequences.size());
+
+        for (final PgSequence sequence : sequences) {
+            sequence.addFingerprint(builder);
+        }
+
+        builder.add(types.size());
+
+        for (final PgType type : types) {
+            type.addFingerprint(builder);
+        }
+
+        builder.add(indexes.size());
+
+        for (final PgIndex index : indexes) {
+            builder.add(index.updateFingerprint());
+        }
+
+        builder.add(primaryKeys.size());
+
+        for (final PgConstraint primaryKey : primaryKeys) {
+            builder.add(primaryKey.updateFingerprint());
+        }
+
+        fingerprint = builder.build();
+
+        return fingerprint;
+    }
 }
@@ -117,13 +117,15 @@ public class PgSequence {
     /**
      * Creates and returns SQL statement for creation of the sequence.
      *
+     * @param useIfExists whether IF NOT EXISTS should be used
+     *
      * @return created SQL statement
      */
-    public String getCreationSQL() {
+    public String getCreationSQL(final boolean useIfExists) {
         final StringBuilder sbSQL = new StringBuilder(100);
         sbSQL.append("CREATE SEQUENCE ");
         
-        sbSQL.append(PgDiffUtils.getCreateIfNotExists());
+        sbSQL.append(PgDiffUtils.getCreateIfNotExists(useIfExists));
         
         sbSQL.append(PgDiffUtils.getQuotedName(name));
         
@@ -257,10 +259,13 @@ public class PgSequence {
     /**
      * Creates and returns SQL statement for dropping the sequence.
      *
+     * @param useIfExists whether IF EXISTS should be used
+     *
      * @return created SQL
      */
-    public String getDropSQL() {
-        return "DROP SEQUENCE " + PgDiffUtils.getDropIfExists() + PgDiffUtils.getQuotedName(getName()) + ";";
+    public String getDropSQL(final boolean useIfExists) {
+        return "DROP SEQUENCE " + PgDiffUtils.getDropIfExists(useIfExists)
+                + PgDiffUtils.getQuotedName(getName()) + ";";
     }
 
     /**
@@ -413,4 +418,20 @@ public class PgSequence {
     public void setDataType(final String dataType) {
         this.dataType = dataType;
     }
+
+    /**
+     * Adds content of the sequence to the fingerprint.
+     *
+     * @param builder fingerprint builder
+     */
+    void addFingerprint(final Fingerprint.Builder builder) {
+        builder.add(name).add(dataType).add(startWith).add(increment)
+                .add(minValue).add(maxValue).add(cache).add(cycle)
+                .add(ownedBy).add(ownerTo).add(comment)
+                .add(privileges.size());
+
+        for (final PgSequencePrivilege privilege : privileges) {
+            privilege.addFingerprint(builder);
+        }
+    }
 }
@@ -170,4 +170,14 @@ public class PgSequencePrivilege {
 		}
 	}
 
+	/**
+	 * Adds content of the privilege to the fingerprint.
+	 *
+	 * @param builder fingerprint builder
+	 */
+	void addFingerprint(final Fingerprint.Builder builder) {
+		builder.add(roleName).add(usage).add(select).add(update)
+				.add(usageWithGrantOption).add(selectWithGrantOption)
+				.add(updateWithGrantOption);
+	}
 }
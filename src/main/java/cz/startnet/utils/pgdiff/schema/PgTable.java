@@ -9,7 +9,9 @@ import cz.startnet.utils.pgdiff.Pair;
 import cz.startnet.utils.pgdiff.PgDiffUtils;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Stores table information.
@@ -34,6 +36,23 @@ public class PgTable extends PgRelation {
      */
     @SuppressWarnings("CollectionWithoutInitialCapacity")
     private final List<Pair<String,String>> inherits = new ArrayList<Pair<String,String>>();
+    /**
+     * Inherited columns by the name of the column they inherit. Lists keep the
+     * order of the objects, maps are used for lookups. Objects are indexed
+     * when they are added, so their names must not change afterwards.
+     */
+    private final Map<String, PgInheritedColumn> inheritedColumnsByName =
+            new HashMap<String, PgInheritedColumn>();
+    /**
+     * Constraints by their name.
+     */
+    private final Map<String, PgConstraint> constraintsByName =
+            new HashMap<String, PgConstraint>();
+    /**
+     * RLS policies by their name.
+     */
+    private final Map<String, PgPolicy> policiesByName =
+            new HashMap<String, PgPolicy>();
     /**
      * WITH clause. If value is null then it is not set, otherwise can be set to
      * OIDS=true, OIDS=false, or storage parameters can be set.
@@ -61,7 +80,7 @@ public class PgTable extends PgRelation {
     /**
      * RLS Policies
      */
-    private List<PgPolicy> policies = new ArrayList<PgPolicy>();
+    private final List<PgPolicy> policies = new ArrayList<PgPolicy>();
 
     /**
      * PgDatabase
@@ -99,13 +118,7 @@ public class PgTable extends PgRelation {
      * @return found constraint or null if no such constraint has been found
      */
     public PgConstraint getConstraint(final String name) {
-        for (PgConstraint constraint : constraints) {
-            if (constraint.getName().equals(name)) {
-                return constraint;
-            }
-        }
-
-        return null;
+        return constraintsByName.get(name);
     }
 
     /**
@@ -129,11 +142,13 @@ public class PgTable extends PgRelation {
     /**
      * Creates and returns SQL for creation of the table.
      *
-     * @param schema schema of current statement
+     * @param schema      schema of current statement
+     * @param useIfExists whether IF NOT EXISTS should be used
      *
      * @return created SQL statement
      */
-    public String getCreationSQL(final PgSchema schema) {
+    public String getCreationSQL(final PgSchema schema,
+            final boolean useIfExists) {
         final StringBuilder sbSQL = new StringBuilder(1000);
         sbSQL.append("CREATE ");
         if (isUnlogged()) {
@@ -143,7 +158,7 @@ public class PgTable extends PgRelation {
             sbSQL.append("FOREIGN ");
         }
         sbSQL.append("TABLE ");
-        sbSQL.append(PgDiffUtils.getCreateIfNotExists());
+        sbSQL.append(PgDiffUtils.getCreateIfNotExists(useIfExists));
         sbSQL.append(PgDiffUtils.getQuotedName(name));
         sbSQL.append(" (");
         sbSQL.append(System.getProperty("line.separator"));
@@ -273,12 +288,12 @@ public class PgTable extends PgRelation {
         final PgTable inheritedTable = database.getSchema(schemaName).getTable(tableName);
         for( PgColumn column : inheritedTable.getColumns() ) {
           PgInheritedColumn inheritedColumn = new PgInheritedColumn(column);
-          inheritedColumns.add(inheritedColumn);
+          addInheritedColumn(inheritedColumn);
         }
 
         for( PgInheritedColumn column : inheritedTable.getInheritedColumns() ) {
           PgInheritedColumn inheritedColumn = new PgInheritedColumn(column.getInheritedColumn());
-          inheritedColumns.add(inheritedColumn);
+          addInheritedColumn(inheritedColumn);
         }
     }
 
@@ -333,7 +348,7 @@ public class PgTable extends PgRelation {
      * @param column column
      */
     public void addColumn(final PgColumn column) {
-        columns.add(column);
+        super.addColumn(column);
     }
 
     /**
@@ -343,6 +358,8 @@ public class PgTable extends PgRelation {
      */
     public void addInheritedColumn(final PgInheritedColumn inheritedColumn) {
         inheritedColumns.add(inheritedColumn);
+        inheritedColumnsByName.putIfAbsent(
+                inheritedColumn.getInheritedColumn().getName(), inheritedColumn);
     }
 
     /**
@@ -355,11 +372,7 @@ public class PgTable extends PgRelation {
      */
     public PgInheritedColumn getInheritedColumn(final String name) {
         if (inherits != null && !inherits.isEmpty()) {
-            for (PgInheritedColumn inheritedColumn : inheritedColumns) {
-                if (inheritedColumn.getInheritedColumn().getName().equals(name)) {
-                    return inheritedColumn;
-                }
-            }
+            return inheritedColumnsByName.get(name);
         }
         return null;
     }
@@ -380,6 +393,7 @@ public class PgTable extends PgRelation {
      */
     public void addConstraint(final PgConstraint constraint) {
         constraints.add(constraint);
+        constraintsByName.putIfAbsent(constraint.getName(), constraint);
     }
 
     /**
@@ -393,11 +407,7 @@ public class PgTable extends PgRelation {
      */
     public boolean containsInheritedColumn(final String name) {
         if (inherits != null && !inherits.isEmpty()) {
-            for (PgInheritedColumn inheritedColumn : inheritedColumns) {
-                if (inheritedColumn.getInheritedColumn().getName().equals(name)) {
-                    return true;
-                }
-            }
+            return inheritedColumnsByName.containsKey(name);
         }
         return false;
     }
@@ -412,13 +422,7 @@ public class PgTable extends PgRelation {
      *         false
      */
     public boolean containsConstraint(final String name) {
-        for (PgConstraint constraint : constraints) {
-            if (constraint.getName().equals(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return constraintsByName.containsKey(name);
     }
 
     /**
@@ -452,9 +456,10 @@ public class PgTable extends PgRelation {
      */
     
     @Override
-    public String getDropSQL() {
+    public String getDropSQL(final boolean useIfExists) {
         
-        return "DROP " + ((isForeign()) ? "FOREIGN ":"") + getRelationKind() + " " + PgDiffUtils.getDropIfExists() +
+        return "DROP " + ((isForeign()) ? "FOREIGN ":"") + getRelationKind() + " "
+                + PgDiffUtils.getDropIfExists(useIfExists) +
                 PgDiffUtils.getQuotedName(getName()) + ";";
     }
     
@@ -492,16 +497,11 @@ public class PgTable extends PgRelation {
 
     public void addPolicy(final PgPolicy policy) {
         policies.add(policy);
+        policiesByName.putIfAbsent(policy.getName(), policy);
     }
 
     public PgPolicy getPolicy(final String name) {
-        for (PgPolicy policy : policies) {
-            if (policy.getName().equals(name)) {
-                return policy;
-            }
-        }
-
-        return null;
+        return policiesByName.get(name);
     }
 
     public List<PgPolicy> getPolicies() {
@@ -515,4 +515,34 @@ public class PgTable extends PgRelation {
     public String getPartionBy(){
     	return partitionBy;
     }
+
+    @Override
+    protected void addFingerprint(final Fingerprint.Builder builder) {
+        super.addFingerprint(builder);
+        builder.add(with).add(unlogged).add(foreign).add(foreignServer)
+                .add(rlsEnabled).add(rlsForced).add(partitionBy)
+                .add(inherits.size());
+
+        for (final Pair<String, String> inherit : inherits) {
+            builder.add(inherit.getL()).add(inherit.getR());
+        }
+
+        builder.add(inheritedColumns.size());
+
+        for (final PgInheritedColumn inheritedColumn : inheritedColumns) {
+            inheritedColumn.addFingerprint(builder);
+        }
+
+        builder.add(constraints.size());
+
+        for (final PgConstraint constraint : constraints) {
+            builder.add(constraint.updateFingerprint());
+        }
+
+        builder.add(policies.size());
+
+        for (final PgPolicy policy : policies) {
+            policy.addFingerprint(builder);
+        }
+    }
 }
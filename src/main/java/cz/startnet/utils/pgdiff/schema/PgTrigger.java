@@ -103,6 +103,10 @@ public class PgTrigger {
      * Disable.
      */
     private boolean disable;
+    /**
+     * Fingerprint of the trigger, null until it is computed.
+     */
+    private Fingerprint fingerprint;
     
     /**
      * Setter for {@link #eventTimeQualification}.
@@ -245,10 +249,13 @@ public class PgTrigger {
     /**
      * Creates and returns SQL for dropping the trigger.
      *
+     * @param useIfExists whether IF EXISTS should be used
+     *
      * @return created SQL
      */
-    public String getDropSQL() {
-        return "DROP TRIGGER " + PgDiffUtils.getDropIfExists() + PgDiffUtils.getQuotedName(getName()) + " ON "
+    public String getDropSQL(final boolean useIfExists) {
+        return "DROP TRIGGER " + PgDiffUtils.getDropIfExists(useIfExists)
+                + PgDiffUtils.getQuotedName(getName()) + " ON "
                 + PgDiffUtils.getQuotedName(getRelationName()) + ";";
     }
 
@@ -534,4 +541,35 @@ public class PgTrigger {
 
         return sbSQL.toString();
     }
+
+    /**
+     * Getter for {@link #fingerprint}.
+     *
+     * @return {@link #fingerprint}
+     */
+    public Fingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Computes {@link #fingerprint} from the content of the trigger.
+     *
+     * @return {@link #fingerprint}
+     */
+    Fingerprint updateFingerprint() {
+        final Fingerprint.Builder builder = new Fingerprint.Builder();
+        builder.add(name).add(relationName).add(function)
+                .add(EventTimeQualification.toString(eventTimeQualification))
+                .add(forEachRow).add(onDelete).add(onInsert).add(onUpdate)
+                .add(onTruncate).add(when).add(comment).add(referencing)
+                .add(disable).add(updateColumns.size());
+
+        for (final String column : updateColumns) {
+            builder.add(column);
+        }
+
+        fingerprint = builder.build();
+
+        return fingerprint;
+    }
 }
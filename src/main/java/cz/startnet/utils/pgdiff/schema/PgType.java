@@ -134,10 +134,13 @@ public class PgType {
     /**
      * Creates and returns SQL statement for dropping the table.
      *
+     * @param useIfExists whether IF EXISTS should be used
+     *
      * @return created SQL statement
      */
-    public String getDropSQL() {
-        return "DROP TYPE "+ PgDiffUtils.getDropIfExists() + PgDiffUtils.getQuotedName(getName()) + ";";
+    public String getDropSQL(final boolean useIfExists) {
+        return "DROP TYPE "+ PgDiffUtils.getDropIfExists(useIfExists)
+                + PgDiffUtils.getQuotedName(getName()) + ";";
     }
 
     /**
@@ -214,4 +217,23 @@ public class PgType {
     public void addEnumValue(String value) {
         enumValues.add(value);
     }
+
+    /**
+     * Adds content of the type to the fingerprint.
+     *
+     * @param builder fingerprint builder
+     */
+    void addFingerprint(final Fingerprint.Builder builder) {
+        builder.add(name).add(isEnum).add(columns.size());
+
+        for (final PgColumn column : columns) {
+            builder.add(column.updateFingerprint());
+        }
+
+        builder.add(enumValues.size());
+
+        for (final String value : enumValues) {
+            builder.add(value);
+        }
+    }
 }
@@ -287,4 +287,11 @@ public class PgView extends PgRelation {
     public boolean containsColumn(final String name) {
         return true;
     }
+
+    @Override
+    protected void addFingerprint(final Fingerprint.Builder builder) {
+        super.addFingerprint(builder);
+        builder.add(query).add(declareColumnNames).add(materialized)
+                .add(with).add(temporary).add(recursive);
+    }
 }
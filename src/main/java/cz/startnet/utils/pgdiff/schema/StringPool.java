@@ -0,0 +1,54 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pool of strings that repeat across the loaded schema, like role names,
+ * data types and schema names. Equal strings returned by the pool are the same
+ * instance, so they are stored only once and comparison of two values taken
+ * from the pool ends on reference check. Unlike {@link String#intern()} the
+ * pool is not global, it is referenced only by the databases using it, so it
+ * can be garbage collected once none of them is reachable. Loader creates new
+ * pool for every loaded dump, or for every pair of dumps loaded together. The
+ * pool can be shared by databases loaded concurrently.
+ *
+ * @author fordfrog
+ */
+public final class StringPool {
+
+    /**
+     * Pooled strings.
+     */
+    private final ConcurrentMap<String, String> strings =
+            new ConcurrentHashMap<String, String>();
+
+    /**
+     * Returns pooled instance of the string. If the pool does not contain
+     * equal string yet, the string is added to the pool.
+     *
+     * @param string string or null
+     *
+     * @return pooled string equal to {@code string}, or null
+     */
+    public String intern(final String string) {
+        if (string == null) {
+            return null;
+        }
+
+        final String pooled = strings.get(string);
+
+        if (pooled != null) {
+            return pooled;
+        }
+
+        final String previous = strings.putIfAbsent(string, string);
+
+        return previous == null ? string : previous;
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import cz.startnet.utils.pgdiff.loader.TestDumpLoader;
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for diff plan.
+ *
+ * @author fordfrog
+ */
+public class DiffPlanTest {
+
+    @Test(timeout = 1000)
+    public void testAlterColumnType() {
+        final PgDatabase oldDatabase = TestDumpLoader.load("CREATE TABLE t1 (\n"
+                + "    id integer,\n"
+                + "    name text\n"
+                + ");\n"
+                + "CREATE INDEX t1_id ON t1 USING btree (id);\n");
+        final PgDatabase newDatabase = TestDumpLoader.load("CREATE TABLE t1 (\n"
+                + "    id bigint,\n"
+                + "    name text\n"
+                + ");\n");
+        final DiffPlan plan = PgDiff.createPlan(
+                new PgDiffArguments(), oldDatabase, newDatabase);
+        final List<DiffOperation> operations = plan.getOperations();
+
+        Assert.assertEquals(2, operations.size());
+        Assert.assertEquals(DiffOperation.Kind.DROP_INDEX,
+                operations.get(0).getKind());
+        Assert.assertSame(oldDatabase.getSchema("public").getIndex("t1_id"),
+                operations.get(0).getObject());
+
+        final DiffOperation alterTable = operations.get(1);
+        Assert.assertEquals(DiffOperation.Kind.ALTER_TABLE,
+                alterTable.getKind());
+        Assert.assertEquals(1, alterTable.getClauses().size());
+        Assert.assertEquals(DiffOperation.Kind.ALTER_COLUMN_TYPE,
+                alterTable.getClauses().get(0).getKind());
+        Assert.assertSame(newDatabase.getSchema("public").getTable("t1")
+                .getColumn("id"), alterTable.getClauses().get(0).getObject());
+
+        final StringWriter buffer = new StringWriter();
+        final PrintWriter writer = new PrintWriter(buffer);
+        DiffRenderer.render(writer, plan);
+        writer.flush();
+
+        Assert.assertTrue(buffer.toString().contains("ALTER TABLE t1"
+                + System.getProperty("line.separator")
+                + "\tALTER COLUMN id TYPE bigint USING"));
+    }
+
+    @Test(timeout = 1000)
+    public void testSqlBuiltOnRender() {
+        final PgDatabase oldDatabase = TestDumpLoader.load("CREATE TABLE t1 (\n"
+                + "    id integer\n"
+                + ");\n");
+        final PgDatabase newDatabase = TestDumpLoader.load("CREATE TABLE t1 (\n"
+                + "    id bigint\n"
+                + ");\n");
+        final DiffPlan plan = PgDiff.createPlan(
+                new PgDiffArguments(), oldDatabase, newDatabase);
+        newDatabase.getSchema("public").getTable("t1").getColumn("id")
+                .setType("numeric");
+
+        Assert.assertTrue(DiffRenderer.getStatement(
+                plan.getOperations().get(0)).contains("TYPE numeric"));
+    }
+
+    @Test(timeout = 1000)
+    public void testDiffResult() {
+        final PgDatabase oldDatabase = TestDumpLoader.load("CREATE TABLE t1 (\n"
+                + "    id integer\n"
+                + ");\n");
+        final PgDatabase newDatabase = TestDumpLoader.load("CREATE TABLE t1 (\n"
+                + "    id integer,\n"
+                + "    name text,\n"
+                + "    note text\n"
+                + ");\n"
+                + "CREATE TABLE t2 (\n"
+                + "    id integer\n"
+                + ");\n");
+        final PgDiffArguments arguments = new PgDiffArguments();
+        arguments.setAddTransaction(true);
+        final DiffResult result =
+                PgDiff.diff(arguments, oldDatabase, newDatabase);
+
+        Assert.assertTrue(result.hasChanges());
+        Assert.assertEquals(1,
+                result.getCount(DiffOperation.Kind.CREATE_TABLE));
+        Assert.assertEquals(1,
+                result.getCount(DiffOperation.Kind.ALTER_TABLE));
+        Assert.assertEquals(2,
+                result.getCount(DiffOperation.Kind.ADD_COLUMN));
+        Assert.assertEquals(0,
+                result.getCount(DiffOperation.Kind.START_TRANSACTION));
+
+        final List<String> statements = result.getStatements();
+        final String newLine = System.getProperty("line.separator");
+
+        Assert.assertEquals("START TRANSACTION;", statements.get(0));
+        Assert.assertTrue(statements.contains("ALTER TABLE t1" + newLine
+                + "\tADD COLUMN name text," + newLine
+                + "\tADD COLUMN note text;"));
+
+        Assert.assertFalse(PgDiff.diff(arguments, oldDatabase, oldDatabase)
+                .hasChanges());
+    }
+
+    @Test(timeout = 1000)
+    public void testHasDifferences() {
+        final String dump = "CREATE SCHEMA s1;\n"
+                + "CREATE TABLE s1.t1 (\n"
+                + "    id integer\n"
+                + ");\n"
+                + "CREATE TABLE t1 (\n"
+                + "    id integer\n"
+                + ");\n";
+        final PgDiffArguments arguments = new PgDiffArguments();
+
+        Assert.assertFalse(PgDiff.hasDifferences(arguments,
+                TestDumpLoader.load(dump), TestDumpLoader.load(dump)));
+        Assert.assertTrue(PgDiff.hasDifferences(arguments,
+                TestDumpLoader.load(dump),
+                TestDumpLoader.load(dump.replace("s1.t1 (\n    id integer",
+                "s1.t1 (\n    id bigint"))));
+        Assert.assertTrue(PgDiff.hasDifferences(arguments,
+                TestDumpLoader.load(dump), TestDumpLoader.load(
+                dump + "COMMENT ON DATABASE db IS 'test';\n")));
+        Assert.assertTrue(PgDiff.hasDifferences(arguments,
+                TestDumpLoader.load(dump), TestDumpLoader.load(
+                dump + "CREATE TABLE s1.t2 (\n    id integer\n);\n")));
+        Assert.assertTrue(PgDiff.hasDifferences(arguments,
+                TestDumpLoader.load(dump), TestDumpLoader.load(
+                dump + "CREATE SEQUENCE s1.seq1\n    START WITH 1\n"
+                + "    INCREMENT BY 1;\n")));
+    }
+
+    @Test(timeout = 1000)
+    public void testDetectingPlan() {
+        final DiffPlan plan = DiffPlan.detecting();
+        plan.add(DiffOperation.Kind.SET_SEARCH_PATH, null,
+                () -> "SET search_path = s1, pg_catalog;");
+
+        try {
+            plan.add(DiffOperation.Kind.CREATE_TABLE, null, () -> {
+                throw new AssertionError("SQL built");
+            });
+            Assert.fail("change not detected");
+        } catch (final DiffPlan.ChangeFoundException ex) {
+            Assert.assertEquals(1, plan.getOperations().size());
+        }
+    }
+}
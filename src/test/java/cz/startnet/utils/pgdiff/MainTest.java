@@ -0,0 +1,158 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for exit statuses of check mode.
+ *
+ * @author fordfrog
+ */
+public class MainTest {
+
+    /**
+     * Dump of the original schema.
+     */
+    private static final String DUMP = "CREATE TABLE t1 (\n"
+            + "    id integer\n"
+            + ");\n";
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 1000)
+    public void testCheckSame() throws IOException {
+        final StringWriter errors = new StringWriter();
+
+        Assert.assertEquals(Main.CHECK_SAME, check(errors,
+                writeDump("old.sql", DUMP), writeDump("new.sql", DUMP)));
+        Assert.assertEquals("", errors.toString());
+    }
+
+    @Test(timeout = 1000)
+    public void testCheckDifferent() throws IOException {
+        final StringWriter errors = new StringWriter();
+
+        Assert.assertEquals(Main.CHECK_DIFFERENT, check(errors,
+                writeDump("old.sql", DUMP), writeDump("new.sql",
+                DUMP.replace("integer", "bigint"))));
+        Assert.assertEquals("", errors.toString());
+    }
+
+    @Test(timeout = 1000)
+    public void testCheckError() throws IOException {
+        final StringWriter errors = new StringWriter();
+
+        Assert.assertEquals(Main.CHECK_ERROR, check(errors,
+                writeDump("old.sql", DUMP),
+                new File(folder.getRoot(), "missing.sql").getPath()));
+        Assert.assertTrue(errors.toString().startsWith(
+                Resources.getString("ErrorCheckFailed")));
+    }
+
+    @Test(timeout = 1000)
+    public void testCheckStandardInput() {
+        final StringWriter errors = new StringWriter();
+
+        Assert.assertEquals(Main.CHECK_ERROR, check(errors, "-", "-"));
+        Assert.assertTrue(errors.toString().contains(
+                Resources.getString("ErrorCheckStandardInput")));
+    }
+
+    @Test(timeout = 1000)
+    public void testCheckInvalidNumber() {
+        final StringWriter errors = new StringWriter();
+
+        Assert.assertEquals(Main.CHECK_ERROR, check(errors,
+                "--check", "--parse-threads", "0", "a", "b"));
+        Assert.assertTrue(errors.toString().startsWith(
+                Resources.getString("ErrorInvalidNumber")));
+    }
+
+    @Test(timeout = 1000)
+    public void testCheckUnknownOption() {
+        final StringWriter errors = new StringWriter();
+
+        Assert.assertEquals(Main.CHECK_ERROR,
+                check(errors, "--check", "--bogus", "a", "b"));
+        Assert.assertTrue(errors.toString().startsWith(
+                Resources.getString("ErrorUnknownOption")));
+    }
+
+    @Test(timeout = 1000)
+    public void testIsCheck() {
+        Assert.assertTrue(Main.isCheck(new String[]{"--check"}));
+        Assert.assertTrue(Main.isCheck(
+                new String[]{"--bogus", "--check", "a", "b"}));
+        Assert.assertFalse(Main.isCheck(new String[]{"a", "--check"}));
+    }
+
+    /**
+     * Parses the command line arguments and runs check.
+     *
+     * @param errors writer error messages are written to
+     * @param args   the command line arguments
+     *
+     * @return exit status of check mode
+     */
+    private static int check(final StringWriter errors, final String... args) {
+        final PrintWriter writer = new PrintWriter(errors);
+        final int status = Main.check(writer, args);
+        writer.flush();
+
+        return status;
+    }
+
+    /**
+     * Runs check of the dump files.
+     *
+     * @param errors  writer error messages are written to
+     * @param oldFile original dump file
+     * @param newFile new dump file
+     *
+     * @return exit status of check mode
+     */
+    private static int check(final StringWriter errors, final String oldFile,
+            final String newFile) {
+        final PgDiffArguments arguments = new PgDiffArguments();
+        arguments.setCheck(true);
+        arguments.setOldDumpFile(oldFile);
+        arguments.setNewDumpFile(newFile);
+
+        final PrintWriter writer = new PrintWriter(errors);
+        final int status = Main.check(writer, arguments);
+        writer.flush();
+
+        return status;
+    }
+
+    /**
+     * Writes dump to temporary file.
+     *
+     * @param name name of the file
+     * @param dump content of the dump
+     *
+     * @return path of the file
+     *
+     * @throws IOException Thrown if problem occurred while writing the file.
+     */
+    private String writeDump(final String name, final String dump)
+            throws IOException {
+        final File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), dump.getBytes(StandardCharsets.UTF_8));
+
+        return file.getPath();
+    }
+}
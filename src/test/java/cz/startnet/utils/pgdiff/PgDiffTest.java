@@ -39,6 +39,8 @@ public class PgDiffTest {
                 new Object[][]{
                     // Tests scenario where COLUMN type is modified.
                     {"modify_column_type", false, false, false, false},
+                    // Tests scenario where STORAGE of COLUMNs is modified.
+                    {"modify_column_storage", false, false, false, false},
                     // Tests scenario where CLUSTER is added to TABLE.
                     {"add_cluster", false, false, false, false},
                     // Tests scenario where CLUSTER is dropped from TABLE.
@@ -384,13 +386,60 @@ public class PgDiffTest {
      */
     @Test(timeout = 1000)
     public void runDiff() throws FileNotFoundException, IOException {
+        runDiff(1, 1, false);
+    }
+
+    /**
+     * Runs single test using class member variables with dumps parsed and
+     * schemas diffed by multiple threads.
+     *
+     * @throws FileNotFoundException Thrown if expected diff file was not found.
+     * @throws IOException           Thrown if problem occurred while reading
+     *                               expected diff.
+     */
+    @Test(timeout = 1000)
+    public void runDiffParallel() throws FileNotFoundException, IOException {
+        runDiff(4, 4, false);
+    }
+
+    /**
+     * Runs single test using class member variables with only statements of
+     * changed objects parsed.
+     *
+     * @throws FileNotFoundException Thrown if expected diff file was not found.
+     * @throws IOException           Thrown if problem occurred while reading
+     *                               expected diff.
+     */
+    @Test(timeout = 1000)
+    public void runDiffLazy() throws FileNotFoundException, IOException {
+        runDiff(1, 1, true);
+    }
+
+    /**
+     * Runs single test using class member variables.
+     *
+     * @param parseThreads number of threads used to parse dumps
+     * @param diffThreads  number of threads used to diff schemas
+     * @param lazyParse    whether only statements of changed objects should
+     *                     be parsed
+     *
+     * @throws FileNotFoundException Thrown if expected diff file was not found.
+     * @throws IOException           Thrown if problem occurred while reading
+     *                               expected diff.
+     */
+    private void runDiff(final int parseThreads, final int diffThreads,
+            final boolean lazyParse)
+            throws FileNotFoundException, IOException {
         final ByteArrayOutputStream diffInput = new ByteArrayOutputStream();
         final PrintWriter writer = new PrintWriter(diffInput, true);
         final PgDiffArguments arguments = new PgDiffArguments();
         arguments.setAddDefaults(addDefaults);
         arguments.setIgnoreFunctionWhitespace(ignoreFunctionWhitespace);
         arguments.setIgnoreStartWith(ignoreStartWith);
-        PgDiffUtils.setUseExists(true);
+        arguments.setParseThreads(parseThreads);
+        arguments.setDiffThreads(diffThreads);
+        arguments.setLazyParse(lazyParse);
+        arguments.setUseIfExists(true);
         PgDiff.createDiff(writer, arguments,
                 PgDiffTest.class.getResourceAsStream(
                 fileNameTemplate + "_original.sql"),
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for comparison of texts ignoring whitespace in PgDiffUtils class.
+ *
+ * @author fordfrog
+ */
+public class PgDiffUtilsTest {
+
+    /**
+     * Characters random texts are made of.
+     */
+    private static final String CHARACTERS = "ab' \t\n\r\f\u000b";
+
+    @Test(timeout = 1000)
+    public void testMixedWhitespace() {
+        assertConsistent("select  1\n\tfrom t;", "select 1 from\r\nt;");
+        assertConsistent("select 1\f\u000bfrom t;", "select 1 from t;");
+        assertConsistent("select 1 from t;", "select 1from t;");
+        assertConsistent(" select 1;", "select 1;");
+        assertConsistent("select 1;\n", "select 1; \t");
+    }
+
+    @Test(timeout = 1000)
+    public void testQuotedText() {
+        assertConsistent("select 'a  b';", "select 'a b';");
+        assertConsistent("select 'a\nb';", "select 'a b';");
+        assertConsistent("select 'ab';", "select 'a b';");
+        assertConsistent("select $$a \n b$$;", "select $$a b$$;");
+    }
+
+    @Test(timeout = 1000)
+    public void testEmptyStrings() {
+        assertConsistent("", "");
+        assertConsistent("", " ");
+        assertConsistent("\n", " \t");
+        assertConsistent("", "a");
+        Assert.assertEquals(0, PgDiffUtils.hashCodeIgnoringWhitespace(""));
+    }
+
+    @Test(timeout = 1000)
+    public void testNull() {
+        Assert.assertTrue(PgDiffUtils.equalsIgnoringWhitespace(null, null));
+        Assert.assertFalse(PgDiffUtils.equalsIgnoringWhitespace(null, ""));
+        Assert.assertFalse(PgDiffUtils.equalsIgnoringWhitespace("", null));
+        Assert.assertEquals(0, PgDiffUtils.hashCodeIgnoringWhitespace(null));
+    }
+
+    @Test(timeout = 5000)
+    public void testRandomTexts() {
+        final Random random = new Random(1);
+
+        for (int i = 0; i < 10000; i++) {
+            final String text = randomText(random);
+            assertConsistent(text, randomText(random));
+            assertConsistent(text, shuffleWhitespace(random, text));
+        }
+    }
+
+    /**
+     * Checks that comparison and hash code of the texts ignoring whitespace
+     * give the same results as comparison and hash code of the texts with
+     * {@code replaceAll("\\s+", " ")} applied, and that texts equal ignoring
+     * whitespace have the same hash code.
+     *
+     * @param text1 first text
+     * @param text2 second text
+     */
+    private static void assertConsistent(final String text1,
+            final String text2) {
+        final String normalized1 = text1.replaceAll("\\s+", " ");
+        final String normalized2 = text2.replaceAll("\\s+", " ");
+        final boolean equals =
+                PgDiffUtils.equalsIgnoringWhitespace(text1, text2);
+        final String message = "'" + text1 + "' and '" + text2 + "'";
+
+        Assert.assertEquals(message, normalized1.equals(normalized2), equals);
+        Assert.assertEquals(message, equals,
+                PgDiffUtils.equalsIgnoringWhitespace(text2, text1));
+        Assert.assertEquals(message, normalized1.hashCode(),
+                PgDiffUtils.hashCodeIgnoringWhitespace(text1));
+        Assert.assertEquals(message, normalized2.hashCode(),
+                PgDiffUtils.hashCodeIgnoringWhitespace(text2));
+
+        if (equals) {
+            Assert.assertEquals(message,
+                    PgDiffUtils.hashCodeIgnoringWhitespace(text1),
+                    PgDiffUtils.hashCodeIgnoringWhitespace(text2));
+        }
+    }
+
+    /**
+     * Creates random text of up to 8 characters.
+     *
+     * @param random random number generator
+     *
+     * @return random text
+     */
+    private static String randomText(final Random random) {
+        final StringBuilder sbText = new StringBuilder(8);
+        final int length = random.nextInt(9);
+
+        for (int i = 0; i < length; i++) {
+            sbText.append(CHARACTERS.charAt(
+                    random.nextInt(CHARACTERS.length())));
+        }
+
+        return sbText.toString();
+    }
+
+    /**
+     * Replaces every run of whitespace in the text with random run of
+     * whitespace.
+     *
+     * @param random random number generator
+     * @param text   text
+     *
+     * @return text with whitespace replaced
+     */
+    private static String shuffleWhitespace(final Random random,
+            final String text) {
+        final StringBuilder sbText = new StringBuilder(text.length() * 2);
+        final String[] parts = text.split("\\s+", -1);
+
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                final int length = 1 + random.nextInt(3);
+
+                for (int j = 0; j < length; j++) {
+                    sbText.append(CHARACTERS.charAt(3
+                            + random.nextInt(CHARACTERS.length() - 3)));
+                }
+            }
+
+            sbText.append(parts[i]);
+        }
+
+        return sbText.toString();
+    }
+}
@@ -0,0 +1,295 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import cz.startnet.utils.pgdiff.PgDiff;
+import cz.startnet.utils.pgdiff.PgDiffArguments;
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for ArchiveReader class.
+ *
+ * @author fordfrog
+ */
+public class ArchiveReaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test(timeout = 1000)
+    public void testLoadCustomArchive() {
+        final ArchiveBuilder archive = new ArchiveBuilder(14);
+        archive.entry("SEARCHPATH", 2, "SEARCHPATH", null, "",
+                "SELECT pg_catalog.set_config('search_path', '', false);\n",
+                "");
+        archive.entry("SCHEMA", 2, "s", null, "postgres",
+                "CREATE SCHEMA s;\n", "DROP SCHEMA s;\n");
+        archive.entry("TABLE", 2, "t", "s", "owner",
+                "CREATE TABLE s.t (\n    id integer\n);\n",
+                "DROP TABLE s.t;\n");
+        archive.entry("TABLE DATA", 3, "t", "s", "owner", "", "");
+
+        final PgDatabase database = PgDumpLoader.loadDatabaseSchema(
+                archive.toInputStream(), "UTF-8", false, false, false);
+
+        Assert.assertNotNull(database.getSchema("s"));
+        Assert.assertEquals("owner",
+                database.getSchema("s").getTable("t").getOwnerTo());
+    }
+
+    @Test(timeout = 1000)
+    public void testLoadArchiveWithoutSearchPath() {
+        final ArchiveBuilder archive = new ArchiveBuilder(12);
+        archive.entry("SCHEMA", 0, "s", null, "postgres",
+                "CREATE SCHEMA s;\n", "DROP SCHEMA s;\n");
+        archive.entry("TABLE", 0, "t", "s", "postgres",
+                "CREATE TABLE t (\n    id integer\n);\n", "DROP TABLE t;\n");
+        archive.entry("TABLE DATA", 0, "t", "s", "postgres", "", "");
+
+        final PgDatabase database = PgDumpLoader.loadDatabaseSchema(
+                archive.toInputStream(), "UTF-8", false, false, false);
+
+        Assert.assertNotNull(database.getSchema("s").getTable("t"));
+        Assert.assertNull(database.getSchema("public").getTable("t"));
+    }
+
+    @Test(timeout = 1000)
+    public void testLoadDirectoryArchive() throws IOException {
+        final ArchiveBuilder archive = new ArchiveBuilder(14, 5);
+        archive.entry("SCHEMA", 2, "s", null, "postgres",
+                "CREATE SCHEMA s;\n", "DROP SCHEMA s;\n");
+        archive.entry("TABLE", 2, "t", "s", "postgres",
+                "CREATE TABLE s.t (\n    id integer\n);\n",
+                "DROP TABLE s.t;\n");
+        archive.entry("TABLE DATA", 3, "t", "s", "postgres", "", "");
+        archive.entry("COMMENT", 2, "TABLE t", "s", "postgres",
+                "COMMENT ON TABLE s.t IS 'c';\n", "");
+
+        final File directory = temporaryFolder.newFolder("dump");
+        Files.copy(archive.toInputStream(),
+                new File(directory, "toc.dat").toPath());
+
+        Assert.assertEquals(DumpFormat.DIRECTORY,
+                DumpFormat.detect(directory.getPath()));
+
+        final PgDatabase database = new PgDumpLoader.Session(
+                "UTF-8", false, false, false, 2).load(directory.getPath());
+
+        Assert.assertEquals("'c'",
+                database.getSchema("s").getTable("t").getComment());
+    }
+
+    @Test(timeout = 1000)
+    public void testDiffDetectsFormat() throws IOException {
+        final ArchiveBuilder archive = new ArchiveBuilder(14);
+        archive.entry("SCHEMA", 2, "s", null, "postgres",
+                "CREATE SCHEMA s;\n", "DROP SCHEMA s;\n");
+        archive.entry("TABLE", 2, "t", "s", "postgres",
+                "CREATE TABLE s.t (\n    id integer\n);\n",
+                "DROP TABLE s.t;\n");
+
+        final File oldFile = temporaryFolder.newFile("old.dump");
+        final File newFile = temporaryFolder.newFile("new.sql");
+        Files.copy(archive.toInputStream(), oldFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        Files.write(newFile.toPath(), ("CREATE SCHEMA s;\n"
+                + "CREATE TABLE s.t (\n    id bigint\n);\n")
+                .getBytes(StandardCharsets.UTF_8));
+
+        // formats are not set, so they are detected when dumps are loaded
+        final PgDiffArguments arguments = new PgDiffArguments();
+        arguments.setOldDumpFile(oldFile.getPath());
+        arguments.setNewDumpFile(newFile.getPath());
+
+        final StringWriter diff = new StringWriter();
+        final PrintWriter writer = new PrintWriter(diff);
+        PgDiff.createDiff(writer, arguments);
+        writer.flush();
+
+        Assert.assertNull(arguments.getOldDumpFormat());
+        Assert.assertTrue(diff.toString().contains(
+                "ALTER COLUMN id TYPE bigint"));
+    }
+
+    /**
+     * Builds archive containing only table of contents.
+     */
+    private static class ArchiveBuilder {
+
+        /**
+         * Archive minor version.
+         */
+        private final int minor;
+        /**
+         * Archive format.
+         */
+        private final int format;
+        /**
+         * Table of contents entries.
+         */
+        private final ByteArrayOutputStream entries =
+                new ByteArrayOutputStream();
+        /**
+         * Number of entries.
+         */
+        private int count;
+
+        /**
+         * Creates new instance of ArchiveBuilder for custom format archive.
+         *
+         * @param minor {@link #minor}
+         */
+        ArchiveBuilder(final int minor) {
+            this(minor, 1);
+        }
+
+        /**
+         * Creates new instance of ArchiveBuilder.
+         *
+         * @param minor  {@link #minor}
+         * @param format {@link #format}
+         */
+        ArchiveBuilder(final int minor, final int format) {
+            this.minor = minor;
+            this.format = format;
+        }
+
+        /**
+         * Adds table of contents entry.
+         *
+         * @param desc      object type
+         * @param section   section, ignored for archives older than 1.11
+         * @param tag       object name
+         * @param namespace object schema
+         * @param owner     object owner
+         * @param defn      SQL creating the object
+         * @param dropStmt  SQL dropping the object
+         */
+        void entry(final String desc, final int section, final String tag,
+                final String namespace, final String owner, final String defn,
+                final String dropStmt) {
+            count++;
+            writeInt(entries, count);
+            writeInt(entries, 0);
+            writeString(entries, "0");
+            writeString(entries, "0");
+            writeString(entries, tag);
+            writeString(entries, desc);
+
+            if (minor >= 11) {
+                writeInt(entries, section);
+            }
+
+            writeString(entries, defn);
+            writeString(entries, dropStmt);
+            writeString(entries, "");
+            writeString(entries, namespace);
+            writeString(entries, "");
+
+            if (minor >= 14) {
+                writeString(entries, "");
+            }
+
+            writeString(entries, owner);
+            writeString(entries, "false");
+            writeString(entries, null);
+
+            if (format == 1) {
+                // no data offset
+                entries.write(3);
+
+                for (int i = 0; i < 8; i++) {
+                    entries.write(0);
+                }
+            } else {
+                writeString(entries, "TABLE DATA".equals(desc)
+                        ? count + ".dat.gz" : "");
+            }
+        }
+
+        /**
+         * Returns the archive as input stream.
+         *
+         * @return input stream
+         */
+        ByteArrayInputStream toInputStream() {
+            final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+            archive.write('P');
+            archive.write('G');
+            archive.write('D');
+            archive.write('M');
+            archive.write('P');
+            archive.write(1);
+            archive.write(minor);
+            archive.write(0);
+            archive.write(4);
+            archive.write(8);
+            archive.write(format);
+            writeInt(archive, 0);
+
+            for (int i = 0; i < 7; i++) {
+                writeInt(archive, 0);
+            }
+
+            writeString(archive, "db");
+            writeString(archive, "12.0");
+            writeString(archive, "12.0");
+            writeInt(archive, count);
+
+            final byte[] bytes = entries.toByteArray();
+            archive.write(bytes, 0, bytes.length);
+
+            return new ByteArrayInputStream(archive.toByteArray());
+        }
+
+        /**
+         * Writes integer in archive format.
+         *
+         * @param output output stream
+         * @param value  integer
+         */
+        private static void writeInt(final ByteArrayOutputStream output,
+                final int value) {
+            output.write(value < 0 ? 1 : 0);
+
+            final int abs = Math.abs(value);
+
+            for (int i = 0; i < 4; i++) {
+                output.write(abs >> (i * 8));
+            }
+        }
+
+        /**
+         * Writes string in archive format.
+         *
+         * @param output output stream
+         * @param value  string or null
+         */
+        private static void writeString(final ByteArrayOutputStream output,
+                final String value) {
+            if (value == null) {
+                writeInt(output, -1);
+            } else {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeInt(output, bytes.length);
+                output.write(bytes, 0, bytes.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import cz.startnet.utils.pgdiff.Pair;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for ChangedObjects class.
+ *
+ * @author fordfrog
+ */
+public class ChangedObjectsTest {
+
+    /**
+     * Statements of the unchanged table.
+     */
+    private static final List<String> UNCHANGED = Arrays.asList(
+            "CREATE TABLE t1 (\n    id integer\n);",
+            "ALTER TABLE t1 OWNER TO o;",
+            "CREATE INDEX t1_id ON t1 USING btree (id);",
+            "COMMENT ON INDEX t1_id IS 'c';");
+
+    @Test(timeout = 1000)
+    public void testSelectChangedTable() {
+        final Pair<List<String>, List<String>> selected = ChangedObjects.select(
+                statements("CREATE TABLE t2 (\n    id integer\n);"),
+                statements("CREATE TABLE t2 (\n    id bigint\n);"));
+
+        Assert.assertEquals(Arrays.asList(
+                "SET search_path = public, pg_catalog;",
+                "CREATE SCHEMA s1;",
+                "CREATE TABLE t2 (\n    id integer\n);",
+                "COMMENT ON COLUMN t2.id IS 'c';"), selected.getL());
+        Assert.assertEquals(Arrays.asList(
+                "SET search_path = public, pg_catalog;",
+                "CREATE SCHEMA s1;",
+                "CREATE TABLE t2 (\n    id bigint\n);",
+                "COMMENT ON COLUMN t2.id IS 'c';"), selected.getR());
+    }
+
+    @Test(timeout = 1000)
+    public void testSelectInheritedTable() {
+        final Pair<List<String>, List<String>> selected = ChangedObjects.select(
+                statements("CREATE TABLE t2 (\n    id integer\n)\n"
+                + "INHERITS (t1);"),
+                statements("CREATE TABLE t2 (\n    id bigint\n)\n"
+                + "INHERITS (t1);"));
+
+        Assert.assertTrue(selected.getL().containsAll(UNCHANGED));
+        Assert.assertTrue(selected.getR().containsAll(UNCHANGED));
+    }
+
+    @Test(timeout = 1000)
+    public void testSelectUnknownStatement() {
+        final List<String> oldStatements =
+                statements("CREATE TABLE t2 (\n    id integer\n);");
+        final List<String> newStatements =
+                statements("CREATE TABLE t2 (\n    id integer\n);");
+        newStatements.set(newStatements.size() - 1,
+                "COMMENT ON INDEX unknown IS 'c';");
+
+        final Pair<List<String>, List<String>> selected =
+                ChangedObjects.select(oldStatements, newStatements);
+
+        Assert.assertSame(oldStatements, selected.getL());
+        Assert.assertSame(newStatements, selected.getR());
+    }
+
+    /**
+     * Returns statements of dump containing unchanged table t1 and table t2
+     * created by the statement.
+     *
+     * @param createTable CREATE TABLE statement of table t2
+     *
+     * @return statements of the dump
+     */
+    private static List<String> statements(final String createTable) {
+        final List<String> statements = new ArrayList<String>();
+        statements.add("SET search_path = public, pg_catalog;");
+        statements.add("CREATE SCHEMA s1;");
+        statements.addAll(UNCHANGED);
+        statements.add(createTable);
+        statements.add("COMMENT ON COLUMN t2.id IS 'c';");
+
+        return statements;
+    }
+}
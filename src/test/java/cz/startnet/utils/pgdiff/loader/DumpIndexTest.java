@@ -0,0 +1,302 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import cz.startnet.utils.pgdiff.PgDiff;
+import cz.startnet.utils.pgdiff.PgDiffArguments;
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.function.Predicate;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for DumpIndex class.
+ *
+ * @author fordfrog
+ */
+public class DumpIndexTest {
+
+    /**
+     * Dump with pg_dump object headers.
+     */
+    private static final String DUMP = "SET search_path = public, pg_catalog;\n"
+            + "\n--\n-- Name: s1; Type: SCHEMA; Schema: -; Owner: o\n--\n\n"
+            + "CREATE SCHEMA s1;\n"
+            + "\n--\n-- Name: t1; Type: TABLE; Schema: s1; Owner: o\n--\n\n"
+            + "CREATE TABLE s1.t1 (\n    id integer\n);\n\n"
+            + "ALTER TABLE s1.t1 OWNER TO o;\n"
+            + "\n--\n-- Name: f(integer); Type: FUNCTION; Schema: public;"
+            + " Owner: o\n--\n\n"
+            + "CREATE FUNCTION f(a integer) RETURNS integer\n"
+            + "    AS $$ select 1; $$ LANGUAGE sql;\n"
+            + "\n--\n-- Name: t2; Type: TABLE; Schema: public; Owner: o\n--\n\n"
+            + "CREATE TABLE t2 (\n    id integer\n);\n";
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 5000)
+    public void testBuildIndex() throws IOException {
+        final Path file = writeDump(DUMP);
+        final List<DumpIndex.Entry> entries = open(file).getEntries();
+
+        Assert.assertEquals(6, entries.size());
+        Assert.assertEquals(StatementType.SET_SEARCH_PATH,
+                entries.get(0).getStatementType());
+        Assert.assertNull(entries.get(0).getName());
+        Assert.assertNull(entries.get(1).getSchema());
+        Assert.assertEquals("TABLE", entries.get(3).getObjectType());
+        Assert.assertEquals("s1", entries.get(3).getSchema());
+        Assert.assertEquals("t1", entries.get(3).getName());
+        Assert.assertEquals("f(integer)", entries.get(4).getName());
+        Assert.assertEquals(DUMP.length() - 1, entries.get(5).getOffset()
+                + entries.get(5).getLength());
+        Assert.assertTrue(Files.exists(DumpIndex.getSidecar(file)));
+    }
+
+    @Test(timeout = 5000)
+    public void testIndexInvalidated() throws IOException {
+        final Path file = writeDump(DUMP);
+        final FileTime modified = Files.getLastModifiedTime(file);
+        Assert.assertEquals("t2", open(file).getEntries().get(5).getName());
+
+        // same size, only the modification time differs
+        writeDump(DUMP.replace("t2", "t3"));
+        Files.setLastModifiedTime(file,
+                FileTime.fromMillis(modified.toMillis() + 1000));
+        Assert.assertEquals("t3", open(file).getEntries().get(5).getName());
+
+        // same modification time, only the size differs
+        writeDump(DUMP.replace("t2", "t44"));
+        Files.setLastModifiedTime(file, modified);
+        Assert.assertNotNull(load(file, entry -> true).getSchema("public")
+                .getTable("t44"));
+    }
+
+    @Test(timeout = 5000)
+    public void testIndexInvalidatedByContent() throws IOException {
+        final Path file = writeDump(DUMP);
+        final FileTime modified = Files.getLastModifiedTime(file);
+        Assert.assertEquals("t2", open(file).getEntries().get(5).getName());
+
+        // same size and modification time, only the content differs
+        writeDump(DUMP.replace("t2", "t3"));
+        Files.setLastModifiedTime(file, modified);
+        Assert.assertEquals("t3", open(file).getEntries().get(5).getName());
+    }
+
+    @Test(timeout = 5000)
+    public void testIndexInvalidatedByBoundaries() throws IOException {
+        final String tables = "CREATE TABLE ta (id integer);\n\n"
+                + "CREATE TABLE tb (id integer);\n";
+        final StringBuilder changed = new StringBuilder(
+                "CREATE TABLE ta (id integer, b int);\n"
+                + "CREATE TABLE tb (b int);");
+
+        while (changed.length() < tables.length()) {
+            changed.append(' ');
+        }
+
+        Assert.assertEquals(tables.length(), changed.length());
+
+        // the tables are between the first and the second sampled block in
+        // the middle of the dump, so the checksum does not change
+        final Path file = writeDump(pad(90000) + tables + pad(910000));
+        final FileTime modified = Files.getLastModifiedTime(file);
+        Assert.assertEquals(2, open(file).getEntries().size());
+
+        writeDump(pad(90000) + changed + pad(910000));
+        Files.setLastModifiedTime(file, modified);
+        final DumpIndex.Entry entry = open(file).getEntries().get(0);
+        Assert.assertEquals(changed.indexOf(";") + 1,
+                entry.getOffset() + entry.getLength() - 90000);
+    }
+
+    @Test(timeout = 5000)
+    public void testReadStatements() throws IOException {
+        final String dump = DUMP
+                + "\nCREATE VIEW v AS\n    SELECT 1 -- one\n;\n"
+                + "\nCOPY t2 (id) FROM stdin;\n1\n2\n\\.\n";
+        final Path file = writeDump(dump);
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        final List<String> statements = open(file).readStatements(buffer,
+                StandardCharsets.UTF_8, entry -> true);
+        final StatementLexer lexer =
+                new MappedStatementLexer(buffer, StandardCharsets.UTF_8);
+
+        for (int i = 0; i < statements.size() - 1; i++) {
+            Assert.assertEquals(lexer.nextStatement(), statements.get(i));
+        }
+
+        Assert.assertEquals("COPY t2 (id) FROM stdin;",
+                statements.get(statements.size() - 1));
+    }
+
+    @Test(timeout = 5000)
+    public void testDiffLazyIndexed() throws IOException {
+        final PgDiffArguments arguments = new PgDiffArguments();
+        arguments.setOldDumpFile(writeDump(DUMP).toString());
+        arguments.setNewDumpFile(writeDump("new.sql", DUMP
+                .replace("s1.t1 (\n    id integer", "s1.t1 (\n    id bigint"))
+                .toString());
+        arguments.setLazyParse(true);
+        arguments.setUseIndex(true);
+
+        final String diff = diff(arguments);
+
+        Assert.assertTrue(diff.contains("SET search_path = s1"));
+        Assert.assertTrue(diff.contains("ALTER COLUMN id TYPE bigint"));
+        Assert.assertTrue(Files.exists(DumpIndex.getSidecar(
+                new File(arguments.getNewDumpFile()).toPath())));
+        Assert.assertEquals(diff, diff(arguments));
+
+        arguments.setUseIndex(false);
+        Assert.assertEquals(diff, diff(arguments));
+    }
+
+    @Test(timeout = 5000)
+    public void testDiffSelectedSchemas() throws IOException {
+        final PgDiffArguments arguments = new PgDiffArguments();
+        arguments.setOldDumpFile(writeDump(DUMP).toString());
+        arguments.setNewDumpFile(writeDump("new.sql", DUMP
+                .replace("s1.t1 (\n    id integer", "s1.t1 (\n    id bigint")
+                .replace("t2 (\n    id integer", "t2 (\n    id bigint"))
+                .toString());
+        arguments.addSchema("s1");
+        arguments.setUseIndex(true);
+
+        final String diff = diff(arguments);
+
+        Assert.assertTrue(diff.contains("SET search_path = s1"));
+        Assert.assertTrue(diff.contains("ALTER COLUMN id TYPE bigint"));
+        Assert.assertFalse(diff.contains("t2"));
+
+        arguments.setLazyParse(true);
+        Assert.assertEquals(diff, diff(arguments));
+
+        arguments.setUseIndex(false);
+        Assert.assertEquals(diff, diff(arguments));
+
+        arguments.setLazyParse(false);
+        Assert.assertEquals(diff, diff(arguments));
+    }
+
+    @Test(timeout = 5000)
+    public void testLoadFilteredObjects() throws IOException {
+        final Path file = writeDump(DUMP);
+        final PgDatabase database = load(file,
+                entry -> !"s1".equals(entry.getSchema()));
+
+        Assert.assertNotNull(database.getSchema("s1"));
+        Assert.assertNull(database.getSchema("s1").getTable("t1"));
+        Assert.assertNotNull(database.getSchema("public").getTable("t2"));
+        Assert.assertEquals(1,
+                database.getSchema("public").getFunctions().size());
+    }
+
+    /**
+     * Creates comment lines of given length.
+     *
+     * @param length length of the comment lines
+     *
+     * @return comment lines
+     */
+    private static String pad(final int length) {
+        final StringBuilder sbPadding = new StringBuilder(length);
+
+        while (sbPadding.length() < length) {
+            sbPadding.append("--\n");
+        }
+
+        return sbPadding.toString();
+    }
+
+    /**
+     * Writes dump to temporary file.
+     *
+     * @param dump content of the dump
+     *
+     * @return path of the file
+     *
+     * @throws IOException Thrown if problem occurred while writing the file.
+     */
+    private Path writeDump(final String dump) throws IOException {
+        return writeDump("dump.sql", dump);
+    }
+
+    /**
+     * Writes dump to temporary file.
+     *
+     * @param name name of the file
+     * @param dump content of the dump
+     *
+     * @return path of the file
+     *
+     * @throws IOException Thrown if problem occurred while writing the file.
+     */
+    private Path writeDump(final String name, final String dump)
+            throws IOException {
+        final Path file = new File(folder.getRoot(), name).toPath();
+        Files.write(file, dump.getBytes(StandardCharsets.UTF_8));
+
+        return file;
+    }
+
+    /**
+     * Creates diff of the dump files.
+     *
+     * @param arguments object containing arguments settings
+     *
+     * @return diff
+     */
+    private static String diff(final PgDiffArguments arguments) {
+        final StringWriter buffer = new StringWriter();
+        final PrintWriter writer = new PrintWriter(buffer);
+        PgDiff.createDiff(writer, arguments);
+        writer.flush();
+
+        return buffer.toString();
+    }
+
+    /**
+     * Opens index of the dump file.
+     *
+     * @param file dump file
+     *
+     * @return index of the dump
+     *
+     * @throws IOException Thrown if problem occurred while reading the file.
+     */
+    private static DumpIndex open(final Path file) throws IOException {
+        return DumpIndex.open(file, ByteBuffer.wrap(Files.readAllBytes(file)),
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Loads the dump file using index.
+     *
+     * @param file   dump file
+     * @param filter filter of index entries
+     *
+     * @return database schema
+     */
+    private static PgDatabase load(final Path file,
+            final Predicate<DumpIndex.Entry> filter) {
+        return new PgDumpLoader.Session("UTF-8", false, false, false, 1)
+                .loadIndexed(file.toString(), filter);
+    }
+}
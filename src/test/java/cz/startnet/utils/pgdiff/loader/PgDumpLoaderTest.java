@@ -5,13 +5,20 @@
  */
 package cz.startnet.utils.pgdiff.loader;
 
+import cz.startnet.utils.pgdiff.PgDiff;
+import cz.startnet.utils.pgdiff.PgDiffArguments;
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 
+import java.io.File;
+import java.net.URISyntaxException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 
 /**
  * Tests for PgDiffLoader class.
@@ -46,7 +53,9 @@ public class PgDumpLoaderTest {
                     {14},
                     {15},
                     {16},
-                    {18}
+                    {18},
+                    {19},
+                    {20}
                 });
     }
     /**
@@ -72,4 +81,29 @@ public class PgDumpLoaderTest {
                 getClass().getResourceAsStream("schema_" + fileIndex + ".sql"),
                 "UTF-8", false, false, false);
     }
+
+    /**
+     * Runs single test loading the dump from memory mapped file and compares
+     * it with dump loaded from input stream.
+     *
+     * @throws URISyntaxException Thrown if resource URL is invalid.
+     */
+    @Test(timeout = 1000)
+    public void loadSchemaMapped() throws URISyntaxException {
+        final PgDatabase streamDatabase = PgDumpLoader.loadDatabaseSchema(
+                getClass().getResourceAsStream("schema_" + fileIndex + ".sql"),
+                "UTF-8", true, false, false);
+        final PgDatabase mappedDatabase = PgDumpLoader.loadDatabaseSchema(
+                new File(getClass().getResource(
+                "schema_" + fileIndex + ".sql").toURI()).getPath(),
+                "UTF-8", true, false, false);
+
+        Assert.assertEquals(streamDatabase.getStatementCounts(),
+                mappedDatabase.getStatementCounts());
+        Assert.assertEquals(streamDatabase.getIgnoredStatements(),
+                mappedDatabase.getIgnoredStatements());
+        Assert.assertEquals(Collections.emptyList(), PgDiff.diff(
+                new PgDiffArguments(), streamDatabase, mappedDatabase)
+                .getStatements());
+    }
 }
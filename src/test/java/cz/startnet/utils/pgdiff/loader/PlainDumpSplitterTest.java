@@ -0,0 +1,138 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for PlainDumpSplitter class.
+ *
+ * @author fordfrog
+ */
+public class PlainDumpSplitterTest {
+
+    @Test(timeout = 5000)
+    public void testSplitAtHeaders() {
+        final ByteBuffer buffer = createDump("");
+        final List<StatementLexer> chunks =
+                PlainDumpSplitter.split(buffer, StandardCharsets.UTF_8, 8);
+
+        Assert.assertTrue(chunks.size() > 1);
+
+        final List<String> statements = new ArrayList<String>();
+
+        for (final StatementLexer chunk : chunks) {
+            for (final ClassifiedStatement statement :
+                    PgDumpLoader.classifyChunk(chunk)) {
+                statements.add(statement.getStatement());
+            }
+        }
+
+        final List<String> expected = new ArrayList<String>();
+
+        for (final ClassifiedStatement statement : PgDumpLoader.classifyChunk(
+                new MappedStatementLexer(buffer, StandardCharsets.UTF_8))) {
+            expected.add(statement.getStatement());
+        }
+
+        Assert.assertEquals(expected, statements);
+    }
+
+    @Test(timeout = 5000)
+    public void testSplitInsideComment() {
+        final ByteBuffer buffer = createDump("/*\n\n--\n-- Name: x; Type: TABLE;"
+                + " Schema: s; Owner: o\n--\n*/\n");
+        boolean failed = false;
+
+        for (final StatementLexer chunk : PlainDumpSplitter.split(
+                buffer, StandardCharsets.UTF_8, 8)) {
+            try {
+                PgDumpLoader.classifyChunk(chunk);
+            } catch (final RuntimeException ex) {
+                failed = true;
+            }
+        }
+
+        Assert.assertTrue(failed);
+    }
+
+    @Test(timeout = 5000)
+    public void testSplitSkipsCopyData() {
+        final StringBuilder sbDump = new StringBuilder(1024 * 1024);
+        sbDump.append(new String(createDump("").array(),
+                StandardCharsets.UTF_8));
+        sbDump.append("--\n-- Data for Name: t0; Type: TABLE DATA; Schema: s;"
+                + " Owner: o\n--\n\nCOPY s.t0 (id) FROM stdin;\n");
+
+        // rows looking like object headers
+        for (int i = 0; i < 20000; i++) {
+            sbDump.append("\n--\n-- Name: x");
+            sbDump.append(i);
+            sbDump.append("; Type: TABLE; Schema: s; Owner: o\n--\n");
+        }
+
+        sbDump.append("\\.\n\n\n--\n-- Name: t; Type: TABLE; Schema: s;"
+                + " Owner: o\n--\n\nCREATE TABLE s.t (\n    id integer\n);\n");
+
+        final ByteBuffer buffer = ByteBuffer.wrap(
+                sbDump.toString().getBytes(StandardCharsets.UTF_8));
+        final List<StatementLexer> chunks =
+                PlainDumpSplitter.split(buffer, StandardCharsets.UTF_8, 8);
+
+        Assert.assertTrue(chunks.size() > 1);
+
+        final List<String> statements = new ArrayList<String>();
+
+        for (final StatementLexer chunk : chunks) {
+            for (final ClassifiedStatement statement :
+                    PgDumpLoader.classifyChunk(chunk)) {
+                statements.add(statement.getStatement());
+            }
+        }
+
+        Assert.assertEquals(5002, statements.size());
+        Assert.assertEquals(StatementType.CREATE_TABLE,
+                PgDumpLoader.classifyStatement(
+                statements.get(statements.size() - 1)).getType());
+    }
+
+    @Test(timeout = 5000, expected = ChunkBoundaryException.class)
+    public void testCopyDataWithoutEnd() {
+        PgDumpLoader.classifyChunk(new MappedStatementLexer(ByteBuffer.wrap(
+                "COPY s.t (id) FROM stdin;\n1\n\n--\n".getBytes(
+                StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates dump with pg_dump object headers.
+     *
+     * @param trailer text appended to each statement
+     *
+     * @return bytes of the dump
+     */
+    private static ByteBuffer createDump(final String trailer) {
+        final StringBuilder sbDump = new StringBuilder(1024 * 1024);
+
+        for (int i = 0; i < 5000; i++) {
+            sbDump.append("--\n-- Name: t");
+            sbDump.append(i);
+            sbDump.append("; Type: TABLE; Schema: s; Owner: o\n--\n\n");
+            sbDump.append("CREATE TABLE s.t");
+            sbDump.append(i);
+            sbDump.append(" (\n    id integer\n);\n");
+            sbDump.append(trailer);
+            sbDump.append('\n');
+        }
+
+        return ByteBuffer.wrap(
+                sbDump.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
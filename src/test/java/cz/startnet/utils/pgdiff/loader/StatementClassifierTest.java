@@ -0,0 +1,99 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for StatementClassifier class.
+ *
+ * @author fordfrog
+ */
+public class StatementClassifierTest {
+
+    @Test(timeout = 1000)
+    public void testClassifyCreate() {
+        Assert.assertEquals(StatementType.CREATE_TABLE,
+                StatementClassifier.classify("CREATE TABLE t (id int);"));
+        Assert.assertEquals(StatementType.CREATE_TABLE,
+                StatementClassifier.classify(
+                "create unlogged\n\tTABLE t (id int);"));
+        Assert.assertEquals(StatementType.CREATE_INDEX,
+                StatementClassifier.classify(
+                "CREATE UNIQUE INDEX i ON t (id);"));
+        Assert.assertEquals(StatementType.CREATE_VIEW,
+                StatementClassifier.classify(
+                "CREATE OR REPLACE MATERIALIZED VIEW v AS SELECT 1;"));
+        Assert.assertEquals(StatementType.CREATE_FUNCTION,
+                StatementClassifier.classify(
+                "CREATE OR REPLACE FUNCTION f() RETURNS int AS $$;$$;"));
+        Assert.assertEquals(StatementType.OTHER,
+                StatementClassifier.classify(
+                "CREATE OR REPLACE TABLE t (id int);"));
+        Assert.assertEquals(StatementType.OTHER,
+                StatementClassifier.classify("CREATE TABLESPACE ts;"));
+    }
+
+    @Test(timeout = 1000)
+    public void testClassifyOther() {
+        Assert.assertEquals(StatementType.ALTER_TABLE,
+                StatementClassifier.classify(
+                "ALTER TABLE ONLY t ADD CONSTRAINT c PRIMARY KEY (id);"));
+        Assert.assertEquals(StatementType.DISABLE_TRIGGER,
+                StatementClassifier.classify(
+                "ALTER TABLE public.t DISABLE TRIGGER tr;"));
+        Assert.assertEquals(StatementType.ALTER_VIEW,
+                StatementClassifier.classify(
+                "ALTER MATERIALIZED VIEW v OWNER TO o;"));
+        Assert.assertEquals(StatementType.COMMENT,
+                StatementClassifier.classify("COMMENT ON TABLE t IS 'c';"));
+        Assert.assertEquals(StatementType.SET_SEARCH_PATH,
+                StatementClassifier.classify(
+                "SET search_path = s, pg_catalog;"));
+        Assert.assertEquals(StatementType.OTHER,
+                StatementClassifier.classify("SET lock_timeout = 0;"));
+        Assert.assertEquals(StatementType.COPY,
+                StatementClassifier.classify("COPY t (id) FROM stdin;"));
+        Assert.assertEquals(StatementType.INSERT,
+                StatementClassifier.classify("INSERT INTO t VALUES (1);"));
+        Assert.assertEquals(StatementType.OTHER,
+                StatementClassifier.classify("GRANT;"));
+    }
+
+    @Test(timeout = 1000)
+    public void testStatementCounts() {
+        final PgDatabase database = PgDumpLoader.loadDatabaseSchema(
+                getClass().getResourceAsStream("schema_19.sql"),
+                "UTF-8", false, false, false);
+
+        Assert.assertEquals(Integer.valueOf(1), database.getStatementCounts()
+                .get(StatementType.CREATE_TABLE));
+        Assert.assertEquals(Integer.valueOf(2), database.getStatementCounts()
+                .get(StatementType.CREATE_FUNCTION));
+        Assert.assertEquals(Integer.valueOf(2), database.getStatementCounts()
+                .get(StatementType.OTHER));
+    }
+
+    @Test(timeout = 1000)
+    public void testCopyDataSkipped() {
+        final PgDatabase database = PgDumpLoader.loadDatabaseSchema(
+                getClass().getResourceAsStream("schema_20.sql"),
+                "UTF-8", true, false, false);
+
+        Assert.assertEquals(2, database.getSchema("public").getTables().size());
+        Assert.assertEquals(1,
+                database.getSchema("public").getSequences().size());
+        Assert.assertEquals(Integer.valueOf(2), database.getStatementCounts()
+                .get(StatementType.COPY));
+        Assert.assertEquals(2, database.getIgnoredStatements().size());
+        Assert.assertTrue(database.getIgnoredStatements().get(0).endsWith(
+                "-- COPY data skipped: 4 rows, 95 bytes"));
+        Assert.assertTrue(database.getIgnoredStatements().get(1).endsWith(
+                "-- COPY data skipped: 0 rows, 0 bytes"));
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.loader;
+
+import cz.startnet.utils.pgdiff.schema.PgDatabase;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads database schemas from dumps given as strings in tests.
+ *
+ * @author fordfrog
+ */
+public final class TestDumpLoader {
+
+    /**
+     * Loads database schema from the dump.
+     *
+     * @param dump dump
+     *
+     * @return database schema
+     */
+    public static PgDatabase load(final String dump) {
+        return PgDumpLoader.loadDatabaseSchema(new ByteArrayInputStream(
+                dump.getBytes(StandardCharsets.UTF_8)), "UTF-8", false, false,
+                false);
+    }
+
+    /**
+     * Creates a new TestDumpLoader object.
+     */
+    private TestDumpLoader() {
+    }
+}
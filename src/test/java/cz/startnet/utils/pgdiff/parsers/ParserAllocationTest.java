@@ -0,0 +1,186 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.parsers;
+
+import java.lang.management.ManagementFactory;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Measures number of bytes allocated by {@link Parser}. Allocations are
+ * counted using allocated bytes of the current thread, so the tests are
+ * skipped on JVMs that do not provide them.
+ *
+ * @author fordfrog
+ */
+public class ParserAllocationTest {
+
+    /**
+     * Number of iterations of measured code.
+     */
+    private static final int ITERATIONS = 100000;
+    /**
+     * Thread management bean providing allocated bytes of thread.
+     */
+    private com.sun.management.ThreadMXBean threadBean;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean()
+                instanceof com.sun.management.ThreadMXBean);
+        threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported()
+                && threadBean.isThreadAllocatedMemoryEnabled());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailedProbesDoNotAllocate() {
+        final Parser parser = new Parser(
+                "CREATE TABLE IF NOT EXISTS public.t (id integer);");
+        probe(parser);
+
+        final long start = getAllocatedBytes();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            probe(parser);
+        }
+
+        assertNoAllocation(getAllocatedBytes() - start);
+    }
+
+    @Test(timeout = 10000)
+    public void testSkipIdentifierDoesNotAllocate() {
+        final Parser parser = new Parser(
+                "ALTER TABLE Public.\"MyTable\" DISABLE TRIGGER Trg;");
+        skip(parser);
+
+        final long start = getAllocatedBytes();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            skip(parser);
+        }
+
+        assertNoAllocation(getAllocatedBytes() - start);
+    }
+
+    @Test(timeout = 10000)
+    public void testParseObjectNameCopiesOnlyName() {
+        final Parser parser =
+                new Parser("COMMENT ON COLUMN Public.MyTable.MyColumn IS 'c';");
+        Assert.assertEquals("mycolumn", parseObjectName(parser));
+        Assert.assertEquals("mycolumn", getObjectName(parser));
+
+        long start = getAllocatedBytes();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            getObjectName(parser);
+        }
+
+        final long identifierBytes = getAllocatedBytes() - start;
+        start = getAllocatedBytes();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            parseObjectName(parser);
+        }
+
+        final long objectNameBytes = getAllocatedBytes() - start;
+
+        Assert.assertTrue("parseObjectName() allocated " + objectNameBytes
+                + " bytes, parseIdentifier() with getObjectName() allocated "
+                + identifierBytes + " bytes",
+                objectNameBytes * 3 < identifierBytes);
+    }
+
+    /**
+     * Probes keywords that are not present in the statement, then parses the
+     * keywords that are present.
+     *
+     * @param parser parser of CREATE TABLE statement
+     */
+    private static void probe(final Parser parser) {
+        parser.setPosition(0);
+        parser.expect("CREATE", false);
+        parser.expectOptional("UNLOGGED");
+        parser.expectOptional("FOREIGN");
+        parser.expect("TABLE", false);
+        parser.expectOptional("IF");
+        parser.expectOptional("NOT");
+        parser.expectOptional("EXISTS");
+        parser.expectOptional("ONLY");
+        parser.skipIdentifier();
+        parser.expectOptional("INHERITS");
+        parser.expect("(", false);
+    }
+
+    /**
+     * Skips identifiers of ALTER TABLE statement.
+     *
+     * @param parser parser of ALTER TABLE statement
+     */
+    private static void skip(final Parser parser) {
+        parser.setPosition(0);
+        parser.expect("ALTER", false);
+        parser.expect("TABLE", false);
+        parser.skipIdentifier();
+        parser.expect("DISABLE", false);
+        parser.expect("TRIGGER", false);
+        parser.skipIdentifier();
+    }
+
+    /**
+     * Parses column name of COMMENT ON COLUMN statement using
+     * {@link Parser#parseObjectName()}.
+     *
+     * @param parser parser of COMMENT ON COLUMN statement
+     *
+     * @return column name
+     */
+    private static String parseObjectName(final Parser parser) {
+        parser.setPosition(18);
+
+        return parser.parseObjectName();
+    }
+
+    /**
+     * Parses column name of COMMENT ON COLUMN statement using
+     * {@link Parser#parseIdentifier()} and
+     * {@link ParserUtils#getObjectName(String)}.
+     *
+     * @param parser parser of COMMENT ON COLUMN statement
+     *
+     * @return column name
+     */
+    private static String getObjectName(final Parser parser) {
+        parser.setPosition(18);
+
+        return ParserUtils.getObjectName(parser.parseIdentifier());
+    }
+
+    /**
+     * Returns number of bytes allocated by the current thread.
+     *
+     * @return number of allocated bytes
+     */
+    private long getAllocatedBytes() {
+        return threadBean.getThreadAllocatedBytes(
+                Thread.currentThread().getId());
+    }
+
+    /**
+     * Checks that the measured code allocated less than one byte per
+     * iteration, which leaves room only for the allocations of the
+     * measurement itself.
+     *
+     * @param bytes number of bytes allocated by all iterations
+     */
+    private static void assertNoAllocation(final long bytes) {
+        Assert.assertTrue("allocated " + bytes + " bytes in " + ITERATIONS
+                + " iterations", bytes < ITERATIONS);
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.parsers;
+
+import org.hamcrest.core.IsEqual;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link Parser}.
+ *
+ * @author fordfrog
+ */
+public class ParserTest {
+
+    @Test(timeout = 1000)
+    public void testParseIdentifier() {
+        final Parser parser = new Parser(
+                "Public.\"MyTable\".ColÄ, lower.\"x.y\" (");
+
+        Assert.assertThat(parser.parseIdentifier(),
+                IsEqual.equalTo("public.\"MyTable\".colä"));
+        parser.expect(",");
+        Assert.assertThat(parser.parseIdentifier(),
+                IsEqual.equalTo("lower.\"x.y\""));
+        Assert.assertTrue(parser.expectOptional("("));
+    }
+
+    @Test(timeout = 1000)
+    public void testParseObjectName() {
+        final Parser parser = new Parser(
+                "Public.\"MyTable\".ColÄ, s.\"x.y\", Lower (");
+
+        Assert.assertThat(parser.parseObjectName(), IsEqual.equalTo("colä"));
+        parser.expect(",");
+        Assert.assertThat(parser.parseObjectName(), IsEqual.equalTo("x.y"));
+        parser.expect(",");
+        parser.skipIdentifier();
+        Assert.assertTrue(parser.expectOptional("("));
+    }
+
+    @Test(timeout = 1000)
+    public void testParseDataType() {
+        final Parser parser = new Parser("CHARACTER VARYING(10) ,"
+                + " timestamp  WITHOUT time zone[], integer )");
+
+        Assert.assertThat(parser.parseDataType(),
+                IsEqual.equalTo("character varying(10)"));
+        parser.expect(",");
+        Assert.assertThat(parser.parseDataType(),
+                IsEqual.equalTo("timestamp without time zone[]"));
+        parser.expect(",");
+        Assert.assertThat(parser.parseDataType(), IsEqual.equalTo("integer"));
+        Assert.assertFalse(parser.expectOptional("integer"));
+        Assert.assertTrue(parser.expectOptional(")"));
+    }
+
+    @Test(timeout = 1000)
+    public void testTokenizedStatement() {
+        final TokenizedStatement tokens =
+                new TokenizedStatement("create TABLE t(OIDS=true, Zone)");
+        final int create = tokens.findToken(0);
+        final int table = tokens.nextToken(create);
+
+        Assert.assertEquals(TokenizedStatement.getKeywordId("CREATE"),
+                tokens.getKeywordId(create));
+        Assert.assertEquals(TokenizedStatement.getKeywordId("table"),
+                tokens.getKeywordId(table));
+        Assert.assertEquals(-1, tokens.findToken(8));
+
+        final int paren = tokens.findToken(14);
+
+        Assert.assertEquals(TokenizedStatement.PUNCTUATION,
+                tokens.getType(paren));
+        Assert.assertEquals(TokenizedStatement.NO_KEYWORD,
+                tokens.getKeywordId(tokens.nextToken(paren)));
+        Assert.assertEquals(TokenizedStatement.getKeywordId("ZONE"),
+                tokens.getKeywordId(tokens.findToken(26)));
+
+        final Parser parser = new Parser(tokens);
+        parser.expect("CREATE", "TABLE");
+        Assert.assertFalse(parser.expectOptional("TABLE"));
+        Assert.assertThat(parser.parseIdentifier(), IsEqual.equalTo("t"));
+        parser.expect("(");
+        Assert.assertFalse(parser.expectOptional("OIDS"));
+        Assert.assertTrue(parser.expectOptional("OIDS=true"));
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2006 StartNet s.r.o.
+ *
+ * Distributed under MIT license
+ */
+package cz.startnet.utils.pgdiff.schema;
+
+import cz.startnet.utils.pgdiff.loader.TestDumpLoader;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for fingerprints computed when dump is loaded.
+ *
+ * @author fordfrog
+ */
+public class FingerprintTest {
+
+    /**
+     * Dump with two tables.
+     */
+    private static final String DUMP = "CREATE TABLE t1 (\n"
+            + "    id integer NOT NULL,\n"
+            + "    name text\n"
+            + ");\n"
+            + "CREATE TABLE t2 (\n"
+            + "    id integer\n"
+            + ");\n"
+            + "ALTER TABLE ONLY t1\n"
+            + "    ADD CONSTRAINT t1_pkey PRIMARY KEY (id);\n"
+            + "CREATE INDEX t2_id ON t2 USING btree (id);\n";
+
+    @Test(timeout = 1000)
+    public void testSameDumpSameFingerprints() {
+        final PgSchema schema1 = TestDumpLoader.load(DUMP).getSchema("public");
+        final PgSchema schema2 = TestDumpLoader.load(DUMP).getSchema("public");
+
+        Assert.assertNotNull(schema1.getFingerprint());
+        Assert.assertTrue(Fingerprint.matches(
+                schema1.getFingerprint(), schema2.getFingerprint()));
+        Assert.assertTrue(Fingerprint.matches(
+                schema1.getTable("t1").getFingerprint(),
+                schema2.getTable("t1").getFingerprint()));
+    }
+
+    @Test(timeout = 1000)
+    public void testChangedColumn() {
+        final PgSchema schema1 = TestDumpLoader.load(DUMP).getSchema("public");
+        final PgSchema schema2 = TestDumpLoader.load(DUMP.replace("name text",
+                "name character varying(10)")).getSchema("public");
+
+        Assert.assertFalse(Fingerprint.matches(
+                schema1.getFingerprint(), schema2.getFingerprint()));
+        Assert.assertFalse(Fingerprint.matches(
+                schema1.getTable("t1").getFingerprint(),
+                schema2.getTable("t1").getFingerprint()));
+        Assert.assertFalse(Fingerprint.matches(
+                schema1.getTable("t1").getColumn("name").getFingerprint(),
+                schema2.getTable("t1").getColumn("name").getFingerprint()));
+        Assert.assertTrue(Fingerprint.matches(
+                schema1.getTable("t1").getColumn("id").getFingerprint(),
+                schema2.getTable("t1").getColumn("id").getFingerprint()));
+        Assert.assertTrue(Fingerprint.matches(
+                schema1.getTable("t2").getFingerprint(),
+                schema2.getTable("t2").getFingerprint()));
+    }
+}
@@ -0,0 +1,30 @@
+--
+-- Statements with semicolons and comment markers inside quotes and comments
+--
+
+SET client_encoding = 'UTF8';
+SET standard_conforming_strings = on;
+
+CREATE TABLE "semi;colon" (
+    id integer NOT NULL, -- trailing comment; with semicolon
+    "dash--name" text DEFAULT 'it''s; -- not a comment',
+    escaped text DEFAULT E'back\\slash \' ; quote',
+    /* block comment; spanning
+       several lines -- with dashes */
+    amount numeric(10,2) /* nested /* block; */ comment */ DEFAULT 0
+);
+
+CREATE FUNCTION add_one(integer) RETURNS integer
+    LANGUAGE plpgsql
+    AS $_$
+BEGIN
+    -- $1 is not a dollar tag; neither is this ;
+    RETURN $1 + 1; /* ; */
+END;
+$_$;
+
+CREATE FUNCTION nested_quotes() RETURNS text
+    LANGUAGE sql
+    AS $outer$SELECT $inner$;$inner$ || ';' || $$;$$$outer$;
+
+COMMENT ON TABLE "semi;colon" IS 'table; with -- odd /* name */';
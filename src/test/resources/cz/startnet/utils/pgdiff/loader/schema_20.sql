@@ -0,0 +1,22 @@
+CREATE TABLE public.t (
+    id integer,
+    txt text
+);
+
+COPY public.t (id, txt) FROM stdin;
+1	it's; unterminated 'quote
+2	-- not a comment; $$ not a dollar quote
+3	\\.
+4	/* not a comment
+\.
+
+CREATE TABLE public.t2 (
+    id integer
+);
+
+COPY public.t2 (id) FROM stdin;
+\.
+
+CREATE SEQUENCE public.s
+    START WITH 1
+    INCREMENT BY 1;
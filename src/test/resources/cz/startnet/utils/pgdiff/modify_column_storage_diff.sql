@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS testtable2 (
+	id integer NOT NULL
+);
+
+ALTER TABLE testtable2 OWNER TO fordfrog;
+
+ALTER TABLE ONLY testtable ALTER COLUMN name SET STORAGE EXTERNAL;
+
+ALTER TABLE ONLY testtable ALTER COLUMN description SET STORAGE MAIN;
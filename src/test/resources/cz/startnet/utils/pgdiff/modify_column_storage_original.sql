@@ -0,0 +1,28 @@
+--
+-- PostgreSQL database dump
+--
+
+SET client_encoding = 'UTF8';
+SET standard_conforming_strings = off;
+SET check_function_bodies = false;
+SET client_min_messages = warning;
+SET escape_string_warning = off;
+
+SET search_path = public, pg_catalog;
+
+SET default_tablespace = '';
+
+SET default_with_oids = false;
+
+CREATE TABLE testtable (
+    id integer NOT NULL,
+    name text,
+    description text
+);
+
+ALTER TABLE public.testtable OWNER TO fordfrog;
+
+--
+-- PostgreSQL database dump complete
+--
+